@@ -0,0 +1,20 @@
+// Concurrency stress tests, run with ./gradlew :jcstress:jcstress
+dependencies {
+  implementation(project(":mod"))
+
+  implementation(libs.jcstress.core)
+  annotationProcessor(libs.jcstress.core)
+}
+
+tasks.register<JavaExec>("jcstress") {
+  group = "verification"
+  description = "Runs the jcstress tests, pass more options with -Pjcstress.args=\"...\"."
+  val reportDir = layout.buildDirectory.dir("reports/jcstress")
+
+  dependsOn(tasks.named("classes"))
+  classpath = project.the<SourceSetContainer>()["main"].runtimeClasspath
+  mainClass.set("org.openjdk.jcstress.Main")
+  args("-r", reportDir.get().asFile.absolutePath)
+  (project.findProperty("jcstress.args") as String?)?.let { args(it.split(" ")) }
+  outputs.dir(reportDir)
+}
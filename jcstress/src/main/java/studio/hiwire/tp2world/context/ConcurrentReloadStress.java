@@ -0,0 +1,46 @@
+package studio.hiwire.tp2world.context;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+/**
+ * Two reloads at once, e.g. a command and the admin API. Both are applied one after the other, the
+ * last one applied wins and none is lost.
+ */
+@JCStressTest
+@Outcome(id = "3, 10", expect = ACCEPTABLE, desc = "First reload applied last")
+@Outcome(id = "3, 20", expect = ACCEPTABLE, desc = "Second reload applied last")
+@Outcome(expect = FORBIDDEN, desc = "A reload was lost")
+@State
+public class ConcurrentReloadStress {
+
+  private final ContextHolder<StressContext> holder = new ContextHolder<>();
+
+  public ConcurrentReloadStress() {
+    holder.publish(new StressContext(StressConfig.of(0, 0), new StressContext.StressService(), 1));
+  }
+
+  @Actor
+  public void reloadFromCommand() {
+    holder.update(context -> context.withConfig(StressConfig.of(10, 10)));
+  }
+
+  @Actor
+  public void reloadFromAdminApi() {
+    holder.update(context -> context.withConfig(StressConfig.of(20, 20)));
+  }
+
+  @Arbiter
+  public void settled(II_Result result) {
+    final var context = holder.get();
+    result.r1 = context.version();
+    result.r2 = context.config().notificationsPerTick;
+  }
+}
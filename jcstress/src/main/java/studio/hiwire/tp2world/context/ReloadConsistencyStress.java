@@ -0,0 +1,42 @@
+package studio.hiwire.tp2world.context;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+/**
+ * A config reload racing a teleport that reads two settings of the context it obtained once. The
+ * teleport sees the old or the new config as a whole, never one setting of each.
+ */
+@JCStressTest
+@Outcome(id = "100, 1, 1", expect = ACCEPTABLE, desc = "Old config")
+@Outcome(id = "200, 2, 2", expect = ACCEPTABLE, desc = "Reloaded config")
+@Outcome(expect = FORBIDDEN, desc = "Settings of both configs mixed")
+@State
+public class ReloadConsistencyStress {
+
+  private final ContextHolder<StressContext> holder = new ContextHolder<>();
+
+  public ReloadConsistencyStress() {
+    holder.publish(
+        new StressContext(StressConfig.of(100, 1), new StressContext.StressService(), 1));
+  }
+
+  @Actor
+  public void reload() {
+    holder.update(context -> context.withConfig(StressConfig.of(200, 2)));
+  }
+
+  @Actor
+  public void teleport(III_Result result) {
+    final var context = holder.get();
+    result.r1 = context.config().notificationsPerTick;
+    result.r2 = context.config().permissionCacheSize;
+    result.r3 = context.version();
+  }
+}
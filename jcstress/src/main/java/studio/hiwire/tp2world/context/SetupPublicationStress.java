@@ -0,0 +1,47 @@
+package studio.hiwire.tp2world.context;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+/**
+ * Plugin setup racing a teleport on a world thread. The world thread sees either no context yet or
+ * the fully set up one, never a context whose config or services are still at their defaults.
+ */
+@JCStressTest
+@Outcome(id = "-1, -1, -1", expect = ACCEPTABLE, desc = "Not set up yet")
+@Outcome(id = "7, 64, 16", expect = ACCEPTABLE, desc = "Fully set up")
+@Outcome(expect = FORBIDDEN, desc = "Partially constructed context visible")
+@State
+public class SetupPublicationStress {
+
+  private final ContextHolder<StressContext> holder = new ContextHolder<>();
+
+  @Actor
+  public void setup() {
+    final var service = new StressContext.StressService();
+    service.queueSize = 64;
+    service.buckets = new int[16];
+    holder.publish(new StressContext(StressConfig.of(7, 100), service, 1));
+  }
+
+  @Actor
+  public void teleport(III_Result result) {
+    final var context = holder.getOrNull();
+    if (context == null) {
+      result.r1 = -1;
+      result.r2 = -1;
+      result.r3 = -1;
+      return;
+    }
+    result.r1 = context.config().notificationsPerTick;
+    result.r2 = context.service().queueSize;
+    final var buckets = context.service().buckets;
+    result.r3 = buckets == null ? 0 : buckets.length;
+  }
+}
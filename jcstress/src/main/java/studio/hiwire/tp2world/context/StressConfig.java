@@ -0,0 +1,18 @@
+package studio.hiwire.tp2world.context;
+
+/**
+ * Stands in for the codec-built {@code Tp2WorldConfig}: plain non-final fields, set after
+ * construction and never changed once published.
+ */
+class StressConfig {
+
+  int notificationsPerTick;
+  int permissionCacheSize;
+
+  static StressConfig of(int notificationsPerTick, int permissionCacheSize) {
+    final var config = new StressConfig();
+    config.notificationsPerTick = notificationsPerTick;
+    config.permissionCacheSize = permissionCacheSize;
+    return config;
+  }
+}
@@ -0,0 +1,16 @@
+package studio.hiwire.tp2world.context;
+
+/** Stands in for {@code Tp2WorldContext}: a config plus a service with state set in setup. */
+record StressContext(StressConfig config, StressService service, int version) {
+
+  StressContext withConfig(StressConfig config) {
+    return new StressContext(config, service, version + 1);
+  }
+
+  /** A service whose plain fields are written before the context is published. */
+  static class StressService {
+
+    int queueSize;
+    int[] buckets;
+  }
+}
@@ -25,12 +25,27 @@ dependencies {
   testRuntimeOnly(libs.junit.platform.launcher)
 }
 
+// Parses the bundled translation files once at build time, see TranslationIndex
+val translationIndexDir = layout.buildDirectory.dir("generated/translationIndex")
+val buildTranslationIndex = tasks.register<JavaExec>("buildTranslationIndex") {
+  description = "Writes a pre-parsed index of the bundled translation files into the jar."
+  val resourcesDir = file("src/main/resources")
+  val indexFile = translationIndexDir.map { it.file("HiWire/Tp2World/translations.index") }
+
+  inputs.dir(resourcesDir.resolve("Server/Languages"))
+  outputs.dir(translationIndexDir)
+  dependsOn(tasks.named("compileJava"))
+  classpath = project.the<SourceSetContainer>()["main"].output.classesDirs
+  mainClass.set("studio.hiwire.tp2world.util.TranslationIndex")
+  args(resourcesDir.absolutePath, indexFile.get().asFile.absolutePath)
+}
+
 tasks.jar {
   archiveBaseName.set("hiwire-tp2world-mod")
+  from(buildTranslationIndex)
 }
 
-tasks.test {
-  useJUnitPlatform()
+tasks.withType<Test>().configureEach {
   systemProperty("java.util.logging.manager", "com.hypixel.hytale.logger.backend.HytaleLogManager")
   jvmArgs("-XX:+EnableDynamicAgentLoading")
   testLogging {
@@ -38,3 +53,22 @@ tasks.test {
     events("passed", "skipped", "failed")
   }
 }
+
+// Strict timing checks depend on the machine, every build only runs the coarse ones
+tasks.test {
+  useJUnitPlatform {
+    excludeTags("performance")
+  }
+}
+
+tasks.register<Test>("performanceTest") {
+  description = "Runs the timing checks of the mass teleport simulation against its baseline."
+  group = LifecycleBasePlugin.VERIFICATION_GROUP
+  val test = project.the<SourceSetContainer>()["test"]
+  testClassesDirs = test.output.classesDirs
+  classpath = test.runtimeClasspath
+  useJUnitPlatform {
+    includeTags("performance")
+  }
+  shouldRunAfter(tasks.test)
+}
@@ -5,6 +5,7 @@ import com.hypixel.hytale.common.plugin.PluginManifest;
 import com.hypixel.hytale.common.semver.SemverRange;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.util.Config;
 import com.hypixel.hytale.server.core.util.io.FileUtil;
 import java.io.FileWriter;
@@ -16,19 +17,50 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.bson.BsonDocument;
 import org.bson.json.JsonMode;
 import org.bson.json.JsonWriterSettings;
 import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+import studio.hiwire.tp2world.admin.AdminHttpServer;
+import studio.hiwire.tp2world.arrival.ArrivalTracker;
+import studio.hiwire.tp2world.balance.WorldGroupSampler;
+import studio.hiwire.tp2world.balance.WorldGroups;
+import studio.hiwire.tp2world.cluster.ClusterService;
 import studio.hiwire.tp2world.command.Tp2WorldCommand;
+import studio.hiwire.tp2world.completion.NameIndex;
 import studio.hiwire.tp2world.config.Tp2WorldConfig;
+import studio.hiwire.tp2world.context.ContextHolder;
+import studio.hiwire.tp2world.context.Tp2WorldContext;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.event.TeleportEvents;
+import studio.hiwire.tp2world.instance.InstanceManager;
+import studio.hiwire.tp2world.instance.InstanceTemplates;
+import studio.hiwire.tp2world.join.JoinRouter;
+import studio.hiwire.tp2world.join.JoinRouting;
+import studio.hiwire.tp2world.lastlocation.LastLocations;
+import studio.hiwire.tp2world.notify.NotificationQueue;
+import studio.hiwire.tp2world.permission.WorldPermissions;
+import studio.hiwire.tp2world.position.PositionBoard;
+import studio.hiwire.tp2world.region.PortalRegionSystem;
+import studio.hiwire.tp2world.region.PortalRegions;
+import studio.hiwire.tp2world.residency.ResidencyManager;
+import studio.hiwire.tp2world.spawn.SpawnOccupancySystem;
+import studio.hiwire.tp2world.spawn.SpawnSets;
+import studio.hiwire.tp2world.teleport.TeleportCounters;
 import studio.hiwire.tp2world.util.TranslationFileManager;
 
 public class Tp2WorldPlugin extends JavaPlugin {
 
-  private static Tp2WorldPlugin INSTANCE;
+  private static volatile Tp2WorldPlugin INSTANCE;
+
+  /** Published at the end of {@link #setup}, replaced by {@link #reloadConfig}. */
+  private static final ContextHolder<Tp2WorldContext> CONTEXT = new ContextHolder<>();
+
   public static final String PREFIX = "[HiWire:Tp2World]";
   private static final Path OLD_OVERRIDES_PATH = Path.of("overrides");
   private static final Path OVERRIDES_MOD_PATH = Path.of("HiWire_Tp2World_Overrides");
@@ -36,7 +68,25 @@ public class Tp2WorldPlugin extends JavaPlugin {
       List.of("HiWire.Tp2World.ChatMessages.lang", "HiWire.Tp2World.Commands.lang");
   private static final List<String> SUPPORTED_LANGUAGES = List.of("en-US", "de-DE");
 
+  /** Milliseconds between two drains of the notification queue, one server tick. */
+  private static final long NOTIFICATION_DRAIN_MILLIS = 50;
+
   private final Config<Tp2WorldConfig> config = withConfig(Tp2WorldConfig.CODEC);
+  private final NameIndex nameIndex = new NameIndex(() -> context().config().getMaxCompletions());
+  private WorldDispatcher dispatcher;
+  private ArrivalTracker arrivals;
+  private WorldPermissions worldPermissions;
+  private ClusterService cluster;
+  private WorldGroupSampler worldGroupSampler;
+  @Nullable private LastLocations lastLocations;
+  private ResidencyManager residency;
+  private PositionBoard positions;
+  private SpawnSets spawnSets;
+  private InstanceManager instances;
+  private NotificationQueue notifications;
+  private TeleportEvents teleportEvents;
+  private TeleportCounters teleportCounters;
+  @Nullable private AdminHttpServer adminServer;
 
   public Tp2WorldPlugin(@NonNullDecl JavaPluginInit init) throws IOException {
     super(init);
@@ -54,21 +104,266 @@ public class Tp2WorldPlugin extends JavaPlugin {
       getLogger().at(Level.WARNING).withCause(e).log("Failed to save config");
     }
 
+    // Other plugins may veto or follow teleports from here on
+    teleportEvents = new TeleportEvents(getLogger());
+    teleportCounters = new TeleportCounters();
+
+    // Batches tp2world work per world thread
+    dispatcher = new WorldDispatcher(getLogger());
+    dispatcher.register(getEventRegistry());
+
+    // Follows teleports until the player arrived, polling starts in start()
+    arrivals =
+        new ArrivalTracker(
+            dispatcher, () -> context().config().getArrivalTimeoutMillis(), getLogger());
+    arrivals.register(getEventRegistry());
+
+    // Last location per player and world, only kept if players return to it
+    if (getConfig().isReturnToLastLocation()) {
+      lastLocations =
+          new LastLocations(
+              getDataDirectory().resolve(LastLocations.DIRECTORY),
+              getConfig().getLastLocationFlushMillis(),
+              getLogger());
+      lastLocations.register(getEventRegistry());
+    }
+
+    // Per-world permissions with cached decisions
+    worldPermissions =
+        new WorldPermissions(
+            getConfig().getPermissionCacheSize(), () -> context().config().isPerWorldPermissions());
+    worldPermissions.register(getEventRegistry());
+
+    // Keep the tab completion index up to date
+    nameIndex.register(getEventRegistry());
+
+    // Worlds on other nodes, joined in start() once the universe is up
+    cluster = new ClusterService(getConfig().getCluster(), getLogger());
+
+    // Join routing rules are compiled once and evaluated on every connect
+    final var joinRouting =
+        JoinRouting.compile(
+            getConfig().getJoinRoutes(), warning -> getLogger().at(Level.WARNING).log(warning));
+    new JoinRouter(joinRouting, cluster).register(getEventRegistry());
+
+    // Portal regions are indexed per world, the system is only added if there are any
+    final var portalRegions =
+        PortalRegions.compile(
+            getConfig().getPortalRegions(),
+            getConfig().getRegionCellSize(),
+            warning -> getLogger().at(Level.WARNING).log(warning));
+    if (!portalRegions.isEmpty()) {
+      final var portalRegionSystem =
+          new PortalRegionSystem(portalRegions, dispatcher, arrivals, getLogger());
+      portalRegionSystem.register(getEventRegistry());
+      getEntityStoreRegistry().registerSystem(portalRegionSystem);
+    }
+
+    // Spawn sets, players around their points are only counted if there are any
+    spawnSets =
+        SpawnSets.compile(
+            getConfig().getSpawnSets(),
+            getConfig().getSpawnCellSize(),
+            warning -> getLogger().at(Level.WARNING).log(warning));
+    if (!spawnSets.isEmpty()) {
+      final var spawnOccupancySystem = new SpawnOccupancySystem(spawnSets);
+      spawnOccupancySystem.register(getEventRegistry());
+      getEntityStoreRegistry().registerSystem(spawnOccupancySystem);
+      getEntityStoreRegistry().registerSystem(spawnOccupancySystem.leaveSystem());
+    }
+
+    // World groups, their load is sampled once the universe is up
+    final var worldGroups =
+        WorldGroups.compile(
+            getConfig().getWorldGroups(), warning -> getLogger().at(Level.WARNING).log(warning));
+    worldGroupSampler =
+        new WorldGroupSampler(worldGroups, getConfig().getWorldLoadSampleMillis(), getLogger());
+
+    // Keeps pinned worlds loaded and unloads idle ones, checks start once the universe is up
+    residency =
+        new ResidencyManager(
+            List.of(getConfig().getPinnedWorlds()),
+            getConfig().getWorldIdleUnloadMillis(),
+            getConfig().getWorldMemoryBudgetMb(),
+            getConfig().getResidencyCheckMillis(),
+            arrivals.getPending(),
+            getLogger());
+    residency.register(getEventRegistry());
+
+    // Instance templates, warm pools are filled once the universe is up
+    instances =
+        new InstanceManager(
+            InstanceTemplates.compile(
+                getConfig().getInstanceTemplates(),
+                warning -> getLogger().at(Level.WARNING).log(warning)),
+            Path.of(getConfig().getWorldsDirectory()),
+            getConfig().getInstanceRefillMillis(),
+            getConfig().getInstanceReclaimMillis(),
+            residency,
+            getLogger());
+
+    // Player positions published per world, readable from any thread
+    positions = new PositionBoard(getConfig().getPositionSnapshotMillis(), dispatcher, getLogger());
+    positions.register(getEventRegistry());
+
+    // Chat messages to the players of batch operations, sent a few per tick
+    notifications =
+        new NotificationQueue(
+            getConfig().getNotificationQueueSize(),
+            getConfig().getNotificationsPerTick(),
+            NOTIFICATION_DRAIN_MILLIS,
+            getLogger());
+
+    // Metrics and teleports over HTTP for orchestration tools
+    if (getConfig().isHttpEnabled()) {
+      adminServer =
+          new AdminHttpServer(
+              getConfig().getHttpBindAddress(),
+              getConfig().getHttpPort(),
+              getConfig().getHttpToken(),
+              dispatcher,
+              arrivals,
+              notifications,
+              teleportCounters,
+              getLogger());
+    }
+
     // Register commands
-    getCommandRegistry().registerCommand(new Tp2WorldCommand());
+    getCommandRegistry()
+        .registerCommand(
+            new Tp2WorldCommand(
+                nameIndex,
+                cluster,
+                worldGroups,
+                dispatcher,
+                arrivals,
+                residency,
+                positions,
+                instances,
+                notifications));
+
+    // Last, everything above is visible to threads that obtain the context
+    CONTEXT.publish(
+        new Tp2WorldContext(
+            getConfig(),
+            dispatcher,
+            arrivals,
+            worldPermissions,
+            spawnSets,
+            lastLocations,
+            notifications,
+            teleportEvents,
+            teleportCounters));
   }
 
   @Override
-  protected void shutdown() {}
+  protected void start() {
+    // Worlds and players that existed before our listeners were registered
+    nameIndex.seed(Universe.get());
+
+    cluster.start(getEventRegistry());
+    worldGroupSampler.start();
+    arrivals.start();
+    residency.start();
+    positions.start();
+    instances.start();
+    notifications.start();
+    if (lastLocations != null) {
+      lastLocations.start();
+    }
+    if (adminServer != null) {
+      adminServer.start();
+    }
+  }
+
+  @Override
+  protected void shutdown() {
+    if (adminServer != null) {
+      adminServer.stop();
+    }
+    if (lastLocations != null) {
+      lastLocations.stop();
+    }
+    positions.stop();
+    instances.stop();
+    notifications.stop();
+    arrivals.stop();
+    residency.stop();
+    worldGroupSampler.stop();
+    cluster.stop();
+  }
 
   public static Tp2WorldPlugin get() {
     return INSTANCE;
   }
 
+  /**
+   * Runtime context for the teleport paths, obtain it once per operation.
+   *
+   * @return the context published at the end of setup, or after the last config reload
+   * @throws IllegalStateException if the plugin is not set up yet
+   */
+  public static Tp2WorldContext context() {
+    return CONTEXT.get();
+  }
+
   public Tp2WorldConfig getConfig() {
     return config.get();
   }
 
+  /**
+   * Reads the config file again and publishes it to the context, see {@code /tp2world reload}.
+   * Settings read per teleport apply right away. Services compiled from the config in setup keep
+   * their settings until the next restart, cached permission decisions are dropped.
+   *
+   * @return future completed once the new config is published, exceptionally if it can't be read
+   */
+  @Nonnull
+  public CompletableFuture<Tp2WorldConfig> reloadConfig() {
+    return config
+        .load()
+        .thenApply(
+            loaded -> {
+              CONTEXT.update(context -> context.withConfig(loaded));
+              worldPermissions.invalidateAll();
+              return loaded;
+            });
+  }
+
+  public WorldPermissions getWorldPermissions() {
+    return worldPermissions;
+  }
+
+  public ArrivalTracker getArrivals() {
+    return arrivals;
+  }
+
+  public SpawnSets getSpawnSets() {
+    return spawnSets;
+  }
+
+  /**
+   * @return the listeners of tp2world teleports, for other plugins
+   */
+  public TeleportEvents getTeleportEvents() {
+    return teleportEvents;
+  }
+
+  /**
+   * @return the teleport counts per world and result
+   */
+  public TeleportCounters getTeleportCounters() {
+    return teleportCounters;
+  }
+
+  /**
+   * @return the last locations, or null if {@code ReturnToLastLocation} is disabled
+   */
+  @Nullable
+  public LastLocations getLastLocations() {
+    return lastLocations;
+  }
+
   private void createOverrideModFiles() throws IOException {
     createOverrideModManifest();
     migrateOldTranslationFiles();
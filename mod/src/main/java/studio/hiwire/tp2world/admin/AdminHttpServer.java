@@ -0,0 +1,327 @@
+package studio.hiwire.tp2world.admin;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.arrival.ArrivalTracker;
+import studio.hiwire.tp2world.bulk.BulkTeleportJob;
+import studio.hiwire.tp2world.bulk.ManifestParser;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.notify.NotificationQueue;
+import studio.hiwire.tp2world.teleport.TeleportCounters;
+
+/**
+ * Optional HTTP endpoint for orchestration tools, on the JDK's {@link HttpServer} with one virtual
+ * thread per request.
+ *
+ * <ul>
+ *   <li>{@code GET /metrics} - teleport counts, arrival latency histograms and queue depths in the
+ *       Prometheus text format
+ *   <li>{@code POST /teleport} - one request {@code {"player": "...", "world": "..."}} or a batch
+ *       {@code {"requests": [...], "silent": true}}, with the fields of a JSON lines bulk manifest.
+ *       A body sent as {@code application/x-ndjson} is taken as a JSON lines manifest as is. Runs
+ *       as a bulk teleport job and answers with its summary once it finished
+ * </ul>
+ *
+ * If a token is configured, every request needs an {@code Authorization: Bearer <token>} header.
+ * Without a token the endpoint only starts on a loopback address.
+ */
+public class AdminHttpServer {
+
+  /** Largest accepted request body. */
+  private static final int MAX_BODY_BYTES = 4 * 1024 * 1024;
+
+  /** Seconds a teleport request may take on top of the configured interval between its chunks. */
+  private static final long RESPONSE_SLACK_SECONDS = 60;
+
+  @Nonnull private final String bindAddress;
+  private final int port;
+  @Nullable private final byte[] token;
+  @Nonnull private final WorldDispatcher dispatcher;
+  @Nonnull private final ArrivalTracker arrivals;
+  @Nonnull private final NotificationQueue notifications;
+  @Nonnull private final TeleportCounters teleportCounters;
+  @Nonnull private final HytaleLogger logger;
+  @Nullable private HttpServer server;
+  @Nullable private ExecutorService executor;
+
+  /**
+   * @param bindAddress interface to listen on, e.g. 127.0.0.1
+   * @param port port to listen on
+   * @param token bearer token required on every request, empty for none
+   * @param dispatcher runs the teleports and reports its queue depths
+   * @param arrivals source of the arrival metrics
+   * @param notifications notifies teleported players, reports its depth
+   * @param teleportCounters source of the teleport counts
+   * @param logger logger for server failures
+   */
+  public AdminHttpServer(
+      @Nonnull String bindAddress,
+      int port,
+      @Nonnull String token,
+      @Nonnull WorldDispatcher dispatcher,
+      @Nonnull ArrivalTracker arrivals,
+      @Nonnull NotificationQueue notifications,
+      @Nonnull TeleportCounters teleportCounters,
+      @Nonnull HytaleLogger logger) {
+    this.bindAddress = bindAddress;
+    this.port = port;
+    this.token = token.isEmpty() ? null : token.getBytes(StandardCharsets.UTF_8);
+    this.dispatcher = dispatcher;
+    this.arrivals = arrivals;
+    this.notifications = notifications;
+    this.teleportCounters = teleportCounters;
+    this.logger = logger;
+  }
+
+  public void start() {
+    final var address = new InetSocketAddress(bindAddress, port);
+    if (token == null && (address.isUnresolved() || !address.getAddress().isLoopbackAddress())) {
+      // Command permissions don't apply here, anyone who can reach it could teleport players
+      logger.at(Level.WARNING).log(
+          "Not starting admin HTTP endpoint on "
+              + bindAddress
+              + ":"
+              + port
+              + ", set HttpToken to listen on an address other than loopback");
+      return;
+    }
+    try {
+      final var created = HttpServer.create(address, 0);
+      created.createContext("/metrics", exchange -> handle(exchange, "GET", this::metrics));
+      created.createContext("/teleport", exchange -> handle(exchange, "POST", this::teleport));
+      executor = Executors.newVirtualThreadPerTaskExecutor();
+      created.setExecutor(executor);
+      created.start();
+      server = created;
+      logger.at(Level.INFO).log("Admin HTTP endpoint listening on " + bindAddress + ":" + port);
+    } catch (IOException e) {
+      logger.at(Level.WARNING).withCause(e).log(
+          "Failed to start admin HTTP endpoint on " + bindAddress + ":" + port);
+    }
+  }
+
+  public void stop() {
+    if (server != null) {
+      server.stop(0);
+      server = null;
+    }
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  @FunctionalInterface
+  private interface Handler {
+    void handle(@Nonnull HttpExchange exchange) throws IOException;
+  }
+
+  private void handle(
+      @Nonnull HttpExchange exchange, @Nonnull String method, @Nonnull Handler handler)
+      throws IOException {
+    try (exchange) {
+      if (!authorized(exchange)) {
+        exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+        sendError(exchange, 401, "missing or wrong token");
+        return;
+      }
+      if (!exchange.getRequestMethod().equals(method)) {
+        exchange.getResponseHeaders().set("Allow", method);
+        sendError(exchange, 405, "use " + method);
+        return;
+      }
+      handler.handle(exchange);
+    } catch (RuntimeException e) {
+      logger.at(Level.WARNING).withCause(e).log("Admin HTTP request failed");
+    }
+  }
+
+  private boolean authorized(@Nonnull HttpExchange exchange) {
+    if (token == null) {
+      return true;
+    }
+    final var header = exchange.getRequestHeaders().getFirst("Authorization");
+    if (header == null || !header.startsWith("Bearer ")) {
+      return false;
+    }
+    // Constant time, the token is a secret
+    return MessageDigest.isEqual(
+        token, header.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void metrics(@Nonnull HttpExchange exchange) throws IOException {
+    final var body =
+        new MetricsExporter()
+            .teleports(teleportCounters.snapshot())
+            .arrivals(arrivals.getMetrics().snapshot())
+            .queueDepths(dispatcher.queueDepths())
+            .value(
+                "tp2world_pending_arrivals",
+                "gauge",
+                "Teleports still waiting for the player to arrive.",
+                arrivals.getPending().size())
+            .value(
+                "tp2world_notification_queue_depth",
+                "gauge",
+                "Chat messages to teleported players waiting to be sent.",
+                notifications.size())
+            .value(
+                "tp2world_notifications_dropped_total",
+                "counter",
+                "Chat messages dropped because the notification queue was full.",
+                notifications.getDropped())
+            .toString();
+    send(exchange, 200, MetricsExporter.CONTENT_TYPE, body);
+  }
+
+  private void teleport(@Nonnull HttpExchange exchange) throws IOException {
+    final var bytes = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+    if (bytes.length > MAX_BODY_BYTES) {
+      sendError(exchange, 413, "request body larger than " + MAX_BODY_BYTES + " bytes");
+      return;
+    }
+
+    // Every request becomes one JSON lines manifest row
+    final var body = new String(bytes, StandardCharsets.UTF_8);
+    final var lines = new ArrayList<String>();
+    boolean silent = false;
+    final var contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+    if (contentType != null && contentType.contains("ndjson")) {
+      // Already a manifest, malformed lines are rejected by the parser
+      body.lines().forEach(lines::add);
+    } else {
+      final BsonDocument request;
+      try {
+        request = BsonDocument.parse(body);
+      } catch (JsonParseException | IllegalArgumentException e) {
+        sendError(exchange, 400, "body is not a JSON object");
+        return;
+      }
+      final var requests = request.get("requests");
+      if (requests == null) {
+        lines.add(request.toJson());
+      } else if (requests.isArray()) {
+        for (BsonValue value : requests.asArray()) {
+          // A non-object element is rejected as a malformed row by the parser
+          lines.add(value.isDocument() ? value.asDocument().toJson() : value.toString());
+        }
+      } else {
+        sendError(exchange, 400, "requests must be an array");
+        return;
+      }
+      final var silentValue = request.get("silent");
+      silent = silentValue != null && silentValue.isBoolean() && silentValue.asBoolean().getValue();
+    }
+
+    final var plugin = Tp2WorldPlugin.get();
+    final var config = Tp2WorldPlugin.context().config();
+    final var done = new CompletableFuture<BulkTeleportJob.Progress>();
+    final var job =
+        new BulkTeleportJob(
+            "HTTP request from " + exchange.getRemoteAddress(),
+            () -> new BufferedReader(new StringReader(String.join("\n", lines))),
+            null,
+            ManifestParser.Format.JSON_LINES,
+            config.getBulkBatchSize(),
+            config.getBulkIntervalMillis(),
+            dispatcher,
+            // Nobody invoked it, so every player needs the self node of the world
+            Tp2WorldPlugin.context().worldPermissions().mover(null),
+            progress -> {
+              if (progress.done()) {
+                done.complete(progress);
+              }
+            },
+            config.isNotifyTeleportedPlayer() && !silent ? notifications::movedToWorld : null,
+            plugin.getLogger());
+    job.start();
+
+    // Blocks a virtual thread only, a stalled job must not hold the connection forever
+    final int batchSize = Math.max(1, config.getBulkBatchSize());
+    final long chunks = (lines.size() + batchSize - 1) / batchSize;
+    final long timeoutMillis =
+        chunks * Math.max(0, config.getBulkIntervalMillis())
+            + TimeUnit.SECONDS.toMillis(RESPONSE_SLACK_SECONDS);
+    final BulkTeleportJob.Progress progress;
+    try {
+      progress = done.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      sendError(exchange, 504, "teleport did not finish in time, it goes on in the background");
+      return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      sendError(exchange, 503, "server is stopping");
+      return;
+    } catch (ExecutionException e) {
+      sendError(exchange, 500, "teleport failed");
+      return;
+    }
+
+    if (progress.aborted()) {
+      // Logged by the job, the rows read so far may have been teleported
+      sendError(exchange, 500, "teleport failed after " + progress.teleported() + " teleport(s)");
+      return;
+    }
+
+    final var response = new BsonDocument();
+    response.put("read", new BsonInt32(progress.read()));
+    response.put("teleported", new BsonInt32(progress.teleported()));
+    response.put("failed", new BsonInt32(progress.failed()));
+    response.put("worlds", counts(progress.summary().worlds()));
+    response.put("failures", counts(progress.summary().failures()));
+    send(exchange, 200, "application/json", response.toJson());
+  }
+
+  @Nonnull
+  private static BsonDocument counts(@Nonnull Map<String, Integer> counts) {
+    final var document = new BsonDocument();
+    for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+      document.put(entry.getKey(), new BsonInt32(entry.getValue()));
+    }
+    return document;
+  }
+
+  private static void sendError(@Nonnull HttpExchange exchange, int status, @Nonnull String error)
+      throws IOException {
+    send(
+        exchange,
+        status,
+        "application/json",
+        new BsonDocument("error", new BsonString(error)).toJson());
+  }
+
+  private static void send(
+      @Nonnull HttpExchange exchange, int status, @Nonnull String contentType, @Nonnull String body)
+      throws IOException {
+    final var bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (var out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package studio.hiwire.tp2world.admin;
+
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import studio.hiwire.tp2world.arrival.Arrival;
+import studio.hiwire.tp2world.arrival.ArrivalMetrics;
+import studio.hiwire.tp2world.teleport.Tp2WorldTeleporter;
+
+/**
+ * Writes tp2world metrics in the Prometheus text exposition format (version 0.0.4). Only formats
+ * values that were sampled elsewhere, so it can be called from any thread.
+ */
+public final class MetricsExporter {
+
+  /** Content type of the exposition format. */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final StringBuilder out = new StringBuilder(4096);
+
+  /**
+   * @param teleports teleport calls per target world, see {@link
+   *     studio.hiwire.tp2world.teleport.TeleportCounters#snapshot}
+   */
+  @Nonnull
+  public MetricsExporter teleports(@Nonnull Map<String, long[]> teleports) {
+    header(
+        "tp2world_teleports_total", "counter", "Teleports started by tp2world per target world.");
+    final var statuses = Tp2WorldTeleporter.Result.Status.values();
+    for (Map.Entry<String, long[]> entry : teleports.entrySet()) {
+      for (Tp2WorldTeleporter.Result.Status status : statuses) {
+        sample(
+            "tp2world_teleports_total",
+            "world",
+            entry.getKey(),
+            "status",
+            name(status),
+            entry.getValue()[status.ordinal()]);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * @param arrivals arrival statistics per target world, see {@link ArrivalMetrics#snapshot}
+   */
+  @Nonnull
+  public MetricsExporter arrivals(@Nonnull Map<String, ArrivalMetrics.Snapshot> arrivals) {
+    header("tp2world_arrivals_total", "counter", "Tracked teleports per target world and outcome.");
+    for (Map.Entry<String, ArrivalMetrics.Snapshot> entry : arrivals.entrySet()) {
+      for (Arrival.Status status : Arrival.Status.values()) {
+        sample(
+            "tp2world_arrivals_total",
+            "world",
+            entry.getKey(),
+            "outcome",
+            name(status),
+            entry.getValue().count(status));
+      }
+    }
+
+    header(
+        "tp2world_arrival_latency_seconds",
+        "histogram",
+        "Time from the start of a teleport until the player was seen in the target world.");
+    for (Map.Entry<String, ArrivalMetrics.Snapshot> entry : arrivals.entrySet()) {
+      final var snapshot = entry.getValue();
+      long cumulative = 0;
+      for (int i = 0; i < snapshot.buckets().length; i++) {
+        cumulative += snapshot.buckets()[i];
+        final var bound =
+            i < ArrivalMetrics.BUCKET_BOUNDS_MILLIS.length
+                ? Double.toString(ArrivalMetrics.BUCKET_BOUNDS_MILLIS[i] / 1000.0)
+                : "+Inf";
+        sample(
+            "tp2world_arrival_latency_seconds_bucket",
+            "world",
+            entry.getKey(),
+            "le",
+            bound,
+            cumulative);
+      }
+      sample(
+          "tp2world_arrival_latency_seconds_sum",
+          "world",
+          entry.getKey(),
+          snapshot.latencySumNanos() / 1e9);
+      sample("tp2world_arrival_latency_seconds_count", "world", entry.getKey(), cumulative);
+    }
+    return this;
+  }
+
+  /**
+   * @param depths queued world thread tasks per world, see {@link
+   *     studio.hiwire.tp2world.dispatch.WorldDispatcher#queueDepths}
+   */
+  @Nonnull
+  public MetricsExporter queueDepths(@Nonnull Map<String, Integer> depths) {
+    header(
+        "tp2world_dispatch_queue_depth", "gauge", "tp2world tasks waiting for their world thread.");
+    for (Map.Entry<String, Integer> entry : depths.entrySet()) {
+      sample("tp2world_dispatch_queue_depth", "world", entry.getKey(), entry.getValue());
+    }
+    return this;
+  }
+
+  /**
+   * Adds a metric without labels.
+   *
+   * @param type {@code gauge} or {@code counter}
+   */
+  @Nonnull
+  public MetricsExporter value(
+      @Nonnull String name, @Nonnull String type, @Nonnull String help, double value) {
+    header(name, type, help);
+    out.append(name).append(' ').append(format(value)).append('\n');
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return out.toString();
+  }
+
+  private void header(@Nonnull String name, @Nonnull String type, @Nonnull String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private void sample(
+      @Nonnull String name, @Nonnull String label, @Nonnull String value, double sample) {
+    out.append(name).append('{');
+    appendLabel(label, value);
+    out.append("} ").append(format(sample)).append('\n');
+  }
+
+  private void sample(
+      @Nonnull String name,
+      @Nonnull String label1,
+      @Nonnull String value1,
+      @Nonnull String label2,
+      @Nonnull String value2,
+      double sample) {
+    out.append(name).append('{');
+    appendLabel(label1, value1);
+    out.append(',');
+    appendLabel(label2, value2);
+    out.append("} ").append(format(sample)).append('\n');
+  }
+
+  private void appendLabel(@Nonnull String label, @Nonnull String value) {
+    out.append(label).append("=\"");
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '\\' -> out.append("\\\\");
+        case '"' -> out.append("\\\"");
+        case '\n' -> out.append("\\n");
+        default -> out.append(c);
+      }
+    }
+    out.append('"');
+  }
+
+  @Nonnull
+  private static String format(double value) {
+    // Counters and gauges are mostly whole numbers, don't print them as 12.0
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      return Long.toString((long) value);
+    }
+    return Double.toString(value);
+  }
+
+  @Nonnull
+  private static String name(@Nonnull Enum<?> status) {
+    return status.name().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,31 @@
+package studio.hiwire.tp2world.arrival;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Outcome of one tracked teleport.
+ *
+ * @param status how the teleport ended
+ * @param worldName the target world
+ * @param latencyNanos time from the start of the teleport until it ended
+ */
+public record Arrival(@Nonnull Status status, @Nonnull String worldName, long latencyNanos) {
+  public enum Status {
+    /** The player was observed in the target world. */
+    ARRIVED,
+    /** The player was not observed in the target world before the timeout. */
+    TIMED_OUT,
+    /** The player disconnected before arriving. */
+    DISCONNECTED,
+    /** A newer teleport of the same player replaced this one. */
+    REPLACED
+  }
+
+  public boolean isSuccess() {
+    return status == Status.ARRIVED;
+  }
+
+  public double latencyMillis() {
+    return latencyNanos / 1_000_000.0;
+  }
+}
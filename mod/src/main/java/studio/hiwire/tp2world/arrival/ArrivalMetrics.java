@@ -0,0 +1,109 @@
+package studio.hiwire.tp2world.arrival;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+
+/**
+ * Per-world arrival statistics: outcome counters and a latency histogram with fixed buckets.
+ * Recording is lock-free and allocation-free once a world has been seen.
+ */
+public class ArrivalMetrics {
+
+  /** Upper bounds of the latency buckets in milliseconds, the last bucket is unbounded. */
+  public static final long[] BUCKET_BOUNDS_MILLIS = {
+    5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000
+  };
+
+  private final Map<String, WorldStats> worlds = new ConcurrentHashMap<>();
+
+  private static final class WorldStats {
+    private final LongAdder[] outcomes = new LongAdder[Arrival.Status.values().length];
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+    private final LongAdder latencySumNanos = new LongAdder();
+    private final AtomicLong latencyMaxNanos = new AtomicLong();
+
+    private WorldStats() {
+      for (int i = 0; i < outcomes.length; i++) {
+        outcomes[i] = new LongAdder();
+      }
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+  }
+
+  /**
+   * Records an arrival. Only successful arrivals count towards the latency histogram.
+   *
+   * @param arrival the outcome of a tracked teleport
+   */
+  public void record(@Nonnull Arrival arrival) {
+    final var key = arrival.worldName().toLowerCase(Locale.ROOT);
+    var stats = worlds.get(key);
+    if (stats == null) {
+      stats = worlds.computeIfAbsent(key, ignored -> new WorldStats());
+    }
+
+    stats.outcomes[arrival.status().ordinal()].increment();
+    if (arrival.isSuccess()) {
+      final long latencyNanos = arrival.latencyNanos();
+      stats.buckets[bucket(latencyNanos / 1_000_000)].increment();
+      stats.latencySumNanos.add(latencyNanos);
+      stats.latencyMaxNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+  }
+
+  /**
+   * @return the statistics of all worlds, sorted by world name
+   */
+  @Nonnull
+  public Map<String, Snapshot> snapshot() {
+    final var result = new TreeMap<String, Snapshot>();
+    for (Map.Entry<String, WorldStats> entry : worlds.entrySet()) {
+      final var stats = entry.getValue();
+      final var outcomes = new long[stats.outcomes.length];
+      for (int i = 0; i < outcomes.length; i++) {
+        outcomes[i] = stats.outcomes[i].sum();
+      }
+      final var buckets = new long[stats.buckets.length];
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = stats.buckets[i].sum();
+      }
+      result.put(
+          entry.getKey(),
+          new Snapshot(
+              outcomes, buckets, stats.latencySumNanos.sum(), stats.latencyMaxNanos.get()));
+    }
+    return result;
+  }
+
+  static int bucket(long latencyMillis) {
+    for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+      if (latencyMillis <= BUCKET_BOUNDS_MILLIS[i]) {
+        return i;
+      }
+    }
+    return BUCKET_BOUNDS_MILLIS.length;
+  }
+
+  /**
+   * Statistics of one world at one point in time.
+   *
+   * @param outcomes count per {@link Arrival.Status}, indexed by ordinal
+   * @param buckets arrivals per latency bucket (not cumulative), see {@link #BUCKET_BOUNDS_MILLIS}
+   * @param latencySumNanos sum of all arrival latencies
+   * @param latencyMaxNanos highest arrival latency
+   */
+  public record Snapshot(
+      long[] outcomes, long[] buckets, long latencySumNanos, long latencyMaxNanos) {
+
+    public long count(@Nonnull Arrival.Status status) {
+      return outcomes[status.ordinal()];
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package studio.hiwire.tp2world.arrival;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.event.events.player.AddPlayerToWorldEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
+import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.dispatch.WorldTask;
+
+/**
+ * Follows teleports until the player is observed in the target world.
+ *
+ * <ul>
+ *   <li>Teleports into another world end when the player is added to the target world
+ *   <li>Teleports within the same world cause no event; they end once the player's {@link Teleport}
+ *       component was consumed, which is checked on the world thread every poll
+ *   <li>Teleports end early if the player disconnects, and time out otherwise
+ * </ul>
+ */
+public class ArrivalTracker {
+
+  /** Milliseconds between two timeout and same-world checks. */
+  private static final long POLL_MILLIS = 50;
+
+  @Nonnull private final WorldDispatcher dispatcher;
+  @Nonnull private final LongSupplier timeoutMillis;
+  @Nonnull private final HytaleLogger logger;
+  @Getter @Nonnull private final ArrivalMetrics metrics = new ArrivalMetrics();
+  @Getter @Nonnull private final PendingArrivals pending = new PendingArrivals(metrics);
+  private final Map<UUID, SameWorldCheck> sameWorldChecks = new ConcurrentHashMap<>();
+  @Nullable private ScheduledFuture<?> pollTask;
+
+  /**
+   * @param dispatcher runs the same-world checks on the world threads
+   * @param timeoutMillis how long a player has to arrive, read for every teleport
+   * @param logger logger for polling failures
+   */
+  public ArrivalTracker(
+      @Nonnull WorldDispatcher dispatcher,
+      @Nonnull LongSupplier timeoutMillis,
+      @Nonnull HytaleLogger logger) {
+    this.dispatcher = dispatcher;
+    this.timeoutMillis = timeoutMillis;
+    this.logger = logger;
+  }
+
+  /**
+   * Registers the event listeners that observe arrivals and disconnects.
+   *
+   * @param eventRegistry the plugin's event registry
+   */
+  public void register(@Nonnull EventRegistry eventRegistry) {
+    eventRegistry.registerGlobal(
+        AddPlayerToWorldEvent.class,
+        event -> {
+          final var playerRef = event.getHolder().getComponent(PlayerRef.getComponentType());
+          if (playerRef != null) {
+            pending.arrived(playerRef.getUuid(), event.getWorld().getName(), System.nanoTime());
+          }
+        });
+    eventRegistry.register(
+        PlayerDisconnectEvent.class,
+        event -> {
+          final var uuid = event.getPlayerRef().getUuid();
+          pending.disconnected(uuid, System.nanoTime());
+          sameWorldChecks.remove(uuid);
+        });
+  }
+
+  public void start() {
+    pollTask =
+        HytaleServer.SCHEDULED_EXECUTOR.scheduleAtFixedRate(
+            this::poll, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    if (pollTask != null) {
+      pollTask.cancel(false);
+      pollTask = null;
+    }
+  }
+
+  /**
+   * Starts following a teleport. Must be called on the source world thread right after the {@link
+   * Teleport} component was added.
+   *
+   * @param playerRef the teleported player
+   * @param store the store of the source world
+   * @param ref the player entity in the source world
+   * @param targetWorld the world the player is teleported to
+   * @param startedAtNanos when the teleport started, e.g. when the command was executed
+   * @return future completed once the teleport ended, on an event, world or scheduler thread
+   */
+  @Nonnull
+  public CompletableFuture<Arrival> expect(
+      @Nonnull PlayerRef playerRef,
+      @Nonnull Store<EntityStore> store,
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull World targetWorld,
+      long startedAtNanos) {
+    final var uuid = playerRef.getUuid();
+    final var future =
+        pending.expect(
+            uuid,
+            targetWorld.getName(),
+            startedAtNanos,
+            TimeUnit.MILLISECONDS.toNanos(timeoutMillis.getAsLong()));
+
+    final var sourceWorld = store.getExternalData().getWorld();
+    if (sourceWorld == targetWorld) {
+      sameWorldChecks.put(uuid, new SameWorldCheck(uuid, sourceWorld, store, ref));
+    } else {
+      sameWorldChecks.remove(uuid);
+    }
+    return future;
+  }
+
+  private void poll() {
+    try {
+      pending.expire(System.nanoTime());
+      for (SameWorldCheck check : sameWorldChecks.values()) {
+        if (pending.get(check.uuid) == null) {
+          sameWorldChecks.remove(check.uuid, check);
+        } else if (check.queued.compareAndSet(false, true)) {
+          dispatcher.submit(check.world, check);
+        }
+      }
+    } catch (RuntimeException e) {
+      // Never let an exception cancel the periodic task
+      logger.at(Level.WARNING).withCause(e).log("Arrival polling failed");
+    }
+  }
+
+  /** Checks on the world thread whether a same-world teleport has been applied. */
+  private final class SameWorldCheck extends WorldTask {
+    private final UUID uuid;
+    private final World world;
+    private final Store<EntityStore> store;
+    private final Ref<EntityStore> ref;
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    private SameWorldCheck(
+        @Nonnull UUID uuid,
+        @Nonnull World world,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull Ref<EntityStore> ref) {
+      this.uuid = uuid;
+      this.world = world;
+      this.store = store;
+      this.ref = ref;
+    }
+
+    @Override
+    protected void run() {
+      queued.set(false);
+      if (!ref.isValid()) {
+        // Moved elsewhere or disconnected, the event listeners or the timeout take over
+        sameWorldChecks.remove(uuid, this);
+        return;
+      }
+      if (store.getComponent(ref, Teleport.getComponentType()) == null) {
+        sameWorldChecks.remove(uuid, this);
+        pending.arrived(uuid, world.getName(), System.nanoTime());
+      }
+    }
+  }
+}
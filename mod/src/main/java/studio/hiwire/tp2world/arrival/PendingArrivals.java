@@ -0,0 +1,151 @@
+package studio.hiwire.tp2world.arrival;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Teleports that were started but not yet observed in their target world, at most one per player.
+ * Every pending teleport ends exactly once, with its future completed and the outcome recorded in
+ * {@link ArrivalMetrics}. Time is passed in by the caller as {@link System#nanoTime()} values.
+ *
+ * <p>Thread-safe: every state change is a single atomic map operation.
+ */
+public class PendingArrivals {
+
+  @Nonnull private final ArrivalMetrics metrics;
+  private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+
+  /**
+   * A teleport waiting for its player.
+   *
+   * @param worldName the target world
+   * @param startedAtNanos when the teleport started
+   * @param deadlineNanos when the teleport times out
+   */
+  public record Pending(
+      @Nonnull String worldName,
+      long startedAtNanos,
+      long deadlineNanos,
+      @Nonnull CompletableFuture<Arrival> future) {
+
+    private boolean isWorld(@Nonnull String name) {
+      return worldName.toLowerCase(Locale.ROOT).equals(name.toLowerCase(Locale.ROOT));
+    }
+  }
+
+  public PendingArrivals(@Nonnull ArrivalMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Starts tracking a teleport. A teleport of the same player that is still pending ends as {@link
+   * Arrival.Status#REPLACED}.
+   *
+   * @param player the teleported player
+   * @param worldName the target world
+   * @param startedAtNanos when the teleport started
+   * @param timeoutNanos how long the player has to arrive
+   * @return future completed once the teleport ended
+   */
+  @Nonnull
+  public CompletableFuture<Arrival> expect(
+      @Nonnull UUID player, @Nonnull String worldName, long startedAtNanos, long timeoutNanos) {
+    final var entry =
+        new Pending(
+            worldName, startedAtNanos, startedAtNanos + timeoutNanos, new CompletableFuture<>());
+    final var replaced = pending.put(player, entry);
+    if (replaced != null) {
+      complete(replaced, Arrival.Status.REPLACED, startedAtNanos);
+    }
+    return entry.future();
+  }
+
+  /**
+   * Reports that a player was observed in a world. Ends the player's teleport if it targets that
+   * world.
+   *
+   * @return whether a pending teleport ended
+   */
+  public boolean arrived(@Nonnull UUID player, @Nonnull String worldName, long nowNanos) {
+    final var entry = pending.get(player);
+    if (entry == null || !entry.isWorld(worldName) || !pending.remove(player, entry)) {
+      return false;
+    }
+    complete(entry, Arrival.Status.ARRIVED, nowNanos);
+    return true;
+  }
+
+  /**
+   * Reports that a player left the server.
+   *
+   * @return whether a pending teleport ended
+   */
+  public boolean disconnected(@Nonnull UUID player, long nowNanos) {
+    final var entry = pending.remove(player);
+    if (entry == null) {
+      return false;
+    }
+    complete(entry, Arrival.Status.DISCONNECTED, nowNanos);
+    return true;
+  }
+
+  /**
+   * Ends all teleports whose deadline passed.
+   *
+   * @return the number of teleports that timed out
+   */
+  public int expire(long nowNanos) {
+    int expired = 0;
+    for (Map.Entry<UUID, Pending> entry : pending.entrySet()) {
+      final var value = entry.getValue();
+      if (nowNanos - value.deadlineNanos() >= 0 && pending.remove(entry.getKey(), value)) {
+        complete(value, Arrival.Status.TIMED_OUT, nowNanos);
+        expired++;
+      }
+    }
+    return expired;
+  }
+
+  /**
+   * Visits all pending teleports, e.g. to poll for arrivals that cause no event.
+   *
+   * @param visitor receives the player and the pending teleport
+   */
+  public void forEach(@Nonnull BiConsumer<UUID, Pending> visitor) {
+    pending.forEach(visitor);
+  }
+
+  /**
+   * @return whether a pending teleport targets the world
+   */
+  public boolean isExpected(@Nonnull String worldName) {
+    for (Pending entry : pending.values()) {
+      if (entry.isWorld(worldName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Nullable
+  public Pending get(@Nonnull UUID player) {
+    return pending.get(player);
+  }
+
+  public int size() {
+    return pending.size();
+  }
+
+  private void complete(@Nonnull Pending entry, @Nonnull Arrival.Status status, long nowNanos) {
+    final var arrival =
+        new Arrival(status, entry.worldName(), Math.max(0, nowNanos - entry.startedAtNanos()));
+    metrics.record(arrival);
+    entry.future().complete(arrival);
+  }
+}
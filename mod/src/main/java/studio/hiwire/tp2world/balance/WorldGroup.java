@@ -0,0 +1,149 @@
+package studio.hiwire.tp2world.balance;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A set of copies of the same world. Teleports to the group go to the least loaded member.
+ *
+ * <p>The load of every member is sampled periodically (see {@link WorldGroupSampler}) and
+ * published through an {@link AtomicReferenceArray}, so selecting a member never blocks and only
+ * reads one entry per member. Teleports sent to a member since its last sample are counted as
+ * pending arrivals, so picks between two samples don't all land on the same member.
+ *
+ * <p>The score of a member is its player count plus pending arrivals plus one player for every
+ * {@link #LAG_NANOS_PER_PLAYER} its world thread lagged behind in the last sample.
+ */
+public final class WorldGroup {
+
+  /** Tick lag that weighs as much as one player. */
+  public static final long LAG_NANOS_PER_PLAYER = 2_000_000L;
+
+  @Nonnull private final String name;
+  @Nonnull private final List<String> worlds;
+  private final int maxPlayersPerWorld;
+  private final AtomicReferenceArray<WorldLoad> loads;
+  private final AtomicIntegerArray pending;
+
+  /**
+   * @param name the name used as teleport target
+   * @param worlds the member worlds
+   * @param maxPlayersPerWorld members with this many players are skipped, -1 for no limit
+   */
+  public WorldGroup(@Nonnull String name, @Nonnull List<String> worlds, int maxPlayersPerWorld) {
+    this.name = name;
+    this.worlds = List.copyOf(worlds);
+    this.maxPlayersPerWorld = maxPlayersPerWorld;
+    this.loads = new AtomicReferenceArray<>(this.worlds.size());
+    this.pending = new AtomicIntegerArray(this.worlds.size());
+    for (int i = 0; i < this.worlds.size(); i++) {
+      this.loads.set(i, WorldLoad.UNAVAILABLE);
+    }
+  }
+
+  @Nonnull
+  public String getName() {
+    return name;
+  }
+
+  @Nonnull
+  public List<String> getWorlds() {
+    return worlds;
+  }
+
+  /**
+   * Publishes a new sample of a member.
+   *
+   * @param member index of the member in {@link #getWorlds()}
+   * @param load the sampled load
+   * @param arrivedPending pending arrivals counted before the sample was taken, these are now part
+   *     of the player count
+   */
+  public void record(int member, @Nonnull WorldLoad load, int arrivedPending) {
+    loads.set(member, load);
+    if (arrivedPending > 0) {
+      pending.addAndGet(member, -arrivedPending);
+    }
+  }
+
+  /**
+   * @return the pending arrivals of a member
+   */
+  public int pending(int member) {
+    return pending.get(member);
+  }
+
+  /**
+   * @return the last sampled load of a member
+   */
+  @Nonnull
+  public WorldLoad load(int member) {
+    return loads.get(member);
+  }
+
+  /**
+   * Picks the least loaded member and counts one pending arrival for it.
+   *
+   * @return the name of the member world, or null if no member can take more players
+   */
+  @Nullable
+  public String pick() {
+    final int member = leastLoaded(null);
+    if (member < 0) {
+      return null;
+    }
+    pending.incrementAndGet(member);
+    return worlds.get(member);
+  }
+
+  /**
+   * Spreads a batch of players across the members so that their loads end up as even as possible,
+   * and counts the batch as pending arrivals.
+   *
+   * @param count the number of players
+   * @return the number of players per member, in the order of {@link #getWorlds()}. The sum is
+   *     less than {@code count} if the members run out of capacity.
+   */
+  @Nonnull
+  public int[] spread(int count) {
+    final var assigned = new int[worlds.size()];
+    for (int i = 0; i < count; i++) {
+      final int member = leastLoaded(assigned);
+      if (member < 0) {
+        break;
+      }
+      assigned[member]++;
+    }
+    for (int member = 0; member < assigned.length; member++) {
+      if (assigned[member] > 0) {
+        pending.addAndGet(member, assigned[member]);
+      }
+    }
+    return assigned;
+  }
+
+  private int leastLoaded(@Nullable int[] assigned) {
+    int best = -1;
+    long bestScore = Long.MAX_VALUE;
+    for (int member = 0; member < worlds.size(); member++) {
+      final var load = loads.get(member);
+      if (!load.available()) {
+        continue;
+      }
+      final int expected =
+          load.players() + pending.get(member) + (assigned != null ? assigned[member] : 0);
+      if (maxPlayersPerWorld >= 0 && expected >= maxPlayersPerWorld) {
+        continue;
+      }
+      final long score = expected + load.tickLagNanos() / LAG_NANOS_PER_PLAYER;
+      if (score < bestScore) {
+        best = member;
+        bestScore = score;
+      }
+    }
+    return best;
+  }
+}
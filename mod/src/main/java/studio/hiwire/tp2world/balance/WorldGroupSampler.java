@@ -0,0 +1,84 @@
+package studio.hiwire.tp2world.balance;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.universe.Universe;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Periodically samples the load of all world group members. Every member world gets a small task
+ * that measures how long it waited in the world's queue (the tick lag) and reads the player count
+ * on the world thread, then publishes the result to its {@link WorldGroup}.
+ */
+public class WorldGroupSampler {
+
+  @Nonnull private final WorldGroups groups;
+  @Nonnull private final HytaleLogger logger;
+  private final long intervalMillis;
+  @Nullable private ScheduledFuture<?> sampleTask;
+
+  /**
+   * @param groups the groups to sample
+   * @param intervalMillis milliseconds between two samples
+   * @param logger logger for sampling failures
+   */
+  public WorldGroupSampler(
+      @Nonnull WorldGroups groups, long intervalMillis, @Nonnull HytaleLogger logger) {
+    this.groups = groups;
+    this.intervalMillis = Math.max(50, intervalMillis);
+    this.logger = logger;
+  }
+
+  public void start() {
+    if (groups.isEmpty()) {
+      return;
+    }
+    sampleTask =
+        HytaleServer.SCHEDULED_EXECUTOR.scheduleAtFixedRate(
+            this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    if (sampleTask != null) {
+      sampleTask.cancel(false);
+      sampleTask = null;
+    }
+  }
+
+  private void sample() {
+    try {
+      final var universe = Universe.get();
+      for (WorldGroup group : groups.getGroups()) {
+        for (int member = 0; member < group.getWorlds().size(); member++) {
+          sampleMember(universe, group, member);
+        }
+      }
+    } catch (RuntimeException e) {
+      // Never let an exception cancel the periodic task
+      logger.at(Level.WARNING).withCause(e).log("World group sampling failed");
+    }
+  }
+
+  private static void sampleMember(
+      @Nonnull Universe universe, @Nonnull WorldGroup group, int member) {
+    final var world = universe.getWorld(group.getWorlds().get(member));
+    if (world == null) {
+      group.record(member, WorldLoad.UNAVAILABLE, 0);
+      return;
+    }
+
+    // Arrivals sent before this point have landed by the time the task runs
+    final int arrivedPending = group.pending(member);
+    final long submittedAt = System.nanoTime();
+    world.execute(
+        () ->
+            group.record(
+                member,
+                new WorldLoad(true, world.getPlayerCount(), System.nanoTime() - submittedAt),
+                arrivedPending));
+  }
+}
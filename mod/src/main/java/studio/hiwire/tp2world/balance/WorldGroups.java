@@ -0,0 +1,90 @@
+package studio.hiwire.tp2world.balance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import studio.hiwire.tp2world.completion.PrefixTrie;
+import studio.hiwire.tp2world.config.WorldGroupConfig;
+
+/** The configured world groups, looked up by name ignoring case. */
+public final class WorldGroups {
+
+  @Getter @Nonnull private final List<WorldGroup> groups;
+  @Getter @Nonnull private final PrefixTrie names = new PrefixTrie();
+  private final Map<String, WorldGroup> byName;
+
+  public WorldGroups(@Nonnull List<WorldGroup> groups) {
+    this.groups = List.copyOf(groups);
+    this.byName = new HashMap<>(groups.size() * 2);
+    for (WorldGroup group : this.groups) {
+      byName.put(key(group.getName()), group);
+      names.add(group.getName());
+    }
+  }
+
+  /**
+   * Compiles the configured groups. Invalid groups are skipped and reported.
+   *
+   * @param configs the configured groups
+   * @param warnings receives a message for every skipped group
+   */
+  @Nonnull
+  public static WorldGroups compile(
+      @Nonnull WorldGroupConfig[] configs, @Nonnull Consumer<String> warnings) {
+    final var groups = new ArrayList<WorldGroup>(configs.length);
+    final var seen = new HashSet<String>();
+    for (int i = 0; i < configs.length; i++) {
+      final var config = configs[i];
+      if (config.getName() == null || config.getName().isBlank()) {
+        warnings.accept("World group " + i + " has no name, skipping");
+        continue;
+      }
+      if (!seen.add(key(config.getName()))) {
+        warnings.accept("World group " + config.getName() + " is defined twice, skipping");
+        continue;
+      }
+
+      final var worlds = new LinkedHashSet<String>();
+      if (config.getWorlds() != null) {
+        for (String world : config.getWorlds()) {
+          if (world != null && !world.isBlank()) {
+            worlds.add(world);
+          }
+        }
+      }
+      if (worlds.isEmpty()) {
+        warnings.accept("World group " + config.getName() + " has no worlds, skipping");
+        continue;
+      }
+
+      groups.add(
+          new WorldGroup(
+              config.getName(), new ArrayList<>(worlds), config.getMaxPlayersPerWorld()));
+    }
+    return new WorldGroups(groups);
+  }
+
+  /**
+   * @return the group with the given name, or null
+   */
+  @Nullable
+  public WorldGroup find(@Nonnull String name) {
+    return byName.get(key(name));
+  }
+
+  public boolean isEmpty() {
+    return groups.isEmpty();
+  }
+
+  private static String key(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,13 @@
+package studio.hiwire.tp2world.balance;
+
+/**
+ * Load of one member world at the time it was sampled.
+ *
+ * @param available whether the world exists and answered the last sample
+ * @param players number of players in the world
+ * @param tickLagNanos time a task submitted to the world waited before it ran
+ */
+public record WorldLoad(boolean available, int players, long tickLagNanos) {
+
+  public static final WorldLoad UNAVAILABLE = new WorldLoad(false, 0, 0);
+}
@@ -0,0 +1,475 @@
+package studio.hiwire.tp2world.bulk;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.dispatch.WorldTask;
+import studio.hiwire.tp2world.notify.BatchSummary;
+import studio.hiwire.tp2world.teleport.Tp2WorldTeleporter;
+
+/**
+ * Teleports the players listed in a manifest file, see {@link ManifestParser} for the formats.
+ *
+ * <p>The manifest is streamed: the job reads a chunk of rows, validates them, groups them by
+ * source and target world and runs every group as one task on its source world thread. The next
+ * chunk is only read once all tasks of the previous one finished and the configured interval
+ * passed, which limits both memory and the teleport rate. Rejected rows are written to an error
+ * file next to the manifest as they happen. Manifests that aren't files, e.g. submitted over HTTP,
+ * are read from a {@link Source} and their rejected rows are only counted.
+ */
+public class BulkTeleportJob {
+
+  /** Milliseconds between two progress reports. */
+  private static final long PROGRESS_INTERVAL_MILLIS = 5000;
+
+  /** Seconds after which a batch that did not run is given up on. */
+  private static final long BATCH_TIMEOUT_SECONDS = 30;
+
+  @Nonnull private final String name;
+  @Nonnull private final Source source;
+  @Nonnull private final ManifestParser.Format format;
+  @Nullable private final Path errorFile;
+  private final int batchSize;
+  private final long intervalMillis;
+  @Nonnull private final WorldDispatcher dispatcher;
+  @Nonnull private final BiPredicate<PlayerRef, World> allowed;
+  @Nonnull private final Consumer<Progress> progress;
+  @Nullable private final BiConsumer<PlayerRef, World> teleportedPlayer;
+  @Nonnull private final HytaleLogger logger;
+
+  private final Set<UUID> seen = new HashSet<>();
+  private final BatchSummary summary = new BatchSummary();
+  private int read;
+  private int lineNumber;
+  private boolean contentSeen;
+  private final AtomicBoolean finished = new AtomicBoolean();
+  private long lastProgressMillis;
+  @Nullable private BufferedReader reader;
+  @Nullable private BufferedWriter errors;
+
+  /**
+   * Progress of a job.
+   *
+   * @param read rows read so far, including rejected ones
+   * @param teleported rows teleported so far
+   * @param failed rows rejected so far
+   * @param done whether the job finished
+   * @param aborted whether the job stopped before the end of the manifest because of an error
+   * @param errorFile the error file, or null if no row was rejected
+   * @param summary teleports per target world and rejections per reason, still updated while the
+   *     job runs
+   */
+  public record Progress(
+      int read,
+      int teleported,
+      int failed,
+      boolean done,
+      boolean aborted,
+      @Nullable Path errorFile,
+      @Nonnull BatchSummary summary) {}
+
+  /** Opens the manifest lines. */
+  @FunctionalInterface
+  public interface Source {
+    @Nonnull
+    BufferedReader open() throws IOException;
+  }
+
+  /**
+   * Job that reads a manifest file and writes rejected rows to {@code <file>.errors.csv}.
+   *
+   * @param manifest the manifest file
+   * @param format the manifest format
+   * @param batchSize rows per chunk
+   * @param intervalMillis minimum milliseconds between two chunks
+   * @param dispatcher runs the batches on the source world threads
+   * @param allowed whether a player may be moved to a world, rows it denies are rejected
+   * @param progress receives periodic progress reports and the final report
+   * @param teleportedPlayer called on the source world thread for every teleported player, null
+   *     to not notify anyone
+   * @param logger logger for I/O failures
+   */
+  public BulkTeleportJob(
+      @Nonnull Path manifest,
+      @Nonnull ManifestParser.Format format,
+      int batchSize,
+      long intervalMillis,
+      @Nonnull WorldDispatcher dispatcher,
+      @Nonnull BiPredicate<PlayerRef, World> allowed,
+      @Nonnull Consumer<Progress> progress,
+      @Nullable BiConsumer<PlayerRef, World> teleportedPlayer,
+      @Nonnull HytaleLogger logger) {
+    this(
+        manifest.toString(),
+        () -> Files.newBufferedReader(manifest, StandardCharsets.UTF_8),
+        manifest.resolveSibling(manifest.getFileName() + ".errors.csv"),
+        format,
+        batchSize,
+        intervalMillis,
+        dispatcher,
+        allowed,
+        progress,
+        teleportedPlayer,
+        logger);
+  }
+
+  /**
+   * @param name names the manifest in log messages
+   * @param source opens the manifest
+   * @param errorFile file rejected rows are written to, null to only count them
+   * @param format the manifest format
+   * @param batchSize rows per chunk
+   * @param intervalMillis minimum milliseconds between two chunks
+   * @param dispatcher runs the batches on the source world threads
+   * @param allowed whether a player may be moved to a world, rows it denies are rejected
+   * @param progress receives periodic progress reports and the final report
+   * @param teleportedPlayer called on the source world thread for every teleported player, null
+   *     to not notify anyone
+   * @param logger logger for I/O failures
+   */
+  public BulkTeleportJob(
+      @Nonnull String name,
+      @Nonnull Source source,
+      @Nullable Path errorFile,
+      @Nonnull ManifestParser.Format format,
+      int batchSize,
+      long intervalMillis,
+      @Nonnull WorldDispatcher dispatcher,
+      @Nonnull BiPredicate<PlayerRef, World> allowed,
+      @Nonnull Consumer<Progress> progress,
+      @Nullable BiConsumer<PlayerRef, World> teleportedPlayer,
+      @Nonnull HytaleLogger logger) {
+    this.name = name;
+    this.source = source;
+    this.errorFile = errorFile;
+    this.format = format;
+    this.batchSize = Math.max(1, batchSize);
+    this.intervalMillis = Math.max(0, intervalMillis);
+    this.dispatcher = dispatcher;
+    this.allowed = allowed;
+    this.progress = progress;
+    this.teleportedPlayer = teleportedPlayer;
+    this.logger = logger;
+  }
+
+  /**
+   * Opens the manifest and schedules the first chunk.
+   *
+   * @throws IOException if the manifest can't be opened
+   */
+  public void start() throws IOException {
+    reader = source.open();
+    if (errorFile != null) {
+      Files.deleteIfExists(errorFile);
+    }
+    lastProgressMillis = System.currentTimeMillis();
+    HytaleServer.SCHEDULED_EXECUTOR.execute(this::step);
+  }
+
+  /**
+   * Reads, validates and dispatches one chunk. Runs on the scheduler, one step at a time. Any
+   * failure ends the job, an exception escaping to the scheduler would leave it hanging.
+   */
+  private void step() {
+    try {
+      final var rows = new ArrayList<ManifestRow>(batchSize);
+      final boolean endOfFile;
+      try {
+        endOfFile = readChunk(rows);
+      } catch (IOException e) {
+        abort(e, "Failed to read bulk manifest " + name);
+        return;
+      }
+
+      final var batches = resolve(rows);
+      final var futures = new ArrayList<CompletableFuture<Void>>(batches.size());
+      for (Map.Entry<BatchKey, List<Resolved>> entry : batches.entrySet()) {
+        final var task =
+            new BatchTask(entry.getKey().source(), entry.getKey().target(), entry.getValue());
+        dispatcher.submit(entry.getKey().source(), task);
+        // A world that is removed meanwhile never runs the task, don't stall the job on it
+        futures.add(task.done.orTimeout(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      }
+
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+          .whenComplete(
+              (ignored, error) -> {
+                try {
+                  if (endOfFile) {
+                    finish(false);
+                    return;
+                  }
+                  reportProgress(false, false);
+                  HytaleServer.SCHEDULED_EXECUTOR.schedule(
+                      this::step, intervalMillis, TimeUnit.MILLISECONDS);
+                } catch (RuntimeException e) {
+                  abort(e, "Bulk teleport " + name + " failed");
+                }
+              });
+    } catch (RuntimeException e) {
+      abort(e, "Bulk teleport " + name + " failed");
+    }
+  }
+
+  private void abort(@Nonnull Throwable cause, @Nonnull String message) {
+    logger.at(Level.SEVERE).withCause(cause).log(message);
+    finish(true);
+  }
+
+  /**
+   * Reads up to {@link #batchSize} rows. Unparseable lines are rejected right away.
+   *
+   * @return whether the end of the manifest was reached
+   */
+  private boolean readChunk(@Nonnull List<ManifestRow> rows) throws IOException {
+    while (rows.size() < batchSize) {
+      final var line = reader.readLine();
+      if (line == null) {
+        return true;
+      }
+      lineNumber++;
+      final var parsed = ManifestParser.parse(format, line, lineNumber);
+      if (parsed.isSkipped()) {
+        continue;
+      }
+      // Only the first line with content can be a header
+      final boolean first = !contentSeen;
+      contentSeen = true;
+      if (first && ManifestParser.isHeader(format, line)) {
+        continue;
+      }
+      read++;
+      if (parsed.error() != null) {
+        reject(lineNumber, "", "", parsed.error());
+      } else {
+        rows.add(parsed.row());
+      }
+    }
+    return false;
+  }
+
+  /** Looks up players and worlds and groups the valid rows by source and target world. */
+  @Nonnull
+  private Map<BatchKey, List<Resolved>> resolve(@Nonnull List<ManifestRow> rows) {
+    final var batches = new LinkedHashMap<BatchKey, List<Resolved>>();
+    if (rows.isEmpty()) {
+      return batches;
+    }
+
+    final var universe = Universe.get();
+    final var byName = new HashMap<String, PlayerRef>();
+    final var byUuid = new HashMap<UUID, PlayerRef>();
+    for (PlayerRef playerRef : universe.getPlayers()) {
+      byName.put(playerRef.getUsername().toLowerCase(Locale.ROOT), playerRef);
+      byUuid.put(playerRef.getUuid(), playerRef);
+    }
+
+    for (ManifestRow row : rows) {
+      final var playerRef = findPlayer(row.player(), byName, byUuid);
+      if (playerRef == null) {
+        reject(row, "player not online");
+        continue;
+      }
+      if (!seen.add(playerRef.getUuid())) {
+        reject(row, "player listed more than once");
+        continue;
+      }
+      final var target = universe.getWorld(row.world());
+      if (target == null) {
+        reject(row, "unknown world");
+        continue;
+      }
+      if (!allowed.test(playerRef, target)) {
+        reject(row, "no permission for world");
+        continue;
+      }
+      final var ref = playerRef.getReference();
+      if (ref == null || !ref.isValid()) {
+        reject(row, "player not in a world");
+        continue;
+      }
+      final var source = ref.getStore().getExternalData().getWorld();
+      batches
+          .computeIfAbsent(new BatchKey(source, target), ignored -> new ArrayList<>())
+          .add(new Resolved(row, playerRef));
+    }
+    return batches;
+  }
+
+  @Nullable
+  private static PlayerRef findPlayer(
+      @Nonnull String player,
+      @Nonnull Map<String, PlayerRef> byName,
+      @Nonnull Map<UUID, PlayerRef> byUuid) {
+    if (player.length() == 36 && player.indexOf('-') == 8) {
+      try {
+        return byUuid.get(UUID.fromString(player));
+      } catch (IllegalArgumentException ignored) {
+        // Not a UUID after all, fall back to the name
+      }
+    }
+    return byName.get(player.toLowerCase(Locale.ROOT));
+  }
+
+  private void reject(@Nonnull ManifestRow row, @Nonnull String reason) {
+    reject(row.lineNumber(), row.player(), row.world(), reason);
+  }
+
+  /** Writes one line to the error file. Called from the scheduler and from world threads. */
+  private synchronized void reject(
+      int line, @Nonnull String player, @Nonnull String world, @Nonnull String reason) {
+    summary.failed(reason);
+    // A batch that timed out can still run after the file was closed
+    if (errorFile == null || finished.get()) {
+      return;
+    }
+    try {
+      if (errors == null) {
+        errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8);
+        errors.write("line,player,world,reason");
+        errors.newLine();
+      }
+      errors.write(line + "," + csv(player) + "," + csv(world) + "," + csv(reason));
+      errors.newLine();
+    } catch (IOException e) {
+      logger.at(Level.WARNING).withCause(e).log("Failed to write bulk error file " + errorFile);
+    }
+  }
+
+  /**
+   * @return the value as a quoted CSV field, quotes doubled
+   */
+  @Nonnull
+  private static String csv(@Nonnull String value) {
+    return "\"" + value.replace("\"", "\"\"") + "\"";
+  }
+
+  /** Closes the manifest and the error file and sends the final report, only once. */
+  private void finish(boolean aborted) {
+    if (!finished.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      reader.close();
+    } catch (IOException e) {
+      logger.at(Level.WARNING).withCause(e).log("Failed to close bulk manifest " + name);
+    }
+    synchronized (this) {
+      if (errors != null) {
+        try {
+          errors.close();
+        } catch (IOException e) {
+          logger.at(Level.WARNING).withCause(e).log("Failed to close bulk error file " + errorFile);
+        }
+      }
+    }
+    reportProgress(true, aborted);
+  }
+
+  private void reportProgress(boolean done, boolean aborted) {
+    final long now = System.currentTimeMillis();
+    if (!done && now - lastProgressMillis < PROGRESS_INTERVAL_MILLIS) {
+      return;
+    }
+    lastProgressMillis = now;
+    final boolean hasErrors;
+    synchronized (this) {
+      hasErrors = errors != null;
+    }
+    progress.accept(
+        new Progress(
+            read,
+            summary.getTeleported(),
+            summary.getFailed(),
+            done,
+            aborted,
+            hasErrors ? errorFile : null,
+            summary));
+  }
+
+  private record BatchKey(@Nonnull World source, @Nonnull World target) {}
+
+  private record Resolved(@Nonnull ManifestRow row, @Nonnull PlayerRef playerRef) {}
+
+  /** Teleports all rows of one source and target world on the source world thread. */
+  private final class BatchTask extends WorldTask {
+    private final World source;
+    private final World target;
+    private final List<Resolved> rows;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    private BatchTask(@Nonnull World source, @Nonnull World target, @Nonnull List<Resolved> rows) {
+      this.source = source;
+      this.target = target;
+      this.rows = rows;
+    }
+
+    @Override
+    protected void run() {
+      try {
+        for (Resolved resolved : rows) {
+          teleport(resolved);
+        }
+      } finally {
+        done.complete(null);
+      }
+    }
+
+    private void teleport(@Nonnull Resolved resolved) {
+      final var row = resolved.row();
+      final var ref = resolved.playerRef().getReference();
+      if (ref == null || !ref.isValid()) {
+        reject(row, "player left before the teleport");
+        return;
+      }
+      if (ref.getStore().getExternalData().getWorld() != source) {
+        reject(row, "player changed world before the teleport");
+        return;
+      }
+
+      final var options =
+          new Tp2WorldTeleporter.Options(
+              row.position() != null
+                  ? Tp2WorldTeleporter.TargetPosition.absolute(row.position())
+                  : null,
+              row.headRotation(),
+              null);
+      final var result = Tp2WorldTeleporter.teleport(ref.getStore(), ref, target, options);
+      if (result.isSuccess()) {
+        summary.teleported(target.getName());
+        if (teleportedPlayer != null) {
+          teleportedPlayer.accept(resolved.playerRef(), target);
+        }
+      } else {
+        reject(row, result.status().name().toLowerCase(Locale.ROOT).replace('_', ' '));
+      }
+    }
+  }
+}
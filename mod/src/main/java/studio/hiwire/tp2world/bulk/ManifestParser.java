@@ -0,0 +1,196 @@
+package studio.hiwire.tp2world.bulk;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.util.Locale;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.joml.Vector3d;
+
+/**
+ * Parses single lines of a bulk teleport manifest. Lines are parsed independently, so a manifest
+ * can be streamed line by line and a broken line only fails its own row.
+ *
+ * <ul>
+ *   <li>CSV: {@code player,world[,x,y,z[,pitch,yaw,roll]]}. The first line that isn't blank or a
+ *       comment may be a header starting with {@code player}, see {@link #isHeader}. Values can't
+ *       contain commas.
+ *   <li>JSON lines: {@code {"player": "...", "world": "...", "position": [x, y, z], "rotation":
+ *       [pitch, yaw, roll]}}, position and rotation are optional
+ * </ul>
+ *
+ * Blank lines and lines starting with {@code #} are skipped in both formats.
+ */
+public final class ManifestParser {
+
+  public enum Format {
+    CSV,
+    JSON_LINES;
+
+    /**
+     * @return the format matching the file name's extension, or null if unknown
+     */
+    @Nullable
+    public static Format forFileName(@Nonnull String fileName) {
+      final var lower = fileName.toLowerCase(Locale.ROOT);
+      if (lower.endsWith(".csv")) {
+        return CSV;
+      }
+      if (lower.endsWith(".jsonl") || lower.endsWith(".ndjson")) {
+        return JSON_LINES;
+      }
+      return null;
+    }
+  }
+
+  /** Result of parsing one line: a row, an error or nothing (skipped line). */
+  public record ParsedLine(@Nullable ManifestRow row, @Nullable String error) {
+
+    private static final ParsedLine SKIPPED = new ParsedLine(null, null);
+
+    public static ParsedLine row(@Nonnull ManifestRow row) {
+      return new ParsedLine(row, null);
+    }
+
+    public static ParsedLine error(@Nonnull String error) {
+      return new ParsedLine(null, error);
+    }
+
+    public static ParsedLine skipped() {
+      return SKIPPED;
+    }
+
+    public boolean isSkipped() {
+      return row == null && error == null;
+    }
+  }
+
+  private ManifestParser() {}
+
+  @Nonnull
+  public static ParsedLine parse(@Nonnull Format format, @Nonnull String line, int lineNumber) {
+    final var trimmed = line.trim();
+    if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+      return ParsedLine.skipped();
+    }
+    return switch (format) {
+      case CSV -> parseCsv(trimmed, lineNumber);
+      case JSON_LINES -> parseJson(trimmed, lineNumber);
+    };
+  }
+
+  /**
+   * Whether a line is a header. Only the first line that isn't blank or a comment can be one, any
+   * later line naming a player called "player" is a row.
+   *
+   * @return true for a CSV line whose first column is {@code player}
+   */
+  public static boolean isHeader(@Nonnull Format format, @Nonnull String line) {
+    if (format != Format.CSV) {
+      return false;
+    }
+    final int comma = line.indexOf(',');
+    return (comma < 0 ? line : line.substring(0, comma)).trim().equalsIgnoreCase("player");
+  }
+
+  @Nonnull
+  private static ParsedLine parseCsv(@Nonnull String line, int lineNumber) {
+    final var columns = line.split(",", -1);
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = columns[i].trim();
+    }
+    if (columns.length != 2 && columns.length != 5 && columns.length != 8) {
+      return ParsedLine.error(
+          "expected 2, 5 or 8 columns (player,world[,x,y,z[,pitch,yaw,roll]]), got "
+              + columns.length);
+    }
+
+    final var numbers = new double[columns.length - 2];
+    for (int i = 0; i < numbers.length; i++) {
+      try {
+        numbers[i] = Double.parseDouble(columns[i + 2]);
+      } catch (NumberFormatException e) {
+        return ParsedLine.error("column " + (i + 3) + " is not a number: " + columns[i + 2]);
+      }
+    }
+
+    final var position =
+        numbers.length >= 3 ? new Vector3d(numbers[0], numbers[1], numbers[2]) : null;
+    final var rotation =
+        numbers.length == 6
+            ? new Rotation3f((float) numbers[3], (float) numbers[4], (float) numbers[5])
+            : null;
+    return row(lineNumber, columns[0], columns[1], position, rotation);
+  }
+
+  @Nonnull
+  private static ParsedLine parseJson(@Nonnull String line, int lineNumber) {
+    final BsonDocument document;
+    try {
+      document = BsonDocument.parse(line);
+    } catch (RuntimeException e) {
+      return ParsedLine.error("invalid JSON: " + e.getMessage());
+    }
+
+    final var player = document.get("player");
+    final var world = document.get("world");
+    if (player == null || !player.isString() || world == null || !world.isString()) {
+      return ParsedLine.error("player and world must be strings");
+    }
+
+    final var position = triple(document.get("position"));
+    if (document.containsKey("position") && position == null) {
+      return ParsedLine.error("position must be [x, y, z]");
+    }
+    final var rotation = triple(document.get("rotation"));
+    if (document.containsKey("rotation") && rotation == null) {
+      return ParsedLine.error("rotation must be [pitch, yaw, roll]");
+    }
+
+    return row(
+        lineNumber,
+        player.asString().getValue().trim(),
+        world.asString().getValue().trim(),
+        position != null ? new Vector3d(position[0], position[1], position[2]) : null,
+        rotation != null
+            ? new Rotation3f((float) rotation[0], (float) rotation[1], (float) rotation[2])
+            : null);
+  }
+
+  @Nonnull
+  private static ParsedLine row(
+      int lineNumber,
+      @Nonnull String player,
+      @Nonnull String world,
+      @Nullable Vector3d position,
+      @Nullable Rotation3f rotation) {
+    if (player.isEmpty()) {
+      return ParsedLine.error("player is empty");
+    }
+    if (world.isEmpty()) {
+      return ParsedLine.error("world is empty");
+    }
+    return ParsedLine.row(new ManifestRow(lineNumber, player, world, position, rotation));
+  }
+
+  @Nullable
+  private static double[] triple(@Nullable BsonValue value) {
+    if (value == null || !value.isArray()) {
+      return null;
+    }
+    final BsonArray array = value.asArray();
+    if (array.size() != 3) {
+      return null;
+    }
+    final var result = new double[3];
+    for (int i = 0; i < 3; i++) {
+      if (!array.get(i).isNumber()) {
+        return null;
+      }
+      result[i] = array.get(i).asNumber().doubleValue();
+    }
+    return result;
+  }
+}
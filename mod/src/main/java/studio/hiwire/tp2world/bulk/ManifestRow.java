@@ -0,0 +1,22 @@
+package studio.hiwire.tp2world.bulk;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+
+/**
+ * One row of a bulk teleport manifest.
+ *
+ * @param lineNumber line of the row in the manifest, starting at 1
+ * @param player username or UUID of the player
+ * @param world the target world
+ * @param position target position, or null for the world's spawn point
+ * @param headRotation target head rotation, or null for the spawn point's rotation
+ */
+public record ManifestRow(
+    int lineNumber,
+    @Nonnull String player,
+    @Nonnull String world,
+    @Nullable Vector3d position,
+    @Nullable Rotation3f headRotation) {}
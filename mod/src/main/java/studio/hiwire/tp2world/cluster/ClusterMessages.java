@@ -0,0 +1,168 @@
+package studio.hiwire.tp2world.cluster;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+
+/**
+ * Binary encoding of the messages {@link UdpTransport} sends. Every message starts with a type
+ * byte, handoffs and their acknowledgements carry a request id to match them up.
+ */
+final class ClusterMessages {
+
+  static final byte ANNOUNCEMENT = 1;
+  static final byte HANDOFF = 2;
+  static final byte HANDOFF_ACK = 3;
+
+  private ClusterMessages() {}
+
+  /**
+   * A handoff as received.
+   *
+   * @param requestId id the acknowledgement has to carry
+   * @param targetNodeId the node the sender meant to reach
+   * @param ticket the handoff
+   */
+  record Handoff(long requestId, @Nonnull String targetNodeId, @Nonnull TransferTicket ticket) {}
+
+  /**
+   * An acknowledgement as received.
+   *
+   * @param requestId id of the acknowledged handoff
+   * @param accepted whether the target node took the ticket
+   */
+  record HandoffAck(long requestId, boolean accepted) {}
+
+  @Nonnull
+  static byte[] announcement(@Nonnull NodeAnnouncement announcement) throws IOException {
+    final var bytes = new ByteArrayOutputStream();
+    final var out = new DataOutputStream(bytes);
+    out.writeByte(ANNOUNCEMENT);
+    out.writeUTF(announcement.nodeId());
+    out.writeUTF(announcement.host());
+    out.writeInt(announcement.port());
+    out.writeInt(announcement.worlds().size());
+    for (String world : announcement.worlds()) {
+      out.writeUTF(world);
+    }
+    out.writeLong(announcement.sentAtMillis());
+    return bytes.toByteArray();
+  }
+
+  @Nonnull
+  static byte[] handoff(
+      long requestId, @Nonnull String targetNodeId, @Nonnull TransferTicket ticket)
+      throws IOException {
+    final var bytes = new ByteArrayOutputStream();
+    final var out = new DataOutputStream(bytes);
+    out.writeByte(HANDOFF);
+    out.writeLong(requestId);
+    out.writeUTF(targetNodeId);
+    out.writeLong(ticket.playerUuid().getMostSignificantBits());
+    out.writeLong(ticket.playerUuid().getLeastSignificantBits());
+    out.writeUTF(ticket.sourceNodeId());
+    out.writeUTF(ticket.worldName());
+    final var position = ticket.position();
+    out.writeBoolean(position != null);
+    if (position != null) {
+      out.writeDouble(position.x());
+      out.writeDouble(position.y());
+      out.writeDouble(position.z());
+    }
+    writeRotation(out, ticket.headRotation());
+    writeRotation(out, ticket.bodyRotation());
+    out.writeLong(ticket.expiresAtMillis());
+    return bytes.toByteArray();
+  }
+
+  @Nonnull
+  static byte[] handoffAck(long requestId, boolean accepted) throws IOException {
+    final var bytes = new ByteArrayOutputStream();
+    final var out = new DataOutputStream(bytes);
+    out.writeByte(HANDOFF_ACK);
+    out.writeLong(requestId);
+    out.writeBoolean(accepted);
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Reads one message.
+   *
+   * @return a {@link NodeAnnouncement}, {@link Handoff} or {@link HandoffAck}
+   * @throws IOException if the message is truncated or of an unknown type
+   */
+  @Nonnull
+  static Object read(@Nonnull byte[] data, int length) throws IOException {
+    final var in = new DataInputStream(new ByteArrayInputStream(data, 0, length));
+    final byte type = in.readByte();
+    return switch (type) {
+      case ANNOUNCEMENT -> readAnnouncement(in);
+      case HANDOFF -> readHandoff(in);
+      case HANDOFF_ACK -> new HandoffAck(in.readLong(), in.readBoolean());
+      default -> throw new IOException("Unknown cluster message type " + type);
+    };
+  }
+
+  @Nonnull
+  private static NodeAnnouncement readAnnouncement(@Nonnull DataInputStream in) throws IOException {
+    final var nodeId = in.readUTF();
+    final var host = in.readUTF();
+    final int port = in.readInt();
+    final int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("Negative world count " + count);
+    }
+    final var worlds = new ArrayList<String>(Math.min(count, 256));
+    for (int i = 0; i < count; i++) {
+      worlds.add(in.readUTF());
+    }
+    return new NodeAnnouncement(nodeId, host, port, worlds, in.readLong());
+  }
+
+  @Nonnull
+  private static Handoff readHandoff(@Nonnull DataInputStream in) throws IOException {
+    final long requestId = in.readLong();
+    final var targetNodeId = in.readUTF();
+    final var playerUuid = new UUID(in.readLong(), in.readLong());
+    final var sourceNodeId = in.readUTF();
+    final var worldName = in.readUTF();
+    final var position =
+        in.readBoolean() ? new Vector3d(in.readDouble(), in.readDouble(), in.readDouble()) : null;
+    final var headRotation = readRotation(in);
+    final var bodyRotation = readRotation(in);
+    return new Handoff(
+        requestId,
+        targetNodeId,
+        new TransferTicket(
+            playerUuid,
+            sourceNodeId,
+            worldName,
+            position,
+            headRotation,
+            bodyRotation,
+            in.readLong()));
+  }
+
+  private static void writeRotation(@Nonnull DataOutputStream out, @Nullable Rotation3f rotation)
+      throws IOException {
+    out.writeBoolean(rotation != null);
+    if (rotation != null) {
+      out.writeFloat(rotation.pitch());
+      out.writeFloat(rotation.yaw());
+      out.writeFloat(rotation.roll());
+    }
+  }
+
+  @Nullable
+  private static Rotation3f readRotation(@Nonnull DataInputStream in) throws IOException {
+    return in.readBoolean() ? new Rotation3f(in.readFloat(), in.readFloat(), in.readFloat()) : null;
+  }
+}
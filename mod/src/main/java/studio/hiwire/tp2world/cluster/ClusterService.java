@@ -0,0 +1,237 @@
+package studio.hiwire.tp2world.cluster;
+
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import org.joml.Vector3d;
+import studio.hiwire.tp2world.config.ClusterConfig;
+import studio.hiwire.tp2world.join.JoinPlacement;
+
+/**
+ * Connects this server to the other tp2world nodes. Periodically announces the local worlds,
+ * keeps the {@link ClusterWorldRegistry} of remote worlds, hands players over to other nodes and
+ * places players arriving from other nodes at their intended position.
+ */
+public class ClusterService implements ClusterTransport.Listener {
+
+  @Nonnull private final ClusterConfig config;
+  @Nonnull private final HytaleLogger logger;
+  @Getter @Nonnull private final ClusterWorldRegistry registry;
+
+  /** Tickets of players that were handed over to this node and have not arrived yet. */
+  private final Map<UUID, TransferTicket> pendingArrivals = new ConcurrentHashMap<>();
+
+  @Nullable private ClusterTransport transport;
+  @Nullable private ScheduledFuture<?> gossipTask;
+
+  public ClusterService(@Nonnull ClusterConfig config, @Nonnull HytaleLogger logger) {
+    this.config = config;
+    this.logger = logger;
+    this.registry =
+        new ClusterWorldRegistry(
+            config.getNodeId(),
+            TimeUnit.SECONDS.toMillis(config.getNodeTimeoutSeconds()),
+            System::currentTimeMillis);
+  }
+
+  public boolean isEnabled() {
+    return transport != null;
+  }
+
+  /**
+   * Joins the cluster if enabled in the config.
+   *
+   * @param eventRegistry the plugin's event registry
+   */
+  public void start(@Nonnull EventRegistry eventRegistry) {
+    if (!config.isEnabled()) {
+      return;
+    }
+
+    transport = createTransport();
+    if (transport == null) {
+      logger.at(Level.WARNING).log(
+          "Unknown cluster transport " + config.getTransport() + ", cluster disabled");
+      return;
+    }
+    try {
+      transport.start(config.getNodeId(), this);
+    } catch (IllegalStateException e) {
+      logger.at(Level.WARNING).withCause(e).log("Failed to join the cluster, cluster disabled");
+      transport = null;
+      return;
+    }
+
+    eventRegistry.register(PlayerConnectEvent.class, this::onPlayerConnect);
+
+    final long interval = Math.max(1, config.getGossipIntervalSeconds());
+    gossipTask =
+        HytaleServer.SCHEDULED_EXECUTOR.scheduleAtFixedRate(
+            this::gossip, 0, interval, TimeUnit.SECONDS);
+  }
+
+  /** Leaves the cluster. */
+  public void stop() {
+    if (gossipTask != null) {
+      gossipTask.cancel(false);
+      gossipTask = null;
+    }
+    if (transport != null) {
+      transport.stop();
+      transport = null;
+    }
+    pendingArrivals.clear();
+  }
+
+  /**
+   * Hands a player over to the node hosting the remote world and refers the player to it once the
+   * node accepted the handoff.
+   *
+   * @param playerRef the player to transfer
+   * @param target the remote world
+   * @param position target position, or null for the world's spawn point
+   * @param headRotation target head rotation, or null for the spawn point's rotation
+   * @param bodyRotation target body rotation, or null for the spawn point's rotation
+   * @return future completed with true once the player was referred to the target node
+   */
+  @Nonnull
+  public CompletableFuture<Boolean> transfer(
+      @Nonnull PlayerRef playerRef,
+      @Nonnull ClusterWorldRegistry.RemoteWorld target,
+      @Nullable Vector3d position,
+      @Nullable Rotation3f headRotation,
+      @Nullable Rotation3f bodyRotation) {
+    final var currentTransport = transport;
+    if (currentTransport == null) {
+      return CompletableFuture.completedFuture(false);
+    }
+
+    final var ticket =
+        new TransferTicket(
+            playerRef.getUuid(),
+            config.getNodeId(),
+            target.worldName(),
+            position,
+            headRotation,
+            bodyRotation,
+            System.currentTimeMillis()
+                + TimeUnit.SECONDS.toMillis(config.getTransferTimeoutSeconds()));
+
+    return currentTransport
+        .handoff(target.nodeId(), ticket)
+        .thenApply(
+            accepted -> {
+              if (accepted) {
+                playerRef.referToServer(target.host(), target.port());
+              }
+              return accepted;
+            });
+  }
+
+  /**
+   * Whether a player was handed over to this node and is expected to arrive.
+   *
+   * @param playerUuid the player
+   * @return true if a transfer ticket is waiting for the player
+   */
+  public boolean hasPendingArrival(@Nonnull UUID playerUuid) {
+    return pendingArrivals.containsKey(playerUuid);
+  }
+
+  @Override
+  public void onAnnouncement(@Nonnull NodeAnnouncement announcement) {
+    registry.accept(announcement);
+  }
+
+  @Override
+  public void onHandoff(@Nonnull TransferTicket ticket) {
+    pendingArrivals.put(ticket.playerUuid(), ticket);
+  }
+
+  private void onPlayerConnect(@Nonnull PlayerConnectEvent event) {
+    final var ticket = pendingArrivals.remove(event.getPlayerRef().getUuid());
+    if (ticket == null || ticket.isExpired(System.currentTimeMillis())) {
+      return;
+    }
+
+    final var world = Universe.get().getWorld(ticket.worldName());
+    if (world == null) {
+      logger.at(Level.WARNING).log(
+          "Player "
+              + event.getPlayerRef().getUsername()
+              + " arrived from node "
+              + ticket.sourceNodeId()
+              + " for unknown world "
+              + ticket.worldName());
+      return;
+    }
+
+    JoinPlacement.apply(
+        event, world, ticket.position(), ticket.headRotation(), ticket.bodyRotation());
+  }
+
+  private void gossip() {
+    final var currentTransport = transport;
+    if (currentTransport == null) {
+      return;
+    }
+    try {
+      final var worldNames = new ArrayList<String>();
+      for (World world : Universe.get().getWorlds().values()) {
+        worldNames.add(world.getName());
+      }
+      final long now = System.currentTimeMillis();
+      currentTransport.publish(
+          new NodeAnnouncement(
+              config.getNodeId(),
+              config.getAdvertisedHost(),
+              config.getAdvertisedPort(),
+              worldNames,
+              now));
+
+      registry.expire();
+      pendingArrivals.values().removeIf(ticket -> ticket.isExpired(now));
+    } catch (RuntimeException e) {
+      // Never let an exception cancel the periodic task
+      logger.at(Level.WARNING).withCause(e).log("Cluster gossip failed");
+    }
+  }
+
+  @Nullable
+  private ClusterTransport createTransport() {
+    return switch (config.getTransport()) {
+      case "Loopback" -> new LoopbackTransport();
+      case "Udp" -> {
+        final var peers = new ArrayList<InetSocketAddress>();
+        for (String peer : config.getUdpPeers()) {
+          final var address = UdpTransport.parsePeer(peer);
+          if (address == null) {
+            logger.at(Level.WARNING).log("Ignoring malformed cluster peer " + peer);
+            continue;
+          }
+          peers.add(address);
+        }
+        yield new UdpTransport(
+            new InetSocketAddress(config.getUdpBindAddress(), config.getUdpPort()), peers, logger);
+      }
+      default -> null;
+    };
+  }
+}
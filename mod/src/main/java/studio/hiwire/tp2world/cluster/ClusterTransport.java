@@ -0,0 +1,49 @@
+package studio.hiwire.tp2world.cluster;
+
+import java.util.concurrent.CompletableFuture;
+import javax.annotation.Nonnull;
+
+/**
+ * Transport between tp2world nodes. Carries the registry gossip ({@link NodeAnnouncement}) and the
+ * player handoff ({@link TransferTicket}). Implementations decide how messages travel: {@link
+ * LoopbackTransport} connects nodes running in the same process, {@link UdpTransport} nodes in
+ * separate processes.
+ */
+public interface ClusterTransport {
+
+  /** Receives messages from other nodes. Called from transport threads. */
+  interface Listener {
+    void onAnnouncement(@Nonnull NodeAnnouncement announcement);
+
+    void onHandoff(@Nonnull TransferTicket ticket);
+  }
+
+  /**
+   * Joins the cluster.
+   *
+   * @param localNodeId id of this node
+   * @param listener receives announcements and handoffs from other nodes
+   */
+  void start(@Nonnull String localNodeId, @Nonnull Listener listener);
+
+  /**
+   * Sends this node's announcement to all other nodes.
+   *
+   * @param announcement the announcement to send
+   */
+  void publish(@Nonnull NodeAnnouncement announcement);
+
+  /**
+   * Hands a player over to another node. The player must only be referred to the target node after
+   * the returned future completed with true.
+   *
+   * @param targetNodeId the node that receives the player
+   * @param ticket the handoff
+   * @return future completed with true once the target node accepted the ticket
+   */
+  @Nonnull
+  CompletableFuture<Boolean> handoff(@Nonnull String targetNodeId, @Nonnull TransferTicket ticket);
+
+  /** Leaves the cluster. */
+  void stop();
+}
@@ -0,0 +1,132 @@
+package studio.hiwire.tp2world.cluster;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import studio.hiwire.tp2world.completion.PrefixTrie;
+
+/**
+ * Worlds hosted by other nodes of the cluster, learned from {@link NodeAnnouncement} gossip. Every
+ * announcement replaces the node's previous world list. Nodes that stop announcing are dropped
+ * after the node timeout.
+ *
+ * <p>Lookups are lock-free, updates are serialized.
+ */
+public class ClusterWorldRegistry {
+
+  /** A world hosted by another node. */
+  public record RemoteWorld(
+      @Nonnull String worldName,
+      @Nonnull String nodeId,
+      @Nonnull String host,
+      int port,
+      long lastSeenMillis) {}
+
+  @Nonnull private final String localNodeId;
+  private final long nodeTimeoutMillis;
+  @Nonnull private final LongSupplier clock;
+
+  private final Map<String, RemoteWorld> worlds = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> worldKeysByNode = new HashMap<>();
+  private final Map<String, Long> lastSeenByNode = new HashMap<>();
+
+  /** Names of all known remote worlds, for tab completion. */
+  @Getter @Nonnull private final PrefixTrie worldNames = new PrefixTrie();
+
+  /**
+   * @param localNodeId id of this node, its own announcements are ignored
+   * @param nodeTimeoutMillis time after which a silent node is dropped
+   * @param clock wall clock in milliseconds
+   */
+  public ClusterWorldRegistry(
+      @Nonnull String localNodeId, long nodeTimeoutMillis, @Nonnull LongSupplier clock) {
+    this.localNodeId = localNodeId;
+    this.nodeTimeoutMillis = nodeTimeoutMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * Applies an announcement of another node.
+   *
+   * @param announcement the announcement
+   */
+  public synchronized void accept(@Nonnull NodeAnnouncement announcement) {
+    final var nodeId = announcement.nodeId();
+    if (nodeId.equals(localNodeId)) {
+      return;
+    }
+    final long now = clock.getAsLong();
+    final var previousKeys = worldKeysByNode.getOrDefault(nodeId, Set.of());
+    final var currentKeys = new HashSet<String>();
+
+    for (String worldName : announcement.worlds()) {
+      final var key = key(worldName);
+      currentKeys.add(key);
+      worlds.put(
+          key, new RemoteWorld(worldName, nodeId, announcement.host(), announcement.port(), now));
+      worldNames.add(worldName);
+    }
+    for (String key : previousKeys) {
+      if (!currentKeys.contains(key)) {
+        removeWorld(nodeId, key);
+      }
+    }
+
+    worldKeysByNode.put(nodeId, currentKeys);
+    lastSeenByNode.put(nodeId, now);
+  }
+
+  /**
+   * Finds a remote world by name, ignoring case.
+   *
+   * @param worldName the world name
+   * @return the remote world, or null if no live node hosts it
+   */
+  @Nullable
+  public RemoteWorld find(@Nonnull String worldName) {
+    final var world = worlds.get(key(worldName));
+    if (world == null || clock.getAsLong() - world.lastSeenMillis() > nodeTimeoutMillis) {
+      return null;
+    }
+    return world;
+  }
+
+  /** Drops all nodes that did not announce themselves within the node timeout. */
+  public synchronized void expire() {
+    final long now = clock.getAsLong();
+    final var iterator = lastSeenByNode.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final var node = iterator.next();
+      if (now - node.getValue() > nodeTimeoutMillis) {
+        for (String key : worldKeysByNode.remove(node.getKey())) {
+          removeWorld(node.getKey(), key);
+        }
+        iterator.remove();
+      }
+    }
+  }
+
+  public int size() {
+    return worlds.size();
+  }
+
+  private void removeWorld(@Nonnull String nodeId, @Nonnull String key) {
+    // Another node may have announced a world with the same name since
+    final var world = worlds.get(key);
+    if (world != null && world.nodeId().equals(nodeId)) {
+      worlds.remove(key);
+      worldNames.remove(world.worldName());
+    }
+  }
+
+  private static String key(String worldName) {
+    return worldName.toLowerCase(Locale.ROOT);
+  }
+}
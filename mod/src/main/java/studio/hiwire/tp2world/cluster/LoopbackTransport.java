@@ -0,0 +1,71 @@
+package studio.hiwire.tp2world.cluster;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+
+/**
+ * In-process {@link ClusterTransport}. All transports attached to the same {@link Hub} form one
+ * cluster, which allows running and load-testing several nodes in one process without a network.
+ * Messages are delivered synchronously on the sending thread. Nodes in separate processes need the
+ * {@link UdpTransport} instead.
+ */
+public class LoopbackTransport implements ClusterTransport {
+
+  /** Hub shared by all loopback transports that don't specify their own. */
+  public static final Hub SHARED_HUB = new Hub();
+
+  /** Connects the loopback transports of one cluster. */
+  public static final class Hub {
+    private final Map<String, Listener> nodes = new ConcurrentHashMap<>();
+  }
+
+  @Nonnull private final Hub hub;
+  private String localNodeId;
+
+  public LoopbackTransport() {
+    this(SHARED_HUB);
+  }
+
+  public LoopbackTransport(@Nonnull Hub hub) {
+    this.hub = hub;
+  }
+
+  @Override
+  public void start(@Nonnull String localNodeId, @Nonnull Listener listener) {
+    if (hub.nodes.putIfAbsent(localNodeId, listener) != null) {
+      throw new IllegalStateException("Node " + localNodeId + " is already part of the cluster");
+    }
+    this.localNodeId = localNodeId;
+  }
+
+  @Override
+  public void publish(@Nonnull NodeAnnouncement announcement) {
+    for (Map.Entry<String, Listener> node : hub.nodes.entrySet()) {
+      if (!node.getKey().equals(localNodeId)) {
+        node.getValue().onAnnouncement(announcement);
+      }
+    }
+  }
+
+  @Nonnull
+  @Override
+  public CompletableFuture<Boolean> handoff(
+      @Nonnull String targetNodeId, @Nonnull TransferTicket ticket) {
+    final var target = hub.nodes.get(targetNodeId);
+    if (target == null) {
+      return CompletableFuture.completedFuture(false);
+    }
+    target.onHandoff(ticket);
+    return CompletableFuture.completedFuture(true);
+  }
+
+  @Override
+  public void stop() {
+    if (localNodeId != null) {
+      hub.nodes.remove(localNodeId);
+      localNodeId = null;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package studio.hiwire.tp2world.cluster;
+
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * Gossip message of a node: where players can connect to it and which worlds it hosts.
+ *
+ * @param nodeId unique id of the announcing node
+ * @param host host players are referred to
+ * @param port port players are referred to
+ * @param worlds names of the worlds hosted by the node
+ * @param sentAtMillis wall clock time the announcement was sent
+ */
+public record NodeAnnouncement(
+    @Nonnull String nodeId,
+    @Nonnull String host,
+    int port,
+    @Nonnull List<String> worlds,
+    long sentAtMillis) {
+
+  public NodeAnnouncement {
+    worlds = List.copyOf(worlds);
+  }
+}
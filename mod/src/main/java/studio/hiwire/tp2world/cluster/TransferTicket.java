@@ -0,0 +1,33 @@
+package studio.hiwire.tp2world.cluster;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+
+/**
+ * Handoff of a player to another node. Carries the intended world, position and rotation so they
+ * can be applied when the player arrives on the target node.
+ *
+ * @param playerUuid the transferred player
+ * @param sourceNodeId the node the player leaves
+ * @param worldName the world on the target node
+ * @param position target position, or null for the world's spawn point
+ * @param headRotation target head rotation, or null for the spawn point's rotation
+ * @param bodyRotation target body rotation, or null for the spawn point's rotation
+ * @param expiresAtMillis wall clock time after which the ticket is ignored
+ */
+public record TransferTicket(
+    @Nonnull UUID playerUuid,
+    @Nonnull String sourceNodeId,
+    @Nonnull String worldName,
+    @Nullable Vector3d position,
+    @Nullable Rotation3f headRotation,
+    @Nullable Rotation3f bodyRotation,
+    long expiresAtMillis) {
+
+  public boolean isExpired(long nowMillis) {
+    return nowMillis > expiresAtMillis;
+  }
+}
@@ -0,0 +1,231 @@
+package studio.hiwire.tp2world.cluster;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link ClusterTransport} over UDP datagrams, for nodes running in separate processes, e.g. two
+ * servers on one machine. Announcements are sent to a fixed list of peer addresses, handoffs go to
+ * the address a node last announced from and are acknowledged by the receiving node.
+ *
+ * <p>Messages are neither authenticated nor encrypted, bind to loopback or a private network only.
+ */
+public class UdpTransport implements ClusterTransport {
+
+  /** Largest payload of a UDP datagram. */
+  private static final int MAX_MESSAGE_BYTES = 65_507;
+
+  /** Milliseconds a handoff waits for its acknowledgement before it counts as refused. */
+  private static final long HANDOFF_TIMEOUT_MILLIS = 2000;
+
+  @Nonnull private final InetSocketAddress bindAddress;
+  @Nonnull private final List<InetSocketAddress> peers;
+  @Nonnull private final HytaleLogger logger;
+
+  /** Address every known node last announced from. */
+  private final Map<String, SocketAddress> nodeAddresses = new ConcurrentHashMap<>();
+
+  private final Map<Long, CompletableFuture<Boolean>> pendingHandoffs = new ConcurrentHashMap<>();
+  private final AtomicLong nextRequestId = new AtomicLong();
+
+  @Nullable private volatile DatagramSocket socket;
+  private String localNodeId;
+  private Listener listener;
+
+  /**
+   * @param bindAddress local address to receive on
+   * @param peers addresses announcements are sent to, may include this node's own address
+   * @param logger logger for send and receive failures
+   */
+  public UdpTransport(
+      @Nonnull InetSocketAddress bindAddress,
+      @Nonnull List<InetSocketAddress> peers,
+      @Nonnull HytaleLogger logger) {
+    this.bindAddress = bindAddress;
+    this.peers = List.copyOf(peers);
+    this.logger = logger;
+  }
+
+  /**
+   * Parses a peer address.
+   *
+   * @param peer address as {@code host:port}
+   * @return the address, or null if it is malformed
+   */
+  @Nullable
+  public static InetSocketAddress parsePeer(@Nonnull String peer) {
+    final int colon = peer.lastIndexOf(':');
+    if (colon <= 0) {
+      return null;
+    }
+    try {
+      final int port = Integer.parseInt(peer.substring(colon + 1));
+      if (port <= 0 || port > 65535) {
+        return null;
+      }
+      return new InetSocketAddress(peer.substring(0, colon), port);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void start(@Nonnull String localNodeId, @Nonnull Listener listener) {
+    final DatagramSocket created;
+    try {
+      created = new DatagramSocket(bindAddress);
+    } catch (SocketException e) {
+      throw new IllegalStateException("Failed to bind cluster transport to " + bindAddress, e);
+    }
+    this.localNodeId = localNodeId;
+    this.listener = listener;
+    this.socket = created;
+    Thread.ofPlatform().daemon().name("tp2world-cluster-udp").start(() -> receive(created));
+  }
+
+  /**
+   * @return the address this transport receives on, null if it isn't started
+   */
+  @Nullable
+  public InetSocketAddress getLocalAddress() {
+    final var current = socket;
+    return current != null ? (InetSocketAddress) current.getLocalSocketAddress() : null;
+  }
+
+  @Override
+  public void publish(@Nonnull NodeAnnouncement announcement) {
+    final var current = socket;
+    if (current == null) {
+      return;
+    }
+    final byte[] message;
+    try {
+      message = ClusterMessages.announcement(announcement);
+    } catch (IOException e) {
+      logger.at(Level.WARNING).withCause(e).log("Failed to encode cluster announcement");
+      return;
+    }
+    for (InetSocketAddress peer : peers) {
+      send(current, message, peer);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public CompletableFuture<Boolean> handoff(
+      @Nonnull String targetNodeId, @Nonnull TransferTicket ticket) {
+    final var current = socket;
+    final var address = nodeAddresses.get(targetNodeId);
+    if (current == null || address == null) {
+      return CompletableFuture.completedFuture(false);
+    }
+
+    final long requestId = nextRequestId.incrementAndGet();
+    final var accepted = new CompletableFuture<Boolean>();
+    pendingHandoffs.put(requestId, accepted);
+    try {
+      send(current, ClusterMessages.handoff(requestId, targetNodeId, ticket), address);
+    } catch (IOException e) {
+      logger.at(Level.WARNING).withCause(e).log("Failed to encode handoff to " + targetNodeId);
+      accepted.complete(false);
+    }
+    // A lost datagram or a node that went away refuses the handoff
+    return accepted
+        .completeOnTimeout(false, HANDOFF_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+        .whenComplete((ignored, error) -> pendingHandoffs.remove(requestId));
+  }
+
+  @Override
+  public void stop() {
+    final var current = socket;
+    socket = null;
+    if (current != null) {
+      current.close();
+    }
+    nodeAddresses.clear();
+    for (CompletableFuture<Boolean> pending : pendingHandoffs.values()) {
+      pending.complete(false);
+    }
+  }
+
+  private void send(
+      @Nonnull DatagramSocket socket, @Nonnull byte[] message, @Nonnull SocketAddress address) {
+    try {
+      socket.send(new DatagramPacket(message, message.length, address));
+    } catch (IOException e) {
+      if (!socket.isClosed()) {
+        logger.at(Level.WARNING).withCause(e).log("Failed to send cluster message to " + address);
+      }
+    }
+  }
+
+  /** Receives until the socket is closed. */
+  private void receive(@Nonnull DatagramSocket socket) {
+    final var buffer = new byte[MAX_MESSAGE_BYTES];
+    while (!socket.isClosed()) {
+      final var packet = new DatagramPacket(buffer, buffer.length);
+      try {
+        socket.receive(packet);
+      } catch (IOException e) {
+        if (!socket.isClosed()) {
+          logger.at(Level.WARNING).withCause(e).log("Failed to receive cluster message");
+        }
+        continue;
+      }
+      try {
+        handle(socket, ClusterMessages.read(packet.getData(), packet.getLength()), packet);
+      } catch (IOException | RuntimeException e) {
+        // A malformed datagram or a failing listener must not end the receive loop
+        logger.at(Level.WARNING).withCause(e).log(
+            "Failed to handle cluster message from " + packet.getSocketAddress());
+      }
+    }
+  }
+
+  private void handle(
+      @Nonnull DatagramSocket socket, @Nonnull Object message, @Nonnull DatagramPacket packet)
+      throws IOException {
+    switch (message) {
+      case NodeAnnouncement announcement -> {
+        if (announcement.nodeId().equals(localNodeId)) {
+          return;
+        }
+        nodeAddresses.put(announcement.nodeId(), packet.getSocketAddress());
+        listener.onAnnouncement(announcement);
+      }
+      case ClusterMessages.Handoff handoff -> {
+        final boolean accepted =
+            handoff.targetNodeId().equals(localNodeId)
+                && !handoff.ticket().isExpired(System.currentTimeMillis());
+        if (accepted) {
+          listener.onHandoff(handoff.ticket());
+        }
+        send(
+            socket,
+            ClusterMessages.handoffAck(handoff.requestId(), accepted),
+            packet.getSocketAddress());
+      }
+      case ClusterMessages.HandoffAck ack -> {
+        final var pending = pendingHandoffs.remove(ack.requestId());
+        if (pending != null) {
+          pending.complete(ack.accepted());
+        }
+      }
+      default -> throw new IOException("Unexpected cluster message " + message);
+    }
+  }
+}
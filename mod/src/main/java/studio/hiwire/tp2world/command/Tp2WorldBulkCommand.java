@@ -0,0 +1,162 @@
+package studio.hiwire.tp2world.command;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.FlagArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.permissions.HytalePermissions;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.bulk.BulkTeleportJob;
+import studio.hiwire.tp2world.bulk.ManifestParser;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.notify.BatchSummary;
+import studio.hiwire.tp2world.notify.NotificationQueue;
+
+/**
+ * Bulk teleport command: /tp2world bulk <file> [--silent]
+ *
+ * - The file is read from the plugin's bulk directory, see {@link ManifestParser} for the formats
+ * - The rows are teleported in rate-limited batches, progress is reported to the command sender
+ * - The final report counts the teleports per world and the rejections per reason
+ * - If the job fails, e.g. the manifest can't be read, it stops and the sender is told so
+ * - With per-world permissions, rows the sender may not teleport are rejected
+ * - Rejected rows are written to <file>.errors.csv next to the manifest
+ * - Teleported players are notified through the notification queue, unless --silent is given
+ */
+public class Tp2WorldBulkCommand extends CommandBase {
+
+  /** Directory inside the plugin's data directory that manifests are read from. */
+  public static final String BULK_DIRECTORY = "bulk";
+
+  private static final Message MESSAGE_BULK_STARTED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.BulkStarted");
+  private static final Message MESSAGE_BULK_PROGRESS =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.BulkProgress");
+  private static final Message MESSAGE_BULK_FINISHED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.BulkFinished");
+  private static final Message MESSAGE_BULK_ABORTED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.BulkAborted");
+  private static final Message MESSAGE_BULK_ERRORS =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.BulkErrors");
+  private static final Message MESSAGE_BULK_FILE_NOT_FOUND =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.BulkFileNotFound");
+  private static final Message MESSAGE_BULK_UNKNOWN_FORMAT =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.BulkUnknownFormat");
+
+  @Nonnull private final WorldDispatcher dispatcher;
+  @Nonnull private final NotificationQueue notifications;
+  @Nonnull private final RequiredArg<String> fileArg;
+  @Nonnull private final FlagArg silentArg;
+
+  public Tp2WorldBulkCommand(
+      @Nonnull WorldDispatcher dispatcher, @Nonnull NotificationQueue notifications) {
+    super("bulk", "HiWire.Tp2World.Commands.Tp2World.Bulk.Desc");
+    this.dispatcher = dispatcher;
+    this.notifications = notifications;
+
+    this.fileArg =
+        this.withRequiredArg(
+            "file", "HiWire.Tp2World.Commands.Tp2World.Bulk.Param.File.Desc", ArgTypes.STRING);
+    this.silentArg =
+        this.withFlagArg("silent", "HiWire.Tp2World.Commands.Tp2World.Param.Silent.Desc");
+
+    this.requirePermission(HytalePermissions.fromCommand("tp2world.bulk"));
+  }
+
+  @Override
+  protected void executeSync(@Nonnull CommandContext context) {
+    final var fileName = this.fileArg.get(context);
+    final var plugin = Tp2WorldPlugin.get();
+
+    // Only files inside the bulk directory may be read
+    final var directory = plugin.getDataDirectory().resolve(BULK_DIRECTORY).normalize();
+    final Path manifest = directory.resolve(fileName).normalize();
+    if (!manifest.startsWith(directory) || !Files.isRegularFile(manifest)) {
+      context.sendMessage(
+          MESSAGE_BULK_FILE_NOT_FOUND
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("File", fileName));
+      return;
+    }
+
+    final var format = ManifestParser.Format.forFileName(fileName);
+    if (format == null) {
+      context.sendMessage(
+          MESSAGE_BULK_UNKNOWN_FORMAT
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("File", fileName));
+      return;
+    }
+
+    final var config = Tp2WorldPlugin.context().config();
+    final boolean notify = config.isNotifyTeleportedPlayer() && !this.silentArg.provided(context);
+    final var job =
+        new BulkTeleportJob(
+            manifest,
+            format,
+            config.getBulkBatchSize(),
+            config.getBulkIntervalMillis(),
+            dispatcher,
+            Tp2WorldPlugin.context().worldPermissions().mover(context.sender()),
+            progress -> report(context, progress),
+            notify ? notifications::movedToWorld : null,
+            plugin.getLogger());
+    try {
+      job.start();
+    } catch (IOException e) {
+      plugin.getLogger().at(Level.WARNING).withCause(e).log("Failed to open manifest " + manifest);
+      context.sendMessage(
+          MESSAGE_BULK_FILE_NOT_FOUND
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("File", fileName));
+      return;
+    }
+
+    context.sendMessage(
+        MESSAGE_BULK_STARTED.param("ModPrefix", Tp2WorldPlugin.PREFIX).param("File", fileName));
+  }
+
+  private static void report(
+      @Nonnull CommandContext context, @Nonnull BulkTeleportJob.Progress progress) {
+    if (!progress.done()) {
+      context.sendMessage(
+          MESSAGE_BULK_PROGRESS
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("Read", progress.read())
+              .param("Teleported", progress.teleported())
+              .param("Failed", progress.failed()));
+      return;
+    }
+
+    if (progress.aborted()) {
+      context.sendMessage(
+          MESSAGE_BULK_ABORTED
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("Read", progress.read())
+              .param("Teleported", progress.teleported()));
+    } else {
+      final var summary = progress.summary();
+      context.sendMessage(
+          MESSAGE_BULK_FINISHED
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("Read", progress.read())
+              .param("Teleported", progress.teleported())
+              .param("Worlds", summary.formatWorlds(BatchSummary.LISTED))
+              .param("Failed", progress.failed())
+              .param("Failures", summary.formatFailures(BatchSummary.LISTED)));
+    }
+    if (progress.errorFile() != null) {
+      context.sendMessage(
+          MESSAGE_BULK_ERRORS
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("File", progress.errorFile().getFileName().toString()));
+    }
+  }
+}
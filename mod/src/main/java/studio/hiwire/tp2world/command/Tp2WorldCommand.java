@@ -11,16 +11,42 @@ import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredAr
 import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
 import com.hypixel.hytale.server.core.command.system.arguments.types.RelativeDoublePosition;
 import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
-import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
-import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
 import com.hypixel.hytale.server.core.permissions.HytalePermissions;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import jdk.jfr.EventType;
 import org.joml.Vector3d;
 import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.arrival.Arrival;
+import studio.hiwire.tp2world.arrival.ArrivalTracker;
+import studio.hiwire.tp2world.balance.WorldGroups;
+import studio.hiwire.tp2world.cluster.ClusterService;
+import studio.hiwire.tp2world.completion.IndexedArgumentType;
+import studio.hiwire.tp2world.completion.NameIndex;
+import studio.hiwire.tp2world.destination.Destination;
+import studio.hiwire.tp2world.destination.DestinationParser;
+import studio.hiwire.tp2world.dispatch.TaskPool;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.dispatch.WorldTask;
+import studio.hiwire.tp2world.instance.InstanceManager;
+import studio.hiwire.tp2world.jfr.DispatchEvent;
+import studio.hiwire.tp2world.notify.NotificationQueue;
+import studio.hiwire.tp2world.permission.PermissionCache;
+import studio.hiwire.tp2world.position.PositionBoard;
+import studio.hiwire.tp2world.residency.ResidencyManager;
+import studio.hiwire.tp2world.snapshot.SnapshotService;
+import studio.hiwire.tp2world.snapshot.SnapshotStore;
+import studio.hiwire.tp2world.teleport.TargetRotations;
+import studio.hiwire.tp2world.teleport.Tp2WorldTeleporter;
 
 /**
  * Teleport to world command: /tp2world <world> [--player name] [--position x y z] [--rotation pitch yaw roll] [--bodyRotation pitch yaw roll]
@@ -29,6 +55,11 @@ import studio.hiwire.tp2world.Tp2WorldPlugin;
  * - If position is not specified, uses the world's spawn point
  * - If rotation is not specified, uses the spawn point's rotation (or 0 0 0 if custom position)
  * - If bodyRotation is not specified, uses (previousPitch, headYaw, previousRoll)
+ * - If the world is hosted by another cluster node, the player is transferred there and position
+ *   and rotation are applied on arrival
+ * - If the name is a world group, the least loaded member world is used
+ * - If the world was unloaded while idle, it is loaded again before the teleport
+ * - If the name is template:<name>, the player gets a fresh private instance of that template
  */
 public class Tp2WorldCommand extends CommandBase {
 
@@ -42,22 +73,84 @@ public class Tp2WorldCommand extends CommandBase {
       Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.TeleportedPlayerToWorld");
   private static final Message MESSAGE_PLAYER_OR_ARG =
       Message.translation("server.commands.errors.playerOrArg");
-
-  @Nonnull private final RequiredArg<World> worldArg;
+  private static final Message MESSAGE_NO_WORLD_PERMISSION =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.NoWorldPermission");
+  private static final Message MESSAGE_TRANSFERRING_TO_WORLD =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.TransferringToWorld");
+  private static final Message MESSAGE_TRANSFERRING_PLAYER_TO_WORLD =
+      Message.translation(
+          "HiWire.Tp2World.ChatMessages.Command.Tp2World.TransferringPlayerToWorld");
+  private static final Message MESSAGE_TRANSFER_FAILED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.TransferFailed");
+  private static final Message MESSAGE_NO_WORLD_AVAILABLE =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.NoWorldAvailable");
+  private static final Message MESSAGE_ARRIVAL_TIMED_OUT =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.ArrivalTimedOut");
+  private static final Message MESSAGE_ARRIVAL_ABORTED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.ArrivalAborted");
+  private static final Message MESSAGE_WORLD_LOAD_FAILED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.WorldLoadFailed");
+  private static final Message MESSAGE_INSTANCE_FAILED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.InstanceFailed");
+  private static final Message MESSAGE_TELEPORT_CANCELLED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.TeleportCancelled");
+
+  /** Looked up once, checking it is cheaper than creating an event that is never committed. */
+  private static final EventType DISPATCH_EVENT_TYPE = EventType.getEventType(DispatchEvent.class);
+
+  @Nonnull private final ClusterService cluster;
+  @Nonnull private final WorldDispatcher dispatcher;
+  @Nonnull private final ArrivalTracker arrivals;
+  @Nonnull private final ResidencyManager residency;
+  @Nonnull private final InstanceManager instances;
+  private final TaskPool<TeleportTask> taskPool = new TaskPool<>(64, TeleportTask::new);
+  private final TaskPool<ArrivalReport> reportPool = new TaskPool<>(64, ArrivalReport::new);
+  @Nonnull private final RequiredArg<Destination> worldArg;
   @Nonnull private final OptionalArg<PlayerRef> playerArg;
   @Nonnull private final OptionalArg<RelativeDoublePosition> positionArg;
   @Nonnull private final OptionalArg<Rotation3fc> rotationArg;
   @Nonnull private final OptionalArg<Rotation3fc> bodyRotationArg;
 
-  public Tp2WorldCommand() {
+  public Tp2WorldCommand(
+      @Nonnull NameIndex nameIndex,
+      @Nonnull ClusterService cluster,
+      @Nonnull WorldGroups worldGroups,
+      @Nonnull WorldDispatcher dispatcher,
+      @Nonnull ArrivalTracker arrivals,
+      @Nonnull ResidencyManager residency,
+      @Nonnull PositionBoard positions,
+      @Nonnull InstanceManager instances,
+      @Nonnull NotificationQueue notifications) {
     super("tp2world", "HiWire.Tp2World.Commands.Tp2World.Desc");
-
+    this.cluster = cluster;
+    this.dispatcher = dispatcher;
+    this.arrivals = arrivals;
+    this.residency = residency;
+    this.instances = instances;
+
+    // Local worlds, world groups, instance templates and worlds on other cluster nodes
+    final var destinationParser =
+        new DestinationParser(cluster, worldGroups, residency, instances.getTemplates());
     this.worldArg =
         this.withRequiredArg(
-            "world", "HiWire.Tp2World.Commands.Tp2World.Param.World.Desc", ArgTypes.WORLD);
+            "world",
+            "HiWire.Tp2World.Commands.Tp2World.Param.World.Desc",
+            new IndexedArgumentType<>(
+                "server.commands.parsing.argtype.world.name",
+                "server.commands.parsing.argtype.world.usage",
+                destinationParser::parse,
+                List.of(
+                    nameIndex.getWorldNames(),
+                    residency.getUnloadedNames(),
+                    worldGroups.getNames(),
+                    instances.getTemplates().getNames(),
+                    cluster.getRegistry().getWorldNames()),
+                nameIndex.getLimit()));
     this.playerArg =
         this.withOptionalArg(
-            "player", "HiWire.Tp2World.Commands.Tp2World.Param.Player.Desc", ArgTypes.PLAYER_REF);
+            "player",
+            "HiWire.Tp2World.Commands.Tp2World.Param.Player.Desc",
+            nameIndex.getPlayerArgType());
     this.positionArg =
         this.withOptionalArg(
             "position",
@@ -72,189 +165,574 @@ public class Tp2WorldCommand extends CommandBase {
             "HiWire.Tp2World.Commands.Tp2World.Param.BodyRotation.Desc",
             ArgTypes.ROTATION);
 
+    this.addSubCommand(
+        new Tp2WorldGroupCommand(
+            nameIndex, destinationParser, worldGroups, residency, instances, notifications));
+    this.addSubCommand(new Tp2WorldBulkCommand(dispatcher, notifications));
+    this.addSubCommand(new Tp2WorldMigrateCommand(nameIndex, dispatcher));
+
+    final var snapshots = new SnapshotService(dispatcher);
+    final var snapshotStore =
+        new SnapshotStore(Tp2WorldPlugin.get().getDataDirectory().resolve(SnapshotStore.DIRECTORY));
+    this.addSubCommand(new Tp2WorldSnapshotCommand(snapshots, snapshotStore));
+    this.addSubCommand(new Tp2WorldRestoreCommand(snapshots, snapshotStore, notifications));
+    this.addSubCommand(
+        new Tp2WorldToCommand(nameIndex, dispatcher, arrivals, residency, positions));
+    this.addSubCommand(new Tp2WorldReloadCommand());
+
     this.requirePermission(HytalePermissions.fromCommand("tp2world"));
   }
 
   @Override
   protected void executeSync(@Nonnull CommandContext context) {
-    final var targetWorld = this.worldArg.get(context);
-    final var worldName = targetWorld.getName();
+    final long startedAtNanos = System.nanoTime();
+
+    // Only allocated while a recording wants the event
+    final var dispatchEvent = DISPATCH_EVENT_TYPE.isEnabled() ? new DispatchEvent() : null;
+    if (dispatchEvent != null) {
+      dispatchEvent.begin();
+    }
+
+    final var destination = this.worldArg.get(context);
+    final var worldName = destination.worldName();
 
     // Determine target player - get ref/store first (safe on command thread)
     final boolean teleportingSelf = !this.playerArg.provided(context);
 
+    final Ref<EntityStore> ref;
+    final PlayerRef targetPlayerRef;
     if (teleportingSelf) {
-      // Use command sender as target
-      final var senderRef = context.senderAsPlayerRef();
-      if (senderRef == null || !senderRef.isValid()) {
+      // Use command sender as target, its PlayerRef is read on the world thread
+      ref = context.senderAsPlayerRef();
+      targetPlayerRef = null;
+      if (ref == null || !ref.isValid()) {
         context.sendMessage(MESSAGE_PLAYER_OR_ARG.param("option", "player"));
         return;
       }
-      final var senderStore = senderRef.getStore();
-      final var currentWorld = senderStore.getExternalData().getWorld();
-
-      // Execute on world thread - getComponent must be called from world thread
-      currentWorld.execute(
-          () -> {
-            final var targetPlayerRef =
-                senderStore.getComponent(senderRef, PlayerRef.getComponentType());
-            if (targetPlayerRef == null) {
-              context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
-              return;
-            }
-            executeOnWorldThread(
-                context, senderStore, senderRef, targetWorld, worldName, true, targetPlayerRef);
-          });
+      if (!canTeleportTo(context, destination, PermissionCache.Action.SELF)) {
+        return;
+      }
     } else {
       // Teleport another player
-      final var targetPlayerRef = this.playerArg.get(context);
+      targetPlayerRef = this.playerArg.get(context);
       if (targetPlayerRef == null) {
         context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
         return;
       }
 
-      final var ref = targetPlayerRef.getReference();
+      // Naming yourself with --player still only needs the self node
+      final var action =
+          targetPlayerRef.getUuid().equals(context.sender().getUuid())
+              ? PermissionCache.Action.SELF
+              : PermissionCache.Action.OTHERS;
+      if (!canTeleportTo(context, destination, action)) {
+        return;
+      }
+
+      ref = targetPlayerRef.getReference();
       if (ref == null || !ref.isValid()) {
         context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
         return;
       }
+    }
+
+    // Unloaded worlds and instances are only known once loaded or assigned
+    final CompletableFuture<World> pendingWorld =
+        switch (destination) {
+          case Destination.Unloaded unloaded -> this.residency.load(unloaded.worldName());
+          case Destination.Instance instance -> this.instances.assign(instance.pool());
+          default -> null;
+        };
+    if (pendingWorld != null) {
+      // The teleport continues once the world is there
+      pendingWorld.whenComplete(
+          (world, error) -> {
+            if (world == null) {
+              context.sendMessage(
+                  (destination instanceof Destination.Instance
+                          ? MESSAGE_INSTANCE_FAILED
+                          : MESSAGE_WORLD_LOAD_FAILED)
+                      .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                      .param("WorldName", worldName));
+              return;
+            }
+            submit(
+                context,
+                ref,
+                new Destination.Local(world),
+                teleportingSelf,
+                targetPlayerRef,
+                startedAtNanos,
+                dispatchEvent);
+          });
+      return;
+    }
+    if (destination instanceof Destination.Local) {
+      // Keeps the world from being unloaded right before the player arrives
+      this.residency.touch(worldName);
+    }
+
+    submit(
+        context, ref, destination, teleportingSelf, targetPlayerRef, startedAtNanos, dispatchEvent);
+  }
+
+  /**
+   * Checks the per-world permission of a destination, a group is checked once its member is picked.
+   * Tells the sender if it is denied.
+   */
+  private static boolean canTeleportTo(
+      @Nonnull CommandContext context,
+      @Nonnull Destination destination,
+      @Nonnull PermissionCache.Action action) {
+    final var worldName = destination.permissionWorldName();
+    if (worldName == null
+        || Tp2WorldPlugin.context()
+            .worldPermissions()
+            .canTeleport(context.sender(), worldName, action)) {
+      return true;
+    }
+    context.sendMessage(
+        MESSAGE_NO_WORLD_PERMISSION
+            .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+            .param("WorldName", worldName));
+    return false;
+  }
+
+  /** One hop to the player's current world thread, batched with all other pending tp2world work. */
+  private void submit(
+      @Nonnull CommandContext context,
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull Destination destination,
+      boolean teleportingSelf,
+      @Nullable PlayerRef targetPlayerRef,
+      long startedAtNanos,
+      @Nullable DispatchEvent dispatchEvent) {
+    if (!ref.isValid()) {
+      context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+      return;
+    }
+    final var currentWorld = ref.getStore().getExternalData().getWorld();
+    final var task = this.taskPool.acquire();
+    task.set(
+        context, ref, destination, teleportingSelf, targetPlayerRef, startedAtNanos, dispatchEvent);
+    this.dispatcher.submit(currentWorld, task);
+  }
+
+  /**
+   * Reusable world thread part of one command execution. It also resolves the position argument,
+   * so the teleport doesn't need a new object for it.
+   */
+  private final class TeleportTask extends WorldTask implements Tp2WorldTeleporter.TargetPosition {
+    private CommandContext context;
+    private Ref<EntityStore> ref;
+    private Destination destination;
+    private boolean teleportingSelf;
+    @Nullable private PlayerRef targetPlayerRef;
+    private long startedAtNanos;
+    @Nullable private DispatchEvent dispatchEvent;
+
+    private void set(
+        @Nonnull CommandContext context,
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull Destination destination,
+        boolean teleportingSelf,
+        @Nullable PlayerRef targetPlayerRef,
+        long startedAtNanos,
+        @Nullable DispatchEvent dispatchEvent) {
+      this.context = context;
+      this.ref = ref;
+      this.destination = destination;
+      this.teleportingSelf = teleportingSelf;
+      this.targetPlayerRef = targetPlayerRef;
+      this.startedAtNanos = startedAtNanos;
+      this.dispatchEvent = dispatchEvent;
+    }
+
+    @Override
+    protected void run() {
+      try {
+        execute();
+      } finally {
+        this.context = null;
+        this.ref = null;
+        this.destination = null;
+        this.targetPlayerRef = null;
+        this.dispatchEvent = null;
+        Tp2WorldCommand.this.taskPool.release(this);
+      }
+    }
+
+    /** Only valid while the task runs, the teleport resolves the position synchronously. */
+    @Nonnull
+    @Override
+    public Vector3d resolve(@Nonnull Vector3d previousPosition, @Nonnull World targetWorld) {
+      return positionArg.get(context).getRelativePosition(previousPosition, targetWorld);
+    }
 
+    private void execute() {
+      if (!ref.isValid()) {
+        context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+        return;
+      }
       final var store = ref.getStore();
-      final var currentWorld = store.getExternalData().getWorld();
 
-      // Execute teleport on the target player's world thread
-      currentWorld.execute(
-          () ->
-              executeOnWorldThread(
-                  context, store, ref, targetWorld, worldName, false, targetPlayerRef));
+      // getComponent must be called from world thread
+      var playerRef = targetPlayerRef;
+      if (playerRef == null) {
+        playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+        if (playerRef == null) {
+          context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+          return;
+        }
+      }
+
+      dispatchOnWorldThread(
+          context, store, ref, destination, teleportingSelf, playerRef, startedAtNanos, this);
+      if (dispatchEvent != null) {
+        commitDispatchEvent(
+            dispatchEvent, store.getExternalData().getWorld(), destination.worldName(), playerRef);
+      }
     }
   }
 
-  private void executeOnWorldThread(
+  private static void commitDispatchEvent(
+      @Nonnull DispatchEvent event,
+      @Nonnull World sourceWorld,
+      @Nonnull String targetWorldName,
+      @Nonnull PlayerRef targetPlayerRef) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.sourceWorld = sourceWorld.getName();
+      event.targetWorld = targetWorldName;
+      event.playerId = targetPlayerRef.getUuid().toString();
+      event.batchSize = 1;
+      event.commit();
+    }
+  }
+
+  private void dispatchOnWorldThread(
       @Nonnull CommandContext context,
       @Nonnull Store<EntityStore> store,
       @Nonnull Ref<EntityStore> ref,
-      @Nonnull World targetWorld,
-      @Nonnull String worldName,
+      @Nonnull Destination destination,
+      boolean teleportingSelf,
+      @Nonnull PlayerRef targetPlayerRef,
+      long startedAtNanos,
+      @Nonnull Tp2WorldTeleporter.TargetPosition argumentPosition) {
+    switch (destination) {
+      case Destination.Local local ->
+          executeOnWorldThread(
+              context,
+              store,
+              ref,
+              local.world(),
+              local.worldName(),
+              teleportingSelf,
+              targetPlayerRef,
+              startedAtNanos,
+              argumentPosition);
+      case Destination.Group group -> {
+        // Pick on the world thread, right before the teleport, so the load is as recent as possible
+        final var memberName = group.group().pick();
+        final var member = memberName != null ? Universe.get().getWorld(memberName) : null;
+        if (member == null) {
+          context.sendMessage(
+              MESSAGE_NO_WORLD_AVAILABLE
+                  .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                  .param("WorldName", group.worldName()));
+          return;
+        }
+        final var action =
+            teleportingSelf || targetPlayerRef.getUuid().equals(context.sender().getUuid())
+                ? PermissionCache.Action.SELF
+                : PermissionCache.Action.OTHERS;
+        if (!canTeleportTo(context, new Destination.Local(member), action)) {
+          return;
+        }
+        executeOnWorldThread(
+            context,
+            store,
+            ref,
+            member,
+            member.getName(),
+            teleportingSelf,
+            targetPlayerRef,
+            startedAtNanos,
+            argumentPosition);
+      }
+      case Destination.Remote remote ->
+          transferOnWorldThread(context, store, ref, remote, teleportingSelf, targetPlayerRef);
+      case Destination.Unloaded unloaded ->
+          // Loaded before dispatching, only reached if it was unloaded again meanwhile
+          context.sendMessage(
+              MESSAGE_WORLD_LOAD_FAILED
+                  .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                  .param("WorldName", unloaded.worldName()));
+      case Destination.Instance instance ->
+          // Assigned before dispatching, never dispatched as is
+          context.sendMessage(
+              MESSAGE_INSTANCE_FAILED
+                  .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                  .param("WorldName", instance.worldName()));
+    }
+  }
+
+  private void transferOnWorldThread(
+      @Nonnull CommandContext context,
+      @Nonnull Store<EntityStore> store,
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull Destination.Remote destination,
       boolean teleportingSelf,
       @Nonnull PlayerRef targetPlayerRef) {
+    final var remoteWorld = destination.world();
+    final var worldName = remoteWorld.worldName();
 
     // Get current position/rotation for relative calculations
     final var transformComponent = store.getComponent(ref, TransformComponent.getComponentType());
-    final var headRotationComponent = store.getComponent(ref, HeadRotation.getComponentType());
-
-    if (transformComponent == null || headRotationComponent == null) {
+    if (transformComponent == null) {
       context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
       return;
     }
-
     final var previousPos = transformComponent.getPosition();
     final var previousBodyRotation = transformComponent.getRotation();
 
-    // Check if we can use the simple spawn point teleport (no overrides)
-    final boolean useSpawnPoint =
-        !this.positionArg.provided(context)
-            && !this.rotationArg.provided(context)
-            && !this.bodyRotationArg.provided(context);
+    // Without overrides the remote node uses its spawn point on arrival
+    Vector3d targetPosition = null;
+    Rotation3f targetHeadRotation = null;
+    Rotation3f targetBodyRotation = null;
 
-    Vector3d targetPosition;
-    Rotation3f targetHeadRotation;
-    Rotation3f targetBodyRotation;
-    Teleport teleport;
+    if (this.positionArg.provided(context)) {
+      // Relative coordinates are resolved against the player's current position
+      final var relPos = this.positionArg.get(context);
+      targetPosition = relPos.getRelativePosition(previousPos, store.getExternalData().getWorld());
+      targetHeadRotation = new Rotation3f(0, 0, 0);
+    }
+    if (this.rotationArg.provided(context)) {
+      targetHeadRotation = new Rotation3f(this.rotationArg.get(context));
+    }
+    if (this.bodyRotationArg.provided(context)) {
+      targetBodyRotation = new Rotation3f(this.bodyRotationArg.get(context));
+    } else if (targetHeadRotation != null) {
+      targetBodyRotation =
+          new Rotation3f(
+              previousBodyRotation.pitch(), targetHeadRotation.yaw(), previousBodyRotation.roll());
+    }
 
-    if (useSpawnPoint) {
-      // Use world spawn point directly with createForPlayer
-      final var spawnPoint =
-          targetWorld.getWorldConfig().getSpawnProvider().getSpawnPoint(ref, store);
+    cluster
+        .transfer(
+            targetPlayerRef, remoteWorld, targetPosition, targetHeadRotation, targetBodyRotation)
+        .whenComplete(
+            (accepted, error) -> {
+              if (error != null || !accepted) {
+                if (error != null) {
+                  Tp2WorldPlugin.get()
+                      .getLogger()
+                      .at(Level.WARNING)
+                      .withCause(error)
+                      .log("Transfer to " + worldName + " on " + remoteWorld.nodeId() + " failed");
+                }
+                context.sendMessage(
+                    MESSAGE_TRANSFER_FAILED
+                        .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                        .param("WorldName", worldName)
+                        .param("NodeId", remoteWorld.nodeId()));
+                return;
+              }
+
+              if (teleportingSelf) {
+                context.sendMessage(
+                    MESSAGE_TRANSFERRING_TO_WORLD
+                        .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                        .param("WorldName", worldName)
+                        .param("NodeId", remoteWorld.nodeId()));
+              } else {
+                context.sendMessage(
+                    MESSAGE_TRANSFERRING_PLAYER_TO_WORLD
+                        .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                        .param("PlayerName", targetPlayerRef.getUsername())
+                        .param("WorldName", worldName)
+                        .param("NodeId", remoteWorld.nodeId()));
+              }
+            });
+  }
 
-      if (spawnPoint == null) {
+  private void executeOnWorldThread(
+      @Nonnull CommandContext context,
+      @Nonnull Store<EntityStore> store,
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull World targetWorld,
+      @Nonnull String worldName,
+      boolean teleportingSelf,
+      @Nonnull PlayerRef targetPlayerRef,
+      long startedAtNanos,
+      @Nonnull Tp2WorldTeleporter.TargetPosition argumentPosition) {
+
+    // The plain command allocates no options, a position resolves through the running task
+    final var position = this.positionArg.provided(context) ? argumentPosition : null;
+    final var headRotation =
+        this.rotationArg.provided(context) ? this.rotationArg.get(context) : null;
+    final var bodyRotation =
+        this.bodyRotationArg.provided(context) ? this.bodyRotationArg.get(context) : null;
+    final var options =
+        position == null && headRotation == null && bodyRotation == null
+            ? Tp2WorldTeleporter.Options.SPAWN
+            : new Tp2WorldTeleporter.Options(position, headRotation, bodyRotation);
+
+    final var result = Tp2WorldTeleporter.teleport(store, ref, targetWorld, options);
+    switch (result.status()) {
+      case NOT_IN_WORLD -> {
+        context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+        return;
+      }
+      case SPAWN_NOT_SET -> {
         context.sendMessage(MESSAGE_WORLD_SPAWN_NOT_SET.param("worldName", worldName));
         return;
       }
+      case CANCELLED -> {
+        context.sendMessage(
+            MESSAGE_TELEPORT_CANCELLED
+                .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                .param("WorldName", worldName));
+        return;
+      }
+      case TELEPORTED -> {}
+    }
 
-      targetPosition = spawnPoint.getPosition();
-      targetHeadRotation = new Rotation3f(spawnPoint.getRotation());
-      // Body rotation from spawn: pitch=0, yaw from spawn, roll=0
-      targetBodyRotation = new Rotation3f(0, targetHeadRotation.yaw(), 0);
-      teleport = Teleport.createForPlayer(targetWorld, spawnPoint);
-    } else {
-      // Custom position or rotation - need to build teleport manually
-      if (this.positionArg.provided(context)) {
-        // Use provided position (supports relative coordinates like ~ ~10 ~)
-        final var relPos = this.positionArg.get(context);
-        targetPosition = relPos.getRelativePosition(previousPos, targetWorld);
-
-        // Default head rotation to 0 0 0 when custom position provided
-        targetHeadRotation = new Rotation3f(0, 0, 0);
-      } else {
-        // Use world spawn point position and rotation
-        final var spawnPoint =
-            targetWorld.getWorldConfig().getSpawnProvider().getSpawnPoint(ref, store);
-
-        if (spawnPoint == null) {
-          context.sendMessage(MESSAGE_WORLD_SPAWN_NOT_SET.param("worldName", worldName));
-          return;
-        }
+    // A pre-teleport listener may have picked another world
+    final var arrivalWorld = result.world();
+    final var arrivalWorldName = arrivalWorld == targetWorld ? worldName : arrivalWorld.getName();
+
+    // Confirm only once the player was observed in the target world
+    final var report = this.reportPool.acquire();
+    report.set(
+        context,
+        arrivalWorldName,
+        teleportingSelf,
+        targetPlayerRef,
+        result.position(),
+        result.headRotation(),
+        result.bodyRotation());
+    this.arrivals
+        .expect(targetPlayerRef, store, ref, arrivalWorld, startedAtNanos)
+        .thenAccept(report);
+  }
 
-        targetPosition = spawnPoint.getPosition();
-        targetHeadRotation = new Rotation3f(spawnPoint.getRotation());
-      }
+  /** Reusable confirmation of one teleport, sent once the arrival is known. */
+  private final class ArrivalReport implements Consumer<Arrival> {
+    private CommandContext context;
+    private String worldName;
+    private boolean teleportingSelf;
+    private PlayerRef targetPlayerRef;
+    private Vector3d targetPosition;
+    private Rotation3f targetHeadRotation;
+    private Rotation3f targetBodyRotation;
+
+    private void set(
+        @Nonnull CommandContext context,
+        @Nonnull String worldName,
+        boolean teleportingSelf,
+        @Nonnull PlayerRef targetPlayerRef,
+        @Nonnull Vector3d targetPosition,
+        @Nonnull Rotation3f targetHeadRotation,
+        @Nonnull Rotation3f targetBodyRotation) {
+      this.context = context;
+      this.worldName = worldName;
+      this.teleportingSelf = teleportingSelf;
+      this.targetPlayerRef = targetPlayerRef;
+      this.targetPosition = targetPosition;
+      this.targetHeadRotation = targetHeadRotation;
+      this.targetBodyRotation = targetBodyRotation;
+    }
 
-      // Apply head rotation override if provided
-      if (this.rotationArg.provided(context)) {
-        targetHeadRotation = new Rotation3f(this.rotationArg.get(context));
+    @Override
+    public void accept(@Nonnull Arrival arrival) {
+      try {
+        report(arrival);
+      } finally {
+        this.context = null;
+        this.worldName = null;
+        this.targetPlayerRef = null;
+        this.targetPosition = null;
+        this.targetHeadRotation = null;
+        this.targetBodyRotation = null;
+        Tp2WorldCommand.this.reportPool.release(this);
       }
+    }
 
-      // Determine body rotation
-      if (this.bodyRotationArg.provided(context)) {
-        targetBodyRotation = new Rotation3f(this.bodyRotationArg.get(context));
-      } else {
-        // Default body rotation: preserve previous pitch/roll, use head yaw
-        targetBodyRotation =
-            new Rotation3f(
-                previousBodyRotation.pitch(),
-                targetHeadRotation.yaw(),
-                previousBodyRotation.roll());
+    private void report(@Nonnull Arrival arrival) {
+      switch (arrival.status()) {
+        case ARRIVED ->
+            sendTeleportedMessages(
+                context,
+                worldName,
+                teleportingSelf,
+                targetPlayerRef,
+                targetPosition,
+                targetHeadRotation,
+                targetBodyRotation);
+        case TIMED_OUT ->
+            context.sendMessage(
+                MESSAGE_ARRIVAL_TIMED_OUT
+                    .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                    .param("PlayerName", targetPlayerRef.getUsername())
+                    .param("WorldName", worldName));
+        case DISCONNECTED -> {
+          // Nobody left to tell when teleporting yourself
+          if (!teleportingSelf) {
+            context.sendMessage(
+                MESSAGE_ARRIVAL_ABORTED
+                    .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                    .param("PlayerName", targetPlayerRef.getUsername())
+                    .param("WorldName", worldName));
+          }
+        }
+        case REPLACED -> {
+          // A newer teleport of the same player reports instead
+        }
       }
+    }
+  }
 
-      // Create teleport with target world (constructor needed for cross-world teleport)
-      teleport = new Teleport(targetWorld, targetPosition, targetBodyRotation);
-      teleport.setHeadRotation(targetHeadRotation);
+  private static void sendTeleportedMessages(
+      @Nonnull CommandContext context,
+      @Nonnull String worldName,
+      boolean teleportingSelf,
+      @Nonnull PlayerRef targetPlayerRef,
+      @Nonnull Vector3d targetPosition,
+      @Nonnull Rotation3f headRotation,
+      @Nonnull Rotation3f bodyRotation) {
+    final boolean notifyPlayer = Tp2WorldPlugin.context().config().isNotifyTeleportedPlayer();
+    if (teleportingSelf && !notifyPlayer) {
+      return;
     }
 
-    store.addComponent(ref, Teleport.getComponentType(), teleport);
-
-    // Convert rotations from radians to degrees for display (default to 0 if NaN)
-    final float radToDeg = 57.295776f;
-    final var headRotDeg =
-        new Rotation3f(
-            Float.isNaN(targetHeadRotation.pitch()) ? 0 : targetHeadRotation.pitch() * radToDeg,
-            Float.isNaN(targetHeadRotation.yaw()) ? 0 : targetHeadRotation.yaw() * radToDeg,
-            Float.isNaN(targetHeadRotation.roll()) ? 0 : targetHeadRotation.roll() * radToDeg);
-    final var bodyRotDeg =
-        new Rotation3f(
-            Float.isNaN(targetBodyRotation.pitch()) ? 0 : targetBodyRotation.pitch() * radToDeg,
-            Float.isNaN(targetBodyRotation.yaw()) ? 0 : targetBodyRotation.yaw() * radToDeg,
-            Float.isNaN(targetBodyRotation.roll()) ? 0 : targetBodyRotation.roll() * radToDeg);
+    // Formatted once for both messages, rotations in degrees for display
+    final var x = String.format("%.2f", targetPosition.x());
+    final var y = String.format("%.2f", targetPosition.y());
+    final var z = String.format("%.2f", targetPosition.z());
+    final var headPitch = String.format("%.2f", TargetRotations.degrees(headRotation.pitch()));
+    final var headYaw = String.format("%.2f", TargetRotations.degrees(headRotation.yaw()));
+    final var headRoll = String.format("%.2f", TargetRotations.degrees(headRotation.roll()));
+    final var bodyPitch = String.format("%.2f", TargetRotations.degrees(bodyRotation.pitch()));
+    final var bodyYaw = String.format("%.2f", TargetRotations.degrees(bodyRotation.yaw()));
+    final var bodyRoll = String.format("%.2f", TargetRotations.degrees(bodyRotation.roll()));
 
     // Send messages
     if (teleportingSelf) {
-      // Teleporting yourself - config controls if you see a message
-      if (Tp2WorldPlugin.get().getConfig().isNotifyTeleportedPlayer()) {
-        context.sendMessage(
-            MESSAGE_TELEPORTED_TO_WORLD
-                .param("ModPrefix", Tp2WorldPlugin.PREFIX)
-                .param("WorldName", worldName)
-                .param("X", String.format("%.2f", targetPosition.x()))
-                .param("Y", String.format("%.2f", targetPosition.y()))
-                .param("Z", String.format("%.2f", targetPosition.z()))
-                .param("HeadPitch", String.format("%.2f", headRotDeg.pitch()))
-                .param("HeadYaw", String.format("%.2f", headRotDeg.yaw()))
-                .param("HeadRoll", String.format("%.2f", headRotDeg.roll()))
-                .param("BodyPitch", String.format("%.2f", bodyRotDeg.pitch()))
-                .param("BodyYaw", String.format("%.2f", bodyRotDeg.yaw()))
-                .param("BodyRoll", String.format("%.2f", bodyRotDeg.roll())));
-      }
+      // Teleporting yourself, only reached if the config allows the message
+      context.sendMessage(
+          MESSAGE_TELEPORTED_TO_WORLD
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("WorldName", worldName)
+              .param("X", x)
+              .param("Y", y)
+              .param("Z", z)
+              .param("HeadPitch", headPitch)
+              .param("HeadYaw", headYaw)
+              .param("HeadRoll", headRoll)
+              .param("BodyPitch", bodyPitch)
+              .param("BodyYaw", bodyYaw)
+              .param("BodyRoll", bodyRoll));
     } else {
       // Teleporting another player - command sender always gets confirmation
       context.sendMessage(
@@ -262,31 +740,31 @@ public class Tp2WorldCommand extends CommandBase {
               .param("ModPrefix", Tp2WorldPlugin.PREFIX)
               .param("PlayerName", targetPlayerRef.getUsername())
               .param("WorldName", worldName)
-              .param("X", String.format("%.2f", targetPosition.x()))
-              .param("Y", String.format("%.2f", targetPosition.y()))
-              .param("Z", String.format("%.2f", targetPosition.z()))
-              .param("HeadPitch", String.format("%.2f", headRotDeg.pitch()))
-              .param("HeadYaw", String.format("%.2f", headRotDeg.yaw()))
-              .param("HeadRoll", String.format("%.2f", headRotDeg.roll()))
-              .param("BodyPitch", String.format("%.2f", bodyRotDeg.pitch()))
-              .param("BodyYaw", String.format("%.2f", bodyRotDeg.yaw()))
-              .param("BodyRoll", String.format("%.2f", bodyRotDeg.roll())));
+              .param("X", x)
+              .param("Y", y)
+              .param("Z", z)
+              .param("HeadPitch", headPitch)
+              .param("HeadYaw", headYaw)
+              .param("HeadRoll", headRoll)
+              .param("BodyPitch", bodyPitch)
+              .param("BodyYaw", bodyYaw)
+              .param("BodyRoll", bodyRoll));
 
       // Config controls if the teleported player sees a message
-      if (Tp2WorldPlugin.get().getConfig().isNotifyTeleportedPlayer()) {
+      if (notifyPlayer) {
         targetPlayerRef.sendMessage(
             MESSAGE_TELEPORTED_TO_WORLD
                 .param("ModPrefix", Tp2WorldPlugin.PREFIX)
                 .param("WorldName", worldName)
-                .param("X", String.format("%.2f", targetPosition.x()))
-                .param("Y", String.format("%.2f", targetPosition.y()))
-                .param("Z", String.format("%.2f", targetPosition.z()))
-                .param("HeadPitch", String.format("%.2f", headRotDeg.pitch()))
-                .param("HeadYaw", String.format("%.2f", headRotDeg.yaw()))
-                .param("HeadRoll", String.format("%.2f", headRotDeg.roll()))
-                .param("BodyPitch", String.format("%.2f", bodyRotDeg.pitch()))
-                .param("BodyYaw", String.format("%.2f", bodyRotDeg.yaw()))
-                .param("BodyRoll", String.format("%.2f", bodyRotDeg.roll())));
+                .param("X", x)
+                .param("Y", y)
+                .param("Z", z)
+                .param("HeadPitch", headPitch)
+                .param("HeadYaw", headYaw)
+                .param("HeadRoll", headRoll)
+                .param("BodyPitch", bodyPitch)
+                .param("BodyYaw", bodyYaw)
+                .param("BodyRoll", bodyRoll));
       }
     }
   }
@@ -0,0 +1,303 @@
+package studio.hiwire.tp2world.command;
+
+import com.hypixel.hytale.math.vector.Rotation3fc;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.FlagArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.arguments.types.RelativeDoublePosition;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.permissions.HytalePermissions;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.balance.WorldGroup;
+import studio.hiwire.tp2world.balance.WorldGroups;
+import studio.hiwire.tp2world.completion.IndexedArgumentType;
+import studio.hiwire.tp2world.completion.NameIndex;
+import studio.hiwire.tp2world.destination.Destination;
+import studio.hiwire.tp2world.destination.DestinationParser;
+import studio.hiwire.tp2world.group.GroupTeleport;
+import studio.hiwire.tp2world.instance.InstanceManager;
+import studio.hiwire.tp2world.notify.NotificationQueue;
+import studio.hiwire.tp2world.permission.PermissionCache;
+import studio.hiwire.tp2world.residency.ResidencyManager;
+
+/**
+ * Group teleport command: /tp2world group <world> <players...> [--position x y z] [--rotation pitch yaw roll] [--silent]
+ *
+ * - The first player is the leader, all other players keep their offset to the leader
+ * - If position is not specified, the leader lands on the world's spawn point
+ * - If position is specified, it is relative to the leader's current position
+ * - If rotation is specified, the whole formation is turned to face the given yaw
+ * - Every member is checked in the same world task that moves them, if any member is gone nobody
+ *   is teleported
+ * - Pre- and post-teleport events fire for every member, cancelling one member aborts the group
+ * - If the name is a world group, the players are spread across its least loaded members and every
+ *   member world gets its own formation, led by its first player
+ * - If the world was unloaded while idle, it is loaded again before the teleport
+ * - If the name is template:<name>, the whole group gets one fresh private instance
+ * - Members are notified through the notification queue, unless --silent is given
+ */
+public class Tp2WorldGroupCommand extends CommandBase {
+
+  private static final Message MESSAGE_PLAYER_NOT_IN_WORLD =
+      Message.translation("server.commands.errors.playerNotInWorld");
+  private static final Message MESSAGE_WORLD_SPAWN_NOT_SET =
+      Message.translation("server.world.spawn.notSet");
+  private static final Message MESSAGE_TELEPORTED_GROUP_TO_WORLD =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.TeleportedGroupToWorld");
+  private static final String MESSAGE_TELEPORTED_WITH_GROUP =
+      "HiWire.Tp2World.ChatMessages.Command.Tp2World.TeleportedWithGroup";
+  private static final Message MESSAGE_GROUP_ABORTED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.GroupAborted");
+  private static final Message MESSAGE_NO_WORLD_PERMISSION =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.NoWorldPermission");
+  private static final Message MESSAGE_NO_WORLD_AVAILABLE =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.NoWorldAvailable");
+
+  @Nonnull private final ResidencyManager residency;
+  @Nonnull private final InstanceManager instances;
+  @Nonnull private final NotificationQueue notifications;
+  @Nonnull private final RequiredArg<Destination> worldArg;
+  @Nonnull private final RequiredArg<List<PlayerRef>> playersArg;
+  @Nonnull private final OptionalArg<RelativeDoublePosition> positionArg;
+  @Nonnull private final OptionalArg<Rotation3fc> rotationArg;
+  @Nonnull private final FlagArg silentArg;
+
+  public Tp2WorldGroupCommand(
+      @Nonnull NameIndex nameIndex,
+      @Nonnull DestinationParser destinationParser,
+      @Nonnull WorldGroups worldGroups,
+      @Nonnull ResidencyManager residency,
+      @Nonnull InstanceManager instances,
+      @Nonnull NotificationQueue notifications) {
+    super("group", "HiWire.Tp2World.Commands.Tp2World.Group.Desc");
+    this.residency = residency;
+    this.instances = instances;
+    this.notifications = notifications;
+
+    // Local worlds and world groups, a formation can't be transferred to another node
+    this.worldArg =
+        this.withRequiredArg(
+            "world",
+            "HiWire.Tp2World.Commands.Tp2World.Param.World.Desc",
+            new IndexedArgumentType<>(
+                "server.commands.parsing.argtype.world.name",
+                "server.commands.parsing.argtype.world.usage",
+                destinationParser::parseLocal,
+                List.of(
+                    nameIndex.getWorldNames(),
+                    residency.getUnloadedNames(),
+                    worldGroups.getNames(),
+                    instances.getTemplates().getNames()),
+                nameIndex.getLimit()));
+    this.playersArg =
+        this.withListRequiredArg(
+            "players",
+            "HiWire.Tp2World.Commands.Tp2World.Group.Param.Players.Desc",
+            nameIndex.getPlayerArgType());
+    this.positionArg =
+        this.withOptionalArg(
+            "position",
+            "HiWire.Tp2World.Commands.Tp2World.Group.Param.Position.Desc",
+            ArgTypes.RELATIVE_POSITION);
+    this.rotationArg =
+        this.withOptionalArg(
+            "rotation",
+            "HiWire.Tp2World.Commands.Tp2World.Group.Param.Rotation.Desc",
+            ArgTypes.ROTATION);
+    this.silentArg =
+        this.withFlagArg("silent", "HiWire.Tp2World.Commands.Tp2World.Param.Silent.Desc");
+
+    this.requirePermission(HytalePermissions.fromCommand("tp2world.group"));
+  }
+
+  @Override
+  protected void executeSync(@Nonnull CommandContext context) {
+    final var destination = this.worldArg.get(context);
+    final var worldName = destination.worldName();
+    final var members = this.playersArg.get(context);
+
+    if (members == null || members.isEmpty()) {
+      context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+      return;
+    }
+
+    // Check every member up front - either everybody may go or nobody goes
+    final var permissionWorldName = destination.permissionWorldName();
+    if (permissionWorldName != null && !canTeleportAll(context, members, permissionWorldName)) {
+      return;
+    }
+
+    final var position = this.positionArg.provided(context) ? this.positionArg.get(context) : null;
+    final var rotation = this.rotationArg.provided(context) ? this.rotationArg.get(context) : null;
+    final boolean silent = this.silentArg.provided(context);
+
+    final CompletableFuture<GroupTeleport.Result> teleport;
+    switch (destination) {
+      case Destination.Local local -> {
+        this.residency.touch(worldName);
+        teleport = GroupTeleport.execute(members, local.world(), position, rotation);
+      }
+      case Destination.Unloaded unloaded ->
+          // A failed load completes exceptionally and is reported as aborted below
+          teleport =
+              this.residency
+                  .load(unloaded.worldName())
+                  .thenCompose(world -> GroupTeleport.execute(members, world, position, rotation));
+      case Destination.Instance instance ->
+          // The whole party shares one instance
+          teleport =
+              this.instances
+                  .assign(instance.pool())
+                  .thenCompose(world -> GroupTeleport.execute(members, world, position, rotation));
+      case Destination.Group group -> {
+        final var parts = spread(group.group(), members);
+        if (parts == null) {
+          context.sendMessage(
+              MESSAGE_NO_WORLD_AVAILABLE
+                  .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                  .param("WorldName", worldName));
+          return;
+        }
+        // Every part needs the nodes of the member world it goes to
+        for (GroupTeleport.Part part : parts) {
+          if (!canTeleportAll(context, part.members(), part.targetWorld().getName())) {
+            return;
+          }
+        }
+        teleport = GroupTeleport.execute(parts, position, rotation);
+      }
+      case Destination.Remote remote -> {
+        // Not produced by parseLocal
+        context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+        return;
+      }
+    }
+
+    teleport.whenComplete(
+        (result, error) -> {
+          if (error != null) {
+            Tp2WorldPlugin.get()
+                .getLogger()
+                .at(Level.WARNING)
+                .withCause(error)
+                .log("Group teleport to " + worldName + " failed");
+            context.sendMessage(
+                MESSAGE_GROUP_ABORTED
+                    .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                    .param("WorldName", worldName)
+                    .param("PlayerName", "-"));
+            return;
+          }
+
+          switch (result.status()) {
+            case COMMITTED -> {
+              context.sendMessage(
+                  MESSAGE_TELEPORTED_GROUP_TO_WORLD
+                      .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                      .param("Count", result.count())
+                      .param("WorldName", worldName));
+
+              // Config and --silent control if the teleported players see a message, a large
+              // group is notified over several ticks
+              if (Tp2WorldPlugin.context().config().isNotifyTeleportedPlayer() && !silent) {
+                for (PlayerRef member : result.moved()) {
+                  notifications.offer(
+                      member,
+                      Message.translation(MESSAGE_TELEPORTED_WITH_GROUP)
+                          .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                          .param("WorldName", worldName));
+                }
+              }
+            }
+            case SPAWN_NOT_SET ->
+                context.sendMessage(MESSAGE_WORLD_SPAWN_NOT_SET.param("worldName", worldName));
+            case EMPTY -> context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+            case MEMBER_NOT_IN_WORLD, MEMBER_LEFT, CANCELLED ->
+                context.sendMessage(
+                    MESSAGE_GROUP_ABORTED
+                        .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                        .param("WorldName", worldName)
+                        .param("PlayerName", result.playerName()));
+            case ABORTED ->
+                context.sendMessage(
+                    MESSAGE_GROUP_ABORTED
+                        .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                        .param("WorldName", worldName)
+                        .param("PlayerName", "-"));
+          }
+        });
+  }
+
+  /**
+   * Checks the per-world permission for every member, the sender's own node for itself and the
+   * others node for everybody else. Tells the sender if any is denied.
+   */
+  private static boolean canTeleportAll(
+      @Nonnull CommandContext context,
+      @Nonnull List<PlayerRef> members,
+      @Nonnull String worldName) {
+    final var permissions = Tp2WorldPlugin.context().worldPermissions();
+    final var senderUuid = context.sender().getUuid();
+    for (PlayerRef member : members) {
+      final var action =
+          member.getUuid().equals(senderUuid)
+              ? PermissionCache.Action.SELF
+              : PermissionCache.Action.OTHERS;
+      if (!permissions.canTeleport(context.sender(), worldName, action)) {
+        context.sendMessage(
+            MESSAGE_NO_WORLD_PERMISSION
+                .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                .param("WorldName", worldName));
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Splits the members across the least loaded members of a world group, in order. Every part is
+   * its own formation, but all parts are validated together before anyone is teleported.
+   *
+   * @return the parts, or null if no member world can take the whole group
+   */
+  @Nullable
+  private static List<GroupTeleport.Part> spread(
+      @Nonnull WorldGroup group, @Nonnull List<PlayerRef> members) {
+    final int[] counts = group.spread(members.size());
+    int total = 0;
+    for (int count : counts) {
+      total += count;
+    }
+    if (total < members.size()) {
+      return null;
+    }
+
+    final var parts = new ArrayList<GroupTeleport.Part>();
+    int from = 0;
+    for (int member = 0; member < counts.length; member++) {
+      if (counts[member] == 0) {
+        continue;
+      }
+      final var world = Universe.get().getWorld(group.getWorlds().get(member));
+      final var part = members.subList(from, from + counts[member]);
+      from += counts[member];
+      if (world == null) {
+        // Unloaded since the last sample
+        return null;
+      }
+      parts.add(new GroupTeleport.Part(part, world));
+    }
+    return parts;
+  }
+}
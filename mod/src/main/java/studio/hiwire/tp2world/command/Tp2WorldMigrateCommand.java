@@ -0,0 +1,160 @@
+package studio.hiwire.tp2world.command;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.arguments.types.RelativeDoublePosition;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.permissions.HytalePermissions;
+import com.hypixel.hytale.server.core.universe.world.World;
+import javax.annotation.Nonnull;
+import org.joml.Vector3d;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.completion.NameIndex;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.migrate.EntityMigrationJob;
+import studio.hiwire.tp2world.migrate.EntitySelector;
+import studio.hiwire.tp2world.permission.PermissionCache;
+
+/**
+ * Entity migration command: /tp2world migrate <from> <to> [--min x y z --max x y z] [--types ...]
+ *
+ * - Moves the non-player entities of one world to another, e.g. NPCs, item displays and mounts
+ * - --min and --max select a box of absolute coordinates, --types a comma-separated list of models
+ * - Entities are moved in batches within a per-tick budget, see {@link EntityMigrationJob}
+ * - With per-world permissions, the sender needs the others node of the target world
+ * - Progress is reported to the command sender, the final report counts moved and failed entities
+ */
+public class Tp2WorldMigrateCommand extends CommandBase {
+
+  private static final Message MESSAGE_MIGRATE_STARTED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.MigrateStarted");
+  private static final Message MESSAGE_MIGRATE_PROGRESS =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.MigrateProgress");
+  private static final Message MESSAGE_MIGRATE_FINISHED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.MigrateFinished");
+  private static final Message MESSAGE_MIGRATE_SAME_WORLD =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.MigrateSameWorld");
+  private static final Message MESSAGE_MIGRATE_INCOMPLETE_BOX =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.MigrateIncompleteBox");
+  private static final Message MESSAGE_NO_WORLD_PERMISSION =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.NoWorldPermission");
+
+  /** Coordinates of the box are absolute, ~ is relative to the world origin. */
+  private static final Vector3d ORIGIN = new Vector3d();
+
+  @Nonnull private final WorldDispatcher dispatcher;
+  @Nonnull private final RequiredArg<World> sourceArg;
+  @Nonnull private final RequiredArg<World> targetArg;
+  @Nonnull private final OptionalArg<RelativeDoublePosition> minArg;
+  @Nonnull private final OptionalArg<RelativeDoublePosition> maxArg;
+  @Nonnull private final OptionalArg<String> typesArg;
+
+  public Tp2WorldMigrateCommand(@Nonnull NameIndex nameIndex, @Nonnull WorldDispatcher dispatcher) {
+    super("migrate", "HiWire.Tp2World.Commands.Tp2World.Migrate.Desc");
+    this.dispatcher = dispatcher;
+
+    this.sourceArg =
+        this.withRequiredArg(
+            "from",
+            "HiWire.Tp2World.Commands.Tp2World.Migrate.Param.From.Desc",
+            nameIndex.getWorldArgType());
+    this.targetArg =
+        this.withRequiredArg(
+            "to",
+            "HiWire.Tp2World.Commands.Tp2World.Migrate.Param.To.Desc",
+            nameIndex.getWorldArgType());
+    this.minArg =
+        this.withOptionalArg(
+            "min",
+            "HiWire.Tp2World.Commands.Tp2World.Migrate.Param.Min.Desc",
+            ArgTypes.RELATIVE_POSITION);
+    this.maxArg =
+        this.withOptionalArg(
+            "max",
+            "HiWire.Tp2World.Commands.Tp2World.Migrate.Param.Max.Desc",
+            ArgTypes.RELATIVE_POSITION);
+    this.typesArg =
+        this.withOptionalArg(
+            "types", "HiWire.Tp2World.Commands.Tp2World.Migrate.Param.Types.Desc", ArgTypes.STRING);
+
+    this.requirePermission(HytalePermissions.fromCommand("tp2world.migrate"));
+  }
+
+  @Override
+  protected void executeSync(@Nonnull CommandContext context) {
+    final var source = this.sourceArg.get(context);
+    final var target = this.targetArg.get(context);
+    if (source == target) {
+      context.sendMessage(
+          MESSAGE_MIGRATE_SAME_WORLD
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("WorldName", source.getName()));
+      return;
+    }
+
+    // Moving entities into a world is moving others there
+    if (!Tp2WorldPlugin.context()
+        .worldPermissions()
+        .canTeleport(context.sender(), target.getName(), PermissionCache.Action.OTHERS)) {
+      context.sendMessage(
+          MESSAGE_NO_WORLD_PERMISSION
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("WorldName", target.getName()));
+      return;
+    }
+
+    final boolean hasMin = this.minArg.provided(context);
+    if (hasMin != this.maxArg.provided(context)) {
+      context.sendMessage(MESSAGE_MIGRATE_INCOMPLETE_BOX.param("ModPrefix", Tp2WorldPlugin.PREFIX));
+      return;
+    }
+    final var box =
+        hasMin
+            ? EntitySelector.Box.of(
+                this.minArg.get(context).getRelativePosition(ORIGIN, source),
+                this.maxArg.get(context).getRelativePosition(ORIGIN, source))
+            : null;
+    final var selector =
+        EntitySelector.of(box, this.typesArg.provided(context) ? this.typesArg.get(context) : null);
+
+    final var config = Tp2WorldPlugin.context().config();
+    final var sourceName = source.getName();
+    final var targetName = target.getName();
+    new EntityMigrationJob(
+            source,
+            target,
+            selector,
+            config.getMigrationTickBudgetMillis(),
+            config.getMigrationBatchSize(),
+            dispatcher,
+            progress -> report(context, sourceName, targetName, progress),
+            Tp2WorldPlugin.get().getLogger())
+        .start();
+
+    context.sendMessage(
+        MESSAGE_MIGRATE_STARTED
+            .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+            .param("Source", sourceName)
+            .param("Target", targetName));
+  }
+
+  private static void report(
+      @Nonnull CommandContext context,
+      @Nonnull String source,
+      @Nonnull String target,
+      @Nonnull EntityMigrationJob.Progress progress) {
+    final var message = progress.done() ? MESSAGE_MIGRATE_FINISHED : MESSAGE_MIGRATE_PROGRESS;
+    context.sendMessage(
+        message
+            .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+            .param("Source", source)
+            .param("Target", target)
+            .param("Selected", progress.selected())
+            .param("Migrated", progress.migrated())
+            .param("Failed", progress.failed())
+            .param("Gone", progress.gone()));
+  }
+}
@@ -0,0 +1,52 @@
+package studio.hiwire.tp2world.command;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.permissions.HytalePermissions;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+
+/**
+ * Reload command: /tp2world reload
+ *
+ * - Reads the config file again and publishes it to every teleport path at once
+ * - Settings read per teleport apply right away, e.g. PerWorldPermissions, MaxCompletions and
+ *   ArrivalTimeoutMillis, everything set up on start needs a restart
+ * - Cached per-world permission decisions are dropped
+ */
+public class Tp2WorldReloadCommand extends CommandBase {
+
+  private static final Message MESSAGE_CONFIG_RELOADED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.ConfigReloaded");
+  private static final Message MESSAGE_CONFIG_RELOAD_FAILED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.ConfigReloadFailed");
+
+  public Tp2WorldReloadCommand() {
+    super("reload", "HiWire.Tp2World.Commands.Tp2World.Reload.Desc");
+    this.requirePermission(HytalePermissions.fromCommand("tp2world.reload"));
+  }
+
+  @Override
+  protected void executeSync(@Nonnull CommandContext context) {
+    final var plugin = Tp2WorldPlugin.get();
+    plugin
+        .reloadConfig()
+        .whenComplete(
+            (config, error) -> {
+              if (error != null) {
+                plugin
+                    .getLogger()
+                    .at(Level.WARNING)
+                    .withCause(error)
+                    .log("Failed to reload config");
+                context.sendMessage(
+                    MESSAGE_CONFIG_RELOAD_FAILED.param("ModPrefix", Tp2WorldPlugin.PREFIX));
+                return;
+              }
+              context.sendMessage(
+                  MESSAGE_CONFIG_RELOADED.param("ModPrefix", Tp2WorldPlugin.PREFIX));
+            });
+  }
+}
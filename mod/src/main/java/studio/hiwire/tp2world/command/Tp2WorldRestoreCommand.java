@@ -0,0 +1,126 @@
+package studio.hiwire.tp2world.command;
+
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.FlagArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.permissions.HytalePermissions;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.notify.BatchSummary;
+import studio.hiwire.tp2world.notify.NotificationQueue;
+import studio.hiwire.tp2world.snapshot.LocationSnapshot;
+import studio.hiwire.tp2world.snapshot.SnapshotService;
+import studio.hiwire.tp2world.snapshot.SnapshotStore;
+
+/**
+ * Restore command: /tp2world restore <name> [--silent]
+ *
+ * - Teleports every online player in the snapshot back to their captured world, position and
+ *   rotation
+ * - Players that are offline or whose world no longer exists are skipped
+ * - With per-world permissions, players the sender may not teleport to their world are skipped
+ * - The sender gets one summary, restored players per world and skipped players per reason
+ * - Restored players are notified through the notification queue, unless --silent is given
+ */
+public class Tp2WorldRestoreCommand extends CommandBase {
+
+  private static final Message MESSAGE_RESTORE_FINISHED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.RestoreFinished");
+  private static final Message MESSAGE_SNAPSHOT_NOT_FOUND =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.SnapshotNotFound");
+  private static final Message MESSAGE_SNAPSHOT_INVALID_NAME =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.SnapshotInvalidName");
+
+  @Nonnull private final SnapshotService snapshots;
+  @Nonnull private final SnapshotStore store;
+  @Nonnull private final NotificationQueue notifications;
+  @Nonnull private final RequiredArg<String> nameArg;
+  @Nonnull private final FlagArg silentArg;
+
+  public Tp2WorldRestoreCommand(
+      @Nonnull SnapshotService snapshots,
+      @Nonnull SnapshotStore store,
+      @Nonnull NotificationQueue notifications) {
+    super("restore", "HiWire.Tp2World.Commands.Tp2World.Restore.Desc");
+    this.snapshots = snapshots;
+    this.store = store;
+    this.notifications = notifications;
+
+    this.nameArg =
+        this.withRequiredArg(
+            "name", "HiWire.Tp2World.Commands.Tp2World.Snapshot.Param.Name.Desc", ArgTypes.STRING);
+    this.silentArg =
+        this.withFlagArg("silent", "HiWire.Tp2World.Commands.Tp2World.Param.Silent.Desc");
+
+    this.requirePermission(HytalePermissions.fromCommand("tp2world.restore"));
+  }
+
+  @Override
+  protected void executeSync(@Nonnull CommandContext context) {
+    final var name = this.nameArg.get(context);
+    if (!SnapshotStore.isValidName(name)) {
+      context.sendMessage(
+          MESSAGE_SNAPSHOT_INVALID_NAME
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("Name", name));
+      return;
+    }
+
+    final boolean notify =
+        Tp2WorldPlugin.context().config().isNotifyTeleportedPlayer()
+            && !this.silentArg.provided(context);
+
+    // Read on the scheduler, teleported on the world threads
+    CompletableFuture.supplyAsync(() -> load(name), HytaleServer.SCHEDULED_EXECUTOR)
+        .thenCompose(
+            snapshot -> {
+              if (snapshot == null) {
+                context.sendMessage(
+                    MESSAGE_SNAPSHOT_NOT_FOUND
+                        .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                        .param("Name", name));
+                return CompletableFuture.completedFuture(null);
+              }
+              return snapshots.restore(
+                  snapshot,
+                  Tp2WorldPlugin.context().worldPermissions().mover(context.sender()),
+                  notify ? notifications::movedToWorld : null);
+            })
+        .thenAccept(
+            result -> {
+              if (result != null) {
+                context.sendMessage(
+                    MESSAGE_RESTORE_FINISHED
+                        .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                        .param("Name", name)
+                        .param("Restored", result.restored())
+                        .param("Worlds", result.summary().formatWorlds(BatchSummary.LISTED))
+                        .param("Skipped", result.skipped())
+                        .param("Failures", result.summary().formatFailures(BatchSummary.LISTED)));
+              }
+            });
+  }
+
+  /** Returns the snapshot, or null if it doesn't exist or can't be read. */
+  @Nullable
+  private LocationSnapshot load(@Nonnull String name) {
+    try {
+      return store.load(name);
+    } catch (IOException e) {
+      Tp2WorldPlugin.get()
+          .getLogger()
+          .at(Level.WARNING)
+          .withCause(e)
+          .log("Failed to read snapshot " + name);
+      return null;
+    }
+  }
+}
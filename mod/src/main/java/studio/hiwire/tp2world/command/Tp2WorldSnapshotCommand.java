@@ -0,0 +1,102 @@
+package studio.hiwire.tp2world.command;
+
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.permissions.HytalePermissions;
+import java.io.IOException;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.snapshot.SnapshotService;
+import studio.hiwire.tp2world.snapshot.SnapshotStore;
+
+/**
+ * Snapshot command: /tp2world snapshot <name>
+ *
+ * - Captures the world, position and rotation of every online player
+ * - The snapshot is stored under the given name, replacing an existing one
+ * - Restore it with /tp2world restore <name>
+ */
+public class Tp2WorldSnapshotCommand extends CommandBase {
+
+  private static final Message MESSAGE_SNAPSHOT_SAVED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.SnapshotSaved");
+  private static final Message MESSAGE_SNAPSHOT_FAILED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.SnapshotFailed");
+  private static final Message MESSAGE_SNAPSHOT_INVALID_NAME =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.SnapshotInvalidName");
+
+  @Nonnull private final SnapshotService snapshots;
+  @Nonnull private final SnapshotStore store;
+  @Nonnull private final RequiredArg<String> nameArg;
+
+  public Tp2WorldSnapshotCommand(@Nonnull SnapshotService snapshots, @Nonnull SnapshotStore store) {
+    super("snapshot", "HiWire.Tp2World.Commands.Tp2World.Snapshot.Desc");
+    this.snapshots = snapshots;
+    this.store = store;
+
+    this.nameArg =
+        this.withRequiredArg(
+            "name", "HiWire.Tp2World.Commands.Tp2World.Snapshot.Param.Name.Desc", ArgTypes.STRING);
+
+    this.requirePermission(HytalePermissions.fromCommand("tp2world.snapshot"));
+  }
+
+  @Override
+  protected void executeSync(@Nonnull CommandContext context) {
+    final var name = this.nameArg.get(context);
+    if (!SnapshotStore.isValidName(name)) {
+      context.sendMessage(
+          MESSAGE_SNAPSHOT_INVALID_NAME
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("Name", name));
+      return;
+    }
+
+    // Captured on the world threads, written on the scheduler
+    snapshots
+        .capture()
+        .thenAcceptAsync(
+            snapshot -> {
+              try {
+                store.save(name, snapshot);
+              } catch (IOException e) {
+                Tp2WorldPlugin.get()
+                    .getLogger()
+                    .at(Level.WARNING)
+                    .withCause(e)
+                    .log("Failed to save snapshot " + name);
+                context.sendMessage(
+                    MESSAGE_SNAPSHOT_FAILED
+                        .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                        .param("Name", name));
+                return;
+              }
+              context.sendMessage(
+                  MESSAGE_SNAPSHOT_SAVED
+                      .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                      .param("Name", name)
+                      .param("Count", snapshot.size())
+                      .param("Worlds", snapshot.worldCount()));
+            },
+            HytaleServer.SCHEDULED_EXECUTOR)
+        .exceptionally(
+            error -> {
+              // The sender is told either way, never left waiting
+              Tp2WorldPlugin.get()
+                  .getLogger()
+                  .at(Level.WARNING)
+                  .withCause(error)
+                  .log("Failed to capture snapshot " + name);
+              context.sendMessage(
+                  MESSAGE_SNAPSHOT_FAILED
+                      .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                      .param("Name", name));
+              return null;
+            });
+  }
+}
@@ -0,0 +1,257 @@
+package studio.hiwire.tp2world.command;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.permissions.HytalePermissions;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.arrival.ArrivalTracker;
+import studio.hiwire.tp2world.completion.NameIndex;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.dispatch.WorldTask;
+import studio.hiwire.tp2world.permission.PermissionCache;
+import studio.hiwire.tp2world.position.PositionBoard;
+import studio.hiwire.tp2world.residency.ResidencyManager;
+import studio.hiwire.tp2world.teleport.Tp2WorldTeleporter;
+
+/**
+ * Teleport to player command: /tp2world to <target> [--player name]
+ *
+ * - If player is not specified, teleports the command sender
+ * - The player lands on the target's position with the target's rotation, in the target's world
+ * - The target's location is read from the published position snapshots, so it is at most one
+ *   snapshot interval old and never waits for the target's world thread
+ * - Needs the world permission of the target's world, like /tp2world <world>
+ */
+public class Tp2WorldToCommand extends CommandBase {
+
+  private static final Message MESSAGE_PLAYER_NOT_IN_WORLD =
+      Message.translation("server.commands.errors.playerNotInWorld");
+  private static final Message MESSAGE_PLAYER_OR_ARG =
+      Message.translation("server.commands.errors.playerOrArg");
+  private static final Message MESSAGE_NO_WORLD_PERMISSION =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.NoWorldPermission");
+  private static final Message MESSAGE_TARGET_NOT_LOCATED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.TargetNotLocated");
+  private static final Message MESSAGE_TELEPORTED_TO_PLAYER =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.TeleportedToPlayer");
+  private static final Message MESSAGE_TELEPORTED_PLAYER_TO_PLAYER =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.TeleportedPlayerToPlayer");
+  private static final Message MESSAGE_ARRIVAL_TIMED_OUT =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.ArrivalTimedOut");
+  private static final Message MESSAGE_ARRIVAL_ABORTED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.ArrivalAborted");
+  private static final Message MESSAGE_TELEPORT_CANCELLED =
+      Message.translation("HiWire.Tp2World.ChatMessages.Command.Tp2World.TeleportCancelled");
+
+  @Nonnull private final WorldDispatcher dispatcher;
+  @Nonnull private final ArrivalTracker arrivals;
+  @Nonnull private final ResidencyManager residency;
+  @Nonnull private final PositionBoard positions;
+  @Nonnull private final RequiredArg<PlayerRef> targetArg;
+  @Nonnull private final OptionalArg<PlayerRef> playerArg;
+
+  public Tp2WorldToCommand(
+      @Nonnull NameIndex nameIndex,
+      @Nonnull WorldDispatcher dispatcher,
+      @Nonnull ArrivalTracker arrivals,
+      @Nonnull ResidencyManager residency,
+      @Nonnull PositionBoard positions) {
+    super("to", "HiWire.Tp2World.Commands.Tp2World.To.Desc");
+    this.dispatcher = dispatcher;
+    this.arrivals = arrivals;
+    this.residency = residency;
+    this.positions = positions;
+
+    this.targetArg =
+        this.withRequiredArg(
+            "target",
+            "HiWire.Tp2World.Commands.Tp2World.To.Param.Target.Desc",
+            nameIndex.getPlayerArgType());
+    this.playerArg =
+        this.withOptionalArg(
+            "player",
+            "HiWire.Tp2World.Commands.Tp2World.Param.Player.Desc",
+            nameIndex.getPlayerArgType());
+
+    this.requirePermission(HytalePermissions.fromCommand("tp2world.to"));
+  }
+
+  @Override
+  protected void executeSync(@Nonnull CommandContext context) {
+    final long startedAtNanos = System.nanoTime();
+
+    final var target = this.targetArg.get(context);
+    if (target == null) {
+      context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+      return;
+    }
+
+    // Read from the snapshots on this thread, no hop to the target's world
+    final var located = this.positions.locate(target);
+    if (located == null) {
+      context.sendMessage(
+          MESSAGE_TARGET_NOT_LOCATED
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("TargetName", target.getUsername()));
+      return;
+    }
+    final var worldName = located.world().getName();
+
+    final boolean teleportingSelf = !this.playerArg.provided(context);
+    final Ref<EntityStore> ref;
+    final PlayerRef playerRef;
+    if (teleportingSelf) {
+      // Its PlayerRef is read on the world thread
+      ref = context.senderAsPlayerRef();
+      playerRef = null;
+      if (ref == null || !ref.isValid()) {
+        context.sendMessage(MESSAGE_PLAYER_OR_ARG.param("option", "player"));
+        return;
+      }
+    } else {
+      playerRef = this.playerArg.get(context);
+      if (playerRef == null) {
+        context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+        return;
+      }
+      ref = playerRef.getReference();
+      if (ref == null || !ref.isValid()) {
+        context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+        return;
+      }
+    }
+
+    final var action =
+        teleportingSelf || playerRef.getUuid().equals(context.sender().getUuid())
+            ? PermissionCache.Action.SELF
+            : PermissionCache.Action.OTHERS;
+    if (!Tp2WorldPlugin.context()
+        .worldPermissions()
+        .canTeleport(context.sender(), worldName, action)) {
+      context.sendMessage(
+          MESSAGE_NO_WORLD_PERMISSION
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("WorldName", worldName));
+      return;
+    }
+
+    // Keeps the world from being unloaded right before the player arrives
+    this.residency.touch(worldName);
+
+    final var options =
+        new Tp2WorldTeleporter.Options(
+            Tp2WorldTeleporter.TargetPosition.absolute(located.position()),
+            located.headRotation(),
+            located.bodyRotation());
+    this.dispatcher.submit(
+        ref.getStore().getExternalData().getWorld(),
+        new WorldTask() {
+          @Override
+          protected void run() {
+            teleportOnWorldThread(
+                context,
+                ref,
+                playerRef,
+                teleportingSelf,
+                target,
+                located.world(),
+                options,
+                startedAtNanos);
+          }
+        });
+  }
+
+  private void teleportOnWorldThread(
+      @Nonnull CommandContext context,
+      @Nonnull Ref<EntityStore> ref,
+      @Nullable PlayerRef playerRef,
+      boolean teleportingSelf,
+      @Nonnull PlayerRef target,
+      @Nonnull World targetWorld,
+      @Nonnull Tp2WorldTeleporter.Options options,
+      long startedAtNanos) {
+    if (!ref.isValid()) {
+      context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+      return;
+    }
+    final var store = ref.getStore();
+
+    // getComponent must be called from world thread
+    final var teleportedRef =
+        playerRef != null ? playerRef : store.getComponent(ref, PlayerRef.getComponentType());
+    if (teleportedRef == null) {
+      context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+      return;
+    }
+
+    final var result = Tp2WorldTeleporter.teleport(store, ref, targetWorld, options);
+    if (result.status() == Tp2WorldTeleporter.Result.Status.CANCELLED) {
+      context.sendMessage(
+          MESSAGE_TELEPORT_CANCELLED
+              .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+              .param("WorldName", targetWorld.getName()));
+      return;
+    }
+    if (!result.isSuccess()) {
+      context.sendMessage(MESSAGE_PLAYER_NOT_IN_WORLD);
+      return;
+    }
+
+    // A pre-teleport listener may have picked another world
+    final var arrivalWorld = result.world();
+    final var worldName = arrivalWorld.getName();
+    this.arrivals
+        .expect(teleportedRef, store, ref, arrivalWorld, startedAtNanos)
+        .thenAccept(
+            arrival -> {
+              switch (arrival.status()) {
+                case ARRIVED -> {
+                  if (!teleportingSelf) {
+                    context.sendMessage(
+                        MESSAGE_TELEPORTED_PLAYER_TO_PLAYER
+                            .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                            .param("PlayerName", teleportedRef.getUsername())
+                            .param("TargetName", target.getUsername())
+                            .param("WorldName", worldName));
+                  }
+                  // Config controls if the teleported player sees a message
+                  if (Tp2WorldPlugin.context().config().isNotifyTeleportedPlayer()) {
+                    teleportedRef.sendMessage(
+                        MESSAGE_TELEPORTED_TO_PLAYER
+                            .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                            .param("TargetName", target.getUsername())
+                            .param("WorldName", worldName));
+                  }
+                }
+                case TIMED_OUT ->
+                    context.sendMessage(
+                        MESSAGE_ARRIVAL_TIMED_OUT
+                            .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                            .param("PlayerName", teleportedRef.getUsername())
+                            .param("WorldName", worldName));
+                case DISCONNECTED -> {
+                  // Nobody left to tell when teleporting yourself
+                  if (!teleportingSelf) {
+                    context.sendMessage(
+                        MESSAGE_ARRIVAL_ABORTED
+                            .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+                            .param("PlayerName", teleportedRef.getUsername())
+                            .param("WorldName", worldName));
+                  }
+                }
+                case REPLACED -> {
+                  // A newer teleport of the same player reports instead
+                }
+              }
+            });
+  }
+}
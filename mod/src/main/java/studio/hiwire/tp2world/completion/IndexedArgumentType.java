@@ -0,0 +1,98 @@
+package studio.hiwire.tp2world.completion;
+
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.command.system.ParseResult;
+import com.hypixel.hytale.server.core.command.system.arguments.types.SingleArgumentType;
+import com.hypixel.hytale.server.core.command.system.suggestion.SuggestionResult;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.IntSupplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Argument type that serves its tab completion from one or more {@link PrefixTrie}s. The number of
+ * suggestions per keystroke is bounded. Parsing is delegated, usually to an existing argument type.
+ *
+ * @param <T> the parsed argument type
+ */
+public class IndexedArgumentType<T> extends SingleArgumentType<T> {
+
+  /** Parses the raw argument input. */
+  @FunctionalInterface
+  public interface Parser<T> {
+    @Nullable
+    T parse(@Nonnull String input, @Nonnull ParseResult parseResult);
+  }
+
+  @Nonnull private final Parser<T> parser;
+  @Nonnull private final List<PrefixTrie> names;
+  @Nonnull private final IntSupplier limit;
+
+  /**
+   * @param name translation key of the argument type name
+   * @param usage translation key of the argument type usage
+   * @param delegate argument type used for parsing
+   * @param names names to suggest
+   * @param limit maximum number of suggestions, read on every completion
+   */
+  public IndexedArgumentType(
+      @Nonnull String name,
+      @Nonnull String usage,
+      @Nonnull SingleArgumentType<T> delegate,
+      @Nonnull PrefixTrie names,
+      @Nonnull IntSupplier limit) {
+    this(name, usage, delegate::parse, List.of(names), limit);
+  }
+
+  /**
+   * @param name translation key of the argument type name
+   * @param usage translation key of the argument type usage
+   * @param parser parses the raw input
+   * @param names names to suggest, earlier tries take precedence when the limit is reached
+   * @param limit maximum number of suggestions, read on every completion
+   */
+  public IndexedArgumentType(
+      @Nonnull String name,
+      @Nonnull String usage,
+      @Nonnull Parser<T> parser,
+      @Nonnull List<PrefixTrie> names,
+      @Nonnull IntSupplier limit) {
+    super(name, usage);
+    this.parser = parser;
+    this.names = List.copyOf(names);
+    this.limit = limit;
+  }
+
+  @Nullable
+  @Override
+  public T parse(@Nonnull String input, @Nonnull ParseResult parseResult) {
+    return this.parser.parse(input, parseResult);
+  }
+
+  @Override
+  public void suggest(
+      @Nonnull CommandSender sender,
+      @Nonnull String textAlreadyEntered,
+      int numParametersTyped,
+      @Nonnull SuggestionResult result) {
+    final int max = this.limit.getAsInt();
+    if (this.names.size() == 1) {
+      for (String name : this.names.getFirst().complete(textAlreadyEntered, max)) {
+        result.suggest(name);
+      }
+      return;
+    }
+
+    final var suggestions = new LinkedHashSet<String>();
+    for (PrefixTrie trie : this.names) {
+      if (suggestions.size() >= max) {
+        break;
+      }
+      suggestions.addAll(trie.complete(textAlreadyEntered, max - suggestions.size()));
+    }
+    for (String name : suggestions) {
+      result.suggest(name);
+    }
+  }
+}
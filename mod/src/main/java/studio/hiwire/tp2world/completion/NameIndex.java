@@ -0,0 +1,81 @@
+package studio.hiwire.tp2world.completion;
+
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.events.AddWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import java.util.function.IntSupplier;
+import javax.annotation.Nonnull;
+import lombok.Getter;
+
+/**
+ * Prefix index of world names and online player names used for tab completion. The index is kept
+ * up to date incrementally from world add/remove and player connect/disconnect events.
+ */
+public class NameIndex {
+
+  @Getter @Nonnull private final PrefixTrie worldNames = new PrefixTrie();
+  @Getter @Nonnull private final PrefixTrie playerNames = new PrefixTrie();
+
+  @Getter @Nonnull private final IntSupplier limit;
+  @Getter @Nonnull private final IndexedArgumentType<World> worldArgType;
+  @Getter @Nonnull private final IndexedArgumentType<PlayerRef> playerArgType;
+
+  /**
+   * @param limit maximum number of suggestions per completion
+   */
+  public NameIndex(@Nonnull IntSupplier limit) {
+    this.limit = limit;
+    this.worldArgType =
+        new IndexedArgumentType<>(
+            "server.commands.parsing.argtype.world.name",
+            "server.commands.parsing.argtype.world.usage",
+            ArgTypes.WORLD,
+            worldNames,
+            limit);
+    this.playerArgType =
+        new IndexedArgumentType<>(
+            "server.commands.parsing.argtype.player.name",
+            "server.commands.parsing.argtype.player.usage",
+            ArgTypes.PLAYER_REF,
+            playerNames,
+            limit);
+  }
+
+  /**
+   * Registers the event listeners that keep the index up to date.
+   *
+   * @param eventRegistry the plugin's event registry
+   */
+  public void register(@Nonnull EventRegistry eventRegistry) {
+    eventRegistry.registerGlobal(
+        AddWorldEvent.class, event -> worldNames.add(event.getWorld().getName()));
+    eventRegistry.registerGlobal(
+        RemoveWorldEvent.class, event -> worldNames.remove(event.getWorld().getName()));
+    eventRegistry.register(
+        PlayerConnectEvent.class, event -> playerNames.add(event.getPlayerRef().getUsername()));
+    eventRegistry.register(
+        PlayerDisconnectEvent.class,
+        event -> playerNames.remove(event.getPlayerRef().getUsername()));
+  }
+
+  /**
+   * Adds all worlds and players that already exist. Names that are already indexed are kept, so
+   * this is safe to call after {@link #register(EventRegistry)}.
+   *
+   * @param universe the universe to read from
+   */
+  public void seed(@Nonnull Universe universe) {
+    for (World world : universe.getWorlds().values()) {
+      worldNames.add(world.getName());
+    }
+    for (PlayerRef playerRef : universe.getPlayers()) {
+      playerNames.add(playerRef.getUsername());
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package studio.hiwire.tp2world.completion;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nonnull;
+
+/**
+ * Case-insensitive prefix trie of names. Names are added and removed one by one, so the trie can be
+ * kept up to date from events instead of being rebuilt. Lookups return the names in their original
+ * spelling, sorted alphabetically and bounded by a limit, and never walk more of the trie than
+ * needed to fill that limit.
+ *
+ * <p>Thread-safe: lookups share a read lock, updates take the write lock.
+ */
+public class PrefixTrie {
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Node root = new Node();
+  private int size;
+
+  private static final class Node {
+    private final TreeMap<Character, Node> children = new TreeMap<>();
+    private String value;
+  }
+
+  /**
+   * Adds a name. Adding a name that only differs in case replaces the stored spelling.
+   *
+   * @param name the name to add
+   * @return true if the name was not present before
+   */
+  public boolean add(@Nonnull String name) {
+    final var key = normalize(name);
+    lock.writeLock().lock();
+    try {
+      var node = root;
+      for (int i = 0; i < key.length(); i++) {
+        node = node.children.computeIfAbsent(key.charAt(i), ignored -> new Node());
+      }
+      final boolean added = node.value == null;
+      node.value = name;
+      if (added) {
+        size++;
+      }
+      return added;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a name and prunes branches that no longer lead to any name.
+   *
+   * @param name the name to remove
+   * @return true if the name was present
+   */
+  public boolean remove(@Nonnull String name) {
+    final var key = normalize(name);
+    lock.writeLock().lock();
+    try {
+      final var path = new ArrayList<Node>(key.length() + 1);
+      var node = root;
+      path.add(node);
+      for (int i = 0; i < key.length(); i++) {
+        node = node.children.get(key.charAt(i));
+        if (node == null) {
+          return false;
+        }
+        path.add(node);
+      }
+      if (node.value == null) {
+        return false;
+      }
+      node.value = null;
+      size--;
+
+      for (int i = key.length(); i > 0; i--) {
+        final var current = path.get(i);
+        if (current.value != null || !current.children.isEmpty()) {
+          break;
+        }
+        path.get(i - 1).children.remove(key.charAt(i - 1));
+      }
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds names starting with the given prefix, ignoring case.
+   *
+   * @param prefix the prefix typed so far
+   * @param limit maximum number of names to return
+   * @return up to {@code limit} names in alphabetical order
+   */
+  @Nonnull
+  public List<String> complete(@Nonnull String prefix, int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    final var key = normalize(prefix);
+    lock.readLock().lock();
+    try {
+      var node = root;
+      for (int i = 0; i < key.length() && node != null; i++) {
+        node = node.children.get(key.charAt(i));
+      }
+      if (node == null) {
+        return List.of();
+      }
+
+      // Depth-first in key order, stops as soon as the limit is reached
+      final var result = new ArrayList<String>(Math.min(limit, size));
+      final var stack = new ArrayDeque<Node>();
+      stack.push(node);
+      while (!stack.isEmpty() && result.size() < limit) {
+        final var current = stack.pop();
+        if (current.value != null) {
+          result.add(current.value);
+        }
+        for (Node child : current.children.descendingMap().values()) {
+          stack.push(child);
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Removes all names. */
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      root.children.clear();
+      root.value = null;
+      size = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static String normalize(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+}
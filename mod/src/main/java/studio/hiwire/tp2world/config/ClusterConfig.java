@@ -0,0 +1,107 @@
+package studio.hiwire.tp2world.config;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import lombok.Getter;
+
+/**
+ * Multi-node configuration for the Tp2World plugin.
+ */
+@Getter
+public final class ClusterConfig {
+  public static final BuilderCodec<ClusterConfig> CODEC =
+      BuilderCodec.builder(ClusterConfig.class, ClusterConfig::new)
+          .append(
+              new KeyedCodec<>("Enabled", Codec.BOOLEAN),
+              (config, value) -> config.enabled = value,
+              config -> config.enabled)
+          .add()
+          .append(
+              new KeyedCodec<>("NodeId", Codec.STRING),
+              (config, value) -> config.nodeId = value,
+              config -> config.nodeId)
+          .add()
+          .append(
+              new KeyedCodec<>("AdvertisedHost", Codec.STRING),
+              (config, value) -> config.advertisedHost = value,
+              config -> config.advertisedHost)
+          .add()
+          .append(
+              new KeyedCodec<>("AdvertisedPort", Codec.INTEGER),
+              (config, value) -> config.advertisedPort = value,
+              config -> config.advertisedPort)
+          .add()
+          .append(
+              new KeyedCodec<>("Transport", Codec.STRING),
+              (config, value) -> config.transport = value,
+              config -> config.transport)
+          .add()
+          .append(
+              new KeyedCodec<>("UdpBindAddress", Codec.STRING),
+              (config, value) -> config.udpBindAddress = value,
+              config -> config.udpBindAddress)
+          .add()
+          .append(
+              new KeyedCodec<>("UdpPort", Codec.INTEGER),
+              (config, value) -> config.udpPort = value,
+              config -> config.udpPort)
+          .add()
+          .append(
+              new KeyedCodec<>("UdpPeers", Codec.STRING_ARRAY),
+              (config, value) -> config.udpPeers = value,
+              config -> config.udpPeers)
+          .add()
+          .append(
+              new KeyedCodec<>("GossipIntervalSeconds", Codec.INTEGER),
+              (config, value) -> config.gossipIntervalSeconds = value,
+              config -> config.gossipIntervalSeconds)
+          .add()
+          .append(
+              new KeyedCodec<>("NodeTimeoutSeconds", Codec.INTEGER),
+              (config, value) -> config.nodeTimeoutSeconds = value,
+              config -> config.nodeTimeoutSeconds)
+          .add()
+          .append(
+              new KeyedCodec<>("TransferTimeoutSeconds", Codec.INTEGER),
+              (config, value) -> config.transferTimeoutSeconds = value,
+              config -> config.transferTimeoutSeconds)
+          .add()
+          .build();
+
+  /** Whether worlds on other nodes can be targeted. Default is false. */
+  private boolean enabled = false;
+
+  /** Unique id of this node in the cluster. Default is "node-1". */
+  private String nodeId = "node-1";
+
+  /** Host other nodes refer players to. Default is "127.0.0.1". */
+  private String advertisedHost = "127.0.0.1";
+
+  /** Port other nodes refer players to. Default is 5520. */
+  private int advertisedPort = 5520;
+
+  /**
+   * Transport used between nodes. Default is "Loopback" (nodes in the same process), "Udp" connects
+   * nodes in separate processes.
+   */
+  private String transport = "Loopback";
+
+  /** Address the Udp transport receives on. Default is "127.0.0.1". */
+  private String udpBindAddress = "127.0.0.1";
+
+  /** Port the Udp transport receives on. Default is 5530. */
+  private int udpPort = 5530;
+
+  /** Addresses (host:port) the Udp transport announces to. Default is empty. */
+  private String[] udpPeers = new String[0];
+
+  /** Seconds between world announcements to other nodes. Default is 5. */
+  private int gossipIntervalSeconds = 5;
+
+  /** Seconds after which a node that stopped announcing is forgotten. Default is 15. */
+  private int nodeTimeoutSeconds = 15;
+
+  /** Seconds a transferred player has to arrive on the target node. Default is 60. */
+  private int transferTimeoutSeconds = 60;
+}
@@ -0,0 +1,46 @@
+package studio.hiwire.tp2world.config;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import lombok.Getter;
+
+/** A world that private instances are cloned from, targeted as template:&lt;name&gt;. */
+@Getter
+public final class InstanceTemplateConfig {
+  public static final BuilderCodec<InstanceTemplateConfig> CODEC =
+      BuilderCodec.builder(InstanceTemplateConfig.class, InstanceTemplateConfig::new)
+          .append(
+              new KeyedCodec<>("Name", Codec.STRING),
+              (config, value) -> config.name = value,
+              config -> config.name)
+          .add()
+          .append(
+              new KeyedCodec<>("World", Codec.STRING),
+              (config, value) -> config.world = value,
+              config -> config.world)
+          .add()
+          .append(
+              new KeyedCodec<>("WarmPoolSize", Codec.INTEGER),
+              (config, value) -> config.warmPoolSize = value,
+              config -> config.warmPoolSize)
+          .add()
+          .append(
+              new KeyedCodec<>("MaxInstances", Codec.INTEGER),
+              (config, value) -> config.maxInstances = value,
+              config -> config.maxInstances)
+          .add()
+          .build();
+
+  /** The name used as teleport target, after template:. Required. */
+  private String name;
+
+  /** The world directory instances are copied from. Required. */
+  private String world;
+
+  /** Number of instances created ahead of time. Default is 2. */
+  private int warmPoolSize = 2;
+
+  /** Maximum number of instances, warm and in use. Default is -1 (no limit). */
+  private int maxInstances = -1;
+}
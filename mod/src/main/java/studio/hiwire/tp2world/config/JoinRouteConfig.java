@@ -0,0 +1,72 @@
+package studio.hiwire.tp2world.config;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import lombok.Getter;
+
+/**
+ * A single join routing rule. All configured conditions must match for the rule to apply.
+ */
+@Getter
+public final class JoinRouteConfig {
+  public static final BuilderCodec<JoinRouteConfig> CODEC =
+      BuilderCodec.builder(JoinRouteConfig.class, JoinRouteConfig::new)
+          .append(
+              new KeyedCodec<>("World", Codec.STRING),
+              (config, value) -> config.world = value,
+              config -> config.world)
+          .add()
+          .append(
+              new KeyedCodec<>("Position", Codec.DOUBLE_ARRAY),
+              (config, value) -> config.position = value,
+              config -> config.position)
+          .add()
+          .append(
+              new KeyedCodec<>("Rotation", Codec.DOUBLE_ARRAY),
+              (config, value) -> config.rotation = value,
+              config -> config.rotation)
+          .add()
+          .append(
+              new KeyedCodec<>("Permission", Codec.STRING),
+              (config, value) -> config.permission = value,
+              config -> config.permission)
+          .add()
+          .append(
+              new KeyedCodec<>("LastWorld", Codec.STRING),
+              (config, value) -> config.lastWorld = value,
+              config -> config.lastWorld)
+          .add()
+          .append(
+              new KeyedCodec<>("MaxPlayers", Codec.INTEGER),
+              (config, value) -> config.maxPlayers = value,
+              config -> config.maxPlayers)
+          .add()
+          .append(
+              new KeyedCodec<>("TimeWindow", Codec.STRING),
+              (config, value) -> config.timeWindow = value,
+              config -> config.timeWindow)
+          .add()
+          .build();
+
+  /** The world the player joins if the rule matches. Required. */
+  private String world;
+
+  /** Initial position (x y z). Default is the world's spawn point. */
+  private double[] position;
+
+  /** Initial head rotation (pitch yaw roll) in radians. Default is the spawn point's rotation. */
+  private double[] rotation;
+
+  /** Permission the player needs. Default is none. */
+  private String permission;
+
+  /** World the player was in when they left. Default is any world. */
+  private String lastWorld;
+
+  /** Only match while the target world has fewer players than this. Default is -1 (no limit). */
+  private int maxPlayers = -1;
+
+  /** Server local time window, e.g. "18:00-02:00". Default is always. */
+  private String timeWindow;
+}
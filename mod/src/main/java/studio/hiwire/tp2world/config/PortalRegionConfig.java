@@ -0,0 +1,70 @@
+package studio.hiwire.tp2world.config;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import lombok.Getter;
+
+/** A box in a world that teleports every player entering it to another world. */
+@Getter
+public final class PortalRegionConfig {
+  public static final BuilderCodec<PortalRegionConfig> CODEC =
+      BuilderCodec.builder(PortalRegionConfig.class, PortalRegionConfig::new)
+          .append(
+              new KeyedCodec<>("Name", Codec.STRING),
+              (config, value) -> config.name = value,
+              config -> config.name)
+          .add()
+          .append(
+              new KeyedCodec<>("World", Codec.STRING),
+              (config, value) -> config.world = value,
+              config -> config.world)
+          .add()
+          .append(
+              new KeyedCodec<>("Min", Codec.DOUBLE_ARRAY),
+              (config, value) -> config.min = value,
+              config -> config.min)
+          .add()
+          .append(
+              new KeyedCodec<>("Max", Codec.DOUBLE_ARRAY),
+              (config, value) -> config.max = value,
+              config -> config.max)
+          .add()
+          .append(
+              new KeyedCodec<>("TargetWorld", Codec.STRING),
+              (config, value) -> config.targetWorld = value,
+              config -> config.targetWorld)
+          .add()
+          .append(
+              new KeyedCodec<>("Position", Codec.DOUBLE_ARRAY),
+              (config, value) -> config.position = value,
+              config -> config.position)
+          .add()
+          .append(
+              new KeyedCodec<>("Rotation", Codec.DOUBLE_ARRAY),
+              (config, value) -> config.rotation = value,
+              config -> config.rotation)
+          .add()
+          .build();
+
+  /** Name used in log messages. Default is the index of the region. */
+  private String name;
+
+  /** The world the region is in. Required. */
+  private String world;
+
+  /** One corner of the box (x y z). Required. */
+  private double[] min;
+
+  /** The opposite corner of the box (x y z). Required. */
+  private double[] max;
+
+  /** The world players are teleported to. Required. */
+  private String targetWorld;
+
+  /** Target position (x y z). Default is the target world's spawn point. */
+  private double[] position;
+
+  /** Target head rotation (pitch yaw roll) in radians. Default is the spawn point's rotation. */
+  private double[] rotation;
+}
@@ -0,0 +1,30 @@
+package studio.hiwire.tp2world.config;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import lombok.Getter;
+
+/** One spawn point of a {@link SpawnSetConfig}. */
+@Getter
+public final class SpawnPointConfig {
+  public static final BuilderCodec<SpawnPointConfig> CODEC =
+      BuilderCodec.builder(SpawnPointConfig.class, SpawnPointConfig::new)
+          .append(
+              new KeyedCodec<>("Position", Codec.DOUBLE_ARRAY),
+              (config, value) -> config.position = value,
+              config -> config.position)
+          .add()
+          .append(
+              new KeyedCodec<>("Rotation", Codec.DOUBLE_ARRAY),
+              (config, value) -> config.rotation = value,
+              config -> config.rotation)
+          .add()
+          .build();
+
+  /** Position (x y z). Required. */
+  private double[] position;
+
+  /** Head rotation (pitch yaw roll) in radians. Default is 0 0 0. */
+  private double[] rotation;
+}
@@ -0,0 +1,32 @@
+package studio.hiwire.tp2world.config;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.codec.codecs.array.ArrayCodec;
+import lombok.Getter;
+
+/** Spawn points of one world, arrivals are spread across them. */
+@Getter
+public final class SpawnSetConfig {
+  public static final BuilderCodec<SpawnSetConfig> CODEC =
+      BuilderCodec.builder(SpawnSetConfig.class, SpawnSetConfig::new)
+          .append(
+              new KeyedCodec<>("World", Codec.STRING),
+              (config, value) -> config.world = value,
+              config -> config.world)
+          .add()
+          .append(
+              new KeyedCodec<>(
+                  "Points", new ArrayCodec<>(SpawnPointConfig.CODEC, SpawnPointConfig[]::new)),
+              (config, value) -> config.points = value,
+              config -> config.points)
+          .add()
+          .build();
+
+  /** The world the spawn points are in. Required. */
+  private String world;
+
+  /** The spawn points. Required, at least one. */
+  private SpawnPointConfig[] points;
+}
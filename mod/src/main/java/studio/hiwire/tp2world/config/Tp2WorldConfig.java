@@ -3,6 +3,7 @@ package studio.hiwire.tp2world.config;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.codec.codecs.array.ArrayCodec;
 import lombok.Getter;
 
 /**
@@ -17,8 +18,303 @@ public final class Tp2WorldConfig {
               (config, value) -> config.notifyTeleportedPlayer = value,
               config -> config.notifyTeleportedPlayer)
           .add()
+          .append(
+              new KeyedCodec<>("MaxCompletions", Codec.INTEGER),
+              (config, value) -> config.maxCompletions = value,
+              config -> config.maxCompletions)
+          .add()
+          .append(
+              new KeyedCodec<>("PerWorldPermissions", Codec.BOOLEAN),
+              (config, value) -> config.perWorldPermissions = value,
+              config -> config.perWorldPermissions)
+          .add()
+          .append(
+              new KeyedCodec<>("PermissionCacheSize", Codec.INTEGER),
+              (config, value) -> config.permissionCacheSize = value,
+              config -> config.permissionCacheSize)
+          .add()
+          .append(
+              new KeyedCodec<>("Cluster", ClusterConfig.CODEC),
+              (config, value) -> config.cluster = value,
+              config -> config.cluster)
+          .add()
+          .append(
+              new KeyedCodec<>(
+                  "JoinRoutes", new ArrayCodec<>(JoinRouteConfig.CODEC, JoinRouteConfig[]::new)),
+              (config, value) -> config.joinRoutes = value,
+              config -> config.joinRoutes)
+          .add()
+          .append(
+              new KeyedCodec<>(
+                  "PortalRegions",
+                  new ArrayCodec<>(PortalRegionConfig.CODEC, PortalRegionConfig[]::new)),
+              (config, value) -> config.portalRegions = value,
+              config -> config.portalRegions)
+          .add()
+          .append(
+              new KeyedCodec<>("RegionCellSize", Codec.INTEGER),
+              (config, value) -> config.regionCellSize = value,
+              config -> config.regionCellSize)
+          .add()
+          .append(
+              new KeyedCodec<>(
+                  "WorldGroups", new ArrayCodec<>(WorldGroupConfig.CODEC, WorldGroupConfig[]::new)),
+              (config, value) -> config.worldGroups = value,
+              config -> config.worldGroups)
+          .add()
+          .append(
+              new KeyedCodec<>("WorldLoadSampleMillis", Codec.INTEGER),
+              (config, value) -> config.worldLoadSampleMillis = value,
+              config -> config.worldLoadSampleMillis)
+          .add()
+          .append(
+              new KeyedCodec<>("ArrivalTimeoutMillis", Codec.INTEGER),
+              (config, value) -> config.arrivalTimeoutMillis = value,
+              config -> config.arrivalTimeoutMillis)
+          .add()
+          .append(
+              new KeyedCodec<>("BulkBatchSize", Codec.INTEGER),
+              (config, value) -> config.bulkBatchSize = value,
+              config -> config.bulkBatchSize)
+          .add()
+          .append(
+              new KeyedCodec<>("BulkIntervalMillis", Codec.INTEGER),
+              (config, value) -> config.bulkIntervalMillis = value,
+              config -> config.bulkIntervalMillis)
+          .add()
+          .append(
+              new KeyedCodec<>("MigrationBatchSize", Codec.INTEGER),
+              (config, value) -> config.migrationBatchSize = value,
+              config -> config.migrationBatchSize)
+          .add()
+          .append(
+              new KeyedCodec<>("MigrationTickBudgetMillis", Codec.INTEGER),
+              (config, value) -> config.migrationTickBudgetMillis = value,
+              config -> config.migrationTickBudgetMillis)
+          .add()
+          .append(
+              new KeyedCodec<>("ReturnToLastLocation", Codec.BOOLEAN),
+              (config, value) -> config.returnToLastLocation = value,
+              config -> config.returnToLastLocation)
+          .add()
+          .append(
+              new KeyedCodec<>("LastLocationFlushMillis", Codec.INTEGER),
+              (config, value) -> config.lastLocationFlushMillis = value,
+              config -> config.lastLocationFlushMillis)
+          .add()
+          .append(
+              new KeyedCodec<>("PinnedWorlds", Codec.STRING_ARRAY),
+              (config, value) -> config.pinnedWorlds = value,
+              config -> config.pinnedWorlds)
+          .add()
+          .append(
+              new KeyedCodec<>("WorldIdleUnloadMillis", Codec.INTEGER),
+              (config, value) -> config.worldIdleUnloadMillis = value,
+              config -> config.worldIdleUnloadMillis)
+          .add()
+          .append(
+              new KeyedCodec<>("WorldMemoryBudgetMb", Codec.INTEGER),
+              (config, value) -> config.worldMemoryBudgetMb = value,
+              config -> config.worldMemoryBudgetMb)
+          .add()
+          .append(
+              new KeyedCodec<>("ResidencyCheckMillis", Codec.INTEGER),
+              (config, value) -> config.residencyCheckMillis = value,
+              config -> config.residencyCheckMillis)
+          .add()
+          .append(
+              new KeyedCodec<>("PositionSnapshotMillis", Codec.INTEGER),
+              (config, value) -> config.positionSnapshotMillis = value,
+              config -> config.positionSnapshotMillis)
+          .add()
+          .append(
+              new KeyedCodec<>(
+                  "SpawnSets", new ArrayCodec<>(SpawnSetConfig.CODEC, SpawnSetConfig[]::new)),
+              (config, value) -> config.spawnSets = value,
+              config -> config.spawnSets)
+          .add()
+          .append(
+              new KeyedCodec<>("SpawnCellSize", Codec.INTEGER),
+              (config, value) -> config.spawnCellSize = value,
+              config -> config.spawnCellSize)
+          .add()
+          .append(
+              new KeyedCodec<>(
+                  "InstanceTemplates",
+                  new ArrayCodec<>(InstanceTemplateConfig.CODEC, InstanceTemplateConfig[]::new)),
+              (config, value) -> config.instanceTemplates = value,
+              config -> config.instanceTemplates)
+          .add()
+          .append(
+              new KeyedCodec<>("WorldsDirectory", Codec.STRING),
+              (config, value) -> config.worldsDirectory = value,
+              config -> config.worldsDirectory)
+          .add()
+          .append(
+              new KeyedCodec<>("InstanceRefillMillis", Codec.INTEGER),
+              (config, value) -> config.instanceRefillMillis = value,
+              config -> config.instanceRefillMillis)
+          .add()
+          .append(
+              new KeyedCodec<>("InstanceReclaimMillis", Codec.INTEGER),
+              (config, value) -> config.instanceReclaimMillis = value,
+              config -> config.instanceReclaimMillis)
+          .add()
+          .append(
+              new KeyedCodec<>("NotificationQueueSize", Codec.INTEGER),
+              (config, value) -> config.notificationQueueSize = value,
+              config -> config.notificationQueueSize)
+          .add()
+          .append(
+              new KeyedCodec<>("NotificationsPerTick", Codec.INTEGER),
+              (config, value) -> config.notificationsPerTick = value,
+              config -> config.notificationsPerTick)
+          .add()
+          .append(
+              new KeyedCodec<>("HttpEnabled", Codec.BOOLEAN),
+              (config, value) -> config.httpEnabled = value,
+              config -> config.httpEnabled)
+          .add()
+          .append(
+              new KeyedCodec<>("HttpBindAddress", Codec.STRING),
+              (config, value) -> config.httpBindAddress = value,
+              config -> config.httpBindAddress)
+          .add()
+          .append(
+              new KeyedCodec<>("HttpPort", Codec.INTEGER),
+              (config, value) -> config.httpPort = value,
+              config -> config.httpPort)
+          .add()
+          .append(
+              new KeyedCodec<>("HttpToken", Codec.STRING),
+              (config, value) -> config.httpToken = value,
+              config -> config.httpToken)
+          .add()
           .build();
 
   /** Whether to send a notification message to the teleported player. Default is true. */
   private boolean notifyTeleportedPlayer = true;
+
+  /** Maximum number of tab completion suggestions for world and player names. Default is 25. */
+  private int maxCompletions = 25;
+
+  /**
+   * Whether teleports additionally require the per-world permission nodes
+   * (tp2world.world.&lt;world&gt;.self / .others). Default is false.
+   */
+  private boolean perWorldPermissions = false;
+
+  /** Maximum number of cached per-world permission decisions. Default is 4096. */
+  private int permissionCacheSize = 4096;
+
+  /** Multi-node world routing. Disabled by default. */
+  private ClusterConfig cluster = new ClusterConfig();
+
+  /** Rules that place players into a world when they join, first match wins. Default is none. */
+  private JoinRouteConfig[] joinRoutes = new JoinRouteConfig[0];
+
+  /** Boxes that teleport players entering them. Default is none. */
+  private PortalRegionConfig[] portalRegions = new PortalRegionConfig[0];
+
+  /** Edge length in blocks of the grid cells portal regions are indexed by. Default is 16. */
+  private int regionCellSize = 16;
+
+  /** Copies of the same world that can be targeted by one name. Default is none. */
+  private WorldGroupConfig[] worldGroups = new WorldGroupConfig[0];
+
+  /** Milliseconds between two load samples of the world group members. Default is 1000. */
+  private int worldLoadSampleMillis = 1000;
+
+  /** Milliseconds a teleported player has to arrive before the teleport counts as failed. */
+  private int arrivalTimeoutMillis = 10000;
+
+  /** Manifest rows read and teleported per bulk batch. Default is 100. */
+  private int bulkBatchSize = 100;
+
+  /** Minimum milliseconds between two bulk batches. Default is 250. */
+  private int bulkIntervalMillis = 250;
+
+  /** Entities copied per entity migration batch, at most one batch per tick. Default is 200. */
+  private int migrationBatchSize = 200;
+
+  /** Milliseconds one world tick may spend copying, adding or removing migrated entities. */
+  private int migrationTickBudgetMillis = 5;
+
+  /**
+   * Whether players going back to a world without a position land where they last left it instead
+   * of on its spawn point. Default is false.
+   */
+  private boolean returnToLastLocation = false;
+
+  /** Milliseconds between two writes of changed last locations to disk. Default is 5000. */
+  private int lastLocationFlushMillis = 5000;
+
+  /** Worlds that are loaded on start and never unloaded by tp2world. Default is none. */
+  private String[] pinnedWorlds = new String[0];
+
+  /**
+   * Milliseconds a world without players stays loaded before tp2world unloads it. Default is -1,
+   * never.
+   */
+  private int worldIdleUnloadMillis = -1;
+
+  /**
+   * Heap usage in MiB above which the least recently used empty world is unloaded. Default is -1,
+   * no budget.
+   */
+  private int worldMemoryBudgetMb = -1;
+
+  /** Milliseconds between two residency checks of the loaded worlds. Default is 5000. */
+  private int residencyCheckMillis = 5000;
+
+  /**
+   * Milliseconds between two published snapshots of the online players' positions, used by
+   * /tp2world to. Default is 50.
+   */
+  private int positionSnapshotMillis = 50;
+
+  /** Worlds with several spawn points, arrivals go to the least crowded one. Default is none. */
+  private SpawnSetConfig[] spawnSets = new SpawnSetConfig[0];
+
+  /**
+   * Edge length in blocks of the grid cells players around spawn points are counted in. Default is
+   * 8.
+   */
+  private int spawnCellSize = 8;
+
+  /** Worlds that private instances are cloned from. Default is none. */
+  private InstanceTemplateConfig[] instanceTemplates = new InstanceTemplateConfig[0];
+
+  /**
+   * Directory the universe keeps its worlds in, relative to the server directory. Instances are
+   * copied from and into it. Default is universe/worlds.
+   */
+  private String worldsDirectory = "universe/worlds";
+
+  /** Milliseconds between two refills of the warm instance pools. Default is 2000. */
+  private int instanceRefillMillis = 2000;
+
+  /** Milliseconds an instance in use may stay empty before it is removed. Default is 30000. */
+  private int instanceReclaimMillis = 30000;
+
+  /**
+   * Maximum number of queued chat messages to players moved by batch operations, further messages
+   * are dropped. Default is 4096.
+   */
+  private int notificationQueueSize = 4096;
+
+  /** Maximum number of queued chat messages sent per server tick. Default is 20. */
+  private int notificationsPerTick = 20;
+
+  /** Whether to start the HTTP admin endpoint with /metrics and /teleport. Default is false. */
+  private boolean httpEnabled = false;
+
+  /** Interface the HTTP admin endpoint listens on. Default is 127.0.0.1, local only. */
+  private String httpBindAddress = "127.0.0.1";
+
+  /** Port of the HTTP admin endpoint. Default is 8765. */
+  private int httpPort = 8765;
+
+  /** Bearer token every HTTP admin request must carry. Default is empty, no token. */
+  private String httpToken = "";
 }
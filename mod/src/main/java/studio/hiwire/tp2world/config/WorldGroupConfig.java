@@ -0,0 +1,38 @@
+package studio.hiwire.tp2world.config;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import lombok.Getter;
+
+/** Copies of the same world that can be targeted by one name. */
+@Getter
+public final class WorldGroupConfig {
+  public static final BuilderCodec<WorldGroupConfig> CODEC =
+      BuilderCodec.builder(WorldGroupConfig.class, WorldGroupConfig::new)
+          .append(
+              new KeyedCodec<>("Name", Codec.STRING),
+              (config, value) -> config.name = value,
+              config -> config.name)
+          .add()
+          .append(
+              new KeyedCodec<>("Worlds", Codec.STRING_ARRAY),
+              (config, value) -> config.worlds = value,
+              config -> config.worlds)
+          .add()
+          .append(
+              new KeyedCodec<>("MaxPlayersPerWorld", Codec.INTEGER),
+              (config, value) -> config.maxPlayersPerWorld = value,
+              config -> config.maxPlayersPerWorld)
+          .add()
+          .build();
+
+  /** The name used as teleport target. Required. */
+  private String name;
+
+  /** The member worlds. Required. */
+  private String[] worlds;
+
+  /** Members with this many players are skipped. Default is -1 (no limit). */
+  private int maxPlayersPerWorld = -1;
+}
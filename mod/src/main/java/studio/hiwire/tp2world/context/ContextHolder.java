@@ -0,0 +1,69 @@
+package studio.hiwire.tp2world.context;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Safely publishes an immutable context to all threads. Everything written before {@link #publish}
+ * or {@link #update}, including non-final fields of objects reachable from the context, is
+ * visible to a thread that obtains the context afterwards. Reading costs one volatile read, the
+ * fields of the context are plain reads after that.
+ *
+ * <p>Readers should obtain the context once per operation and keep using that instance, so a
+ * concurrent reload cannot mix old and new values within one operation.
+ *
+ * @param <T> the context type, should be deeply immutable once published
+ */
+public final class ContextHolder<T> {
+
+  private final AtomicReference<T> current = new AtomicReference<>();
+
+  /**
+   * @param context replaces the current context
+   */
+  public void publish(@Nonnull T context) {
+    current.set(context);
+  }
+
+  /**
+   * Replaces the context with a changed copy. Concurrent updates are applied one after the other,
+   * none is lost.
+   *
+   * @param change creates the new context from the current one, may be called more than once
+   * @return the published context
+   * @throws IllegalStateException if no context was published yet
+   */
+  @Nonnull
+  public T update(@Nonnull UnaryOperator<T> change) {
+    return current.updateAndGet(
+        context -> {
+          if (context == null) {
+            throw new IllegalStateException("No context published yet");
+          }
+          return change.apply(context);
+        });
+  }
+
+  /**
+   * @return the current context
+   * @throws IllegalStateException if no context was published yet
+   */
+  @Nonnull
+  public T get() {
+    final var context = current.get();
+    if (context == null) {
+      throw new IllegalStateException("No context published yet");
+    }
+    return context;
+  }
+
+  /**
+   * @return the current context, or null if none was published yet
+   */
+  @Nullable
+  public T getOrNull() {
+    return current.get();
+  }
+}
@@ -0,0 +1,51 @@
+package studio.hiwire.tp2world.context;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import studio.hiwire.tp2world.arrival.ArrivalTracker;
+import studio.hiwire.tp2world.config.Tp2WorldConfig;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.event.TeleportEvents;
+import studio.hiwire.tp2world.lastlocation.LastLocations;
+import studio.hiwire.tp2world.notify.NotificationQueue;
+import studio.hiwire.tp2world.permission.WorldPermissions;
+import studio.hiwire.tp2world.spawn.SpawnSets;
+import studio.hiwire.tp2world.teleport.TeleportCounters;
+
+/**
+ * Everything the teleport paths need at runtime, published once the plugin is set up, see {@link
+ * studio.hiwire.tp2world.Tp2WorldPlugin#context}. Immutable: a config reload publishes a copy with
+ * the new config, so an operation that obtained the context once never sees a mix of both.
+ *
+ * @param config the config as loaded, must not be changed once published
+ * @param lastLocations null if {@code ReturnToLastLocation} is disabled
+ */
+public record Tp2WorldContext(
+    @Nonnull Tp2WorldConfig config,
+    @Nonnull WorldDispatcher dispatcher,
+    @Nonnull ArrivalTracker arrivals,
+    @Nonnull WorldPermissions worldPermissions,
+    @Nonnull SpawnSets spawnSets,
+    @Nullable LastLocations lastLocations,
+    @Nonnull NotificationQueue notifications,
+    @Nonnull TeleportEvents teleportEvents,
+    @Nonnull TeleportCounters teleportCounters) {
+
+  /**
+   * @param config the reloaded config
+   * @return a copy with the reloaded config and the same services
+   */
+  @Nonnull
+  public Tp2WorldContext withConfig(@Nonnull Tp2WorldConfig config) {
+    return new Tp2WorldContext(
+        config,
+        dispatcher,
+        arrivals,
+        worldPermissions,
+        spawnSets,
+        lastLocations,
+        notifications,
+        teleportEvents,
+        teleportCounters);
+  }
+}
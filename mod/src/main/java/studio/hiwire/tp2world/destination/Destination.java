@@ -0,0 +1,80 @@
+package studio.hiwire.tp2world.destination;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import studio.hiwire.tp2world.balance.WorldGroup;
+import studio.hiwire.tp2world.cluster.ClusterWorldRegistry;
+import studio.hiwire.tp2world.instance.InstancePool;
+import studio.hiwire.tp2world.instance.InstanceTemplates;
+
+/** Target of a tp2world teleport, parsed from the world argument. */
+public sealed interface Destination {
+
+  /** Name of the targeted world as shown to players. */
+  @Nonnull
+  String worldName();
+
+  /**
+   * Name of the world whose per-world permission nodes guard this destination.
+   *
+   * @return the world name, or null if it is only known once the destination is resolved
+   */
+  @Nullable
+  default String permissionWorldName() {
+    return worldName();
+  }
+
+  /** A world in the local universe. */
+  record Local(@Nonnull World world) implements Destination {
+    @Nonnull
+    @Override
+    public String worldName() {
+      return world.getName();
+    }
+  }
+
+  /** A world group, resolved to its least loaded member when the teleport runs. */
+  record Group(@Nonnull WorldGroup group) implements Destination {
+    @Nonnull
+    @Override
+    public String worldName() {
+      return group.getName();
+    }
+
+    /** Checked on the member world picked for the teleport. */
+    @Nullable
+    @Override
+    public String permissionWorldName() {
+      return null;
+    }
+  }
+
+  /** A local world that was unloaded while idle, loaded again before the teleport runs. */
+  record Unloaded(@Nonnull String worldName) implements Destination {}
+
+  /** A fresh private instance of a template world, assigned before the teleport runs. */
+  record Instance(@Nonnull InstancePool pool) implements Destination {
+    @Nonnull
+    @Override
+    public String worldName() {
+      return InstanceTemplates.PREFIX + pool.template();
+    }
+
+    /** Instances get fresh names, the template world's nodes cover all of them. */
+    @Nonnull
+    @Override
+    public String permissionWorldName() {
+      return pool.templateWorld();
+    }
+  }
+
+  /** A world hosted by another node of the cluster. */
+  record Remote(@Nonnull ClusterWorldRegistry.RemoteWorld world) implements Destination {
+    @Nonnull
+    @Override
+    public String worldName() {
+      return world.worldName();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package studio.hiwire.tp2world.destination;
+
+import com.hypixel.hytale.server.core.command.system.ParseResult;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.universe.Universe;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import studio.hiwire.tp2world.balance.WorldGroups;
+import studio.hiwire.tp2world.cluster.ClusterService;
+import studio.hiwire.tp2world.instance.InstanceTemplates;
+import studio.hiwire.tp2world.residency.ResidencyManager;
+
+/**
+ * Parses the world argument into a {@link Destination}. Local worlds, loaded or unloaded while idle,
+ * take precedence over world groups, which take precedence over worlds on other nodes; unknown
+ * names are reported like {@link ArgTypes#WORLD} does. Names starting with template: target an
+ * instance template.
+ */
+public class DestinationParser {
+
+  @Nonnull private final ClusterService cluster;
+  @Nonnull private final WorldGroups worldGroups;
+  @Nonnull private final ResidencyManager residency;
+  @Nonnull private final InstanceTemplates instanceTemplates;
+
+  public DestinationParser(
+      @Nonnull ClusterService cluster,
+      @Nonnull WorldGroups worldGroups,
+      @Nonnull ResidencyManager residency,
+      @Nonnull InstanceTemplates instanceTemplates) {
+    this.cluster = cluster;
+    this.worldGroups = worldGroups;
+    this.residency = residency;
+    this.instanceTemplates = instanceTemplates;
+  }
+
+  @Nullable
+  public Destination parse(@Nonnull String input, @Nonnull ParseResult parseResult) {
+    return parse(input, parseResult, true);
+  }
+
+  /** Like {@link #parse(String, ParseResult)}, but never returns a {@link Destination.Remote}. */
+  @Nullable
+  public Destination parseLocal(@Nonnull String input, @Nonnull ParseResult parseResult) {
+    return parse(input, parseResult, false);
+  }
+
+  @Nullable
+  private Destination parse(
+      @Nonnull String input, @Nonnull ParseResult parseResult, boolean allowRemote) {
+    final var template = instanceTemplates.find(input);
+    if (template != null) {
+      return new Destination.Instance(template);
+    }
+
+    final var world = Universe.get().getWorld(input);
+    if (world != null) {
+      return new Destination.Local(world);
+    }
+
+    if (residency.isUnloaded(input)) {
+      return new Destination.Unloaded(input);
+    }
+
+    final var group = worldGroups.find(input);
+    if (group != null) {
+      return new Destination.Group(group);
+    }
+
+    if (allowRemote && cluster.isEnabled()) {
+      final var remoteWorld = cluster.getRegistry().find(input);
+      if (remoteWorld != null) {
+        return new Destination.Remote(remoteWorld);
+      }
+    }
+
+    // Let the default world argument report the error (or match case-insensitively)
+    final var fallback = ArgTypes.WORLD.parse(input, parseResult);
+    return fallback != null ? new Destination.Local(fallback) : null;
+  }
+}
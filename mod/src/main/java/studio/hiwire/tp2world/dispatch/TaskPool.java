@@ -0,0 +1,43 @@
+package studio.hiwire.tp2world.dispatch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+
+/**
+ * Bounded pool of reusable task objects. Acquiring creates a new object only if the pool is empty,
+ * releasing drops the object if the pool is full. Neither allocates otherwise.
+ *
+ * @param <T> the task type
+ */
+public final class TaskPool<T> {
+
+  private final ArrayBlockingQueue<T> free;
+  private final Supplier<T> factory;
+
+  /**
+   * @param capacity maximum number of idle objects kept
+   * @param factory creates new objects
+   */
+  public TaskPool(int capacity, @Nonnull Supplier<T> factory) {
+    this.free = new ArrayBlockingQueue<>(capacity);
+    this.factory = factory;
+  }
+
+  @Nonnull
+  public T acquire() {
+    final var task = free.poll();
+    return task != null ? task : factory.get();
+  }
+
+  /**
+   * @param task an object that is no longer used, its references should be cleared
+   */
+  public void release(@Nonnull T task) {
+    free.offer(task);
+  }
+
+  public int idle() {
+    return free.size();
+  }
+}
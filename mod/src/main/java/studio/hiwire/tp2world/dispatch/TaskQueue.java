@@ -0,0 +1,96 @@
+package studio.hiwire.tp2world.dispatch;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+
+/**
+ * Pending tp2world work of one world. Any thread may submit, the tasks are run in submission order
+ * by one drain on the world's executor. While a drain is scheduled, further submissions just join
+ * it, so a burst of commands costs a single {@code execute} instead of one per command.
+ *
+ * <p>The queue is an intrusive lock-free stack: submitting pushes the task with a CAS, draining
+ * takes the whole stack at once and reverses it.
+ */
+public final class TaskQueue implements Runnable {
+
+  @Nonnull private final Executor executor;
+  @Nonnull private final Consumer<RuntimeException> errors;
+  private final AtomicReference<WorldTask> head = new AtomicReference<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * @param executor runs the drain, usually the world
+   * @param errors receives exceptions thrown by tasks, the remaining tasks still run
+   */
+  public TaskQueue(@Nonnull Executor executor, @Nonnull Consumer<RuntimeException> errors) {
+    this.executor = executor;
+    this.errors = errors;
+  }
+
+  /**
+   * Queues a task and schedules a drain unless one is already pending.
+   *
+   * @param task the task, must not be queued already
+   */
+  public void submit(@Nonnull WorldTask task) {
+    size.incrementAndGet();
+    WorldTask current;
+    do {
+      current = head.get();
+      task.next = current;
+    } while (!head.compareAndSet(current, task));
+
+    if (scheduled.compareAndSet(false, true)) {
+      executor.execute(this);
+    }
+  }
+
+  /** Drains all queued tasks. Called by the executor. */
+  @Override
+  public void run() {
+    // Cleared first: a task submitted from now on schedules the next drain
+    scheduled.set(false);
+
+    WorldTask ordered = null;
+    WorldTask stacked = head.getAndSet(null);
+    int taken = 0;
+    while (stacked != null) {
+      final var next = stacked.next;
+      stacked.next = ordered;
+      ordered = stacked;
+      stacked = next;
+      taken++;
+    }
+    size.addAndGet(-taken);
+
+    while (ordered != null) {
+      final var task = ordered;
+      ordered = task.next;
+      task.next = null;
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        errors.accept(e);
+      }
+    }
+  }
+
+  /**
+   * @return whether no task is queued
+   */
+  public boolean isEmpty() {
+    return head.get() == null;
+  }
+
+  /**
+   * @return number of queued tasks that no drain has taken yet, for monitoring
+   */
+  public int size() {
+    return size.get();
+  }
+}
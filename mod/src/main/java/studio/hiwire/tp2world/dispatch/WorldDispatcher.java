@@ -0,0 +1,69 @@
+package studio.hiwire.tp2world.dispatch;
+
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+
+/**
+ * Runs tp2world work on world threads. All work submitted for a world before its next drain runs
+ * in one {@link World#execute} call, see {@link TaskQueue}.
+ */
+public class WorldDispatcher {
+
+  @Nonnull private final HytaleLogger logger;
+  private final Map<World, TaskQueue> queues = new ConcurrentHashMap<>();
+
+  public WorldDispatcher(@Nonnull HytaleLogger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * Registers the event listener that drops the queues of removed worlds.
+   *
+   * @param eventRegistry the plugin's event registry
+   */
+  public void register(@Nonnull EventRegistry eventRegistry) {
+    eventRegistry.registerGlobal(RemoveWorldEvent.class, event -> queues.remove(event.getWorld()));
+  }
+
+  /**
+   * Queues a task for the world thread.
+   *
+   * @param world the world to run on
+   * @param task the task, must not be queued already
+   */
+  public void submit(@Nonnull World world, @Nonnull WorldTask task) {
+    var queue = queues.get(world);
+    if (queue == null) {
+      queue = queues.computeIfAbsent(world, this::createQueue);
+    }
+    queue.submit(task);
+  }
+
+  /**
+   * @return number of queued tasks per world name, sorted by name
+   */
+  @Nonnull
+  public Map<String, Integer> queueDepths() {
+    final var depths = new TreeMap<String, Integer>();
+    for (Map.Entry<World, TaskQueue> entry : queues.entrySet()) {
+      depths.put(entry.getKey().getName(), entry.getValue().size());
+    }
+    return depths;
+  }
+
+  @Nonnull
+  private TaskQueue createQueue(@Nonnull World world) {
+    return new TaskQueue(
+        world::execute,
+        e ->
+            logger.at(Level.WARNING).withCause(e).log(
+                "tp2world task failed in world " + world.getName()));
+  }
+}
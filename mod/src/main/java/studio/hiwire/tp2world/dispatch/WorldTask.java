@@ -0,0 +1,17 @@
+package studio.hiwire.tp2world.dispatch;
+
+import javax.annotation.Nullable;
+
+/**
+ * A unit of tp2world work that runs on a world thread. Tasks are linked into the queue of their
+ * world directly, so submitting one allocates nothing. A task object may be reused once it has run,
+ * but can only be queued once at a time.
+ */
+public abstract class WorldTask {
+
+  /** Next task in the queue, only touched by {@link TaskQueue}. */
+  @Nullable WorldTask next;
+
+  /** Runs the task on the world thread. */
+  protected abstract void run();
+}
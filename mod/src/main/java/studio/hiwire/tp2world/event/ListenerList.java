@@ -0,0 +1,65 @@
+package studio.hiwire.tp2world.event;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+
+/**
+ * Copy-on-write list of event listeners. Registering copies the array, reading is one volatile
+ * read, so firing needs neither a lock nor an iterator and {@link #isEmpty} is cheap enough to be
+ * checked before an event object is even created.
+ *
+ * @param <E> the event type
+ */
+public final class ListenerList<E> {
+
+  @SuppressWarnings("rawtypes")
+  private static final Consumer[] EMPTY = new Consumer[0];
+
+  @SuppressWarnings("unchecked")
+  private volatile Consumer<? super E>[] listeners = EMPTY;
+
+  /**
+   * Adds a listener, called after all listeners added before it.
+   *
+   * @param listener the listener, may be added more than once
+   */
+  public synchronized void add(@Nonnull Consumer<? super E> listener) {
+    final var copy = Arrays.copyOf(listeners, listeners.length + 1);
+    copy[listeners.length] = listener;
+    listeners = copy;
+  }
+
+  /**
+   * Removes the first registration of a listener.
+   *
+   * @return whether the listener was registered
+   */
+  public synchronized boolean remove(@Nonnull Consumer<? super E> listener) {
+    final var current = listeners;
+    for (int i = 0; i < current.length; i++) {
+      if (current[i] == listener) {
+        @SuppressWarnings("unchecked")
+        final Consumer<? super E>[] copy =
+            current.length == 1 ? EMPTY : new Consumer[current.length - 1];
+        System.arraycopy(current, 0, copy, 0, i);
+        System.arraycopy(current, i + 1, copy, i, current.length - i - 1);
+        listeners = copy;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean isEmpty() {
+    return listeners.length == 0;
+  }
+
+  /**
+   * @return the listeners at the time of the call, must not be modified
+   */
+  @Nonnull
+  Consumer<? super E>[] snapshot() {
+    return listeners;
+  }
+}
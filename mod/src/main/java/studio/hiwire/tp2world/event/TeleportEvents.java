@@ -0,0 +1,56 @@
+package studio.hiwire.tp2world.event;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import lombok.Getter;
+
+/**
+ * Listeners of tp2world teleports, for other plugins:
+ *
+ * <pre>{@code
+ * Tp2WorldPlugin.get().getTeleportEvents().getPreTeleport().add(event -> {
+ *   if (isFrozen(event.getPlayerRef())) {
+ *     event.setCancelled(true);
+ *   }
+ * });
+ * }</pre>
+ *
+ * Listeners run on the player's world thread and must not block. A listener that throws is logged
+ * and skipped, the teleport goes on.
+ */
+public class TeleportEvents {
+
+  @Getter @Nonnull
+  private final ListenerList<Tp2WorldPreTeleportEvent> preTeleport = new ListenerList<>();
+
+  @Getter @Nonnull
+  private final ListenerList<Tp2WorldPostTeleportEvent> postTeleport = new ListenerList<>();
+
+  @Nonnull private final HytaleLogger logger;
+
+  public TeleportEvents(@Nonnull HytaleLogger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * Calls every listener of one event type in registration order.
+   *
+   * @param listeners the listeners, check {@link ListenerList#isEmpty} before creating the event
+   * @param event the event
+   * @return the event
+   */
+  @Nonnull
+  public <E> E fire(@Nonnull ListenerList<E> listeners, @Nonnull E event) {
+    for (Consumer<? super E> listener : listeners.snapshot()) {
+      try {
+        listener.accept(event);
+      } catch (RuntimeException e) {
+        logger.at(Level.WARNING).withCause(e).log(
+            "Listener of " + event.getClass().getSimpleName() + " failed");
+      }
+    }
+    return event;
+  }
+}
@@ -0,0 +1,52 @@
+package studio.hiwire.tp2world.event;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import org.joml.Vector3d;
+
+/**
+ * Fired on the source world thread right after tp2world started a teleport. The player moves to
+ * the target world once the source world processed the teleport, usually within the next tick.
+ * Only created if there is at least one listener.
+ */
+@Getter
+public final class Tp2WorldPostTeleportEvent {
+
+  @Nonnull private final Ref<EntityStore> ref;
+  @Nonnull private final Store<EntityStore> store;
+
+  /** The teleported player, or null if the entity has no {@link PlayerRef}. */
+  @Nullable private final PlayerRef playerRef;
+
+  @Nonnull private final World sourceWorld;
+  @Nonnull private final World targetWorld;
+  @Nonnull private final Vector3d position;
+  @Nonnull private final Rotation3f headRotation;
+  @Nonnull private final Rotation3f bodyRotation;
+
+  public Tp2WorldPostTeleportEvent(
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull Store<EntityStore> store,
+      @Nullable PlayerRef playerRef,
+      @Nonnull World sourceWorld,
+      @Nonnull World targetWorld,
+      @Nonnull Vector3d position,
+      @Nonnull Rotation3f headRotation,
+      @Nonnull Rotation3f bodyRotation) {
+    this.ref = ref;
+    this.store = store;
+    this.playerRef = playerRef;
+    this.sourceWorld = sourceWorld;
+    this.targetWorld = targetWorld;
+    this.position = position;
+    this.headRotation = headRotation;
+    this.bodyRotation = bodyRotation;
+  }
+}
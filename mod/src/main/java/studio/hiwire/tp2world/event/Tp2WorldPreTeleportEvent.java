@@ -0,0 +1,70 @@
+package studio.hiwire.tp2world.event;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import studio.hiwire.tp2world.teleport.Tp2WorldTeleporter;
+
+/**
+ * Fired on the player's world thread before tp2world teleports a player. Listeners may cancel the
+ * teleport or change its target world and options. Later listeners see the changes of earlier ones
+ * and may undo them. Only created if there is at least one listener.
+ */
+@Getter
+public final class Tp2WorldPreTeleportEvent {
+
+  /** The teleported entity, readable from listeners since they run on its world thread. */
+  @Nonnull private final Ref<EntityStore> ref;
+
+  @Nonnull private final Store<EntityStore> store;
+
+  /** The teleported player, or null if the entity has no {@link PlayerRef}. */
+  @Nullable private final PlayerRef playerRef;
+
+  @Nonnull private final World sourceWorld;
+  @Nonnull private World targetWorld;
+  @Nonnull private Tp2WorldTeleporter.Options options;
+  private boolean cancelled;
+
+  public Tp2WorldPreTeleportEvent(
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull Store<EntityStore> store,
+      @Nullable PlayerRef playerRef,
+      @Nonnull World sourceWorld,
+      @Nonnull World targetWorld,
+      @Nonnull Tp2WorldTeleporter.Options options) {
+    this.ref = ref;
+    this.store = store;
+    this.playerRef = playerRef;
+    this.sourceWorld = sourceWorld;
+    this.targetWorld = targetWorld;
+    this.options = options;
+  }
+
+  /**
+   * @param targetWorld the world to teleport to instead, must be loaded
+   */
+  public void setTargetWorld(@Nonnull World targetWorld) {
+    this.targetWorld = targetWorld;
+  }
+
+  /**
+   * @param options position and rotations to use instead, {@link Tp2WorldTeleporter.Options#SPAWN}
+   *     for the target world's spawn point
+   */
+  public void setOptions(@Nonnull Tp2WorldTeleporter.Options options) {
+    this.options = options;
+  }
+
+  /**
+   * @param cancelled whether the player stays where they are
+   */
+  public void setCancelled(boolean cancelled) {
+    this.cancelled = cancelled;
+  }
+}
@@ -0,0 +1,71 @@
+package studio.hiwire.tp2world.group;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * All-or-nothing decision between the source worlds of one group teleport.
+ *
+ * <p>Every source world validates its members and votes from its own thread, then waits for the
+ * other worlds. The first world to decide fixes the outcome for all of them: commit only if every
+ * world voted without a failure in time. A world that votes after a failed decision never commits.
+ *
+ * @param <F> type of the failure a world votes with
+ */
+final class CommitVote<F> {
+
+  @Nonnull private final CountDownLatch votes;
+  @Nonnull private final AtomicReference<F> failure = new AtomicReference<>();
+  @Nonnull private final AtomicReference<Boolean> decision = new AtomicReference<>();
+
+  /**
+   * @param worlds number of worlds that have to vote
+   */
+  CommitVote(int worlds) {
+    this.votes = new CountDownLatch(worlds);
+  }
+
+  /**
+   * Casts the vote of one world and waits for the others.
+   *
+   * @param failure why this world can't commit, null if it can
+   * @param timeout how long to wait for the other worlds
+   * @param unit unit of the timeout
+   * @return true if this world has to commit, false if nobody commits
+   */
+  boolean vote(@Nullable F failure, long timeout, @Nonnull TimeUnit unit) {
+    if (failure != null) {
+      this.failure.compareAndSet(null, failure);
+    }
+    this.votes.countDown();
+
+    boolean complete;
+    try {
+      complete = this.votes.await(timeout, unit);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      complete = false;
+    }
+    // A world that timed out can race one that saw the last vote, whoever decides first wins
+    this.decision.compareAndSet(null, complete && this.failure.get() == null);
+    return this.decision.get();
+  }
+
+  /**
+   * @return true if the worlds decided to commit, false if they decided not to or didn't decide yet
+   */
+  boolean isCommitted() {
+    return Boolean.TRUE.equals(this.decision.get());
+  }
+
+  /**
+   * @return the first failure a world voted with, null if none did
+   */
+  @Nullable
+  F getFailure() {
+    return this.failure.get();
+  }
+}
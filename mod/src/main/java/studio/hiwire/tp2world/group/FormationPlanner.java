@@ -0,0 +1,86 @@
+package studio.hiwire.tp2world.group;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+
+/**
+ * Pure formation math for group teleports. Takes the members' current transforms and produces the
+ * target transforms so that every member keeps its offset to the group reference point. No world
+ * access - use {@link GroupTeleport} for reading and committing the teleports.
+ *
+ * <p>If an anchor yaw is given, the whole formation is turned around the anchor by the difference
+ * between the anchor yaw and the reference yaw, and every member's facing is turned by the same
+ * amount. Otherwise the formation is only translated and every member keeps its facing.
+ */
+public final class FormationPlanner {
+
+  private FormationPlanner() {}
+
+  /** Current transform of a single group member, captured on its world thread. */
+  public record Member(
+      @Nonnull Vector3d position,
+      @Nonnull Rotation3f headRotation,
+      @Nonnull Rotation3f bodyRotation) {}
+
+  /** Target transform of a single group member. */
+  public record Placement(
+      @Nonnull Vector3d position,
+      @Nonnull Rotation3f headRotation,
+      @Nonnull Rotation3f bodyRotation) {}
+
+  /**
+   * Plans the target transforms of a formation.
+   *
+   * @param members current member transforms
+   * @param reference the point the offsets are measured from (usually the leader's position)
+   * @param referenceYaw the yaw the formation is currently facing (usually the leader's head yaw)
+   * @param anchor the target position of the reference point
+   * @param anchorYaw the yaw the formation should face after the teleport, or null to keep facing
+   * @return placements in the same order as {@code members}
+   */
+  @Nonnull
+  public static List<Placement> plan(
+      @Nonnull List<Member> members,
+      @Nonnull Vector3d reference,
+      float referenceYaw,
+      @Nonnull Vector3d anchor,
+      @Nullable Float anchorYaw) {
+    final float deltaYaw =
+        anchorYaw == null || Float.isNaN(anchorYaw) || Float.isNaN(referenceYaw)
+            ? 0
+            : anchorYaw - referenceYaw;
+    final double cos = Math.cos(deltaYaw);
+    final double sin = Math.sin(deltaYaw);
+
+    final List<Placement> placements = new ArrayList<>(members.size());
+    for (Member member : members) {
+      final double offsetX = member.position().x() - reference.x();
+      final double offsetY = member.position().y() - reference.y();
+      final double offsetZ = member.position().z() - reference.z();
+
+      final var position =
+          new Vector3d(
+              anchor.x() + offsetX * cos + offsetZ * sin,
+              anchor.y() + offsetY,
+              anchor.z() - offsetX * sin + offsetZ * cos);
+
+      placements.add(
+          new Placement(
+              position,
+              turn(member.headRotation(), deltaYaw),
+              turn(member.bodyRotation(), deltaYaw)));
+    }
+    return placements;
+  }
+
+  private static Rotation3f turn(@Nonnull Rotation3f rotation, float deltaYaw) {
+    if (deltaYaw == 0 || Float.isNaN(rotation.yaw())) {
+      return new Rotation3f(rotation.pitch(), rotation.yaw(), rotation.roll());
+    }
+    return new Rotation3f(rotation.pitch(), rotation.yaw() + deltaYaw, rotation.roll());
+  }
+}
@@ -0,0 +1,578 @@
+package studio.hiwire.tp2world.group;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.math.vector.Rotation3fc;
+import com.hypixel.hytale.server.core.command.system.arguments.types.RelativeDoublePosition;
+import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import jdk.jfr.EventType;
+import org.joml.Vector3d;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.event.TeleportEvents;
+import studio.hiwire.tp2world.event.Tp2WorldPostTeleportEvent;
+import studio.hiwire.tp2world.event.Tp2WorldPreTeleportEvent;
+import studio.hiwire.tp2world.jfr.CommitEvent;
+import studio.hiwire.tp2world.spawn.SpawnSet;
+import studio.hiwire.tp2world.teleport.Tp2WorldTeleporter;
+
+/**
+ * Formation-preserving teleport of a group of players into one target world, or of several parts
+ * of a group into one world each.
+ *
+ * <p>The teleport runs in two round trips to every source world of the group:
+ *
+ * <ol>
+ *   <li>Snapshot - one task per source world reads the {@link TransformComponent} and {@link
+ *       HeadRotation} of all members in that world. The world of a part's leader also resolves the
+ *       part's anchor (target spawn point or {@code --position} relative to the leader).
+ *   <li>Commit - once every member was captured and every anchor resolved, the targets are planned
+ *       together with {@link FormationPlanner}. One task per source world checks that all of its
+ *       members are still there, fires a {@link Tp2WorldPreTeleportEvent} for each of them and,
+ *       in the same task, adds their {@link Teleport} components and fires a {@link
+ *       Tp2WorldPostTeleportEvent} for each.
+ * </ol>
+ *
+ * If the snapshot fails for any member, a member is gone at commit time, or a listener cancels the
+ * teleport of any member, nobody is teleported. Listeners can't change the target world or options
+ * of a group member, the formation is planned for the whole group and their changes are ignored.
+ *
+ * <p>With more than one source world, every world votes through a {@link CommitVote} after its
+ * check and waits up to {@link #VOTE_TIMEOUT_MILLIS} for the others before it commits. Only one
+ * such group commits at a time, so two groups can't each block a world the other one waits for.
+ */
+public final class GroupTeleport {
+
+  /** Looked up once, checking it is cheaper than creating an event that is never committed. */
+  private static final EventType COMMIT_EVENT_TYPE = EventType.getEventType(CommitEvent.class);
+
+  /** How long a source world waits for the others to vote, its thread is blocked meanwhile. */
+  private static final long VOTE_TIMEOUT_MILLIS = 500;
+
+  /** Last group commit spanning several source worlds, the next one waits for it. */
+  @Nonnull
+  private static CompletableFuture<Result> lastMultiWorldCommit =
+      CompletableFuture.completedFuture(null);
+
+  private GroupTeleport() {}
+
+  /**
+   * Members of a group that go to one target world, as one formation led by the first member.
+   *
+   * @param members the members, the first one is the leader of this part
+   * @param targetWorld the world this part teleports to
+   */
+  public record Part(@Nonnull List<PlayerRef> members, @Nonnull World targetWorld) {}
+
+  /**
+   * Teleports all members into the target world, keeping their relative offsets and facing.
+   *
+   * @param members the group members, the first one is the leader
+   * @param targetWorld the world to teleport to
+   * @param position optional anchor position, relative to the leader's current position
+   * @param rotation optional head rotation of the formation, turns the whole group
+   * @return future completed with the group result once all commit tasks have run
+   */
+  @Nonnull
+  public static CompletableFuture<Result> execute(
+      @Nonnull List<PlayerRef> members,
+      @Nonnull World targetWorld,
+      @Nullable RelativeDoublePosition position,
+      @Nullable Rotation3fc rotation) {
+    return execute(List.of(new Part(members, targetWorld)), position, rotation);
+  }
+
+  /**
+   * Teleports every part into its target world as its own formation. All parts are validated
+   * together, so either every part is teleported or none is.
+   *
+   * @param parts the parts, a player listed in more than one part only goes with the first
+   * @param position optional anchor position, relative to the leader of each part
+   * @param rotation optional head rotation of the formations
+   * @return future completed with the combined result once all commit tasks have run
+   */
+  @Nonnull
+  public static CompletableFuture<Result> execute(
+      @Nonnull List<Part> parts,
+      @Nullable RelativeDoublePosition position,
+      @Nullable Rotation3fc rotation) {
+    final var seen = new HashSet<UUID>();
+    final var uniqueParts = new ArrayList<Part>(parts.size());
+    for (Part part : parts) {
+      final var members = new ArrayList<PlayerRef>(part.members().size());
+      for (PlayerRef member : part.members()) {
+        if (seen.add(member.getUuid())) {
+          members.add(member);
+        }
+      }
+      if (!members.isEmpty()) {
+        uniqueParts.add(new Part(members, part.targetWorld()));
+      }
+    }
+    if (uniqueParts.isEmpty()) {
+      return CompletableFuture.completedFuture(Result.empty());
+    }
+
+    // Group members by their current world - each world is read on its own thread
+    final var bySourceWorld = new LinkedHashMap<World, List<Assignment>>();
+    for (int part = 0; part < uniqueParts.size(); part++) {
+      for (PlayerRef member : uniqueParts.get(part).members()) {
+        final var ref = member.getReference();
+        if (ref == null || !ref.isValid()) {
+          return CompletableFuture.completedFuture(Result.memberNotInWorld(member.getUsername()));
+        }
+        final var world = ref.getStore().getExternalData().getWorld();
+        bySourceWorld
+            .computeIfAbsent(world, ignored -> new ArrayList<>())
+            .add(new Assignment(member, part));
+      }
+    }
+
+    final var snapshotFutures = new ArrayList<CompletableFuture<SourceSnapshot>>();
+    for (Map.Entry<World, List<Assignment>> entry : bySourceWorld.entrySet()) {
+      final var world = entry.getKey();
+      final var assignments = entry.getValue();
+      snapshotFutures.add(
+          onWorldThread(world, () -> snapshot(world, assignments, uniqueParts, position)));
+    }
+
+    return allOf(snapshotFutures)
+        .thenCompose(
+            snapshots -> {
+              final var planned = plan(snapshots, uniqueParts, rotation);
+              if (planned.failure() != null) {
+                return CompletableFuture.completedFuture(planned.failure());
+              }
+              return validateAndCommit(planned.worlds());
+            });
+  }
+
+  @Nonnull
+  private static SourceSnapshot snapshot(
+      @Nonnull World world,
+      @Nonnull List<Assignment> assignments,
+      @Nonnull List<Part> parts,
+      @Nullable RelativeDoublePosition position) {
+    final var states = new ArrayList<MemberState>(assignments.size());
+    final var anchors = new Vector3d[parts.size()];
+
+    for (Assignment assignment : assignments) {
+      final var member = assignment.playerRef();
+      final var ref = member.getReference();
+      if (ref == null || !ref.isValid()) {
+        return SourceSnapshot.failed(world, Result.memberNotInWorld(member.getUsername()));
+      }
+      final var store = ref.getStore();
+      final var transformComponent = store.getComponent(ref, TransformComponent.getComponentType());
+      final var headRotationComponent = store.getComponent(ref, HeadRotation.getComponentType());
+      if (transformComponent == null || headRotationComponent == null) {
+        return SourceSnapshot.failed(world, Result.memberNotInWorld(member.getUsername()));
+      }
+
+      final var current =
+          new FormationPlanner.Member(
+              new Vector3d(transformComponent.getPosition()),
+              new Rotation3f(headRotationComponent.getRotation()),
+              new Rotation3f(transformComponent.getRotation()));
+      final var part = parts.get(assignment.part());
+      final boolean leader = part.members().getFirst() == member;
+      states.add(new MemberState(member, assignment.part(), leader, ref, store, current));
+
+      if (leader) {
+        final var targetWorld = part.targetWorld();
+        if (position != null) {
+          anchors[assignment.part()] =
+              position.getRelativePosition(current.position(), targetWorld);
+        } else if (Tp2WorldPlugin.context().spawnSets().get(targetWorld.getName())
+            instanceof SpawnSet spawnSet) {
+          // The whole formation gathers around one point of the spawn set
+          anchors[assignment.part()] = new Vector3d(spawnSet.pick(System.nanoTime()).position());
+        } else {
+          final var spawnPoint =
+              targetWorld.getWorldConfig().getSpawnProvider().getSpawnPoint(ref, store);
+          if (spawnPoint == null) {
+            return SourceSnapshot.failed(world, Result.spawnNotSet());
+          }
+          anchors[assignment.part()] = new Vector3d(spawnPoint.getPosition());
+        }
+      }
+    }
+
+    return new SourceSnapshot(world, states, anchors, null);
+  }
+
+  /** Plans the placements of every member, grouped by source world. */
+  @Nonnull
+  private static Planned plan(
+      @Nonnull List<SourceSnapshot> snapshots,
+      @Nonnull List<Part> parts,
+      @Nullable Rotation3fc rotation) {
+    final var anchors = new Vector3d[parts.size()];
+    final var leaderYaws = new float[parts.size()];
+    for (SourceSnapshot snapshot : snapshots) {
+      if (snapshot.failure() != null) {
+        return Planned.failed(snapshot.failure());
+      }
+      for (int part = 0; part < parts.size(); part++) {
+        if (snapshot.anchors()[part] != null) {
+          anchors[part] = snapshot.anchors()[part];
+        }
+      }
+      for (MemberState state : snapshot.states()) {
+        if (state.leader()) {
+          leaderYaws[state.part()] = state.current().headRotation().yaw();
+        }
+      }
+    }
+    for (Vector3d anchor : anchors) {
+      if (anchor == null) {
+        return Planned.failed(Result.spawnNotSet());
+      }
+    }
+
+    final Float anchorYaw = rotation != null ? rotation.yaw() : null;
+
+    final var worlds = new ArrayList<SourcePlan>(snapshots.size());
+    for (SourceSnapshot snapshot : snapshots) {
+      final var members = new ArrayList<PlannedMember>(snapshot.states().size());
+      // Offsets are only meaningful within one world, so every part in every source world keeps
+      // its own reference point: the part's leader where present, otherwise its first member here
+      final var byPart = new LinkedHashMap<Integer, List<MemberState>>();
+      for (MemberState state : snapshot.states()) {
+        byPart.computeIfAbsent(state.part(), ignored -> new ArrayList<>()).add(state);
+      }
+      for (Map.Entry<Integer, List<MemberState>> entry : byPart.entrySet()) {
+        final int part = entry.getKey();
+        final var states = entry.getValue();
+        MemberState reference = states.getFirst();
+        for (MemberState state : states) {
+          if (state.leader()) {
+            reference = state;
+          }
+        }
+        final float referenceYaw =
+            reference.leader() ? leaderYaws[part] : reference.current().headRotation().yaw();
+
+        final var currents = new ArrayList<FormationPlanner.Member>(states.size());
+        for (MemberState state : states) {
+          currents.add(state.current());
+        }
+        final var placements =
+            FormationPlanner.plan(
+                currents, reference.current().position(), referenceYaw, anchors[part], anchorYaw);
+        for (int i = 0; i < states.size(); i++) {
+          members.add(
+              new PlannedMember(states.get(i), placements.get(i), parts.get(part).targetWorld()));
+        }
+      }
+      worlds.add(new SourcePlan(snapshot.world(), members));
+    }
+    return new Planned(worlds, null);
+  }
+
+  /** Checks and commits every source world, either all of them commit or none does. */
+  @Nonnull
+  private static CompletableFuture<Result> validateAndCommit(@Nonnull List<SourcePlan> worlds) {
+    final var events = Tp2WorldPlugin.context().teleportEvents();
+    if (worlds.size() == 1) {
+      // Nothing can change between check and commit within one world task
+      final var plan = worlds.getFirst();
+      return onWorldThread(
+          plan.world(),
+          () -> {
+            final var failure = validateWorld(plan, events);
+            return failure != null ? failure : Result.committed(commitWorld(plan, events));
+          });
+    }
+
+    synchronized (GroupTeleport.class) {
+      final var commit =
+          lastMultiWorldCommit
+              .handle((ignored, error) -> null)
+              .thenCompose(ignored -> voteAndCommit(worlds, events));
+      lastMultiWorldCommit = commit;
+      return commit;
+    }
+  }
+
+  /** One task per source world checks its members, votes and commits if every world agreed. */
+  @Nonnull
+  private static CompletableFuture<Result> voteAndCommit(
+      @Nonnull List<SourcePlan> worlds, @Nonnull TeleportEvents events) {
+    final var vote = new CommitVote<Result>(worlds.size());
+    final var commitFutures = new ArrayList<CompletableFuture<List<PlayerRef>>>(worlds.size());
+    for (SourcePlan plan : worlds) {
+      commitFutures.add(
+          onWorldThread(
+              plan.world(),
+              () -> {
+                final Result failure;
+                try {
+                  failure = validateWorld(plan, events);
+                } catch (RuntimeException e) {
+                  // Don't keep the other worlds waiting for a vote that never comes
+                  vote.vote(Result.aborted(), 0, TimeUnit.MILLISECONDS);
+                  throw e;
+                }
+                if (!vote.vote(failure, VOTE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                  return List.of();
+                }
+                return commitWorld(plan, events);
+              }));
+    }
+
+    return allOf(commitFutures)
+        .thenApply(
+            moved -> {
+              if (vote.getFailure() != null) {
+                return vote.getFailure();
+              }
+              if (!vote.isCommitted()) {
+                return Result.aborted();
+              }
+              final var all = new ArrayList<PlayerRef>();
+              for (List<PlayerRef> world : moved) {
+                all.addAll(world);
+              }
+              return Result.committed(all);
+            });
+  }
+
+  /**
+   * Checks one source world and asks the pre-teleport listeners without touching anyone. Returns
+   * null on success.
+   */
+  @Nullable
+  private static Result validateWorld(@Nonnull SourcePlan plan, @Nonnull TeleportEvents events) {
+    for (PlannedMember member : plan.members()) {
+      if (!isInWorld(member.state(), plan.world())) {
+        return Result.memberLeft(member.state().playerRef().getUsername());
+      }
+    }
+    // The event is only created if another plugin listens
+    if (events.getPreTeleport().isEmpty()) {
+      return null;
+    }
+    for (PlannedMember member : plan.members()) {
+      final var state = member.state();
+      final var placement = member.placement();
+      final var preEvent =
+          events.fire(
+              events.getPreTeleport(),
+              new Tp2WorldPreTeleportEvent(
+                  state.ref(),
+                  state.store(),
+                  state.playerRef(),
+                  plan.world(),
+                  member.targetWorld(),
+                  new Tp2WorldTeleporter.Options(
+                      Tp2WorldTeleporter.TargetPosition.absolute(placement.position()),
+                      placement.headRotation(),
+                      placement.bodyRotation())));
+      if (preEvent.isCancelled()) {
+        return Result.cancelled(state.playerRef().getUsername());
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Commits one source world, must run in the same world task as its {@link #validateWorld}.
+   *
+   * @return the teleported members
+   */
+  @Nonnull
+  private static List<PlayerRef> commitWorld(
+      @Nonnull SourcePlan plan, @Nonnull TeleportEvents events) {
+    final var moved = new ArrayList<PlayerRef>(plan.members().size());
+
+    final var commitEvent = COMMIT_EVENT_TYPE.isEnabled() ? new CommitEvent() : null;
+    if (commitEvent != null) {
+      commitEvent.begin();
+    }
+    for (PlannedMember member : plan.members()) {
+      final var state = member.state();
+      final var placement = member.placement();
+      final var teleport =
+          new Teleport(member.targetWorld(), placement.position(), placement.bodyRotation());
+      teleport.setHeadRotation(placement.headRotation());
+      state.store().addComponent(state.ref(), Teleport.getComponentType(), teleport);
+      moved.add(state.playerRef());
+    }
+    if (commitEvent != null) {
+      commitEvent.end();
+      if (commitEvent.shouldCommit()) {
+        final var first = plan.members().getFirst();
+        commitEvent.sourceWorld = plan.world().getName();
+        commitEvent.targetWorld = first.targetWorld().getName();
+        commitEvent.playerId = first.state().playerRef().getUuid().toString();
+        commitEvent.batchSize = moved.size();
+        commitEvent.commit();
+      }
+    }
+
+    // Fired once the whole world is committed, so a listener can't hold up the other members
+    if (!events.getPostTeleport().isEmpty()) {
+      for (PlannedMember member : plan.members()) {
+        final var state = member.state();
+        final var placement = member.placement();
+        events.fire(
+            events.getPostTeleport(),
+            new Tp2WorldPostTeleportEvent(
+                state.ref(),
+                state.store(),
+                state.playerRef(),
+                plan.world(),
+                member.targetWorld(),
+                placement.position(),
+                placement.headRotation(),
+                placement.bodyRotation()));
+      }
+    }
+    return moved;
+  }
+
+  private static boolean isInWorld(@Nonnull MemberState state, @Nonnull World world) {
+    return state.ref().isValid() && state.store().getExternalData().getWorld() == world;
+  }
+
+  /** Completes with the results of all futures in order, once all of them completed. */
+  @Nonnull
+  private static <T> CompletableFuture<List<T>> allOf(@Nonnull List<CompletableFuture<T>> futures) {
+    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+        .thenApply(
+            ignored -> {
+              final var results = new ArrayList<T>(futures.size());
+              for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+              }
+              return results;
+            });
+  }
+
+  @Nonnull
+  private static <T> CompletableFuture<T> onWorldThread(
+      @Nonnull World world, @Nonnull Supplier<T> task) {
+    final var future = new CompletableFuture<T>();
+    world.execute(
+        () -> {
+          try {
+            future.complete(task.get());
+          } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+          }
+        });
+    return future;
+  }
+
+  private record Assignment(@Nonnull PlayerRef playerRef, int part) {}
+
+  private record MemberState(
+      @Nonnull PlayerRef playerRef,
+      int part,
+      boolean leader,
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull Store<EntityStore> store,
+      @Nonnull FormationPlanner.Member current) {}
+
+  /**
+   * @param anchors the anchor of every part whose leader is in this world, null for the others
+   */
+  private record SourceSnapshot(
+      @Nonnull World world,
+      @Nonnull List<MemberState> states,
+      @Nonnull Vector3d[] anchors,
+      @Nullable Result failure) {
+
+    static SourceSnapshot failed(@Nonnull World world, @Nonnull Result failure) {
+      return new SourceSnapshot(world, List.of(), new Vector3d[0], failure);
+    }
+  }
+
+  private record PlannedMember(
+      @Nonnull MemberState state,
+      @Nonnull FormationPlanner.Placement placement,
+      @Nonnull World targetWorld) {}
+
+  private record SourcePlan(@Nonnull World world, @Nonnull List<PlannedMember> members) {}
+
+  private record Planned(@Nonnull List<SourcePlan> worlds, @Nullable Result failure) {
+
+    static Planned failed(@Nonnull Result failure) {
+      return new Planned(List.of(), failure);
+    }
+  }
+
+  /**
+   * @param playerName the member that aborted the teleport, if any
+   * @param moved the members that were teleported
+   */
+  public record Result(Status status, @Nullable String playerName, @Nonnull List<PlayerRef> moved) {
+    public enum Status {
+      COMMITTED,
+      EMPTY,
+      MEMBER_NOT_IN_WORLD,
+      MEMBER_LEFT,
+      CANCELLED,
+      ABORTED,
+      SPAWN_NOT_SET
+    }
+
+    public static Result committed(@Nonnull List<PlayerRef> moved) {
+      return new Result(Status.COMMITTED, null, moved);
+    }
+
+    public static Result empty() {
+      return new Result(Status.EMPTY, null, List.of());
+    }
+
+    public static Result memberNotInWorld(String playerName) {
+      return new Result(Status.MEMBER_NOT_IN_WORLD, playerName, List.of());
+    }
+
+    public static Result memberLeft(String playerName) {
+      return new Result(Status.MEMBER_LEFT, playerName, List.of());
+    }
+
+    /** A pre-teleport listener cancelled the teleport of the named member. */
+    public static Result cancelled(String playerName) {
+      return new Result(Status.CANCELLED, playerName, List.of());
+    }
+
+    /** A source world didn't vote in time or failed while checking its members. */
+    public static Result aborted() {
+      return new Result(Status.ABORTED, null, List.of());
+    }
+
+    public static Result spawnNotSet() {
+      return new Result(Status.SPAWN_NOT_SET, null, List.of());
+    }
+
+    /**
+     * @return number of teleported members
+     */
+    public int count() {
+      return moved.size();
+    }
+
+    public boolean isSuccess() {
+      return status == Status.COMMITTED;
+    }
+  }
+}
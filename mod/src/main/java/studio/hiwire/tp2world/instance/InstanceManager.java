@@ -0,0 +1,306 @@
+package studio.hiwire.tp2world.instance;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.util.io.FileUtil;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import studio.hiwire.tp2world.residency.ResidencyManager;
+
+/**
+ * Private instances of template worlds, see {@link InstancePool}.
+ *
+ * <ul>
+ *   <li>Instances are copies of the template's world directory, loaded as worlds of their own
+ *   <li>Every template keeps a pool of warm instances, refilled in the background
+ *   <li>{@link #assign} hands out a warm instance right away and only creates one on demand if the
+ *       pool is empty
+ *   <li>Instances in use are removed and deleted once they stayed empty for the reclaim time, the
+ *       pool is refilled with fresh copies
+ * </ul>
+ */
+public class InstanceManager {
+
+  @Getter @Nonnull private final InstanceTemplates templates;
+  @Nonnull private final Path worldsDirectory;
+  private final long refillMillis;
+  private final long reclaimNanos;
+  @Nonnull private final ResidencyManager residency;
+  @Nonnull private final HytaleLogger logger;
+
+  private final Map<String, Assigned> assigned = new ConcurrentHashMap<>();
+  @Nullable private ScheduledFuture<?> maintainTask;
+
+  /** An instance handed out to players. */
+  private static final class Assigned {
+    private final InstancePool pool;
+    private volatile long lastOccupiedNanos;
+
+    private Assigned(@Nonnull InstancePool pool, long assignedAtNanos) {
+      this.pool = pool;
+      // Counts as occupied until the players had time to arrive
+      this.lastOccupiedNanos = assignedAtNanos;
+    }
+  }
+
+  /**
+   * @param templates the configured templates
+   * @param worldsDirectory directory the universe keeps its worlds in
+   * @param refillMillis milliseconds between two refills and reclaim checks
+   * @param reclaimMillis milliseconds an instance in use may stay empty
+   * @param residency keeps warm and used instances from being unloaded while idle
+   * @param logger logger for creation and removal failures
+   */
+  public InstanceManager(
+      @Nonnull InstanceTemplates templates,
+      @Nonnull Path worldsDirectory,
+      long refillMillis,
+      long reclaimMillis,
+      @Nonnull ResidencyManager residency,
+      @Nonnull HytaleLogger logger) {
+    this.templates = templates;
+    this.worldsDirectory = worldsDirectory;
+    this.refillMillis = Math.max(100, refillMillis);
+    this.reclaimNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, reclaimMillis));
+    this.residency = residency;
+    this.logger = logger;
+  }
+
+  public void start() {
+    if (templates.isEmpty()) {
+      return;
+    }
+    removeLeftovers();
+    maintainTask =
+        HytaleServer.SCHEDULED_EXECUTOR.scheduleWithFixedDelay(
+            this::maintain, 0, refillMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    if (maintainTask != null) {
+      maintainTask.cancel(false);
+      maintainTask = null;
+    }
+  }
+
+  /**
+   * Hands out an instance of the template.
+   *
+   * @param pool the template's pool
+   * @return future completed with the instance, exceptionally if none could be created
+   */
+  @Nonnull
+  public CompletableFuture<World> assign(@Nonnull InstancePool pool) {
+    for (var name = pool.poll(); name != null; name = pool.poll()) {
+      final var world = Universe.get().getWorld(name);
+      if (world != null) {
+        markAssigned(name, pool);
+        return CompletableFuture.completedFuture(world);
+      }
+      // Removed behind our back, it no longer counts
+      pool.release();
+      residency.unpin(name);
+    }
+
+    // Pool ran dry, the players wait for a fresh copy
+    final var name = pool.reserve();
+    if (name == null) {
+      return CompletableFuture.failedFuture(
+          new IllegalStateException("Template " + pool.template() + " is at its instance limit"));
+    }
+    return create(pool, name)
+        .whenComplete(
+            (world, error) -> {
+              if (error != null) {
+                pool.abandon();
+              } else {
+                pool.handOut();
+                markAssigned(name, pool);
+              }
+            });
+  }
+
+  private void markAssigned(@Nonnull String name, @Nonnull InstancePool pool) {
+    assigned.put(name, new Assigned(pool, System.nanoTime()));
+  }
+
+  private void maintain() {
+    try {
+      reclaim();
+      refill();
+    } catch (RuntimeException e) {
+      // Never let an exception cancel the periodic task
+      logger.at(Level.WARNING).withCause(e).log("Instance maintenance failed");
+    }
+  }
+
+  private void refill() {
+    for (InstancePool pool : templates.getPools()) {
+      for (int i = pool.missing(); i > 0; i--) {
+        final var name = pool.reserve();
+        if (name == null) {
+          break;
+        }
+        create(pool, name)
+            .whenComplete(
+                (world, error) -> {
+                  if (error != null) {
+                    pool.abandon();
+                  } else {
+                    pool.addWarm(name);
+                  }
+                });
+      }
+    }
+  }
+
+  /** Samples the player count of every instance in use and removes those that stayed empty. */
+  private void reclaim() {
+    final long now = System.nanoTime();
+    for (Map.Entry<String, Assigned> entry : assigned.entrySet()) {
+      final var name = entry.getKey();
+      final var instance = entry.getValue();
+      final var world = Universe.get().getWorld(name);
+      if (world == null) {
+        if (assigned.remove(name, instance)) {
+          instance.pool.release();
+          residency.unpin(name);
+          deleteAsync(name);
+        }
+        continue;
+      }
+      if (now - instance.lastOccupiedNanos < reclaimNanos) {
+        world.execute(
+            () -> {
+              if (world.getPlayerCount() > 0) {
+                instance.lastOccupiedNanos = System.nanoTime();
+              }
+            });
+        continue;
+      }
+      // Re-checked on the world thread, somebody may have just arrived
+      world.execute(
+          () -> {
+            if (world.getPlayerCount() > 0) {
+              instance.lastOccupiedNanos = System.nanoTime();
+            } else {
+              HytaleServer.SCHEDULED_EXECUTOR.execute(() -> remove(name, instance));
+            }
+          });
+    }
+  }
+
+  private void remove(@Nonnull String name, @Nonnull Assigned instance) {
+    if (!assigned.remove(name, instance)) {
+      return;
+    }
+    residency.unpin(name);
+    Universe.get().removeWorld(name);
+    instance.pool.release();
+    deleteAsync(name);
+  }
+
+  /** Copies the template directory and loads the copy, off the scheduler thread. */
+  @Nonnull
+  private CompletableFuture<World> create(@Nonnull InstancePool pool, @Nonnull String name) {
+    final var source = worldsDirectory.resolve(pool.templateWorld());
+    final var target = worldsDirectory.resolve(name);
+    return CompletableFuture.runAsync(
+            () -> {
+              try {
+                copyDirectory(source, target);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            })
+        .thenCompose(
+            ignored -> {
+              // Pinned before it exists, so the residency check never sees it unpinned
+              residency.pin(name);
+              return Universe.get().loadWorld(name);
+            })
+        .whenComplete(
+            (world, error) -> {
+              if (error != null) {
+                logger.at(Level.WARNING).withCause(error).log(
+                    "Failed to create instance " + name + " of template " + pool.template());
+                residency.unpin(name);
+                deleteAsync(name);
+              }
+            });
+  }
+
+  /** Removes instances a previous run left behind, e.g. after a crash. */
+  private void removeLeftovers() {
+    if (!Files.isDirectory(worldsDirectory)) {
+      return;
+    }
+    try (var entries = Files.list(worldsDirectory)) {
+      for (Path entry : (Iterable<Path>) entries::iterator) {
+        final var name = entry.getFileName().toString();
+        if (!isInstanceName(name)) {
+          continue;
+        }
+        if (Universe.get().getWorld(name) != null) {
+          Universe.get().removeWorld(name);
+        }
+        FileUtil.deleteDirectory(entry);
+        logger.at(Level.INFO).log("Removed leftover instance " + name);
+      }
+    } catch (IOException e) {
+      logger.at(Level.WARNING).withCause(e).log("Failed to remove leftover instances");
+    }
+  }
+
+  private boolean isInstanceName(@Nonnull String name) {
+    for (InstancePool pool : templates.getPools()) {
+      final var prefix = pool.instancePrefix();
+      if (name.length() > prefix.length()
+          && name.startsWith(prefix)
+          && name.substring(prefix.length()).chars().allMatch(Character::isDigit)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void deleteAsync(@Nonnull String name) {
+    CompletableFuture.runAsync(
+        () -> {
+          try {
+            FileUtil.deleteDirectory(worldsDirectory.resolve(name));
+          } catch (IOException e) {
+            logger.at(Level.WARNING).withCause(e).log("Failed to delete instance " + name);
+          }
+        });
+  }
+
+  private static void copyDirectory(@Nonnull Path source, @Nonnull Path target) throws IOException {
+    if (!Files.isDirectory(source)) {
+      throw new IOException("Template world " + source + " does not exist");
+    }
+    try (var paths = Files.walk(source)) {
+      for (Path path : (Iterable<Path>) paths::iterator) {
+        final var copy = target.resolve(source.relativize(path).toString());
+        if (Files.isDirectory(path)) {
+          Files.createDirectories(copy);
+        } else {
+          Files.copy(path, copy);
+        }
+      }
+    }
+  }
+}
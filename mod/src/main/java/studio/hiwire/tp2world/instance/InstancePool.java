@@ -0,0 +1,137 @@
+package studio.hiwire.tp2world.instance;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Book-keeping of the instances of one template: the warm instances ready to be handed out, the
+ * ones being created and the total number of live instances. Handing out a warm instance is a
+ * single queue poll.
+ *
+ * <p>Thread-safe. Counts may be briefly off by the instances in transition, which only delays or
+ * advances one refill.
+ */
+public final class InstancePool {
+
+  private final String template;
+  private final String templateWorld;
+  private final int warmSize;
+  private final int maxInstances;
+  private final Queue<String> warm = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger warmCount = new AtomicInteger();
+  private final AtomicInteger creating = new AtomicInteger();
+  private final AtomicInteger live = new AtomicInteger();
+  private final AtomicLong counter = new AtomicLong();
+
+  /**
+   * @param template the template name players target
+   * @param templateWorld the world directory instances are copied from
+   * @param warmSize number of instances kept ready
+   * @param maxInstances maximum number of live instances, negative for no limit
+   */
+  public InstancePool(
+      @Nonnull String template, @Nonnull String templateWorld, int warmSize, int maxInstances) {
+    this.template = template;
+    this.templateWorld = templateWorld;
+    this.warmSize = Math.max(0, warmSize);
+    this.maxInstances = maxInstances;
+  }
+
+  @Nonnull
+  public String template() {
+    return template;
+  }
+
+  @Nonnull
+  public String templateWorld() {
+    return templateWorld;
+  }
+
+  /**
+   * @return the world name prefix of all instances of this template
+   */
+  @Nonnull
+  public String instancePrefix() {
+    return template + "-instance-";
+  }
+
+  /**
+   * Takes a warm instance out of the pool.
+   *
+   * @return the instance's world name, or null if none is ready
+   */
+  @Nullable
+  public String poll() {
+    final var name = warm.poll();
+    if (name != null) {
+      warmCount.decrementAndGet();
+    }
+    return name;
+  }
+
+  /**
+   * Starts creating an instance. Must be followed by {@link #addWarm}, {@link #handOut} or {@link
+   * #abandon}.
+   *
+   * @return the world name of the new instance, or null if the template is at its limit
+   */
+  @Nullable
+  public String reserve() {
+    while (true) {
+      final int current = live.get();
+      if (maxInstances >= 0 && current >= maxInstances) {
+        return null;
+      }
+      if (live.compareAndSet(current, current + 1)) {
+        creating.incrementAndGet();
+        return instancePrefix() + counter.incrementAndGet();
+      }
+    }
+  }
+
+  /** A reserved instance was created and is ready to be handed out. */
+  public void addWarm(@Nonnull String name) {
+    warmCount.incrementAndGet();
+    warm.offer(name);
+    creating.decrementAndGet();
+  }
+
+  /** A reserved instance was created for a player directly, it never enters the pool. */
+  public void handOut() {
+    creating.decrementAndGet();
+  }
+
+  /** Creating a reserved instance failed. */
+  public void abandon() {
+    creating.decrementAndGet();
+    live.decrementAndGet();
+  }
+
+  /** A handed out instance was removed. */
+  public void release() {
+    live.decrementAndGet();
+  }
+
+  /**
+   * @return how many instances should be created now to fill the pool
+   */
+  public int missing() {
+    int missing = warmSize - warmCount.get() - creating.get();
+    if (maxInstances >= 0) {
+      missing = Math.min(missing, maxInstances - live.get());
+    }
+    return Math.max(0, missing);
+  }
+
+  public int warmCount() {
+    return warmCount.get();
+  }
+
+  public int liveCount() {
+    return live.get();
+  }
+}
@@ -0,0 +1,97 @@
+package studio.hiwire.tp2world.instance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import studio.hiwire.tp2world.completion.PrefixTrie;
+import studio.hiwire.tp2world.config.InstanceTemplateConfig;
+
+/** The configured instance templates, looked up by name ignoring case. */
+public final class InstanceTemplates {
+
+  /** Prefix of the world argument that targets a template. */
+  public static final String PREFIX = "template:";
+
+  /** Template names are used in world names and directories. */
+  private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,48}");
+
+  @Getter @Nonnull private final List<InstancePool> pools;
+
+  /** Completions of the world argument, e.g. template:dungeon. */
+  @Getter @Nonnull private final PrefixTrie names = new PrefixTrie();
+
+  private final Map<String, InstancePool> byName;
+
+  public InstanceTemplates(@Nonnull List<InstancePool> pools) {
+    this.pools = List.copyOf(pools);
+    this.byName = new HashMap<>(pools.size() * 2);
+    for (InstancePool pool : this.pools) {
+      byName.put(key(pool.template()), pool);
+      names.add(PREFIX + pool.template());
+    }
+  }
+
+  /**
+   * Compiles the configured templates. Invalid templates are skipped and reported.
+   *
+   * @param configs the configured templates
+   * @param warnings receives a message for every skipped template
+   */
+  @Nonnull
+  public static InstanceTemplates compile(
+      @Nonnull InstanceTemplateConfig[] configs, @Nonnull Consumer<String> warnings) {
+    final var pools = new ArrayList<InstancePool>(configs.length);
+    final var seen = new HashSet<String>();
+    for (int i = 0; i < configs.length; i++) {
+      final var config = configs[i];
+      if (config.getName() == null || !NAME.matcher(config.getName()).matches()) {
+        warnings.accept(
+            "Instance template " + i + " needs a name of letters, digits, _ and -, skipping");
+        continue;
+      }
+      if (!seen.add(key(config.getName()))) {
+        warnings.accept("Instance template " + config.getName() + " is defined twice, skipping");
+        continue;
+      }
+      if (config.getWorld() == null || config.getWorld().isBlank()) {
+        warnings.accept("Instance template " + config.getName() + " has no world, skipping");
+        continue;
+      }
+      pools.add(
+          new InstancePool(
+              config.getName(),
+              config.getWorld(),
+              config.getWarmPoolSize(),
+              config.getMaxInstances()));
+    }
+    return new InstanceTemplates(pools);
+  }
+
+  /**
+   * @param input the world argument, e.g. template:dungeon
+   * @return the targeted template, or null if the input doesn't target a known template
+   */
+  @Nullable
+  public InstancePool find(@Nonnull String input) {
+    if (byName.isEmpty() || !input.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+      return null;
+    }
+    return byName.get(key(input.substring(PREFIX.length())));
+  }
+
+  public boolean isEmpty() {
+    return pools.isEmpty();
+  }
+
+  private static String key(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+}
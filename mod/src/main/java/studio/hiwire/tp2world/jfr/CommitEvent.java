@@ -0,0 +1,32 @@
+package studio.hiwire.tp2world.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Adding the teleport components on a source world thread. Single teleports commit a batch of one,
+ * group teleports commit all members of a source world at once.
+ */
+@Name("Tp2World.Commit")
+@Label("Tp2World Commit")
+@Category({"HiWire", "Tp2World"})
+@Description("Teleport components added on the source world thread")
+@StackTrace(false)
+public final class CommitEvent extends jdk.jfr.Event {
+
+  @Label("Source World")
+  public String sourceWorld;
+
+  @Label("Target World")
+  public String targetWorld;
+
+  @Label("Player Id")
+  @Description("Teleported player, or the first member for batches")
+  public String playerId;
+
+  @Label("Batch Size")
+  public int batchSize;
+}
@@ -0,0 +1,31 @@
+package studio.hiwire.tp2world.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A teleport command from the moment it was executed until its world thread task finished. The
+ * duration includes the hop to the player's world thread.
+ */
+@Name("Tp2World.Dispatch")
+@Label("Tp2World Dispatch")
+@Category({"HiWire", "Tp2World"})
+@Description("Teleport command including the hop to the player's world thread")
+@StackTrace(false)
+public final class DispatchEvent extends jdk.jfr.Event {
+
+  @Label("Source World")
+  public String sourceWorld;
+
+  @Label("Target World")
+  public String targetWorld;
+
+  @Label("Player Id")
+  public String playerId;
+
+  @Label("Batch Size")
+  public int batchSize;
+}
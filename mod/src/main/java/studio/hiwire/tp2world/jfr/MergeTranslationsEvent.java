@@ -0,0 +1,26 @@
+package studio.hiwire.tp2world.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Merge of one default translation file into the user's override file at startup. */
+@Name("Tp2World.MergeTranslations")
+@Label("Tp2World Merge Translations")
+@Category({"HiWire", "Tp2World"})
+@Description("Translation override merge of one file")
+@StackTrace(false)
+public final class MergeTranslationsEvent extends jdk.jfr.Event {
+
+  @Label("Resource Path")
+  public String resourcePath;
+
+  @Label("Status")
+  public String status;
+
+  @Label("Key Count")
+  @Description("Keys written to the override file, added and updated")
+  public int keyCount;
+}
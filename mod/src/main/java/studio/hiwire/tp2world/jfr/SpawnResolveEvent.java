@@ -0,0 +1,25 @@
+package studio.hiwire.tp2world.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Resolution of a target world's spawn point for one player. */
+@Name("Tp2World.SpawnResolve")
+@Label("Tp2World Spawn Resolve")
+@Category({"HiWire", "Tp2World"})
+@Description("Spawn point lookup of the target world")
+@StackTrace(false)
+public final class SpawnResolveEvent extends jdk.jfr.Event {
+
+  @Label("Target World")
+  public String targetWorld;
+
+  @Label("Player Id")
+  public String playerId;
+
+  @Label("Found")
+  public boolean found;
+}
@@ -0,0 +1,94 @@
+package studio.hiwire.tp2world.join;
+
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.spawn.SpawnSet;
+
+/**
+ * Places a connecting player directly into a world at a position, before the player entity is
+ * added to any world. This avoids a teleport on the player's first tick.
+ *
+ * <p>Without a position the player lands on the world's spawn point, or the least crowded point of
+ * its spawn set. The holder still carries the coordinates of the world the player left, so they
+ * are always replaced.
+ */
+public final class JoinPlacement {
+
+  private JoinPlacement() {}
+
+  /**
+   * Sets the initial world and transform of a connecting player.
+   *
+   * @param event the connect event of the player
+   * @param world the world the player joins
+   * @param position initial position, or null for the world's spawn point
+   * @param headRotation initial head rotation, or null for the spawn point's
+   * @param bodyRotation initial body rotation, or null to face like the head
+   */
+  public static void apply(
+      @Nonnull PlayerConnectEvent event,
+      @Nonnull World world,
+      @Nullable Vector3d position,
+      @Nullable Rotation3f headRotation,
+      @Nullable Rotation3f bodyRotation) {
+    event.setWorld(world);
+
+    if (position == null) {
+      final var spawnPoint = spawnPoint(world, event.getPlayerRef().getUuid());
+      if (spawnPoint != null) {
+        position = spawnPoint.position();
+        if (headRotation == null) {
+          headRotation = spawnPoint.rotation();
+        }
+        if (bodyRotation == null) {
+          bodyRotation = new Rotation3f(0, headRotation.yaw(), 0);
+        }
+      }
+    }
+
+    final Holder<EntityStore> holder = event.getHolder();
+    final var transformComponent = holder.getComponent(TransformComponent.getComponentType());
+    if (transformComponent != null) {
+      if (position != null) {
+        transformComponent.setPosition(position);
+      }
+      if (bodyRotation != null) {
+        transformComponent.setRotation(bodyRotation);
+      }
+    }
+
+    if (headRotation != null) {
+      final var headRotationComponent = holder.getComponent(HeadRotation.getComponentType());
+      if (headRotationComponent != null) {
+        headRotationComponent.setRotation(headRotation);
+      }
+    }
+  }
+
+  /**
+   * @return the least crowded point of the world's spawn set, else the world's spawn point, null if
+   *     it has none
+   */
+  @Nullable
+  private static SpawnSet.Point spawnPoint(@Nonnull World world, @Nonnull UUID playerUuid) {
+    if (Tp2WorldPlugin.context().spawnSets().get(world.getName()) instanceof SpawnSet spawnSet) {
+      return spawnSet.pick(System.nanoTime());
+    }
+    final var spawnPoint =
+        world.getWorldConfig().getSpawnProvider().getSpawnPoint(world, playerUuid);
+    return spawnPoint != null
+        ? new SpawnSet.Point(
+            new Vector3d(spawnPoint.getPosition()), new Rotation3f(spawnPoint.getRotation()))
+        : null;
+  }
+}
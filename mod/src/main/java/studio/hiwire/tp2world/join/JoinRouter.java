@@ -0,0 +1,82 @@
+package studio.hiwire.tp2world.join;
+
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.permissions.PermissionsModule;
+import com.hypixel.hytale.server.core.universe.Universe;
+import java.time.LocalTime;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import studio.hiwire.tp2world.cluster.ClusterService;
+
+/**
+ * Places joining players according to the compiled {@link JoinRouting}. The rules are evaluated
+ * once when the player connects and set the initial world and position directly, so no teleport
+ * is needed afterwards. Players arriving from another cluster node keep their transfer target.
+ */
+public class JoinRouter {
+
+  @Nonnull private final ClusterService cluster;
+  @Nonnull private final JoinRouting routing;
+
+  public JoinRouter(@Nonnull JoinRouting routing, @Nonnull ClusterService cluster) {
+    this.routing = routing;
+    this.cluster = cluster;
+  }
+
+  /**
+   * Registers the connect listener.
+   *
+   * @param eventRegistry the plugin's event registry
+   */
+  public void register(@Nonnull EventRegistry eventRegistry) {
+    eventRegistry.register(PlayerConnectEvent.class, this::onPlayerConnect);
+  }
+
+  private void onPlayerConnect(@Nonnull PlayerConnectEvent event) {
+    if (routing.isEmpty()) {
+      return;
+    }
+
+    final var uuid = event.getPlayerRef().getUuid();
+    if (cluster.hasPendingArrival(uuid)) {
+      return;
+    }
+
+    // The world the player would join by default is the one they left
+    final var defaultWorld = event.getWorld();
+    final var context =
+        new JoinContext(uuid, defaultWorld != null ? defaultWorld.getName() : null, minuteOfDay());
+    final var route = routing.evaluate(context);
+    if (route == null) {
+      return;
+    }
+
+    final var world = Universe.get().getWorld(route.world());
+    if (world == null) {
+      return;
+    }
+    JoinPlacement.apply(event, world, route.position(), route.headRotation(), route.bodyRotation());
+  }
+
+  private static int minuteOfDay() {
+    final var now = LocalTime.now();
+    return now.getHour() * 60 + now.getMinute();
+  }
+
+  private record JoinContext(@Nonnull UUID uuid, @Nullable String lastWorld, int minuteOfDay)
+      implements JoinRouting.Context {
+
+    @Override
+    public boolean hasPermission(@Nonnull String permission) {
+      return PermissionsModule.get().hasPermission(uuid, permission);
+    }
+
+    @Override
+    public int playerCount(@Nonnull String worldName) {
+      final var world = Universe.get().getWorld(worldName);
+      return world != null ? world.getPlayerCount() : -1;
+    }
+  }
+}
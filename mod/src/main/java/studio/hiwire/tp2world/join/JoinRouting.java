@@ -0,0 +1,271 @@
+package studio.hiwire.tp2world.join;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+import studio.hiwire.tp2world.config.JoinRouteConfig;
+
+/**
+ * Join routing rules compiled into a decision structure. Rules are indexed by the last world
+ * condition, so a join only evaluates the rules for the player's last world and the rules without
+ * a last world condition, in configuration order. The first matching rule wins.
+ */
+public final class JoinRouting {
+
+  /** Everything a rule can be evaluated against, captured once per join. */
+  public interface Context {
+    /** World the player was in when they left, or null for the first join. */
+    @Nullable
+    String lastWorld();
+
+    boolean hasPermission(@Nonnull String permission);
+
+    /** Number of players in the world, or -1 if the world is not loaded. */
+    int playerCount(@Nonnull String worldName);
+
+    /** Current server local time in minutes since midnight. */
+    int minuteOfDay();
+  }
+
+  /**
+   * A compiled rule.
+   *
+   * @param world the world the player joins
+   * @param position initial position, or null for the world's spawn point
+   * @param headRotation initial head rotation, or null for the spawn point's rotation
+   * @param permission required permission, or null
+   * @param lastWorld required last world, or null for any
+   * @param maxPlayers the world must have fewer players than this, or -1 for no limit
+   * @param windowStart start of the time window in minutes since midnight, or -1 for always
+   * @param windowEnd end of the time window in minutes since midnight (exclusive)
+   */
+  public record Route(
+      @Nonnull String world,
+      @Nullable Vector3d position,
+      @Nullable Rotation3f headRotation,
+      @Nullable String permission,
+      @Nullable String lastWorld,
+      int maxPlayers,
+      int windowStart,
+      int windowEnd) {
+
+    /** Body rotation matching the head rotation: pitch 0, head yaw, roll 0. */
+    @Nullable
+    public Rotation3f bodyRotation() {
+      return headRotation != null ? new Rotation3f(0, headRotation.yaw(), 0) : null;
+    }
+
+    boolean matches(@Nonnull Context context) {
+      if (windowStart >= 0) {
+        final int minute = context.minuteOfDay();
+        final boolean inWindow =
+            windowStart <= windowEnd
+                ? minute >= windowStart && minute < windowEnd
+                : minute >= windowStart || minute < windowEnd;
+        if (!inWindow) {
+          return false;
+        }
+      }
+
+      final int playerCount = context.playerCount(world);
+      if (playerCount < 0 || (maxPlayers >= 0 && playerCount >= maxPlayers)) {
+        return false;
+      }
+
+      // Permission last - it is the most expensive check
+      return permission == null || context.hasPermission(permission);
+    }
+  }
+
+  private static final int[] NO_ROUTES = new int[0];
+
+  private final Route[] routes;
+  private final Map<String, int[]> byLastWorld;
+  private final int[] anyLastWorld;
+
+  private JoinRouting(@Nonnull List<Route> routes) {
+    this.routes = routes.toArray(Route[]::new);
+
+    final var byLastWorldLists = new HashMap<String, List<Integer>>();
+    final var anyLastWorldList = new ArrayList<Integer>();
+    for (int i = 0; i < this.routes.length; i++) {
+      final var lastWorld = this.routes[i].lastWorld();
+      if (lastWorld == null) {
+        anyLastWorldList.add(i);
+      } else {
+        byLastWorldLists.computeIfAbsent(key(lastWorld), ignored -> new ArrayList<>()).add(i);
+      }
+    }
+
+    this.byLastWorld = new HashMap<>();
+    for (Map.Entry<String, List<Integer>> entry : byLastWorldLists.entrySet()) {
+      this.byLastWorld.put(entry.getKey(), toArray(entry.getValue()));
+    }
+    this.anyLastWorld = toArray(anyLastWorldList);
+  }
+
+  /**
+   * Builds the decision structure from compiled rules.
+   *
+   * @param routes the rules in priority order
+   * @return the decision structure
+   */
+  @Nonnull
+  public static JoinRouting of(@Nonnull List<Route> routes) {
+    return new JoinRouting(routes);
+  }
+
+  /**
+   * Compiles the configured rules. Invalid rules are skipped and reported.
+   *
+   * @param configs the configured rules in priority order
+   * @param warnings receives a message for every skipped rule
+   * @return the decision structure
+   */
+  @Nonnull
+  public static JoinRouting compile(
+      @Nonnull JoinRouteConfig[] configs, @Nonnull Consumer<String> warnings) {
+    final var routes = new ArrayList<Route>(configs.length);
+    for (int i = 0; i < configs.length; i++) {
+      final var config = configs[i];
+      if (config.getWorld() == null || config.getWorld().isBlank()) {
+        warnings.accept("Join route " + i + " has no world, skipping");
+        continue;
+      }
+
+      Vector3d position = null;
+      if (config.getPosition() != null) {
+        if (config.getPosition().length != 3) {
+          warnings.accept("Join route " + i + " position needs x y z, skipping");
+          continue;
+        }
+        position =
+            new Vector3d(config.getPosition()[0], config.getPosition()[1], config.getPosition()[2]);
+      }
+
+      Rotation3f headRotation = null;
+      if (config.getRotation() != null) {
+        if (config.getRotation().length != 3) {
+          warnings.accept("Join route " + i + " rotation needs pitch yaw roll, skipping");
+          continue;
+        }
+        headRotation =
+            new Rotation3f(
+                (float) config.getRotation()[0],
+                (float) config.getRotation()[1],
+                (float) config.getRotation()[2]);
+      }
+
+      int windowStart = -1;
+      int windowEnd = -1;
+      if (config.getTimeWindow() != null && !config.getTimeWindow().isBlank()) {
+        final int[] window = parseTimeWindow(config.getTimeWindow());
+        if (window == null) {
+          warnings.accept(
+              "Join route "
+                  + i
+                  + " has invalid time window "
+                  + config.getTimeWindow()
+                  + ", skipping");
+          continue;
+        }
+        windowStart = window[0];
+        windowEnd = window[1];
+      }
+
+      routes.add(
+          new Route(
+              config.getWorld(),
+              position,
+              headRotation,
+              blankToNull(config.getPermission()),
+              blankToNull(config.getLastWorld()),
+              config.getMaxPlayers(),
+              windowStart,
+              windowEnd));
+    }
+    return new JoinRouting(routes);
+  }
+
+  /**
+   * Parses a time window like "18:00-02:00" into start and end minutes since midnight.
+   *
+   * @param window the time window
+   * @return start and end minute, or null if the window is invalid
+   */
+  @Nullable
+  public static int[] parseTimeWindow(@Nonnull String window) {
+    final int dash = window.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+    try {
+      final var start = LocalTime.parse(window.substring(0, dash).trim());
+      final var end = LocalTime.parse(window.substring(dash + 1).trim());
+      return new int[] {
+        start.getHour() * 60 + start.getMinute(), end.getHour() * 60 + end.getMinute()
+      };
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Finds the first rule that matches the joining player.
+   *
+   * @param context the joining player's context
+   * @return the matching rule, or null to keep the default world
+   */
+  @Nullable
+  public Route evaluate(@Nonnull Context context) {
+    final var lastWorld = context.lastWorld();
+    final int[] specific =
+        lastWorld != null ? byLastWorld.getOrDefault(key(lastWorld), NO_ROUTES) : NO_ROUTES;
+
+    // Merge both candidate lists in configuration order
+    int i = 0;
+    int j = 0;
+    while (i < specific.length || j < anyLastWorld.length) {
+      final int next;
+      if (j >= anyLastWorld.length || (i < specific.length && specific[i] < anyLastWorld[j])) {
+        next = specific[i++];
+      } else {
+        next = anyLastWorld[j++];
+      }
+      if (routes[next].matches(context)) {
+        return routes[next];
+      }
+    }
+    return null;
+  }
+
+  public boolean isEmpty() {
+    return routes.length == 0;
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    final int[] result = new int[values.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = values.get(i);
+    }
+    return result;
+  }
+
+  @Nullable
+  private static String blankToNull(@Nullable String value) {
+    return value == null || value.isBlank() ? null : value;
+  }
+
+  private static String key(String worldName) {
+    return worldName.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,17 @@
+package studio.hiwire.tp2world.lastlocation;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import javax.annotation.Nonnull;
+import org.joml.Vector3d;
+
+/**
+ * Where a player left a world. The values are copies and must not be modified.
+ *
+ * @param position the position when leaving
+ * @param headRotation the head rotation when leaving
+ * @param bodyRotation the body rotation when leaving
+ */
+public record LastLocation(
+    @Nonnull Vector3d position,
+    @Nonnull Rotation3f headRotation,
+    @Nonnull Rotation3f bodyRotation) {}
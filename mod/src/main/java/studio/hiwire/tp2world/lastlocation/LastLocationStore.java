@@ -0,0 +1,227 @@
+package studio.hiwire.tp2world.lastlocation;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+
+/**
+ * Write-behind store of the last location per player and world.
+ *
+ * <ul>
+ *   <li>{@link #record} only updates memory and marks the player dirty, so it is safe to call on a
+ *       world thread
+ *   <li>{@link #flush} writes every dirty player to its own file, meant to run in the background
+ *   <li>{@link #load} reads a player's file, meant to run when the player joins. Locations recorded
+ *       before the load finished win over the file.
+ * </ul>
+ *
+ * A player whose file was not loaded yet, or failed to load, is merged with the file before it is
+ * written, so a partial map never overwrites the locations of other worlds.
+ *
+ * Thread-safe.
+ */
+public class LastLocationStore {
+
+  private static final int VERSION = 1;
+  private static final String EXTENSION = ".bin";
+
+  @Nonnull private final Path directory;
+  private final Map<UUID, Map<String, LastLocation>> players = new ConcurrentHashMap<>();
+  private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+  private final Set<UUID> loaded = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param directory the directory the player files are stored in, created on the first flush
+   */
+  public LastLocationStore(@Nonnull Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Records where a player left a world. No I/O.
+   *
+   * @param player the player
+   * @param worldName the world the player left
+   * @param location where the player left it
+   */
+  public void record(
+      @Nonnull UUID player, @Nonnull String worldName, @Nonnull LastLocation location) {
+    players.computeIfAbsent(player, ignored -> new ConcurrentHashMap<>()).put(worldName, location);
+    dirty.add(player);
+  }
+
+  /**
+   * @return where the player last left the world, or null if unknown or not loaded yet
+   */
+  @Nullable
+  public LastLocation get(@Nonnull UUID player, @Nonnull String worldName) {
+    final var locations = players.get(player);
+    return locations != null ? locations.get(worldName) : null;
+  }
+
+  /**
+   * Reads the player's file into memory. Does nothing if the player has no file yet.
+   *
+   * @param player the player
+   */
+  public void load(@Nonnull UUID player) throws IOException {
+    final Map<String, LastLocation> stored;
+    try (var in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path(player))))) {
+      stored = read(in);
+    } catch (NoSuchFileException e) {
+      loaded.add(player);
+      return;
+    }
+    final var locations = players.computeIfAbsent(player, ignored -> new ConcurrentHashMap<>());
+    for (Map.Entry<String, LastLocation> entry : stored.entrySet()) {
+      locations.putIfAbsent(entry.getKey(), entry.getValue());
+    }
+    loaded.add(player);
+  }
+
+  /**
+   * Writes every player whose locations changed since the last flush. A player that fails to be
+   * written stays dirty and is retried on the next flush.
+   *
+   * @return the number of files written
+   * @throws IOException the first failure, after all other players were written
+   */
+  public int flush() throws IOException {
+    if (dirty.isEmpty()) {
+      return 0;
+    }
+    Files.createDirectories(directory);
+    int written = 0;
+    IOException failure = null;
+    for (UUID player : dirty) {
+      try {
+        if (write(player)) {
+          written++;
+        }
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return written;
+  }
+
+  /**
+   * Writes the player if dirty and drops it from memory, e.g. after a disconnect.
+   *
+   * @param player the player
+   */
+  public void unload(@Nonnull UUID player) throws IOException {
+    if (dirty.contains(player)) {
+      Files.createDirectories(directory);
+      write(player);
+    }
+    if (!dirty.contains(player)) {
+      players.remove(player);
+      loaded.remove(player);
+    }
+  }
+
+  /**
+   * @return the number of players in memory
+   */
+  public int size() {
+    return players.size();
+  }
+
+  /**
+   * Writes one player, clearing the dirty mark first so a concurrent record marks it again. A player
+   * that is not loaded is loaded first, if its file can't be read it is not overwritten.
+   */
+  private boolean write(@Nonnull UUID player) throws IOException {
+    if (!dirty.remove(player)) {
+      return false;
+    }
+    final var locations = players.get(player);
+    if (locations == null) {
+      return false;
+    }
+    final var target = path(player);
+    final var temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      if (!loaded.contains(player)) {
+        load(player);
+      }
+      try (var out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        write(out, Map.copyOf(locations));
+      }
+      Files.move(
+          temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      dirty.add(player);
+      throw e;
+    }
+    return true;
+  }
+
+  @Nonnull
+  private Path path(@Nonnull UUID player) {
+    return directory.resolve(player + EXTENSION);
+  }
+
+  private static void write(
+      @Nonnull DataOutputStream out, @Nonnull Map<String, LastLocation> locations)
+      throws IOException {
+    out.writeInt(VERSION);
+    out.writeInt(locations.size());
+    for (Map.Entry<String, LastLocation> entry : locations.entrySet()) {
+      final var location = entry.getValue();
+      out.writeUTF(entry.getKey());
+      out.writeDouble(location.position().x());
+      out.writeDouble(location.position().y());
+      out.writeDouble(location.position().z());
+      out.writeFloat(location.headRotation().pitch());
+      out.writeFloat(location.headRotation().yaw());
+      out.writeFloat(location.headRotation().roll());
+      out.writeFloat(location.bodyRotation().pitch());
+      out.writeFloat(location.bodyRotation().yaw());
+      out.writeFloat(location.bodyRotation().roll());
+    }
+  }
+
+  @Nonnull
+  private static Map<String, LastLocation> read(@Nonnull DataInputStream in) throws IOException {
+    final int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported last location version " + version);
+    }
+    final int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("Negative last location count");
+    }
+    final var result = new ConcurrentHashMap<String, LastLocation>();
+    for (int i = 0; i < count; i++) {
+      final var worldName = in.readUTF();
+      final var position = new Vector3d(in.readDouble(), in.readDouble(), in.readDouble());
+      final var headRotation = new Rotation3f(in.readFloat(), in.readFloat(), in.readFloat());
+      final var bodyRotation = new Rotation3f(in.readFloat(), in.readFloat(), in.readFloat());
+      result.put(worldName, new LastLocation(position, headRotation, bodyRotation));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,103 @@
+package studio.hiwire.tp2world.lastlocation;
+
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+
+/**
+ * Keeps the {@link LastLocationStore} in sync with the players on this server: loads a player's
+ * locations when they join, writes them when they leave and flushes changes in the background.
+ * All I/O runs on the scheduler, never on a world thread.
+ */
+public class LastLocations {
+
+  /** Directory inside the plugin's data directory that last locations are stored in. */
+  public static final String DIRECTORY = "lastlocations";
+
+  @Getter @Nonnull private final LastLocationStore store;
+  private final long flushMillis;
+  @Nonnull private final HytaleLogger logger;
+  @Nullable private ScheduledFuture<?> flushTask;
+
+  /**
+   * @param directory the directory the player files are stored in
+   * @param flushMillis milliseconds between two background flushes
+   * @param logger logger for I/O failures
+   */
+  public LastLocations(@Nonnull Path directory, long flushMillis, @Nonnull HytaleLogger logger) {
+    this.store = new LastLocationStore(directory);
+    this.flushMillis = Math.max(100, flushMillis);
+    this.logger = logger;
+  }
+
+  /**
+   * Registers the listeners that load and unload players.
+   *
+   * @param eventRegistry the plugin's event registry
+   */
+  public void register(@Nonnull EventRegistry eventRegistry) {
+    eventRegistry.register(
+        PlayerConnectEvent.class,
+        event -> {
+          final var uuid = event.getPlayerRef().getUuid();
+          HytaleServer.SCHEDULED_EXECUTOR.execute(() -> load(uuid));
+        });
+    eventRegistry.register(
+        PlayerDisconnectEvent.class,
+        event -> {
+          final var uuid = event.getPlayerRef().getUuid();
+          HytaleServer.SCHEDULED_EXECUTOR.execute(() -> unload(uuid));
+        });
+  }
+
+  public void start() {
+    flushTask =
+        HytaleServer.SCHEDULED_EXECUTOR.scheduleWithFixedDelay(
+            this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops the background flush and writes everything that is still pending. */
+  public void stop() {
+    if (flushTask != null) {
+      flushTask.cancel(false);
+      flushTask = null;
+    }
+    flush();
+  }
+
+  private void load(@Nonnull UUID uuid) {
+    try {
+      store.load(uuid);
+    } catch (IOException e) {
+      logger.at(Level.WARNING).withCause(e).log("Failed to load last locations of " + uuid);
+    }
+  }
+
+  private void unload(@Nonnull UUID uuid) {
+    try {
+      store.unload(uuid);
+    } catch (IOException e) {
+      logger.at(Level.WARNING).withCause(e).log("Failed to save last locations of " + uuid);
+    }
+  }
+
+  private void flush() {
+    try {
+      store.flush();
+    } catch (IOException | RuntimeException e) {
+      // Never let an exception cancel the periodic task, failed players are retried
+      logger.at(Level.WARNING).withCause(e).log("Failed to save last locations");
+    }
+  }
+}
@@ -0,0 +1,445 @@
+package studio.hiwire.tp2world.migrate;
+
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.modules.entity.component.ModelComponent;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.dispatch.WorldTask;
+
+/**
+ * Moves the non-player entities selected by an {@link EntitySelector} from one world to another,
+ * e.g. NPCs, item displays and mounts of an event world that is rebuilt.
+ *
+ * <p>The selection is taken once on the source world thread. The entities are then moved in
+ * batches, one batch after the other:
+ *
+ * <ol>
+ *   <li>the source world thread copies the components of the next entities, as many as fit into
+ *       the {@link TickBudget},
+ *   <li>the target world thread adds the copies, spread over as many ticks as the budget needs,
+ *   <li>the source world thread removes the originals whose copy was added.
+ * </ol>
+ *
+ * An original is only removed once its copy exists in the target world. If adding a copy fails, the
+ * original stays where it is and is counted as failed. Copies keep every component, including the
+ * entity's UUID and position, so the copy and the original share their UUID, each in its own world,
+ * from the tick the copy is added until the source world removed the original.
+ *
+ * <p>A world task that did not start within {@link #TASK_TIMEOUT_SECONDS} is given up on and never
+ * runs, and the job stops: no further step starts. A batch whose copies were partly added is then
+ * settled through the other world, so no entity stays in both worlds: if adding stopped, the source
+ * world removes the originals whose copy was added; if removing stopped, the target world removes
+ * the copies again.
+ */
+public class EntityMigrationJob {
+
+  /** Milliseconds between two batches and between two ticks of adding a batch, one tick. */
+  private static final long TICK_MILLIS = 50;
+
+  /** Milliseconds between two progress reports. */
+  private static final long PROGRESS_INTERVAL_MILLIS = 5000;
+
+  /** Seconds after which a world task that did not run is given up on. */
+  private static final long TASK_TIMEOUT_SECONDS = 30;
+
+  /** Entities that can be migrated, players move with the teleport commands. */
+  private static final Query<EntityStore> QUERY =
+      Query.and(TransformComponent.getComponentType(), Query.not(PlayerRef.getComponentType()));
+
+  @Nonnull private final World source;
+  @Nonnull private final World target;
+  @Nonnull private final EntitySelector selector;
+  @Nonnull private final TickBudget budget;
+  @Nonnull private final WorldDispatcher dispatcher;
+  @Nonnull private final Consumer<Progress> progress;
+  @Nonnull private final HytaleLogger logger;
+
+  /** Selected entities not copied yet, only touched on the source world thread. */
+  private final ArrayDeque<Ref<EntityStore>> pending = new ArrayDeque<>();
+
+  /** Set once the job stopped early, no further step runs after it. */
+  private volatile boolean stopped;
+
+  // Written by one task at a time, the tasks of a job never overlap and hand over through futures
+  private int selected;
+  private int migrated;
+  private int failed;
+  private int gone;
+  private boolean remaining;
+  private long lastProgressMillis;
+
+  /**
+   * Progress of a job.
+   *
+   * @param selected entities selected in the source world
+   * @param migrated entities added to the target world and removed from the source world
+   * @param failed entities whose copy could not be added or was removed again, they stay in the
+   *     source world
+   * @param gone entities removed by the game before they were copied
+   * @param done whether the job finished
+   */
+  public record Progress(int selected, int migrated, int failed, int gone, boolean done) {}
+
+  /**
+   * @param source the world to move entities from
+   * @param target the world to move them to
+   * @param selector selects the entities
+   * @param budgetMillis milliseconds one world tick may spend on the migration
+   * @param batchSize entities per batch, also the maximum per tick
+   * @param dispatcher runs the batches on the world threads
+   * @param progress receives periodic progress reports and the final report
+   * @param logger logger for failed batches
+   */
+  public EntityMigrationJob(
+      @Nonnull World source,
+      @Nonnull World target,
+      @Nonnull EntitySelector selector,
+      long budgetMillis,
+      int batchSize,
+      @Nonnull WorldDispatcher dispatcher,
+      @Nonnull Consumer<Progress> progress,
+      @Nonnull HytaleLogger logger) {
+    this.source = source;
+    this.target = target;
+    this.selector = selector;
+    this.budget = new TickBudget(TimeUnit.MILLISECONDS.toNanos(budgetMillis), batchSize);
+    this.dispatcher = dispatcher;
+    this.progress = progress;
+    this.logger = logger;
+  }
+
+  /** Takes the selection on the source world thread, the batches follow tick by tick. */
+  public void start() {
+    lastProgressMillis = System.currentTimeMillis();
+    run(source, new SelectTask())
+        .whenComplete(
+            (ignored, error) -> {
+              if (error != null) {
+                stop(null, error);
+              } else {
+                afterStep();
+              }
+            });
+  }
+
+  private void nextBatch() {
+    final var batch = new Batch();
+    run(source, new CopyTask(batch))
+        .thenCompose(ignored -> add(batch))
+        .thenCompose(
+            ignored -> {
+              batch.removing = true;
+              return run(source, new RemoveTask(batch, false));
+            })
+        .whenComplete(
+            (ignored, error) -> {
+              if (error != null) {
+                stop(batch, error);
+              } else {
+                afterStep();
+              }
+            });
+  }
+
+  /** Adds the copies of a batch, one task per target tick until all are added. */
+  @Nonnull
+  private CompletableFuture<Void> add(@Nonnull Batch batch) {
+    return run(target, new AddTask(batch))
+        .thenCompose(
+            ignored ->
+                batch.added.size() < batch.copies.size()
+                    ? CompletableFuture.runAsync(
+                            () -> {},
+                            CompletableFuture.delayedExecutor(
+                                TICK_MILLIS,
+                                TimeUnit.MILLISECONDS,
+                                HytaleServer.SCHEDULED_EXECUTOR))
+                        .thenCompose(next -> add(batch))
+                    : CompletableFuture.completedFuture(null));
+  }
+
+  @Nonnull
+  private CompletableFuture<Void> run(@Nonnull World world, @Nonnull StepTask task) {
+    dispatcher.submit(world, task);
+    // A world that is removed meanwhile never runs the task, don't stall the job on it. A task that
+    // already started is waited for, so a step is either given up on or runs completely.
+    HytaleServer.SCHEDULED_EXECUTOR.schedule(
+        () -> {
+          if (task.claimed.compareAndSet(false, true)) {
+            task.done.completeExceptionally(
+                new TimeoutException("World " + world.getName() + " did not run the task"));
+          }
+        },
+        TASK_TIMEOUT_SECONDS,
+        TimeUnit.SECONDS);
+    return task.done;
+  }
+
+  /** Stops the job and settles the batch in flight, if some of its copies were added. */
+  private void stop(@Nullable Batch batch, @Nonnull Throwable error) {
+    stopped = true;
+    logger.at(Level.WARNING).withCause(error).log(
+        "Entity migration from " + source.getName() + " to " + target.getName() + " stopped");
+    if (batch == null || batch.unsettled() == 0) {
+      reportProgress(true);
+      return;
+    }
+    // Settled through the world that did not fail
+    final var settle =
+        batch.removing
+            ? run(target, new RollbackTask(batch))
+            : run(source, new RemoveTask(batch, true));
+    settle.whenComplete(
+        (ignored, settleError) -> {
+          if (settleError != null) {
+            logger.at(Level.SEVERE).withCause(settleError).log(
+                batch.unsettled()
+                    + " migrated entities may exist in both "
+                    + source.getName()
+                    + " and "
+                    + target.getName()
+                    + " with the same UUID");
+          }
+          reportProgress(true);
+        });
+  }
+
+  private void afterStep() {
+    if (!remaining) {
+      reportProgress(true);
+      return;
+    }
+    reportProgress(false);
+    HytaleServer.SCHEDULED_EXECUTOR.schedule(this::nextBatch, TICK_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private void reportProgress(boolean done) {
+    final long now = System.currentTimeMillis();
+    if (!done && now - lastProgressMillis < PROGRESS_INTERVAL_MILLIS) {
+      return;
+    }
+    lastProgressMillis = now;
+    progress.accept(new Progress(selected, migrated, failed, gone, done));
+  }
+
+  /**
+   * Entities copied in one batch, the copy at an index belongs to the original at that index.
+   * {@link #added} holds the entity a copy became in the target world.
+   */
+  private static final class Batch {
+    private final List<Ref<EntityStore>> originals = new ArrayList<>();
+    private final List<Holder<EntityStore>> copies = new ArrayList<>();
+    private final List<Ref<EntityStore>> added = new ArrayList<>();
+    private final BitSet committed = new BitSet();
+    private volatile boolean removing;
+
+    /** Originals settled by a remove or rollback, from the first one on. */
+    private int removed;
+
+    /** Copies in the target world whose original was not settled yet. */
+    private int unsettled() {
+      return committed.get(removed, Math.max(removed, originals.size())).cardinality();
+    }
+  }
+
+  /** A world task whose completion the job waits for. */
+  private abstract class StepTask extends WorldTask {
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    /** Taken by whoever comes first, the world thread running the task or its timeout. */
+    final AtomicBoolean claimed = new AtomicBoolean();
+
+    @Override
+    protected final void run() {
+      if (!claimed.compareAndSet(false, true)) {
+        // Given up on, the job went on without it
+        return;
+      }
+      if (stopped && !settles()) {
+        done.completeExceptionally(new CancellationException("Entity migration stopped"));
+        return;
+      }
+      try {
+        step();
+        done.complete(null);
+      } catch (RuntimeException e) {
+        done.completeExceptionally(e);
+      }
+    }
+
+    abstract void step();
+
+    /** Whether the task settles a batch after the job stopped, and has to run anyway. */
+    boolean settles() {
+      return false;
+    }
+  }
+
+  /** Collects the selected entities of the source world. */
+  private final class SelectTask extends StepTask {
+    @Override
+    void step() {
+      source
+          .getEntityStore()
+          .getStore()
+          .forEachChunk(
+              QUERY,
+              (chunk, commandBuffer) -> {
+                for (int index = 0; index < chunk.size(); index++) {
+                  final var position =
+                      chunk
+                          .getComponent(index, TransformComponent.getComponentType())
+                          .getPosition();
+                  final var model = chunk.getComponent(index, ModelComponent.getComponentType());
+                  final var type = model != null ? model.getModel().getModelAssetId() : null;
+                  if (selector.matches(type, position.x(), position.y(), position.z())) {
+                    pending.add(chunk.getReferenceTo(index));
+                  }
+                }
+              });
+      selected = pending.size();
+      remaining = !pending.isEmpty();
+    }
+  }
+
+  /** Copies the components of the next entities on the source world thread. */
+  private final class CopyTask extends StepTask {
+    private final Batch batch;
+
+    private CopyTask(@Nonnull Batch batch) {
+      this.batch = batch;
+    }
+
+    @Override
+    void step() {
+      final var store = source.getEntityStore().getStore();
+      budget.start(System.nanoTime());
+      while (!pending.isEmpty() && budget.tryAcquire(System.nanoTime())) {
+        final var ref = pending.poll();
+        if (!ref.isValid()) {
+          gone++;
+          continue;
+        }
+        batch.originals.add(ref);
+        batch.copies.add(store.copyEntity(ref));
+      }
+      remaining = !pending.isEmpty();
+    }
+  }
+
+  /** Adds the copies of a batch to the target world, as many as fit into this tick. */
+  private final class AddTask extends StepTask {
+    private final Batch batch;
+
+    private AddTask(@Nonnull Batch batch) {
+      this.batch = batch;
+    }
+
+    @Override
+    void step() {
+      final var store = target.getEntityStore().getStore();
+      budget.start(System.nanoTime());
+      while (batch.added.size() < batch.copies.size() && budget.tryAcquire(System.nanoTime())) {
+        final int index = batch.added.size();
+        batch.added.add(null);
+        try {
+          final var ref = store.addEntity(batch.copies.get(index), AddReason.SPAWN);
+          if (ref != null && ref.isValid()) {
+            batch.added.set(index, ref);
+            batch.committed.set(index);
+          }
+        } catch (RuntimeException e) {
+          // The original is kept, the next copy may still work
+          logger.at(Level.WARNING).withCause(e).log(
+              "Failed to add a migrated entity to world " + target.getName());
+        }
+      }
+    }
+  }
+
+  /** Removes the originals whose copy was added, on the source world thread. */
+  private final class RemoveTask extends StepTask {
+    private final Batch batch;
+    private final boolean settles;
+
+    /**
+     * @param settles whether the job stopped while adding and the copies added so far are kept
+     */
+    private RemoveTask(@Nonnull Batch batch, boolean settles) {
+      this.batch = batch;
+      this.settles = settles;
+    }
+
+    @Override
+    boolean settles() {
+      return settles;
+    }
+
+    @Override
+    void step() {
+      final var store = source.getEntityStore().getStore();
+      // Counted per index, a rollback after a failure here only undoes the rest
+      for (; batch.removed < batch.originals.size(); batch.removed++) {
+        final int index = batch.removed;
+        if (!batch.committed.get(index)) {
+          failed++;
+          continue;
+        }
+        final var ref = batch.originals.get(index);
+        if (ref.isValid()) {
+          store.removeEntity(ref, RemoveReason.REMOVE);
+        }
+        migrated++;
+      }
+    }
+  }
+
+  /** Removes the copies of a batch from the target world again, the originals stay. */
+  private final class RollbackTask extends StepTask {
+    private final Batch batch;
+
+    private RollbackTask(@Nonnull Batch batch) {
+      this.batch = batch;
+    }
+
+    @Override
+    boolean settles() {
+      return true;
+    }
+
+    @Override
+    void step() {
+      final var store = target.getEntityStore().getStore();
+      for (; batch.removed < batch.originals.size(); batch.removed++) {
+        final int index = batch.removed;
+        final var ref = batch.committed.get(index) ? batch.added.get(index) : null;
+        if (ref != null && ref.isValid()) {
+          store.removeEntity(ref, RemoveReason.REMOVE);
+        }
+        failed++;
+      }
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package studio.hiwire.tp2world.migrate;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3dc;
+
+/**
+ * Selects the entities of a migration: those inside a box and of one of the given types. Without a
+ * box every position matches, without types every type does. Players are never selected, see
+ * {@link EntityMigrationJob}.
+ *
+ * @param box the box, null for the whole world
+ * @param types lower-case model asset ids, empty for all
+ */
+public record EntitySelector(@Nullable Box box, @Nonnull Set<String> types) {
+
+  /** Axis-aligned box, both corners inclusive. */
+  public record Box(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+
+    /**
+     * @param a one corner
+     * @param b the opposite corner
+     * @return the box spanned by both corners, in any order
+     */
+    @Nonnull
+    public static Box of(@Nonnull Vector3dc a, @Nonnull Vector3dc b) {
+      return new Box(
+          Math.min(a.x(), b.x()),
+          Math.min(a.y(), b.y()),
+          Math.min(a.z(), b.z()),
+          Math.max(a.x(), b.x()),
+          Math.max(a.y(), b.y()),
+          Math.max(a.z(), b.z()));
+    }
+
+    public boolean contains(double x, double y, double z) {
+      return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+  }
+
+  /**
+   * @param box the box, null for the whole world
+   * @param types comma-separated model asset ids, case-insensitive, null or blank for all
+   * @return the selector
+   */
+  @Nonnull
+  public static EntitySelector of(@Nullable Box box, @Nullable String types) {
+    if (types == null) {
+      return new EntitySelector(box, Set.of());
+    }
+    return new EntitySelector(
+        box,
+        Arrays.stream(types.split(","))
+            .map(type -> type.trim().toLowerCase(Locale.ROOT))
+            .filter(type -> !type.isEmpty())
+            .collect(Collectors.toUnmodifiableSet()));
+  }
+
+  /**
+   * @param type the model asset id of the entity, null if it has no model
+   * @param x position of the entity
+   * @param y position of the entity
+   * @param z position of the entity
+   * @return whether the entity is migrated
+   */
+  public boolean matches(@Nullable String type, double x, double y, double z) {
+    if (box != null && !box.contains(x, y, z)) {
+      return false;
+    }
+    return types.isEmpty() || (type != null && types.contains(type.toLowerCase(Locale.ROOT)));
+  }
+}
@@ -0,0 +1,47 @@
+package studio.hiwire.tp2world.migrate;
+
+/**
+ * Limits the entities handled in one world tick by count and by time. The first entity of a tick
+ * always fits, so a migration makes progress even if a single entity takes longer than the budget.
+ * Not thread-safe, a migration uses it from one world thread at a time.
+ */
+public final class TickBudget {
+
+  private final long budgetNanos;
+  private final int maxEntities;
+  private long startNanos;
+  private int used;
+
+  /**
+   * @param budgetNanos nanoseconds one tick may spend
+   * @param maxEntities entities one tick may handle, at least 1
+   */
+  public TickBudget(long budgetNanos, int maxEntities) {
+    this.budgetNanos = Math.max(0, budgetNanos);
+    this.maxEntities = Math.max(1, maxEntities);
+  }
+
+  /**
+   * Starts the budget of a tick.
+   *
+   * @param nowNanos the current {@link System#nanoTime}
+   */
+  public void start(long nowNanos) {
+    startNanos = nowNanos;
+    used = 0;
+  }
+
+  /**
+   * Takes one entity from the budget.
+   *
+   * @param nowNanos the current {@link System#nanoTime}
+   * @return whether the entity fits into this tick
+   */
+  public boolean tryAcquire(long nowNanos) {
+    if (used > 0 && (used >= maxEntities || nowNanos - startNanos >= budgetNanos)) {
+      return false;
+    }
+    used++;
+    return true;
+  }
+}
@@ -0,0 +1,125 @@
+package studio.hiwire.tp2world.notify;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+/**
+ * Outcome of a batch operation, counted per target world and per failure reason, so the sender
+ * gets one summary instead of a message per player. Safe to update from several world threads.
+ */
+public class BatchSummary {
+
+  /** Shown in place of an empty breakdown. */
+  public static final String NONE = "-";
+
+  /** Number of worlds or reasons listed in a chat summary. */
+  public static final int LISTED = 5;
+
+  /** Label of the entries beyond the listed ones. */
+  public static final String OTHERS = "others";
+
+  private final Map<String, int[]> teleported = new LinkedHashMap<>();
+  private final Map<String, int[]> failures = new LinkedHashMap<>();
+  private int teleportedCount;
+  private int failedCount;
+
+  /** Counts one player teleported to the world. */
+  public synchronized void teleported(@Nonnull String worldName) {
+    teleported.computeIfAbsent(worldName, ignored -> new int[1])[0]++;
+    teleportedCount++;
+  }
+
+  /** Counts one failed player. */
+  public void failed(@Nonnull String reason) {
+    failed(reason, 1);
+  }
+
+  /** Counts several players failed for the same reason. */
+  public synchronized void failed(@Nonnull String reason, int count) {
+    if (count <= 0) {
+      return;
+    }
+    failures.computeIfAbsent(reason, ignored -> new int[1])[0] += count;
+    failedCount += count;
+  }
+
+  public synchronized int getTeleported() {
+    return teleportedCount;
+  }
+
+  public synchronized int getFailed() {
+    return failedCount;
+  }
+
+  /**
+   * @return teleported players per world, in the order the worlds were first seen
+   */
+  @Nonnull
+  public synchronized Map<String, Integer> worlds() {
+    return copy(teleported);
+  }
+
+  /**
+   * @return failed players per reason, in the order the reasons were first seen
+   */
+  @Nonnull
+  public synchronized Map<String, Integer> failures() {
+    return copy(failures);
+  }
+
+  /**
+   * @param limit maximum number of worlds listed, the rest is summed up as {@link #OTHERS}
+   * @return e.g. {@code lobby: 120, arena: 30}, most players first
+   */
+  @Nonnull
+  public synchronized String formatWorlds(int limit) {
+    return format(teleported, limit);
+  }
+
+  /**
+   * @param limit maximum number of reasons listed, the rest is summed up as {@link #OTHERS}
+   * @return e.g. {@code player not online: 3}, most frequent first
+   */
+  @Nonnull
+  public synchronized String formatFailures(int limit) {
+    return format(failures, limit);
+  }
+
+  @Nonnull
+  private static Map<String, Integer> copy(@Nonnull Map<String, int[]> counts) {
+    final var copy = new LinkedHashMap<String, Integer>();
+    for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+      copy.put(entry.getKey(), entry.getValue()[0]);
+    }
+    return copy;
+  }
+
+  @Nonnull
+  private static String format(@Nonnull Map<String, int[]> counts, int limit) {
+    if (counts.isEmpty()) {
+      return NONE;
+    }
+    final var entries = new ArrayList<>(counts.entrySet());
+    // Stable, so equal counts keep their first-seen order
+    entries.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+
+    final var builder = new StringBuilder();
+    final int shown = Math.min(Math.max(1, limit), entries.size());
+    for (int i = 0; i < shown; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(entries.get(i).getKey()).append(": ").append(entries.get(i).getValue()[0]);
+    }
+    if (shown < entries.size()) {
+      int rest = 0;
+      for (int i = shown; i < entries.size(); i++) {
+        rest += entries.get(i).getValue()[0];
+      }
+      builder.append(", ").append(OTHERS).append(": ").append(rest);
+    }
+    return builder.toString();
+  }
+}
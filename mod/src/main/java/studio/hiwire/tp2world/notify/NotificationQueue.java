@@ -0,0 +1,133 @@
+package studio.hiwire.tp2world.notify;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+
+/**
+ * Bounded queue of chat messages to the targets of batch operations.
+ *
+ * <ul>
+ *   <li>A batch of hundreds of players enqueues its messages instead of sending them in one burst
+ *   <li>Every drain sends at most a fixed number of messages, the rest waits for the next one
+ *   <li>When the queue is full, further messages are dropped and counted, the teleports themselves
+ *       are never held up by chat
+ * </ul>
+ */
+public class NotificationQueue {
+
+  private static final String MESSAGE_MOVED_TO_WORLD =
+      "HiWire.Tp2World.ChatMessages.Command.Tp2World.MovedToWorld";
+
+  private final ArrayBlockingQueue<Notification> queue;
+  private final int perDrain;
+  private final long drainMillis;
+  @Nonnull private final HytaleLogger logger;
+  private final AtomicLong dropped = new AtomicLong();
+  private long reportedDropped;
+  @Nullable private ScheduledFuture<?> drainTask;
+
+  private record Notification(@Nonnull PlayerRef target, @Nonnull Message message) {}
+
+  /**
+   * @param capacity maximum number of queued messages
+   * @param perDrain maximum number of messages sent per drain
+   * @param drainMillis milliseconds between two drains
+   * @param logger logger for dropped messages
+   */
+  public NotificationQueue(
+      int capacity, int perDrain, long drainMillis, @Nonnull HytaleLogger logger) {
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    this.perDrain = Math.max(1, perDrain);
+    this.drainMillis = Math.max(10, drainMillis);
+    this.logger = logger;
+  }
+
+  public void start() {
+    drainTask =
+        HytaleServer.SCHEDULED_EXECUTOR.scheduleAtFixedRate(
+            this::drain, drainMillis, drainMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    if (drainTask != null) {
+      drainTask.cancel(false);
+      drainTask = null;
+    }
+    queue.clear();
+  }
+
+  /**
+   * Queues a message. Safe to call from any thread.
+   *
+   * @return false if the queue is full and the message was dropped
+   */
+  public boolean offer(@Nonnull PlayerRef target, @Nonnull Message message) {
+    if (queue.offer(new Notification(target, message))) {
+      return true;
+    }
+    dropped.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * Queues the message that tells a player which world a batch moved them to.
+   *
+   * @param target the teleported player
+   * @param world the world the player was teleported to
+   */
+  public void movedToWorld(@Nonnull PlayerRef target, @Nonnull World world) {
+    // A fresh message per player, queued messages are sent long after this call
+    offer(
+        target,
+        Message.translation(MESSAGE_MOVED_TO_WORLD)
+            .param("ModPrefix", Tp2WorldPlugin.PREFIX)
+            .param("WorldName", world.getName()));
+  }
+
+  /**
+   * @return number of messages waiting to be sent
+   */
+  public int size() {
+    return queue.size();
+  }
+
+  /**
+   * @return number of messages dropped because the queue was full, since start
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  private void drain() {
+    try {
+      for (int i = 0; i < perDrain; i++) {
+        final var notification = queue.poll();
+        if (notification == null) {
+          break;
+        }
+        notification.target().sendMessage(notification.message());
+      }
+
+      final long total = dropped.get();
+      if (total != reportedDropped) {
+        logger.at(Level.WARNING).log(
+            "Notification queue full, dropped " + (total - reportedDropped) + " message(s)");
+        reportedDropped = total;
+      }
+    } catch (RuntimeException e) {
+      // Never let an exception cancel the periodic task
+      logger.at(Level.WARNING).withCause(e).log("Failed to send queued notification");
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package studio.hiwire.tp2world.permission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nonnull;
+
+/**
+ * Bounded cache of resolved (subject, world, action) permission decisions. The least recently used
+ * decision is evicted once the cache is full.
+ *
+ * <p>Resolution runs outside the lock. A decision is only stored if no invalidation happened while
+ * it was being resolved, so an invalidation never gets overwritten by a stale decision.
+ */
+public class PermissionCache {
+
+  public enum Action {
+    SELF,
+    OTHERS
+  }
+
+  private record Key(UUID subject, String world, Action action) {}
+
+  private final Object lock = new Object();
+  private final LinkedHashMap<Key, Boolean> decisions;
+  private long generation;
+
+  /**
+   * @param maxSize maximum number of cached decisions
+   */
+  public PermissionCache(int maxSize) {
+    final int capacity = Math.max(1, maxSize);
+    this.decisions =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+            return size() > capacity;
+          }
+        };
+  }
+
+  /**
+   * Returns the cached decision or resolves and caches it.
+   *
+   * @param subject the subject the decision is for
+   * @param world the destination world name
+   * @param action whether the subject teleports itself or others
+   * @param resolver full permission resolution, only called on a cache miss
+   * @return whether the action is allowed
+   */
+  public boolean check(
+      @Nonnull UUID subject,
+      @Nonnull String world,
+      @Nonnull Action action,
+      @Nonnull BooleanSupplier resolver) {
+    final var key = new Key(subject, world, action);
+    final long observedGeneration;
+    synchronized (lock) {
+      final var cached = decisions.get(key);
+      if (cached != null) {
+        return cached;
+      }
+      observedGeneration = generation;
+    }
+
+    final boolean allowed = resolver.getAsBoolean();
+
+    synchronized (lock) {
+      if (generation == observedGeneration) {
+        decisions.put(key, allowed);
+      }
+    }
+    return allowed;
+  }
+
+  /**
+   * Drops all decisions of one subject.
+   *
+   * @param subject the subject whose permissions changed or who logged out
+   */
+  public void invalidate(@Nonnull UUID subject) {
+    synchronized (lock) {
+      generation++;
+      decisions.keySet().removeIf(key -> key.subject().equals(subject));
+    }
+  }
+
+  /** Drops all decisions, e.g. when a permission group changed. */
+  public void invalidateAll() {
+    synchronized (lock) {
+      generation++;
+      decisions.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (lock) {
+      return decisions.size();
+    }
+  }
+}
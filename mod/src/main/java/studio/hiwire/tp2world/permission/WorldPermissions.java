@@ -0,0 +1,149 @@
+package studio.hiwire.tp2world.permission;
+
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.event.events.permissions.GroupPermissionChangeEvent;
+import com.hypixel.hytale.server.core.event.events.permissions.PlayerGroupEvent;
+import com.hypixel.hytale.server.core.event.events.permissions.PlayerPermissionChangeEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
+import com.hypixel.hytale.server.core.permissions.HytalePermissions;
+import com.hypixel.hytale.server.core.permissions.PermissionsModule;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Per-destination-world permission checks for tp2world. Every world has one node for teleporting
+ * yourself and one for teleporting other players:
+ *
+ * <ul>
+ *   <li>{@code tp2world.world.<world>.self}
+ *   <li>{@code tp2world.world.<world>.others}
+ * </ul>
+ *
+ * Resolved decisions are cached in a {@link PermissionCache} and dropped on permission changes and
+ * on logout.
+ */
+public class WorldPermissions {
+
+  @Nonnull private final PermissionCache cache;
+  @Nonnull private final BooleanSupplier enabled;
+
+  /**
+   * @param cacheSize maximum number of cached decisions
+   * @param enabled whether per-world checks are enabled, read on every check
+   */
+  public WorldPermissions(int cacheSize, @Nonnull BooleanSupplier enabled) {
+    this.cache = new PermissionCache(cacheSize);
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the permission node for a world and action.
+   *
+   * @param worldName the destination world
+   * @param action whether the sender teleports itself or others
+   * @return the permission node
+   */
+  @Nonnull
+  public static String node(@Nonnull String worldName, @Nonnull PermissionCache.Action action) {
+    return HytalePermissions.fromCommand(
+        "tp2world.world."
+            + worldName.toLowerCase(Locale.ROOT)
+            + "."
+            + action.name().toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Checks whether the sender may teleport to the given world. Always allowed if per-world
+   * permissions are disabled.
+   *
+   * @param sender the command sender
+   * @param worldName the destination world
+   * @param action whether the sender teleports itself or others
+   * @return whether the teleport is allowed
+   */
+  public boolean canTeleport(
+      @Nonnull CommandSender sender,
+      @Nonnull String worldName,
+      @Nonnull PermissionCache.Action action) {
+    if (!enabled.getAsBoolean()) {
+      return true;
+    }
+    return cache.check(
+        sender.getUuid(),
+        worldName.toLowerCase(Locale.ROOT),
+        action,
+        () -> sender.hasPermission(node(worldName, action)));
+  }
+
+  /**
+   * Checks whether a player may be moved to the given world by a batch that teleports many players
+   * at once, such as a bulk job or a snapshot restore.
+   *
+   * @param sender whoever started the batch, null if nobody did (e.g. an HTTP request) - then the
+   *     player's own self node decides
+   * @param playerUuid the player that is moved
+   * @param worldName the destination world
+   * @return whether the teleport is allowed
+   */
+  public boolean canMove(
+      @Nullable CommandSender sender, @Nonnull UUID playerUuid, @Nonnull String worldName) {
+    if (sender != null) {
+      return canTeleport(
+          sender,
+          worldName,
+          playerUuid.equals(sender.getUuid())
+              ? PermissionCache.Action.SELF
+              : PermissionCache.Action.OTHERS);
+    }
+    if (!enabled.getAsBoolean()) {
+      return true;
+    }
+    return cache.check(
+        playerUuid,
+        worldName.toLowerCase(Locale.ROOT),
+        PermissionCache.Action.SELF,
+        () ->
+            PermissionsModule.get()
+                .hasPermission(playerUuid, node(worldName, PermissionCache.Action.SELF)));
+  }
+
+  /**
+   * Returns {@link #canMove} for one sender as a predicate, for jobs that don't know about
+   * commands.
+   *
+   * @param sender whoever started the batch, null if nobody did
+   * @return predicate of player and destination world
+   */
+  @Nonnull
+  public BiPredicate<PlayerRef, World> mover(@Nullable CommandSender sender) {
+    return (playerRef, world) -> canMove(sender, playerRef.getUuid(), world.getName());
+  }
+
+  /**
+   * Registers the event listeners that invalidate cached decisions.
+   *
+   * @param eventRegistry the plugin's event registry
+   */
+  public void register(@Nonnull EventRegistry eventRegistry) {
+    eventRegistry.register(
+        PlayerPermissionChangeEvent.class, event -> cache.invalidate(event.getPlayerUuid()));
+    eventRegistry.register(
+        PlayerGroupEvent.class, event -> cache.invalidate(event.getPlayerUuid()));
+    // A group change can affect any number of players
+    eventRegistry.register(GroupPermissionChangeEvent.class, event -> cache.invalidateAll());
+    eventRegistry.register(
+        PlayerDisconnectEvent.class, event -> cache.invalidate(event.getPlayerRef().getUuid()));
+  }
+
+  /** Drops all cached decisions, e.g. after the config was reloaded. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+}
@@ -0,0 +1,196 @@
+package studio.hiwire.tp2world.position;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.math.vector.Rotation3fc;
+import java.util.Arrays;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+import org.joml.Vector3d;
+import org.joml.Vector3dc;
+
+/**
+ * Immutable positions and rotations of the players of one world at one point in time. Entries are
+ * stored in primitive arrays and found by UUID through an open-addressing table, so lookups neither
+ * lock nor allocate until a value is copied out.
+ *
+ * <p>Safe to read from any thread once published through a volatile write or a concurrent map.
+ */
+public final class PlayerPositions {
+
+  /** Snapshot without players. */
+  public static final PlayerPositions EMPTY = new Builder(0).build(0);
+
+  private static final int EMPTY_SLOT = -1;
+
+  private final long publishedAtNanos;
+  private final int size;
+  private final long[] uuidMost;
+  private final long[] uuidLeast;
+  private final double[] positions;
+  private final float[] rotations;
+  private final int[] slots;
+
+  private PlayerPositions(
+      long publishedAtNanos,
+      int size,
+      @Nonnull long[] uuidMost,
+      @Nonnull long[] uuidLeast,
+      @Nonnull double[] positions,
+      @Nonnull float[] rotations) {
+    this.publishedAtNanos = publishedAtNanos;
+    this.size = size;
+    this.uuidMost = uuidMost;
+    this.uuidLeast = uuidLeast;
+    this.positions = positions;
+    this.rotations = rotations;
+
+    // Power of two with at most 50% load, so probing stays short
+    this.slots = new int[Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1];
+    Arrays.fill(slots, EMPTY_SLOT);
+    final int mask = slots.length - 1;
+    for (int i = 0; i < size; i++) {
+      int slot = hash(uuidMost[i], uuidLeast[i]) & mask;
+      while (slots[slot] != EMPTY_SLOT) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = i;
+    }
+  }
+
+  /**
+   * @return {@link System#nanoTime()} when the snapshot was taken
+   */
+  public long publishedAtNanos() {
+    return publishedAtNanos;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the index of the player, or -1 if the player is not in the snapshot
+   */
+  public int find(@Nonnull UUID player) {
+    final long most = player.getMostSignificantBits();
+    final long least = player.getLeastSignificantBits();
+    final int mask = slots.length - 1;
+    int slot = hash(most, least) & mask;
+    while (true) {
+      final int index = slots[slot];
+      if (index == EMPTY_SLOT) {
+        return -1;
+      }
+      if (uuidMost[index] == most && uuidLeast[index] == least) {
+        return index;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  @Nonnull
+  public UUID uuid(int index) {
+    return new UUID(uuidMost[index], uuidLeast[index]);
+  }
+
+  @Nonnull
+  public Vector3d position(int index) {
+    return new Vector3d(positions[index * 3], positions[index * 3 + 1], positions[index * 3 + 2]);
+  }
+
+  @Nonnull
+  public Rotation3f headRotation(int index) {
+    return new Rotation3f(rotations[index * 6], rotations[index * 6 + 1], rotations[index * 6 + 2]);
+  }
+
+  @Nonnull
+  public Rotation3f bodyRotation(int index) {
+    return new Rotation3f(
+        rotations[index * 6 + 3], rotations[index * 6 + 4], rotations[index * 6 + 5]);
+  }
+
+  private static int hash(long most, long least) {
+    final long mixed = (most ^ least) * 0x9E3779B97F4A7C15L;
+    return (int) (mixed ^ (mixed >>> 32));
+  }
+
+  /**
+   * Collects the entries of the next snapshot. Can be reset and reused for every snapshot of a
+   * world, so publishing only allocates the snapshot itself. Not thread-safe.
+   */
+  public static final class Builder {
+    private int size;
+    private long[] uuidMost;
+    private long[] uuidLeast;
+    private double[] positions;
+    private float[] rotations;
+
+    /**
+     * @param expectedSize initial capacity
+     */
+    public Builder(int expectedSize) {
+      final int capacity = Math.max(1, expectedSize);
+      uuidMost = new long[capacity];
+      uuidLeast = new long[capacity];
+      positions = new double[capacity * 3];
+      rotations = new float[capacity * 6];
+    }
+
+    /**
+     * Adds one player. A player must only be added once per snapshot.
+     *
+     * @return this builder
+     */
+    @Nonnull
+    public Builder add(
+        @Nonnull UUID player,
+        @Nonnull Vector3dc position,
+        @Nonnull Rotation3fc headRotation,
+        @Nonnull Rotation3fc bodyRotation) {
+      if (size == uuidMost.length) {
+        grow();
+      }
+      uuidMost[size] = player.getMostSignificantBits();
+      uuidLeast[size] = player.getLeastSignificantBits();
+      positions[size * 3] = position.x();
+      positions[size * 3 + 1] = position.y();
+      positions[size * 3 + 2] = position.z();
+      rotations[size * 6] = headRotation.pitch();
+      rotations[size * 6 + 1] = headRotation.yaw();
+      rotations[size * 6 + 2] = headRotation.roll();
+      rotations[size * 6 + 3] = bodyRotation.pitch();
+      rotations[size * 6 + 4] = bodyRotation.yaw();
+      rotations[size * 6 + 5] = bodyRotation.roll();
+      size++;
+      return this;
+    }
+
+    /** Removes all entries, keeping the capacity. */
+    public void reset() {
+      size = 0;
+    }
+
+    /**
+     * @param publishedAtNanos {@link System#nanoTime()} when the positions were read
+     * @return an immutable snapshot of the entries added since the last reset
+     */
+    @Nonnull
+    public PlayerPositions build(long publishedAtNanos) {
+      return new PlayerPositions(
+          publishedAtNanos,
+          size,
+          Arrays.copyOf(uuidMost, size),
+          Arrays.copyOf(uuidLeast, size),
+          Arrays.copyOf(positions, size * 3),
+          Arrays.copyOf(rotations, size * 6));
+    }
+
+    private void grow() {
+      final int capacity = uuidMost.length * 2;
+      uuidMost = Arrays.copyOf(uuidMost, capacity);
+      uuidLeast = Arrays.copyOf(uuidLeast, capacity);
+      positions = Arrays.copyOf(positions, capacity * 3);
+      rotations = Arrays.copyOf(rotations, capacity * 6);
+    }
+  }
+}
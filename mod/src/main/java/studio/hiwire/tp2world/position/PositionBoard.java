@@ -0,0 +1,231 @@
+package studio.hiwire.tp2world.position;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.dispatch.WorldTask;
+
+/**
+ * Publishes the positions of all online players, one immutable {@link PlayerPositions} per world.
+ *
+ * <ul>
+ *   <li>Every world thread reads its own players and replaces its snapshot, on a fixed interval
+ *   <li>Any thread can {@link #locate} a player without locking or hopping to the player's world
+ *   <li>A snapshot is at most one interval plus one world tick old
+ * </ul>
+ */
+public class PositionBoard {
+
+  private final long publishMillis;
+  @Nonnull private final WorldDispatcher dispatcher;
+  @Nonnull private final HytaleLogger logger;
+  private final Map<World, PlayerPositions> snapshots = new ConcurrentHashMap<>();
+  private final Map<World, PublishTask> publishers = new ConcurrentHashMap<>();
+  @Nullable private ScheduledFuture<?> publishTask;
+
+  /**
+   * @param publishMillis milliseconds between two snapshots of a world
+   * @param dispatcher runs the snapshots on the world threads
+   * @param logger logger for publishing failures
+   */
+  public PositionBoard(
+      long publishMillis, @Nonnull WorldDispatcher dispatcher, @Nonnull HytaleLogger logger) {
+    this.publishMillis = Math.max(10, publishMillis);
+    this.dispatcher = dispatcher;
+    this.logger = logger;
+  }
+
+  /**
+   * Registers the event listener that drops the snapshots of removed worlds.
+   *
+   * @param eventRegistry the plugin's event registry
+   */
+  public void register(@Nonnull EventRegistry eventRegistry) {
+    eventRegistry.registerGlobal(
+        RemoveWorldEvent.class,
+        event -> {
+          snapshots.remove(event.getWorld());
+          publishers.remove(event.getWorld());
+        });
+  }
+
+  public void start() {
+    publishTask =
+        HytaleServer.SCHEDULED_EXECUTOR.scheduleAtFixedRate(
+            this::publish, publishMillis, publishMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    if (publishTask != null) {
+      publishTask.cancel(false);
+      publishTask = null;
+    }
+  }
+
+  /**
+   * Looks the player up in the latest snapshots, starting with the world the player is in.
+   *
+   * @param player the player to locate
+   * @return the player's last published location, or null if not published yet
+   */
+  @Nullable
+  public Located locate(@Nonnull PlayerRef player) {
+    final var uuid = player.getUuid();
+    final var ref = player.getReference();
+    if (ref != null && ref.isValid()) {
+      final var world = ref.getStore().getExternalData().getWorld();
+      final var located = locate(world, snapshots.get(world), player);
+      if (located != null) {
+        return located;
+      }
+    }
+
+    // Between worlds or not published in the current world yet
+    Located latest = null;
+    for (Map.Entry<World, PlayerPositions> entry : snapshots.entrySet()) {
+      final var located = locate(entry.getKey(), entry.getValue(), player);
+      if (located != null
+          && (latest == null || located.publishedAtNanos() - latest.publishedAtNanos() > 0)) {
+        latest = located;
+      }
+    }
+    return latest;
+  }
+
+  @Nullable
+  private static Located locate(
+      @Nonnull World world, @Nullable PlayerPositions positions, @Nonnull PlayerRef player) {
+    if (positions == null) {
+      return null;
+    }
+    final int index = positions.find(player.getUuid());
+    if (index < 0) {
+      return null;
+    }
+    return new Located(
+        world,
+        positions.position(index),
+        positions.headRotation(index),
+        positions.bodyRotation(index),
+        positions.publishedAtNanos());
+  }
+
+  private void publish() {
+    try {
+      // Grouped here, so every world thread only reads its own players
+      final var byWorld = new HashMap<World, List<PlayerRef>>();
+      for (PlayerRef player : Universe.get().getPlayers()) {
+        final var ref = player.getReference();
+        if (ref != null && ref.isValid()) {
+          byWorld
+              .computeIfAbsent(ref.getStore().getExternalData().getWorld(), w -> new ArrayList<>())
+              .add(player);
+        }
+      }
+
+      for (Map.Entry<World, List<PlayerRef>> entry : byWorld.entrySet()) {
+        final var world = entry.getKey();
+        final var publisher = publishers.computeIfAbsent(world, PublishTask::new);
+        // Skipped while the previous snapshot of a busy world is still queued
+        if (publisher.queued.compareAndSet(false, true)) {
+          publisher.players = entry.getValue();
+          dispatcher.submit(world, publisher);
+        }
+      }
+
+      // Worlds without players don't need their world thread to become empty
+      for (World world : snapshots.keySet()) {
+        if (!byWorld.containsKey(world)) {
+          snapshots.put(world, PlayerPositions.EMPTY);
+        }
+      }
+    } catch (RuntimeException e) {
+      // Never let an exception cancel the periodic task
+      logger.at(Level.WARNING).withCause(e).log("Publishing player positions failed");
+    }
+  }
+
+  /** Reads the players of one world on its thread and publishes the snapshot. */
+  private final class PublishTask extends WorldTask {
+    private final World world;
+    private final PlayerPositions.Builder builder = new PlayerPositions.Builder(16);
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private List<PlayerRef> players = List.of();
+
+    private PublishTask(@Nonnull World world) {
+      this.world = world;
+    }
+
+    @Override
+    protected void run() {
+      try {
+        builder.reset();
+        for (PlayerRef player : players) {
+          final Ref<EntityStore> ref = player.getReference();
+          if (ref == null || !ref.isValid()) {
+            continue;
+          }
+          final var store = ref.getStore();
+          if (store.getExternalData().getWorld() != world) {
+            // Moved since it was grouped, published by its new world
+            continue;
+          }
+          final var transform = store.getComponent(ref, TransformComponent.getComponentType());
+          final var headRotation = store.getComponent(ref, HeadRotation.getComponentType());
+          if (transform != null && headRotation != null) {
+            builder.add(
+                player.getUuid(),
+                transform.getPosition(),
+                headRotation.getRotation(),
+                transform.getRotation());
+          }
+        }
+        // A removed world must not come back
+        if (publishers.get(world) == this) {
+          snapshots.put(world, builder.build(System.nanoTime()));
+        }
+      } finally {
+        players = List.of();
+        queued.set(false);
+      }
+    }
+  }
+
+  /**
+   * A player's published location.
+   *
+   * @param world the world the player was in
+   * @param position position at publish time
+   * @param headRotation head rotation at publish time
+   * @param bodyRotation body rotation at publish time
+   * @param publishedAtNanos {@link System#nanoTime()} of the snapshot
+   */
+  public record Located(
+      @Nonnull World world,
+      @Nonnull Vector3d position,
+      @Nonnull Rotation3f headRotation,
+      @Nonnull Rotation3f bodyRotation,
+      long publishedAtNanos) {}
+}
@@ -0,0 +1,34 @@
+package studio.hiwire.tp2world.region;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+
+/**
+ * An axis-aligned box in a world that teleports players entering it. The box is inclusive on the
+ * minimum and exclusive on the maximum corner, so neighbouring regions never overlap.
+ *
+ * @param name name used in log messages
+ * @param world the world the region is in
+ * @param targetWorld the world players are teleported to
+ * @param position target position, or null for the target world's spawn point
+ * @param headRotation target head rotation, or null for the spawn point's rotation
+ */
+public record PortalRegion(
+    @Nonnull String name,
+    @Nonnull String world,
+    double minX,
+    double minY,
+    double minZ,
+    double maxX,
+    double maxY,
+    double maxZ,
+    @Nonnull String targetWorld,
+    @Nullable Vector3d position,
+    @Nullable Rotation3f headRotation) {
+
+  public boolean contains(double x, double y, double z) {
+    return x >= minX && x < maxX && y >= minY && y < maxY && z >= minZ && z < maxZ;
+  }
+}
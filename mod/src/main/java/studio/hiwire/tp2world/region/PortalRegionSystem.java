@@ -0,0 +1,176 @@
+package studio.hiwire.tp2world.region;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import studio.hiwire.tp2world.arrival.ArrivalTracker;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.dispatch.WorldTask;
+import studio.hiwire.tp2world.teleport.Tp2WorldTeleporter;
+
+/**
+ * Teleports players entering a portal region. Runs every tick for every player, but only players
+ * that crossed a grid cell boundary or stand in a cell with regions are tested against regions (see
+ * {@link RegionTracker}). Matches are teleported with {@link Tp2WorldTeleporter}, the same path the
+ * command uses, once the tick is done.
+ */
+public class PortalRegionSystem extends EntityTickingSystem<EntityStore> {
+
+  /** Updates per world between two sweeps of trackers of players that left the world. */
+  private static final int PRUNE_INTERVAL = 4096;
+
+  @Nonnull private final PortalRegions regions;
+  @Nonnull private final HytaleLogger logger;
+  @Nonnull private final WorldDispatcher dispatcher;
+  @Nonnull private final ArrivalTracker arrivals;
+  private final Map<String, WorldTracker> trackers = new ConcurrentHashMap<>();
+
+  private static final class WorldTracker {
+    private final RegionTracker<Ref<EntityStore>> tracker;
+    private int updates;
+
+    private WorldTracker(RegionGrid grid) {
+      this.tracker = new RegionTracker<>(grid);
+    }
+  }
+
+  public PortalRegionSystem(
+      @Nonnull PortalRegions regions,
+      @Nonnull WorldDispatcher dispatcher,
+      @Nonnull ArrivalTracker arrivals,
+      @Nonnull HytaleLogger logger) {
+    this.regions = regions;
+    this.dispatcher = dispatcher;
+    this.arrivals = arrivals;
+    this.logger = logger;
+  }
+
+  public void register(@Nonnull EventRegistry eventRegistry) {
+    eventRegistry.registerGlobal(
+        RemoveWorldEvent.class, event -> trackers.remove(event.getWorld().getName()));
+  }
+
+  @Nonnull
+  @Override
+  public Query<EntityStore> getQuery() {
+    return Query.and(PlayerRef.getComponentType(), TransformComponent.getComponentType());
+  }
+
+  @Override
+  public void tick(
+      float dt,
+      int index,
+      @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+      @Nonnull Store<EntityStore> store,
+      @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+    final var world = store.getExternalData().getWorld();
+    var worldTracker = trackers.get(world.getName());
+    if (worldTracker == null) {
+      final var grid = regions.grid(world.getName());
+      if (grid == null) {
+        return;
+      }
+      worldTracker = trackers.computeIfAbsent(world.getName(), ignored -> new WorldTracker(grid));
+    }
+
+    if (++worldTracker.updates >= PRUNE_INTERVAL) {
+      worldTracker.updates = 0;
+      worldTracker.tracker.retain(Ref::isValid);
+    }
+
+    final var ref = archetypeChunk.getReferenceTo(index);
+    final var position =
+        archetypeChunk.getComponent(index, TransformComponent.getComponentType()).getPosition();
+    final var region = worldTracker.tracker.update(ref, position.x(), position.y(), position.z());
+    if (region != null) {
+      // Components can't be added while the store is ticking
+      dispatcher.submit(world, new PortalTask(world, store, ref, region));
+    }
+  }
+
+  /** Teleport of one player entering a region, created only when a region was entered. */
+  private final class PortalTask extends WorldTask {
+    private final World world;
+    private final Store<EntityStore> store;
+    private final Ref<EntityStore> ref;
+    private final PortalRegion region;
+
+    private PortalTask(
+        @Nonnull World world,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull PortalRegion region) {
+      this.world = world;
+      this.store = store;
+      this.ref = ref;
+      this.region = region;
+    }
+
+    @Override
+    protected void run() {
+      teleport(world, store, ref, region);
+    }
+  }
+
+  private void teleport(
+      @Nonnull World world,
+      @Nonnull Store<EntityStore> store,
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull PortalRegion region) {
+    if (!ref.isValid()) {
+      return;
+    }
+
+    final var targetWorld = Universe.get().getWorld(region.targetWorld());
+    if (targetWorld == null) {
+      logger.at(Level.WARNING).log(
+          "Portal region "
+              + region.name()
+              + " in "
+              + world.getName()
+              + " targets unknown world "
+              + region.targetWorld());
+      return;
+    }
+
+    final var options =
+        new Tp2WorldTeleporter.Options(
+            region.position() != null
+                ? Tp2WorldTeleporter.TargetPosition.absolute(region.position())
+                : null,
+            region.headRotation(),
+            null);
+    final var result = Tp2WorldTeleporter.teleport(store, ref, targetWorld, options);
+    if (result.isSuccess()) {
+      // Only followed for the arrival metrics
+      final var playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+      if (playerRef != null) {
+        arrivals.expect(playerRef, store, ref, result.world(), System.nanoTime());
+      }
+    } else if (result.status() != Tp2WorldTeleporter.Result.Status.CANCELLED) {
+      // A veto by another plugin is not a misconfigured region
+      logger.at(Level.WARNING).log(
+          "Portal region "
+              + region.name()
+              + " could not teleport to "
+              + region.targetWorld()
+              + ": "
+              + result.status());
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package studio.hiwire.tp2world.region;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+import studio.hiwire.tp2world.config.PortalRegionConfig;
+
+/** The configured portal regions, compiled into one {@link RegionGrid} per world. */
+public final class PortalRegions {
+
+  private final Map<String, RegionGrid> grids;
+
+  private PortalRegions(@Nonnull Map<String, RegionGrid> grids) {
+    this.grids = grids;
+  }
+
+  /**
+   * @param regions the regions of all worlds
+   * @param cellSize edge length of a grid cell in blocks
+   */
+  @Nonnull
+  public static PortalRegions of(@Nonnull List<PortalRegion> regions, int cellSize) {
+    final var byWorld = new HashMap<String, List<PortalRegion>>();
+    for (PortalRegion region : regions) {
+      byWorld.computeIfAbsent(key(region.world()), ignored -> new ArrayList<>()).add(region);
+    }
+    final var grids = new HashMap<String, RegionGrid>(byWorld.size() * 2);
+    for (Map.Entry<String, List<PortalRegion>> entry : byWorld.entrySet()) {
+      grids.put(entry.getKey(), new RegionGrid(entry.getValue(), cellSize));
+    }
+    return new PortalRegions(grids);
+  }
+
+  /**
+   * Compiles the configured regions. Invalid regions are skipped and reported.
+   *
+   * @param configs the configured regions
+   * @param cellSize edge length of a grid cell in blocks, falls back to 16 if not positive
+   * @param warnings receives a message for every skipped region
+   */
+  @Nonnull
+  public static PortalRegions compile(
+      @Nonnull PortalRegionConfig[] configs, int cellSize, @Nonnull Consumer<String> warnings) {
+    if (cellSize <= 0) {
+      warnings.accept("Region cell size " + cellSize + " is not positive, using 16");
+      cellSize = 16;
+    }
+
+    final var regions = new ArrayList<PortalRegion>(configs.length);
+    for (int i = 0; i < configs.length; i++) {
+      final var config = configs[i];
+      final var name =
+          config.getName() != null && !config.getName().isBlank()
+              ? config.getName()
+              : String.valueOf(i);
+      if (config.getWorld() == null || config.getWorld().isBlank()) {
+        warnings.accept("Portal region " + name + " has no world, skipping");
+        continue;
+      }
+      if (config.getTargetWorld() == null || config.getTargetWorld().isBlank()) {
+        warnings.accept("Portal region " + name + " has no target world, skipping");
+        continue;
+      }
+      if (config.getMin() == null
+          || config.getMin().length != 3
+          || config.getMax() == null
+          || config.getMax().length != 3) {
+        warnings.accept("Portal region " + name + " min and max need x y z, skipping");
+        continue;
+      }
+
+      Vector3d position = null;
+      if (config.getPosition() != null) {
+        if (config.getPosition().length != 3) {
+          warnings.accept("Portal region " + name + " position needs x y z, skipping");
+          continue;
+        }
+        position =
+            new Vector3d(config.getPosition()[0], config.getPosition()[1], config.getPosition()[2]);
+      }
+
+      Rotation3f headRotation = null;
+      if (config.getRotation() != null) {
+        if (config.getRotation().length != 3) {
+          warnings.accept("Portal region " + name + " rotation needs pitch yaw roll, skipping");
+          continue;
+        }
+        headRotation =
+            new Rotation3f(
+                (float) config.getRotation()[0],
+                (float) config.getRotation()[1],
+                (float) config.getRotation()[2]);
+      }
+
+      // Corners may be given in any order
+      final double[] min = config.getMin();
+      final double[] max = config.getMax();
+      regions.add(
+          new PortalRegion(
+              name,
+              config.getWorld(),
+              Math.min(min[0], max[0]),
+              Math.min(min[1], max[1]),
+              Math.min(min[2], max[2]),
+              Math.max(min[0], max[0]),
+              Math.max(min[1], max[1]),
+              Math.max(min[2], max[2]),
+              config.getTargetWorld(),
+              position,
+              headRotation));
+    }
+    return of(regions, cellSize);
+  }
+
+  /**
+   * @return the grid of the world, or null if the world has no regions
+   */
+  @Nullable
+  public RegionGrid grid(@Nonnull String worldName) {
+    return grids.get(key(worldName));
+  }
+
+  public boolean isEmpty() {
+    return grids.isEmpty();
+  }
+
+  private static String key(String worldName) {
+    return worldName.toLowerCase(Locale.ROOT);
+  }
+}
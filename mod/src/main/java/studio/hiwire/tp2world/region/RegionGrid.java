@@ -0,0 +1,99 @@
+package studio.hiwire.tp2world.region;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+/**
+ * Uniform grid over the x/z plane of one world. Every cell lists the regions overlapping it, so a
+ * position only has to be tested against the few regions of its own cell instead of all regions of
+ * the world. Height is not indexed since regions are usually spread out horizontally; it is checked
+ * by {@link PortalRegion#contains}.
+ *
+ * <p>Immutable after construction and therefore safe to share between threads.
+ */
+public final class RegionGrid {
+
+  private static final PortalRegion[] NO_REGIONS = new PortalRegion[0];
+
+  private final double cellSize;
+  private final Map<Long, PortalRegion[]> cells;
+  private final int regionCount;
+
+  /**
+   * @param regions the regions of one world
+   * @param cellSize edge length of a cell in blocks
+   */
+  public RegionGrid(@Nonnull List<PortalRegion> regions, int cellSize) {
+    if (cellSize <= 0) {
+      throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+    }
+    this.cellSize = cellSize;
+    this.regionCount = regions.size();
+
+    final var buckets = new HashMap<Long, List<PortalRegion>>();
+    for (PortalRegion region : regions) {
+      final int minCellX = cell(region.minX());
+      final int minCellZ = cell(region.minZ());
+      // Max corner is exclusive, the cell containing it is only touched if the box reaches into it
+      final int maxCellX = cell(Math.nextDown(region.maxX()));
+      final int maxCellZ = cell(Math.nextDown(region.maxZ()));
+      for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+        for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+          buckets.computeIfAbsent(key(cellX, cellZ), ignored -> new ArrayList<>()).add(region);
+        }
+      }
+    }
+
+    this.cells = new HashMap<>(buckets.size() * 2);
+    for (Map.Entry<Long, List<PortalRegion>> entry : buckets.entrySet()) {
+      this.cells.put(entry.getKey(), entry.getValue().toArray(PortalRegion[]::new));
+    }
+  }
+
+  /**
+   * @return the key of the cell containing the given position
+   */
+  public long cellKey(double x, double z) {
+    return key(cell(x), cell(z));
+  }
+
+  /**
+   * @param cellKey a key returned by {@link #cellKey}
+   * @return the regions overlapping the cell, in configuration order. Never null.
+   */
+  @Nonnull
+  public PortalRegion[] candidates(long cellKey) {
+    return cells.getOrDefault(cellKey, NO_REGIONS);
+  }
+
+  /**
+   * @return the first region containing the position, or null
+   */
+  public PortalRegion find(double x, double y, double z) {
+    for (PortalRegion region : candidates(cellKey(x, z))) {
+      if (region.contains(x, y, z)) {
+        return region;
+      }
+    }
+    return null;
+  }
+
+  public int regionCount() {
+    return regionCount;
+  }
+
+  public int cellCount() {
+    return cells.size();
+  }
+
+  private int cell(double coordinate) {
+    return (int) Math.floor(coordinate / cellSize);
+  }
+
+  private static long key(int cellX, int cellZ) {
+    return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+  }
+}
@@ -0,0 +1,87 @@
+package studio.hiwire.tp2world.region;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Tracks which portal region each player of one world is in and reports when a player enters one.
+ *
+ * <p>A player is only tested against regions when they crossed a cell boundary of the {@link
+ * RegionGrid} since the last update, or when their cell has regions at all. Players walking around
+ * in cells without regions cost one map lookup and one comparison per tick.
+ *
+ * <p>The first update of a player never reports a region, so players arriving inside a region (e.g.
+ * the target of another portal) are not sent straight back. They have to leave and re-enter it.
+ *
+ * <p>Not thread-safe: one tracker belongs to one world and is only used on its thread.
+ *
+ * @param <K> the player key
+ */
+public final class RegionTracker<K> {
+
+  private final RegionGrid grid;
+  private final Map<K, State> states = new HashMap<>();
+
+  private static final class State {
+    private long cellKey;
+    private boolean hot;
+    @Nullable private PortalRegion inside;
+  }
+
+  public RegionTracker(@Nonnull RegionGrid grid) {
+    this.grid = grid;
+  }
+
+  /**
+   * Updates the position of a player.
+   *
+   * @param player the player key
+   * @return the region the player just entered, or null
+   */
+  @Nullable
+  public PortalRegion update(@Nonnull K player, double x, double y, double z) {
+    final long cellKey = grid.cellKey(x, z);
+    var state = states.get(player);
+    final boolean firstUpdate = state == null;
+    if (firstUpdate) {
+      state = new State();
+      states.put(player, state);
+    } else if (state.cellKey == cellKey && !state.hot) {
+      // Same cell as last tick and no region reaches into it
+      return null;
+    }
+
+    final var candidates = grid.candidates(cellKey);
+    state.cellKey = cellKey;
+    state.hot = candidates.length > 0;
+
+    PortalRegion inside = null;
+    for (PortalRegion region : candidates) {
+      if (region.contains(x, y, z)) {
+        inside = region;
+        break;
+      }
+    }
+
+    final var previous = state.inside;
+    state.inside = inside;
+    return !firstUpdate && inside != null && inside != previous ? inside : null;
+  }
+
+  /** Forgets a player, e.g. because they left the world. */
+  public void remove(@Nonnull K player) {
+    states.remove(player);
+  }
+
+  /** Forgets all players not matching the filter. */
+  public void retain(@Nonnull Predicate<K> filter) {
+    states.keySet().removeIf(filter.negate());
+  }
+
+  public int size() {
+    return states.size();
+  }
+}
@@ -0,0 +1,245 @@
+package studio.hiwire.tp2world.residency;
+
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.events.AddWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import studio.hiwire.tp2world.arrival.PendingArrivals;
+import studio.hiwire.tp2world.completion.PrefixTrie;
+
+/**
+ * Keeps tp2world destination worlds loaded or unloads them, see {@link ResidencyPolicy}.
+ *
+ * <ul>
+ *   <li>Pinned worlds and the default world are never unloaded, pinned worlds are loaded on start
+ *   <li>Cold worlds are unloaded after their idle time, or least recently used first while the heap
+ *       is over the memory budget
+ *   <li>Worlds unloaded here stay targetable: {@link #load} brings them back when a teleport needs
+ *       them
+ * </ul>
+ */
+public class ResidencyManager {
+
+  private final ResidencyPolicy policy;
+  private final List<String> pinnedWorlds;
+  private final long checkMillis;
+  private final long memoryBudgetBytes;
+  private final boolean unloading;
+  @Nonnull private final PendingArrivals arrivals;
+  @Nonnull private final HytaleLogger logger;
+
+  /** Names of the worlds unloaded by this manager, for tab completion. */
+  @Getter @Nonnull private final PrefixTrie unloadedNames = new PrefixTrie();
+
+  private final Map<String, String> unloaded = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<World>> loading = new ConcurrentHashMap<>();
+  @Nullable private ScheduledFuture<?> checkTask;
+
+  /**
+   * @param pinnedWorlds worlds that are loaded on start and never unloaded
+   * @param idleMillis milliseconds without players before a world is unloaded, negative to disable
+   * @param memoryBudgetMb heap size in MiB above which cold worlds are unloaded, negative to disable
+   * @param checkMillis milliseconds between two checks
+   * @param arrivals teleports on their way, a world they target is not unloaded
+   * @param logger logger for load and unload failures
+   */
+  public ResidencyManager(
+      @Nonnull List<String> pinnedWorlds,
+      long idleMillis,
+      long memoryBudgetMb,
+      long checkMillis,
+      @Nonnull PendingArrivals arrivals,
+      @Nonnull HytaleLogger logger) {
+    this.pinnedWorlds = List.copyOf(pinnedWorlds);
+    this.policy =
+        new ResidencyPolicy(
+            pinnedWorlds, idleMillis >= 0 ? TimeUnit.MILLISECONDS.toNanos(idleMillis) : -1);
+    this.memoryBudgetBytes = memoryBudgetMb > 0 ? memoryBudgetMb * 1024 * 1024 : -1;
+    this.unloading = idleMillis >= 0 || memoryBudgetBytes > 0;
+    this.checkMillis = Math.max(100, checkMillis);
+    this.arrivals = arrivals;
+    this.logger = logger;
+  }
+
+  /**
+   * Registers the listeners that follow worlds being added and removed.
+   *
+   * @param eventRegistry the plugin's event registry
+   */
+  public void register(@Nonnull EventRegistry eventRegistry) {
+    eventRegistry.registerGlobal(
+        AddWorldEvent.class,
+        event -> {
+          final var name = event.getWorld().getName();
+          if (unloaded.remove(key(name)) != null) {
+            unloadedNames.remove(name);
+          }
+          policy.touch(name, System.nanoTime());
+        });
+    eventRegistry.registerGlobal(
+        RemoveWorldEvent.class, event -> policy.remove(event.getWorld().getName()));
+  }
+
+  public void start() {
+    final var universe = Universe.get();
+    policy.pin(universe.getDefaultWorld().getName());
+
+    // Pinned worlds are loaded up front, so the first arrival doesn't wait for them
+    for (String name : pinnedWorlds) {
+      if (universe.getWorld(name) == null && universe.isWorldLoadable(name)) {
+        load(name);
+      }
+    }
+
+    if (unloading) {
+      checkTask =
+          HytaleServer.SCHEDULED_EXECUTOR.scheduleWithFixedDelay(
+              this::check, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public void stop() {
+    if (checkTask != null) {
+      checkTask.cancel(false);
+      checkTask = null;
+    }
+  }
+
+  /**
+   * @return whether the world was unloaded by this manager and can be loaded again
+   */
+  public boolean isUnloaded(@Nonnull String worldName) {
+    return unloaded.containsKey(key(worldName));
+  }
+
+  /**
+   * Keeps a world loaded until {@link #unpin}, e.g. a warm instance waiting for players.
+   *
+   * @param worldName the world, doesn't have to exist yet
+   */
+  public void pin(@Nonnull String worldName) {
+    policy.pin(worldName);
+  }
+
+  public void unpin(@Nonnull String worldName) {
+    policy.unpin(worldName);
+  }
+
+  /**
+   * Marks a world as used, so it is not unloaded right before a teleport arrives.
+   *
+   * @param worldName the targeted world
+   */
+  public void touch(@Nonnull String worldName) {
+    policy.touch(worldName, System.nanoTime());
+  }
+
+  /**
+   * Returns the world, loading it first if needed. Concurrent requests for the same world share one
+   * load.
+   *
+   * @param worldName the world to load
+   * @return future completed with the loaded world, exceptionally if it can't be loaded
+   */
+  @Nonnull
+  public CompletableFuture<World> load(@Nonnull String worldName) {
+    final var world = Universe.get().getWorld(worldName);
+    if (world != null) {
+      touch(worldName);
+      return CompletableFuture.completedFuture(world);
+    }
+    final var name = unloaded.getOrDefault(key(worldName), worldName);
+    return loading.computeIfAbsent(
+        key(name),
+        key ->
+            Universe.get()
+                .loadWorld(name)
+                .whenComplete(
+                    (loaded, error) -> {
+                      loading.remove(key);
+                      if (error != null) {
+                        logger.at(Level.WARNING).withCause(error).log("Failed to load " + name);
+                      } else {
+                        touch(name);
+                      }
+                    }));
+  }
+
+  private void check() {
+    try {
+      // Decide on the previous samples, then take new ones for the next check
+      final boolean overBudget =
+          memoryBudgetBytes > 0
+              && ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed()
+                  > memoryBudgetBytes;
+      final long now = System.nanoTime();
+      for (String name : policy.evictions(now, overBudget)) {
+        unload(name, now);
+      }
+      for (World world : Universe.get().getWorlds().values()) {
+        world.execute(
+            () -> policy.observe(world.getName(), world.getPlayerCount(), System.nanoTime()));
+      }
+    } catch (RuntimeException e) {
+      // Never let an exception cancel the periodic task
+      logger.at(Level.WARNING).withCause(e).log("World residency check failed");
+    }
+  }
+
+  /**
+   * Re-checks the world on its thread, then removes it from the scheduler. A world that got players,
+   * was touched or is the target of a pending teleport since it was selected stays loaded.
+   */
+  private void unload(@Nonnull String worldName, long selectedNanos) {
+    final var world = Universe.get().getWorld(worldName);
+    if (world == null) {
+      policy.remove(worldName);
+      return;
+    }
+    world.execute(
+        () -> {
+          if (world.getPlayerCount() == 0 && isIdle(world.getName(), selectedNanos)) {
+            HytaleServer.SCHEDULED_EXECUTOR.execute(() -> remove(world.getName(), selectedNanos));
+          }
+        });
+  }
+
+  private boolean isIdle(@Nonnull String worldName, long selectedNanos) {
+    return policy.isIdleSince(worldName, selectedNanos) && !arrivals.isExpected(worldName);
+  }
+
+  private void remove(@Nonnull String name, long selectedNanos) {
+    // A teleport may have been started while the world thread re-checked
+    if (!isIdle(name, selectedNanos)) {
+      return;
+    }
+    unloaded.put(key(name), name);
+    unloadedNames.add(name);
+    if (!Universe.get().removeWorld(name)) {
+      unloaded.remove(key(name));
+      unloadedNames.remove(name);
+      return;
+    }
+    logger.at(Level.INFO).log("Unloaded idle world " + name);
+  }
+
+  @Nonnull
+  private static String key(@Nonnull String worldName) {
+    return worldName.toLowerCase(Locale.ROOT);
+  }
+}
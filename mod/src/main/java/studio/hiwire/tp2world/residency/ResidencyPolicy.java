@@ -0,0 +1,159 @@
+package studio.hiwire.tp2world.residency;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+
+/**
+ * Decides which loaded worlds to unload. A world is cold if it is not pinned and had no players in
+ * its last sample. Cold worlds are unloaded once they have been idle for the idle time; while the
+ * server is over its memory budget, the least recently used cold world is unloaded as well, even
+ * before its idle time is up.
+ *
+ * <p>Thread-safe: samples are recorded from world threads, evictions are selected on the scheduler.
+ */
+public class ResidencyPolicy {
+
+  /** Nanoseconds a world must have been idle before it is unloaded for the memory budget. */
+  static final long OVER_BUDGET_GRACE_NANOS = 30_000_000_000L;
+
+  private final Set<String> pinned = ConcurrentHashMap.newKeySet();
+  private final long idleNanos;
+  private final Map<String, WorldState> worlds = new ConcurrentHashMap<>();
+
+  private static final class WorldState {
+    private final String name;
+    private volatile long lastActiveNanos;
+    private volatile int players;
+
+    private WorldState(@Nonnull String name, long nowNanos) {
+      this.name = name;
+      this.lastActiveNanos = nowNanos;
+    }
+  }
+
+  /**
+   * @param pinned names of worlds that are never unloaded
+   * @param idleNanos nanoseconds without players before a world is unloaded, negative to only
+   *     unload for the memory budget
+   */
+  public ResidencyPolicy(@Nonnull Iterable<String> pinned, long idleNanos) {
+    for (String name : pinned) {
+      pin(name);
+    }
+    this.idleNanos = idleNanos;
+  }
+
+  /** Excludes a world from unloading, e.g. the default world. */
+  public void pin(@Nonnull String worldName) {
+    pinned.add(key(worldName));
+  }
+
+  /** Allows a pinned world to be unloaded again. */
+  public void unpin(@Nonnull String worldName) {
+    pinned.remove(key(worldName));
+  }
+
+  public boolean isPinned(@Nonnull String worldName) {
+    return pinned.contains(key(worldName));
+  }
+
+  /**
+   * Records a sample of a loaded world. A world with players counts as active.
+   *
+   * @param worldName the world
+   * @param players its player count
+   * @param nowNanos {@link System#nanoTime()} of the sample
+   */
+  public void observe(@Nonnull String worldName, int players, long nowNanos) {
+    final var state = state(worldName, nowNanos);
+    state.players = players;
+    if (players > 0) {
+      state.lastActiveNanos = nowNanos;
+    }
+  }
+
+  /**
+   * Marks a world as used right now, e.g. because a teleport targets it or it was just loaded.
+   *
+   * @param worldName the world
+   * @param nowNanos {@link System#nanoTime()}
+   */
+  public void touch(@Nonnull String worldName, long nowNanos) {
+    state(worldName, nowNanos).lastActiveNanos = nowNanos;
+  }
+
+  /**
+   * Re-checks a world selected by {@link #evictions} right before it is unloaded.
+   *
+   * @param worldName the world
+   * @param sinceNanos {@link System#nanoTime()} when it was selected
+   * @return whether the world is still not pinned and was neither touched nor seen with players
+   *     since
+   */
+  public boolean isIdleSince(@Nonnull String worldName, long sinceNanos) {
+    final var state = worlds.get(key(worldName));
+    return state != null
+        && state.players == 0
+        && state.lastActiveNanos - sinceNanos < 0
+        && !pinned.contains(key(worldName));
+  }
+
+  /** Forgets a world that is no longer loaded. */
+  public void remove(@Nonnull String worldName) {
+    worlds.remove(key(worldName));
+  }
+
+  /**
+   * Selects the worlds to unload now, least recently used first.
+   *
+   * @param nowNanos {@link System#nanoTime()}
+   * @param overBudget whether the server currently uses more memory than its budget
+   * @return the names of the worlds to unload
+   */
+  @Nonnull
+  public List<String> evictions(long nowNanos, boolean overBudget) {
+    final var cold = new ArrayList<WorldState>();
+    for (WorldState state : worlds.values()) {
+      if (state.players == 0 && !pinned.contains(key(state.name))) {
+        cold.add(state);
+      }
+    }
+    if (cold.isEmpty()) {
+      return List.of();
+    }
+    cold.sort(Comparator.comparingLong(state -> state.lastActiveNanos));
+
+    final var result = new ArrayList<String>();
+    for (WorldState state : cold) {
+      final long idle = nowNanos - state.lastActiveNanos;
+      if (idleNanos >= 0 && idle >= idleNanos) {
+        result.add(state.name);
+      } else if (overBudget && result.isEmpty() && idle >= OVER_BUDGET_GRACE_NANOS) {
+        // One world per check, the next check sees whether that was enough
+        result.add(state.name);
+      }
+    }
+    return result;
+  }
+
+  @Nonnull
+  private WorldState state(@Nonnull String worldName, long nowNanos) {
+    final var key = key(worldName);
+    var state = worlds.get(key);
+    if (state == null) {
+      state = worlds.computeIfAbsent(key, ignored -> new WorldState(worldName, nowNanos));
+    }
+    return state;
+  }
+
+  @Nonnull
+  private static String key(@Nonnull String worldName) {
+    return worldName.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,405 @@
+package studio.hiwire.tp2world.snapshot;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.math.vector.Rotation3fc;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+import org.joml.Vector3d;
+import org.joml.Vector3dc;
+
+/**
+ * Locations of many players at one point in time, stored column by column: one primitive array per
+ * field, UUIDs as two longs and worlds as indexes into a name table. Reading and writing copies
+ * whole columns at once, so tens of thousands of entries take a few milliseconds.
+ *
+ * <p>Binary layout, big-endian:
+ *
+ * <pre>
+ * int    magic 'T2WS'
+ * short  version
+ * long   created at (epoch millis)
+ * int    world count, then every world name as modified UTF-8
+ * int    entry count n
+ * long[n] uuid most, long[n] uuid least, int[n] world index
+ * double[n] x, y, z
+ * float[n] head pitch, yaw, roll, body pitch, yaw, roll
+ * </pre>
+ *
+ * Instances are immutable.
+ */
+public final class LocationSnapshot {
+
+  private static final int MAGIC = 0x54325753;
+  private static final short VERSION = 1;
+
+  private final long createdAtMillis;
+  private final String[] worlds;
+  private final int size;
+  private final long[] uuidMost;
+  private final long[] uuidLeast;
+  private final int[] world;
+  private final double[] x;
+  private final double[] y;
+  private final double[] z;
+  private final float[] headPitch;
+  private final float[] headYaw;
+  private final float[] headRoll;
+  private final float[] bodyPitch;
+  private final float[] bodyYaw;
+  private final float[] bodyRoll;
+
+  private LocationSnapshot(long createdAtMillis, @Nonnull String[] worlds, int size) {
+    this.createdAtMillis = createdAtMillis;
+    this.worlds = worlds;
+    this.size = size;
+    this.uuidMost = new long[size];
+    this.uuidLeast = new long[size];
+    this.world = new int[size];
+    this.x = new double[size];
+    this.y = new double[size];
+    this.z = new double[size];
+    this.headPitch = new float[size];
+    this.headYaw = new float[size];
+    this.headRoll = new float[size];
+    this.bodyPitch = new float[size];
+    this.bodyYaw = new float[size];
+    this.bodyRoll = new float[size];
+  }
+
+  public long createdAtMillis() {
+    return createdAtMillis;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the number of distinct worlds in the snapshot
+   */
+  public int worldCount() {
+    return worlds.length;
+  }
+
+  @Nonnull
+  public UUID uuid(int index) {
+    return new UUID(uuidMost[index], uuidLeast[index]);
+  }
+
+  @Nonnull
+  public String worldName(int index) {
+    return worlds[world[index]];
+  }
+
+  @Nonnull
+  public Vector3d position(int index) {
+    return new Vector3d(x[index], y[index], z[index]);
+  }
+
+  @Nonnull
+  public Rotation3f headRotation(int index) {
+    return new Rotation3f(headPitch[index], headYaw[index], headRoll[index]);
+  }
+
+  @Nonnull
+  public Rotation3f bodyRotation(int index) {
+    return new Rotation3f(bodyPitch[index], bodyYaw[index], bodyRoll[index]);
+  }
+
+  /**
+   * @return the index of every entry by UUID
+   */
+  @Nonnull
+  public Map<UUID, Integer> indexByUuid() {
+    final var result = new HashMap<UUID, Integer>(size * 4 / 3 + 1);
+    for (int i = 0; i < size; i++) {
+      result.put(uuid(i), i);
+    }
+    return result;
+  }
+
+  /**
+   * Concatenates snapshots, e.g. the parts captured on the individual world threads. World names
+   * are deduplicated, entries keep their order.
+   *
+   * @param parts the snapshots to concatenate
+   * @param createdAtMillis creation time of the result
+   * @return the combined snapshot
+   */
+  @Nonnull
+  public static LocationSnapshot concat(
+      @Nonnull List<LocationSnapshot> parts, long createdAtMillis) {
+    final var worldIndex = new HashMap<String, Integer>();
+    int size = 0;
+    for (LocationSnapshot part : parts) {
+      for (String name : part.worlds) {
+        worldIndex.putIfAbsent(name, worldIndex.size());
+      }
+      size += part.size;
+    }
+    final var worlds = new String[worldIndex.size()];
+    for (Map.Entry<String, Integer> entry : worldIndex.entrySet()) {
+      worlds[entry.getValue()] = entry.getKey();
+    }
+
+    final var result = new LocationSnapshot(createdAtMillis, worlds, size);
+    int offset = 0;
+    for (LocationSnapshot part : parts) {
+      final int n = part.size;
+      System.arraycopy(part.uuidMost, 0, result.uuidMost, offset, n);
+      System.arraycopy(part.uuidLeast, 0, result.uuidLeast, offset, n);
+      System.arraycopy(part.x, 0, result.x, offset, n);
+      System.arraycopy(part.y, 0, result.y, offset, n);
+      System.arraycopy(part.z, 0, result.z, offset, n);
+      System.arraycopy(part.headPitch, 0, result.headPitch, offset, n);
+      System.arraycopy(part.headYaw, 0, result.headYaw, offset, n);
+      System.arraycopy(part.headRoll, 0, result.headRoll, offset, n);
+      System.arraycopy(part.bodyPitch, 0, result.bodyPitch, offset, n);
+      System.arraycopy(part.bodyYaw, 0, result.bodyYaw, offset, n);
+      System.arraycopy(part.bodyRoll, 0, result.bodyRoll, offset, n);
+      for (int i = 0; i < n; i++) {
+        result.world[offset + i] = worldIndex.get(part.worlds[part.world[i]]);
+      }
+      offset += n;
+    }
+    return result;
+  }
+
+  /**
+   * Writes the snapshot in the binary layout described on the class.
+   *
+   * @param out the stream to write to, not closed
+   */
+  public void write(@Nonnull OutputStream out) throws IOException {
+    final var data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeShort(VERSION);
+    data.writeLong(createdAtMillis);
+    data.writeInt(worlds.length);
+    for (String name : worlds) {
+      data.writeUTF(name);
+    }
+    data.writeInt(size);
+
+    // Every column is copied into one buffer and written at once
+    final var buffer = ByteBuffer.allocate(size * Long.BYTES);
+    writeColumn(data, buffer, uuidMost);
+    writeColumn(data, buffer, uuidLeast);
+    buffer.clear().asIntBuffer().put(world);
+    data.write(buffer.array(), 0, size * Integer.BYTES);
+    writeColumn(data, buffer, x);
+    writeColumn(data, buffer, y);
+    writeColumn(data, buffer, z);
+    for (float[] column :
+        new float[][] {headPitch, headYaw, headRoll, bodyPitch, bodyYaw, bodyRoll}) {
+      buffer.clear().asFloatBuffer().put(column);
+      data.write(buffer.array(), 0, size * Float.BYTES);
+    }
+    data.flush();
+  }
+
+  /**
+   * Reads a snapshot written by {@link #write}.
+   *
+   * @param in the stream to read from, not closed
+   * @return the snapshot
+   * @throws IOException if the stream ends early or is not a snapshot
+   */
+  @Nonnull
+  public static LocationSnapshot read(@Nonnull InputStream in) throws IOException {
+    final var data = new DataInputStream(in);
+    if (data.readInt() != MAGIC) {
+      throw new IOException("Not a location snapshot");
+    }
+    final short version = data.readShort();
+    if (version != VERSION) {
+      throw new IOException("Unsupported location snapshot version " + version);
+    }
+    final long createdAtMillis = data.readLong();
+    final int worldCount = data.readInt();
+    if (worldCount < 0) {
+      throw new IOException("Negative world count");
+    }
+    final var worlds = new String[worldCount];
+    for (int i = 0; i < worldCount; i++) {
+      worlds[i] = data.readUTF();
+    }
+    final int size = data.readInt();
+    if (size < 0 || size > Integer.MAX_VALUE / Long.BYTES) {
+      throw new IOException("Invalid entry count " + size);
+    }
+
+    final var result = new LocationSnapshot(createdAtMillis, worlds, size);
+    final var buffer = ByteBuffer.allocate(size * Long.BYTES);
+    readColumn(data, buffer, result.uuidMost);
+    readColumn(data, buffer, result.uuidLeast);
+    data.readFully(buffer.array(), 0, size * Integer.BYTES);
+    buffer.clear().asIntBuffer().get(result.world);
+    for (int index : result.world) {
+      if (index < 0 || index >= worldCount) {
+        throw new IOException("Invalid world index " + index);
+      }
+    }
+    readColumn(data, buffer, result.x);
+    readColumn(data, buffer, result.y);
+    readColumn(data, buffer, result.z);
+    for (float[] column :
+        new float[][] {
+          result.headPitch,
+          result.headYaw,
+          result.headRoll,
+          result.bodyPitch,
+          result.bodyYaw,
+          result.bodyRoll
+        }) {
+      data.readFully(buffer.array(), 0, size * Float.BYTES);
+      buffer.clear().asFloatBuffer().get(column);
+    }
+    return result;
+  }
+
+  private static void writeColumn(
+      @Nonnull DataOutputStream data, @Nonnull ByteBuffer buffer, @Nonnull long[] column)
+      throws IOException {
+    buffer.clear().asLongBuffer().put(column);
+    data.write(buffer.array(), 0, column.length * Long.BYTES);
+  }
+
+  private static void writeColumn(
+      @Nonnull DataOutputStream data, @Nonnull ByteBuffer buffer, @Nonnull double[] column)
+      throws IOException {
+    buffer.clear().asDoubleBuffer().put(column);
+    data.write(buffer.array(), 0, column.length * Double.BYTES);
+  }
+
+  private static void readColumn(
+      @Nonnull DataInputStream data, @Nonnull ByteBuffer buffer, @Nonnull long[] column)
+      throws IOException {
+    data.readFully(buffer.array(), 0, column.length * Long.BYTES);
+    buffer.clear().asLongBuffer().get(column);
+  }
+
+  private static void readColumn(
+      @Nonnull DataInputStream data, @Nonnull ByteBuffer buffer, @Nonnull double[] column)
+      throws IOException {
+    data.readFully(buffer.array(), 0, column.length * Double.BYTES);
+    buffer.clear().asDoubleBuffer().get(column);
+  }
+
+  /** Collects entries, e.g. the players of one world on its world thread. Not thread-safe. */
+  public static final class Builder {
+    private final Map<String, Integer> worldIndex = new HashMap<>();
+    private String[] worlds = new String[4];
+    private int size;
+    private long[] uuidMost;
+    private long[] uuidLeast;
+    private int[] world;
+    private double[] position;
+    private float[] rotation;
+
+    /**
+     * @param expectedSize initial capacity
+     */
+    public Builder(int expectedSize) {
+      final int capacity = Math.max(1, expectedSize);
+      uuidMost = new long[capacity];
+      uuidLeast = new long[capacity];
+      world = new int[capacity];
+      position = new double[capacity * 3];
+      rotation = new float[capacity * 6];
+    }
+
+    /**
+     * Adds one entry.
+     *
+     * @return this builder
+     */
+    @Nonnull
+    public Builder add(
+        @Nonnull UUID uuid,
+        @Nonnull String worldName,
+        @Nonnull Vector3dc position,
+        @Nonnull Rotation3fc headRotation,
+        @Nonnull Rotation3fc bodyRotation) {
+      if (size == uuidMost.length) {
+        grow();
+      }
+      uuidMost[size] = uuid.getMostSignificantBits();
+      uuidLeast[size] = uuid.getLeastSignificantBits();
+      world[size] = worldIndex(worldName);
+      this.position[size * 3] = position.x();
+      this.position[size * 3 + 1] = position.y();
+      this.position[size * 3 + 2] = position.z();
+      rotation[size * 6] = headRotation.pitch();
+      rotation[size * 6 + 1] = headRotation.yaw();
+      rotation[size * 6 + 2] = headRotation.roll();
+      rotation[size * 6 + 3] = bodyRotation.pitch();
+      rotation[size * 6 + 4] = bodyRotation.yaw();
+      rotation[size * 6 + 5] = bodyRotation.roll();
+      size++;
+      return this;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    /**
+     * @param createdAtMillis creation time of the snapshot
+     * @return the snapshot of all entries added so far
+     */
+    @Nonnull
+    public LocationSnapshot build(long createdAtMillis) {
+      final var result =
+          new LocationSnapshot(createdAtMillis, Arrays.copyOf(worlds, worldIndex.size()), size);
+      System.arraycopy(uuidMost, 0, result.uuidMost, 0, size);
+      System.arraycopy(uuidLeast, 0, result.uuidLeast, 0, size);
+      System.arraycopy(world, 0, result.world, 0, size);
+      for (int i = 0; i < size; i++) {
+        result.x[i] = position[i * 3];
+        result.y[i] = position[i * 3 + 1];
+        result.z[i] = position[i * 3 + 2];
+        result.headPitch[i] = rotation[i * 6];
+        result.headYaw[i] = rotation[i * 6 + 1];
+        result.headRoll[i] = rotation[i * 6 + 2];
+        result.bodyPitch[i] = rotation[i * 6 + 3];
+        result.bodyYaw[i] = rotation[i * 6 + 4];
+        result.bodyRoll[i] = rotation[i * 6 + 5];
+      }
+      return result;
+    }
+
+    private int worldIndex(@Nonnull String worldName) {
+      final var existing = worldIndex.get(worldName);
+      if (existing != null) {
+        return existing;
+      }
+      final int index = worldIndex.size();
+      if (index == worlds.length) {
+        worlds = Arrays.copyOf(worlds, index * 2);
+      }
+      worlds[index] = worldName;
+      worldIndex.put(worldName, index);
+      return index;
+    }
+
+    private void grow() {
+      final int capacity = uuidMost.length * 2;
+      uuidMost = Arrays.copyOf(uuidMost, capacity);
+      uuidLeast = Arrays.copyOf(uuidLeast, capacity);
+      world = Arrays.copyOf(world, capacity);
+      position = Arrays.copyOf(position, capacity * 3);
+      rotation = Arrays.copyOf(rotation, capacity * 6);
+    }
+  }
+}
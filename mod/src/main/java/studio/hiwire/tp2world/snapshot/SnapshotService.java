@@ -0,0 +1,296 @@
+package studio.hiwire.tp2world.snapshot;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.dispatch.WorldTask;
+import studio.hiwire.tp2world.notify.BatchSummary;
+import studio.hiwire.tp2world.teleport.Tp2WorldTeleporter;
+
+/**
+ * Captures the locations of all online players and restores them later. Both directions run one
+ * task per world: capturing reads every player of a world on its thread, restoring teleports every
+ * player of a source world in one go, whatever their target world is.
+ */
+public class SnapshotService {
+
+  /** Seconds after which a world task that did not run is given up on. */
+  private static final long TASK_TIMEOUT_SECONDS = 30;
+
+  @Nonnull private final WorldDispatcher dispatcher;
+
+  /**
+   * Outcome of a restore.
+   *
+   * @param restored players teleported back to their snapshot location
+   * @param skipped entries whose player is offline, whose world is gone or not permitted, or whose
+   *     teleport failed
+   * @param summary restored players per world and skipped entries per reason
+   */
+  public record RestoreResult(int restored, int skipped, @Nonnull BatchSummary summary) {}
+
+  public SnapshotService(@Nonnull WorldDispatcher dispatcher) {
+    this.dispatcher = dispatcher;
+  }
+
+  /**
+   * Captures the location of every online player.
+   *
+   * @return future completed with the snapshot once every world has been read
+   */
+  @Nonnull
+  public CompletableFuture<LocationSnapshot> capture() {
+    final var byWorld = new LinkedHashMap<World, List<PlayerRef>>();
+    for (PlayerRef playerRef : Universe.get().getPlayers()) {
+      final var ref = playerRef.getReference();
+      if (ref == null || !ref.isValid()) {
+        continue;
+      }
+      final var world = ref.getStore().getExternalData().getWorld();
+      byWorld.computeIfAbsent(world, ignored -> new ArrayList<>()).add(playerRef);
+    }
+
+    final var tasks = new ArrayList<CaptureTask>(byWorld.size());
+    for (Map.Entry<World, List<PlayerRef>> entry : byWorld.entrySet()) {
+      final var task = new CaptureTask(entry.getKey(), entry.getValue());
+      tasks.add(task);
+      dispatcher.submit(entry.getKey(), task);
+    }
+
+    final var futures = new CompletableFuture[tasks.size()];
+    for (int i = 0; i < futures.length; i++) {
+      // Times out a copy, done itself only ever completes with the world's part
+      futures[i] = tasks.get(i).done.copy().orTimeout(TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    return CompletableFuture.allOf(futures)
+        .handle(
+            (ignored, error) -> {
+              // Worlds that were removed meanwhile are left out
+              final var parts = new ArrayList<LocationSnapshot>(tasks.size());
+              for (CaptureTask task : tasks) {
+                final var part = task.done.getNow(null);
+                if (part != null) {
+                  parts.add(part);
+                }
+              }
+              return LocationSnapshot.concat(parts, System.currentTimeMillis());
+            });
+  }
+
+  /**
+   * Teleports every online player in the snapshot back to their snapshot location.
+   *
+   * @param snapshot the snapshot to restore
+   * @param allowed whether a player may be moved back to a world, players it denies are skipped
+   * @param restoredPlayer called on the source world thread for every restored player, null to not
+   *     notify anyone
+   * @return future completed with the outcome once every source world has run its batch
+   */
+  @Nonnull
+  public CompletableFuture<RestoreResult> restore(
+      @Nonnull LocationSnapshot snapshot,
+      @Nonnull BiPredicate<PlayerRef, World> allowed,
+      @Nullable BiConsumer<PlayerRef, World> restoredPlayer) {
+    final var universe = Universe.get();
+    final var index = snapshot.indexByUuid();
+    final var summary = new BatchSummary();
+    int online = 0;
+
+    final var bySourceWorld = new LinkedHashMap<World, RestoreTask>();
+    for (PlayerRef playerRef : universe.getPlayers()) {
+      final var entry = index.get(playerRef.getUuid());
+      if (entry == null) {
+        continue;
+      }
+      online++;
+      final var target = universe.getWorld(snapshot.worldName(entry));
+      if (target == null) {
+        summary.failed("world not loaded");
+        continue;
+      }
+      if (!allowed.test(playerRef, target)) {
+        summary.failed("no permission for world");
+        continue;
+      }
+      final var ref = playerRef.getReference();
+      if (ref == null || !ref.isValid()) {
+        summary.failed("player not in a world");
+        continue;
+      }
+      final var source = ref.getStore().getExternalData().getWorld();
+      bySourceWorld
+          .computeIfAbsent(
+              source, world -> new RestoreTask(world, snapshot, summary, restoredPlayer))
+          .add(playerRef, target, entry);
+    }
+    summary.failed("player offline", snapshot.size() - online);
+
+    final var tasks = List.copyOf(bySourceWorld.values());
+    final var futures = new CompletableFuture[tasks.size()];
+    for (int i = 0; i < futures.length; i++) {
+      final var task = tasks.get(i);
+      dispatcher.submit(task.source, task);
+      futures[i] = task.done.copy().orTimeout(TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    return CompletableFuture.allOf(futures)
+        .handle(
+            (ignored, error) -> {
+              // A task that didn't start in time must not teleport anyone after the summary was
+              // sent, one that is already running is waited for
+              final var running = new ArrayList<CompletableFuture<Void>>();
+              for (RestoreTask task : tasks) {
+                if (!task.claim()) {
+                  running.add(task.done);
+                }
+              }
+              return CompletableFuture.allOf(running.toArray(CompletableFuture[]::new));
+            })
+        .thenCompose(running -> running)
+        .thenApply(
+            ignored -> {
+              final int restored = summary.getTeleported();
+              // Players of a source world whose task never ran are neither restored nor failed
+              summary.failed("world removed", snapshot.size() - restored - summary.getFailed());
+              return new RestoreResult(restored, snapshot.size() - restored, summary);
+            });
+  }
+
+  /** Reads the location of all players of one world on its thread. */
+  private static final class CaptureTask extends WorldTask {
+    private final World world;
+    private final List<PlayerRef> players;
+    private final CompletableFuture<LocationSnapshot> done = new CompletableFuture<>();
+
+    private CaptureTask(@Nonnull World world, @Nonnull List<PlayerRef> players) {
+      this.world = world;
+      this.players = players;
+    }
+
+    @Override
+    protected void run() {
+      final var builder = new LocationSnapshot.Builder(players.size());
+      try {
+        for (PlayerRef playerRef : players) {
+          final var ref = playerRef.getReference();
+          if (ref == null || !ref.isValid()) {
+            continue;
+          }
+          final var store = ref.getStore();
+          if (store.getExternalData().getWorld() != world) {
+            // Changed world since the capture started, the player is captured nowhere
+            continue;
+          }
+          final var transform = store.getComponent(ref, TransformComponent.getComponentType());
+          final var headRotation = store.getComponent(ref, HeadRotation.getComponentType());
+          if (transform == null || headRotation == null) {
+            continue;
+          }
+          builder.add(
+              playerRef.getUuid(),
+              world.getName(),
+              transform.getPosition(),
+              headRotation.getRotation(),
+              transform.getRotation());
+        }
+      } finally {
+        done.complete(builder.build(System.currentTimeMillis()));
+      }
+    }
+  }
+
+  /** Teleports all snapshot players of one source world on its thread. */
+  private static final class RestoreTask extends WorldTask {
+    private final World source;
+    private final LocationSnapshot snapshot;
+    private final BatchSummary summary;
+    @Nullable private final BiConsumer<PlayerRef, World> restoredPlayer;
+    private final List<PlayerRef> players = new ArrayList<>();
+    private final List<World> targets = new ArrayList<>();
+    private final List<Integer> entries = new ArrayList<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private RestoreTask(
+        @Nonnull World source,
+        @Nonnull LocationSnapshot snapshot,
+        @Nonnull BatchSummary summary,
+        @Nullable BiConsumer<PlayerRef, World> restoredPlayer) {
+      this.source = source;
+      this.snapshot = snapshot;
+      this.summary = summary;
+      this.restoredPlayer = restoredPlayer;
+    }
+
+    private void add(@Nonnull PlayerRef playerRef, @Nonnull World target, int entry) {
+      players.add(playerRef);
+      targets.add(target);
+      entries.add(entry);
+    }
+
+    /**
+     * Claims the task for whoever comes first, the world thread or the restore giving up on it.
+     *
+     * @return true if the caller claimed it, false if it was claimed before
+     */
+    private boolean claim() {
+      return started.compareAndSet(false, true);
+    }
+
+    @Override
+    protected void run() {
+      if (!claim()) {
+        // Given up on, the summary has already been sent
+        return;
+      }
+      try {
+        for (int i = 0; i < players.size(); i++) {
+          final var playerRef = players.get(i);
+          final var ref = playerRef.getReference();
+          if (ref == null
+              || !ref.isValid()
+              || ref.getStore().getExternalData().getWorld() != source) {
+            summary.failed("player changed world");
+            continue;
+          }
+          final int entry = entries.get(i);
+          final Vector3d position = snapshot.position(entry);
+          final Rotation3f headRotation = snapshot.headRotation(entry);
+          final var options =
+              new Tp2WorldTeleporter.Options(
+                  Tp2WorldTeleporter.TargetPosition.absolute(position),
+                  headRotation,
+                  snapshot.bodyRotation(entry));
+          final var target = targets.get(i);
+          final var result = Tp2WorldTeleporter.teleport(ref.getStore(), ref, target, options);
+          if (!result.isSuccess()) {
+            summary.failed(result.status().name().toLowerCase(Locale.ROOT).replace('_', ' '));
+            continue;
+          }
+          summary.teleported(target.getName());
+          if (restoredPlayer != null) {
+            restoredPlayer.accept(playerRef, target);
+          }
+        }
+      } finally {
+        done.complete(null);
+      }
+    }
+  }
+}
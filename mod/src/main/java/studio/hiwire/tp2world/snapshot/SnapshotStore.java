@@ -0,0 +1,74 @@
+package studio.hiwire.tp2world.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/** Stores {@link LocationSnapshot}s as files in one directory, one file per snapshot name. */
+public class SnapshotStore {
+
+  /** Directory inside the plugin's data directory that snapshots are stored in. */
+  public static final String DIRECTORY = "snapshots";
+
+  private static final String EXTENSION = ".t2ws";
+  private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+  @Nonnull private final Path directory;
+
+  public SnapshotStore(@Nonnull Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return whether the name can be used as a snapshot name (letters, digits, _ and -)
+   */
+  public static boolean isValidName(@Nonnull String name) {
+    return NAME.matcher(name).matches();
+  }
+
+  /**
+   * Writes a snapshot, replacing an existing one of the same name. The file is written next to the
+   * target first and moved in place, so a crash never leaves a half written snapshot behind.
+   *
+   * @param name a valid snapshot name
+   * @param snapshot the snapshot to write
+   */
+  public void save(@Nonnull String name, @Nonnull LocationSnapshot snapshot) throws IOException {
+    Files.createDirectories(directory);
+    final var target = path(name);
+    final var temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try (var out = new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16)) {
+      snapshot.write(out);
+    }
+    Files.move(
+        temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * @param name a valid snapshot name
+   * @return the snapshot, or null if there is none of that name
+   */
+  @Nullable
+  public LocationSnapshot load(@Nonnull String name) throws IOException {
+    try (var in = new BufferedInputStream(Files.newInputStream(path(name)), 1 << 16)) {
+      return LocationSnapshot.read(in);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  @Nonnull
+  private Path path(@Nonnull String name) {
+    if (!isValidName(name)) {
+      throw new IllegalArgumentException("Invalid snapshot name: " + name);
+    }
+    return directory.resolve(name + EXTENSION);
+  }
+}
@@ -0,0 +1,77 @@
+package studio.hiwire.tp2world.spawn;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+
+/**
+ * Counts the players of one world into the cells of a {@link SpawnSet}. Counts only change when a
+ * player crosses a cell boundary, joins or leaves, so players walking around inside a cell cost one
+ * map lookup and one comparison per update.
+ *
+ * <p>Not thread-safe: one tracker belongs to one world and is only used on its thread.
+ *
+ * @param <K> the player key
+ */
+public final class OccupancyTracker<K> {
+
+  private final SpawnSet spawnSet;
+  private final Map<K, State> states = new HashMap<>();
+
+  private static final class State {
+    private long cellKey;
+    private int slot;
+  }
+
+  public OccupancyTracker(@Nonnull SpawnSet spawnSet) {
+    this.spawnSet = spawnSet;
+  }
+
+  /** Updates the position of a player. */
+  public void update(@Nonnull K player, double x, double z) {
+    final long cellKey = spawnSet.cellKey(x, z);
+    var state = states.get(player);
+    if (state == null) {
+      state = new State();
+      states.put(player, state);
+    } else if (state.cellKey == cellKey) {
+      return;
+    } else if (state.slot >= 0) {
+      spawnSet.occupy(state.slot, -1);
+    }
+
+    state.cellKey = cellKey;
+    state.slot = spawnSet.slot(cellKey);
+    if (state.slot >= 0) {
+      spawnSet.occupy(state.slot, 1);
+    }
+  }
+
+  /** Forgets a player, e.g. because they left the world. */
+  public void remove(@Nonnull K player) {
+    final var state = states.remove(player);
+    if (state != null && state.slot >= 0) {
+      spawnSet.occupy(state.slot, -1);
+    }
+  }
+
+  /** Forgets all players not matching the filter. */
+  public void retain(@Nonnull Predicate<K> filter) {
+    final Iterator<Map.Entry<K, State>> iterator = states.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final var entry = iterator.next();
+      if (!filter.test(entry.getKey())) {
+        iterator.remove();
+        if (entry.getValue().slot >= 0) {
+          spawnSet.occupy(entry.getValue().slot, -1);
+        }
+      }
+    }
+  }
+
+  public int size() {
+    return states.size();
+  }
+}
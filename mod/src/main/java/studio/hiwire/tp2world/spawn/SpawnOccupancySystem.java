@@ -0,0 +1,116 @@
+package studio.hiwire.tp2world.spawn;
+
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.RefSystem;
+import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+
+/**
+ * Keeps the player counts of the {@link SpawnSet}s up to date. Runs every tick for every player in
+ * a world with a spawn set, see {@link OccupancyTracker} for the cost per player. Players leaving a
+ * world, by moving to another one or disconnecting, are forgotten by its {@link #leaveSystem()}.
+ */
+public class SpawnOccupancySystem extends EntityTickingSystem<EntityStore> {
+
+  @Nonnull private final SpawnSets spawnSets;
+  private final Map<String, OccupancyTracker<Ref<EntityStore>>> trackers =
+      new ConcurrentHashMap<>();
+
+  public SpawnOccupancySystem(@Nonnull SpawnSets spawnSets) {
+    this.spawnSets = spawnSets;
+  }
+
+  /**
+   * @return the system that removes players from the counts when they are removed from a world,
+   *     register it next to this one
+   */
+  @Nonnull
+  public RefSystem<EntityStore> leaveSystem() {
+    return new LeaveSystem();
+  }
+
+  public void register(@Nonnull EventRegistry eventRegistry) {
+    eventRegistry.registerGlobal(
+        RemoveWorldEvent.class,
+        event -> {
+          final var tracker = trackers.remove(event.getWorld().getName());
+          if (tracker != null) {
+            // Counts live in the spawn set, which outlives the world
+            tracker.retain(ref -> false);
+          }
+        });
+  }
+
+  @Nonnull
+  @Override
+  public Query<EntityStore> getQuery() {
+    return Query.and(PlayerRef.getComponentType(), TransformComponent.getComponentType());
+  }
+
+  @Override
+  public void tick(
+      float dt,
+      int index,
+      @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+      @Nonnull Store<EntityStore> store,
+      @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+    final var world = store.getExternalData().getWorld();
+    var tracker = trackers.get(world.getName());
+    if (tracker == null) {
+      final var spawnSet = spawnSets.get(world.getName());
+      if (spawnSet == null) {
+        return;
+      }
+      tracker =
+          trackers.computeIfAbsent(world.getName(), ignored -> new OccupancyTracker<>(spawnSet));
+    }
+
+    final var position =
+        archetypeChunk.getComponent(index, TransformComponent.getComponentType()).getPosition();
+    tracker.update(archetypeChunk.getReferenceTo(index), position.x(), position.z());
+  }
+
+  /** Forgets players removed from a world's store, on the world thread. */
+  private final class LeaveSystem extends RefSystem<EntityStore> {
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+      return SpawnOccupancySystem.this.getQuery();
+    }
+
+    @Override
+    public void onEntityAdded(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull AddReason reason,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+      // Counted from the first tick in the world
+    }
+
+    @Override
+    public void onEntityRemove(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull RemoveReason reason,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+      final var tracker = trackers.get(store.getExternalData().getWorld().getName());
+      if (tracker != null) {
+        tracker.remove(ref);
+      }
+    }
+  }
+}
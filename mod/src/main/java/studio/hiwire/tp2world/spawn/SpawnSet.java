@@ -0,0 +1,149 @@
+package studio.hiwire.tp2world.spawn;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import javax.annotation.Nonnull;
+import org.joml.Vector3d;
+
+/**
+ * The spawn points of one world and how many players stand around each of them.
+ *
+ * <p>Players are counted on a coarse grid over the x/z plane, but only in the cells that contain a
+ * spawn point. The counts are kept up to date incrementally by an {@link OccupancyTracker} on the
+ * world thread and read by {@link #pick} from any thread.
+ *
+ * <p>Players picked for a point are counted as reservations until they had time to arrive, so a
+ * burst of teleports is spread across all points instead of piling onto the one that was empty.
+ */
+public final class SpawnSet {
+
+  /** How long a pick counts for its point, about the time a player needs to arrive. */
+  static final long RESERVATION_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  private final String world;
+  private final List<Point> points;
+  private final double cellSize;
+  private final Map<Long, Integer> slots;
+  private final int[] pointSlots;
+  private final AtomicIntegerArray occupants;
+
+  // Guarded by this
+  private final int[] reserved;
+  private long reservedSinceNanos;
+  private int cursor;
+
+  /**
+   * @param world the world the points are in
+   * @param points the spawn points, at least one
+   * @param cellSize edge length of a grid cell in blocks
+   */
+  public SpawnSet(@Nonnull String world, @Nonnull List<Point> points, int cellSize) {
+    if (points.isEmpty()) {
+      throw new IllegalArgumentException("A spawn set needs at least one point");
+    }
+    if (cellSize <= 0) {
+      throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+    }
+    this.world = world;
+    this.points = List.copyOf(points);
+    this.cellSize = cellSize;
+
+    // Points sharing a cell share its count
+    this.slots = new HashMap<>(points.size() * 2);
+    this.pointSlots = new int[points.size()];
+    for (int i = 0; i < points.size(); i++) {
+      final var position = points.get(i).position();
+      final long cellKey = cellKey(position.x(), position.z());
+      final int slot = slots.computeIfAbsent(cellKey, ignored -> slots.size());
+      pointSlots[i] = slot;
+    }
+    this.occupants = new AtomicIntegerArray(slots.size());
+    this.reserved = new int[slots.size()];
+    this.reservedSinceNanos = System.nanoTime();
+  }
+
+  @Nonnull
+  public String world() {
+    return world;
+  }
+
+  @Nonnull
+  public List<Point> points() {
+    return points;
+  }
+
+  /**
+   * @return the key of the grid cell containing the position
+   */
+  public long cellKey(double x, double z) {
+    final int cellX = (int) Math.floor(x / cellSize);
+    final int cellZ = (int) Math.floor(z / cellSize);
+    return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+  }
+
+  /**
+   * @param cellKey a key returned by {@link #cellKey}
+   * @return the counter of the cell, or -1 if no spawn point is in it
+   */
+  public int slot(long cellKey) {
+    final var slot = slots.get(cellKey);
+    return slot != null ? slot : -1;
+  }
+
+  /** Adds to the number of players in a counted cell, see {@link OccupancyTracker}. */
+  void occupy(int slot, int delta) {
+    occupants.addAndGet(slot, delta);
+  }
+
+  /**
+   * @return the number of players currently counted around the point
+   */
+  public int occupants(int point) {
+    return occupants.get(pointSlots[point]);
+  }
+
+  /**
+   * Picks the least crowded point, counting players standing around it and players recently sent
+   * to it. Ties go round-robin.
+   *
+   * @param nowNanos {@link System#nanoTime()}
+   * @return the picked point
+   */
+  @Nonnull
+  public synchronized Point pick(long nowNanos) {
+    if (nowNanos - reservedSinceNanos > RESERVATION_NANOS) {
+      // Everybody picked in the last window had time to show up in the counts
+      Arrays.fill(reserved, 0);
+      reservedSinceNanos = nowNanos;
+    }
+
+    int best = -1;
+    int bestCrowd = Integer.MAX_VALUE;
+    for (int n = 0; n < points.size(); n++) {
+      final int point = (cursor + n) % points.size();
+      final int slot = pointSlots[point];
+      final int crowd = occupants.get(slot) + reserved[slot];
+      if (crowd < bestCrowd) {
+        best = point;
+        bestCrowd = crowd;
+      }
+    }
+
+    reserved[pointSlots[best]]++;
+    cursor = (best + 1) % points.size();
+    return points.get(best);
+  }
+
+  /**
+   * A spawn point.
+   *
+   * @param position where players land
+   * @param rotation head rotation players land with, in radians
+   */
+  public record Point(@Nonnull Vector3d position, @Nonnull Rotation3f rotation) {}
+}
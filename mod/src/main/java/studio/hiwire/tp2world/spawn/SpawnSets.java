@@ -0,0 +1,98 @@
+package studio.hiwire.tp2world.spawn;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+import studio.hiwire.tp2world.config.SpawnPointConfig;
+import studio.hiwire.tp2world.config.SpawnSetConfig;
+
+/** The configured spawn sets, one {@link SpawnSet} per world. */
+public final class SpawnSets {
+
+  private final Map<String, SpawnSet> sets;
+
+  private SpawnSets(@Nonnull Map<String, SpawnSet> sets) {
+    this.sets = sets;
+  }
+
+  /**
+   * Compiles the configured spawn sets. Invalid points and sets without valid points are skipped
+   * and reported.
+   *
+   * @param configs the configured spawn sets
+   * @param cellSize edge length of a grid cell in blocks, falls back to 8 if not positive
+   * @param warnings receives a message for every skipped point or set
+   */
+  @Nonnull
+  public static SpawnSets compile(
+      @Nonnull SpawnSetConfig[] configs, int cellSize, @Nonnull Consumer<String> warnings) {
+    if (cellSize <= 0) {
+      warnings.accept("Spawn cell size " + cellSize + " is not positive, using 8");
+      cellSize = 8;
+    }
+
+    final var sets = new HashMap<String, SpawnSet>(configs.length * 2);
+    for (SpawnSetConfig config : configs) {
+      final var world = config.getWorld();
+      if (world == null || world.isBlank()) {
+        warnings.accept("Spawn set without world, skipping");
+        continue;
+      }
+      if (sets.containsKey(key(world))) {
+        warnings.accept("Spawn set for " + world + " is defined twice, skipping the second one");
+        continue;
+      }
+
+      final var points = new ArrayList<SpawnSet.Point>();
+      final var pointConfigs =
+          config.getPoints() != null ? config.getPoints() : new SpawnPointConfig[0];
+      for (int i = 0; i < pointConfigs.length; i++) {
+        final var position = pointConfigs[i].getPosition();
+        final var rotation = pointConfigs[i].getRotation();
+        if (position == null || position.length != 3) {
+          warnings.accept("Spawn point " + i + " of " + world + " needs x y z, skipping");
+          continue;
+        }
+        if (rotation != null && rotation.length != 3) {
+          warnings.accept(
+              "Spawn point " + i + " of " + world + " rotation needs pitch yaw roll, skipping");
+          continue;
+        }
+        points.add(
+            new SpawnSet.Point(
+                new Vector3d(position[0], position[1], position[2]),
+                rotation != null
+                    ? new Rotation3f((float) rotation[0], (float) rotation[1], (float) rotation[2])
+                    : new Rotation3f(0, 0, 0)));
+      }
+      if (points.isEmpty()) {
+        warnings.accept("Spawn set for " + world + " has no valid points, skipping");
+        continue;
+      }
+      sets.put(key(world), new SpawnSet(world, points, cellSize));
+    }
+    return new SpawnSets(sets);
+  }
+
+  /**
+   * @return the spawn set of the world, or null if the world uses its own spawn provider
+   */
+  @Nullable
+  public SpawnSet get(@Nonnull String worldName) {
+    return sets.isEmpty() ? null : sets.get(key(worldName));
+  }
+
+  public boolean isEmpty() {
+    return sets.isEmpty();
+  }
+
+  private static String key(String worldName) {
+    return worldName.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,95 @@
+package studio.hiwire.tp2world.teleport;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.math.vector.Rotation3fc;
+import javax.annotation.Nonnull;
+
+/**
+ * Per-thread scratch state for the head and body rotation of a teleport. The fallbacks of {@link
+ * Tp2WorldTeleporter} are applied to plain floats, so overridden and intermediate values cost
+ * nothing. Only the two rotations handed to the {@code Teleport} component are allocated, by {@link
+ * #newHeadRotation} and {@link #newBodyRotation}.
+ *
+ * <p>Obtained with {@link #get}, valid until the same thread calls {@link #get} again.
+ */
+public final class TargetRotations {
+
+  private static final ThreadLocal<TargetRotations> CURRENT =
+      ThreadLocal.withInitial(TargetRotations::new);
+
+  private static final float RADIANS_TO_DEGREES = 57.295776f;
+
+  private float headPitch;
+  private float headYaw;
+  private float headRoll;
+  private float bodyPitch;
+  private float bodyYaw;
+  private float bodyRoll;
+
+  TargetRotations() {}
+
+  /**
+   * @return the scratch state of the calling thread, with the values of its last use
+   */
+  @Nonnull
+  static TargetRotations get() {
+    return CURRENT.get();
+  }
+
+  @Nonnull
+  TargetRotations head(float pitch, float yaw, float roll) {
+    headPitch = pitch;
+    headYaw = yaw;
+    headRoll = roll;
+    return this;
+  }
+
+  @Nonnull
+  TargetRotations head(@Nonnull Rotation3fc rotation) {
+    return head(rotation.pitch(), rotation.yaw(), rotation.roll());
+  }
+
+  @Nonnull
+  TargetRotations body(@Nonnull Rotation3fc rotation) {
+    bodyPitch = rotation.pitch();
+    bodyYaw = rotation.yaw();
+    bodyRoll = rotation.roll();
+    return this;
+  }
+
+  /** Body rotation of a spawn point: pitch 0, the head's yaw, roll 0. */
+  @Nonnull
+  TargetRotations bodyFacingHead() {
+    bodyPitch = 0;
+    bodyYaw = headYaw;
+    bodyRoll = 0;
+    return this;
+  }
+
+  /** Body rotation without override: the previous pitch and roll, the head's yaw. */
+  @Nonnull
+  TargetRotations bodyFacingHead(@Nonnull Rotation3fc previousBodyRotation) {
+    bodyPitch = previousBodyRotation.pitch();
+    bodyYaw = headYaw;
+    bodyRoll = previousBodyRotation.roll();
+    return this;
+  }
+
+  @Nonnull
+  Rotation3f newHeadRotation() {
+    return new Rotation3f(headPitch, headYaw, headRoll);
+  }
+
+  @Nonnull
+  Rotation3f newBodyRotation() {
+    return new Rotation3f(bodyPitch, bodyYaw, bodyRoll);
+  }
+
+  /**
+   * @param radians an angle in radians, may be NaN
+   * @return the angle in degrees for display, 0 for NaN
+   */
+  public static float degrees(float radians) {
+    return Float.isNaN(radians) ? 0 : radians * RADIANS_TO_DEGREES;
+  }
+}
@@ -0,0 +1,57 @@
+package studio.hiwire.tp2world.teleport;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+
+/**
+ * Number of {@link Tp2WorldTeleporter} calls per target world and {@link
+ * Tp2WorldTeleporter.Result.Status}, for monitoring. Recording is lock-free and allocation-free
+ * once a world has been seen.
+ */
+public class TeleportCounters {
+
+  private final Map<String, LongAdder[]> worlds = new ConcurrentHashMap<>();
+
+  /**
+   * @param worldName the target world
+   * @param status how the call ended
+   */
+  public void record(@Nonnull String worldName, @Nonnull Tp2WorldTeleporter.Result.Status status) {
+    final var key = worldName.toLowerCase(Locale.ROOT);
+    var counters = worlds.get(key);
+    if (counters == null) {
+      counters = worlds.computeIfAbsent(key, ignored -> create());
+    }
+    counters[status.ordinal()].increment();
+  }
+
+  /**
+   * @return count per status, indexed by ordinal, per world name sorted by name
+   */
+  @Nonnull
+  public Map<String, long[]> snapshot() {
+    final var result = new TreeMap<String, long[]>();
+    for (Map.Entry<String, LongAdder[]> entry : worlds.entrySet()) {
+      final var counters = entry.getValue();
+      final var counts = new long[counters.length];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = counters[i].sum();
+      }
+      result.put(entry.getKey(), counts);
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static LongAdder[] create() {
+    final var counters = new LongAdder[Tp2WorldTeleporter.Result.Status.values().length];
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = new LongAdder();
+    }
+    return counters;
+  }
+}
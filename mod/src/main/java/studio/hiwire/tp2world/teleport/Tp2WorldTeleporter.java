@@ -0,0 +1,360 @@
+package studio.hiwire.tp2world.teleport;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.math.vector.Rotation3fc;
+import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import jdk.jfr.EventType;
+import org.joml.Vector3d;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.context.Tp2WorldContext;
+import studio.hiwire.tp2world.event.Tp2WorldPostTeleportEvent;
+import studio.hiwire.tp2world.event.Tp2WorldPreTeleportEvent;
+import studio.hiwire.tp2world.jfr.CommitEvent;
+import studio.hiwire.tp2world.jfr.SpawnResolveEvent;
+import studio.hiwire.tp2world.lastlocation.LastLocation;
+
+/**
+ * The tp2world teleport path: computes the target position and rotation of a player and adds the
+ * {@link Teleport} component. Used by the command and by every other feature that teleports a
+ * player into a world, so all of them behave the same. Must be called on the player's world
+ * thread.
+ *
+ * <ul>
+ *   <li>If position is not specified, uses the world's spawn point, or the least crowded point of
+ *       its spawn set. With {@code ReturnToLastLocation} and no other option, uses where the player
+ *       last left the world.
+ *   <li>If rotation is not specified, uses the spawn point's rotation (or 0 0 0 if custom position)
+ *   <li>If body rotation is not specified, uses (previousPitch, headYaw, previousRoll)
+ * </ul>
+ *
+ * Listeners of {@link Tp2WorldPreTeleportEvent} may cancel the teleport or change its target world
+ * and options before any of the above, listeners of {@link Tp2WorldPostTeleportEvent} are told
+ * once the teleport was started.
+ */
+public final class Tp2WorldTeleporter {
+
+  /** Looked up once, checking them is cheaper than creating events that are never committed. */
+  private static final EventType COMMIT_EVENT_TYPE = EventType.getEventType(CommitEvent.class);
+
+  private static final EventType SPAWN_RESOLVE_EVENT_TYPE =
+      EventType.getEventType(SpawnResolveEvent.class);
+
+  private Tp2WorldTeleporter() {}
+
+  /** Resolves the target position, e.g. relative to the player's current position. */
+  @FunctionalInterface
+  public interface TargetPosition {
+    @Nonnull
+    Vector3d resolve(@Nonnull Vector3d previousPosition, @Nonnull World targetWorld);
+
+    /**
+     * @param position the absolute target position
+     * @return a target position that ignores the player's current position
+     */
+    @Nonnull
+    static TargetPosition absolute(@Nonnull Vector3d position) {
+      return (previousPosition, targetWorld) -> new Vector3d(position);
+    }
+  }
+
+  /**
+   * Overrides of the spawn point. Null fields fall back to the defaults described on {@link
+   * Tp2WorldTeleporter}.
+   */
+  public record Options(
+      @Nullable TargetPosition position,
+      @Nullable Rotation3fc headRotation,
+      @Nullable Rotation3fc bodyRotation) {
+
+    public static final Options SPAWN = new Options(null, null, null);
+
+    public boolean usesSpawnPoint() {
+      return position == null && headRotation == null && bodyRotation == null;
+    }
+  }
+
+  /**
+   * @param world the world actually teleported to, a pre-teleport listener may have changed it
+   */
+  public record Result(
+      @Nonnull Status status,
+      @Nullable World world,
+      @Nullable Vector3d position,
+      @Nullable Rotation3f headRotation,
+      @Nullable Rotation3f bodyRotation) {
+    public enum Status {
+      TELEPORTED,
+      NOT_IN_WORLD,
+      SPAWN_NOT_SET,
+      CANCELLED
+    }
+
+    public static Result teleported(
+        @Nonnull World world,
+        @Nonnull Vector3d position,
+        @Nonnull Rotation3f headRotation,
+        @Nonnull Rotation3f bodyRotation) {
+      return new Result(Status.TELEPORTED, world, position, headRotation, bodyRotation);
+    }
+
+    public static Result notInWorld() {
+      return new Result(Status.NOT_IN_WORLD, null, null, null, null);
+    }
+
+    public static Result spawnNotSet() {
+      return new Result(Status.SPAWN_NOT_SET, null, null, null, null);
+    }
+
+    public static Result cancelled() {
+      return new Result(Status.CANCELLED, null, null, null, null);
+    }
+
+    public boolean isSuccess() {
+      return status == Status.TELEPORTED;
+    }
+  }
+
+  /**
+   * Teleports a player into the target world.
+   *
+   * @param store the store of the player's current world
+   * @param ref the player entity
+   * @param requestedWorld the world to teleport to
+   * @param requestedOptions overrides of the spawn point
+   * @return the result, with the target world, position and rotations on success
+   */
+  @Nonnull
+  public static Result teleport(
+      @Nonnull Store<EntityStore> store,
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull World requestedWorld,
+      @Nonnull Options requestedOptions) {
+    // Obtained once, a concurrent config reload can't change the services midway
+    final var context = Tp2WorldPlugin.context();
+    final var result = resolveAndTeleport(context, store, ref, requestedWorld, requestedOptions);
+    final var world = result.world() != null ? result.world() : requestedWorld;
+    context.teleportCounters().record(world.getName(), result.status());
+    return result;
+  }
+
+  @Nonnull
+  private static Result resolveAndTeleport(
+      @Nonnull Tp2WorldContext context,
+      @Nonnull Store<EntityStore> store,
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull World requestedWorld,
+      @Nonnull Options requestedOptions) {
+
+    // Get current position/rotation for relative calculations
+    final var transformComponent = store.getComponent(ref, TransformComponent.getComponentType());
+    final var headRotationComponent = store.getComponent(ref, HeadRotation.getComponentType());
+
+    if (transformComponent == null || headRotationComponent == null) {
+      return Result.notInWorld();
+    }
+
+    final var previousPos = transformComponent.getPosition();
+    final var previousBodyRotation = transformComponent.getRotation();
+    final var sourceWorld = store.getExternalData().getWorld();
+
+    // The event is only created if another plugin listens
+    final var events = context.teleportEvents();
+    var targetWorld = requestedWorld;
+    var options = requestedOptions;
+    if (!events.getPreTeleport().isEmpty()) {
+      final var preEvent =
+          events.fire(
+              events.getPreTeleport(),
+              new Tp2WorldPreTeleportEvent(
+                  ref,
+                  store,
+                  store.getComponent(ref, PlayerRef.getComponentType()),
+                  sourceWorld,
+                  targetWorld,
+                  options));
+      if (preEvent.isCancelled()) {
+        return Result.cancelled();
+      }
+      targetWorld = preEvent.getTargetWorld();
+      options = preEvent.getOptions();
+    }
+
+    // Going back to another world without a position lands where the player last left it
+    final var lastLocations = sourceWorld != targetWorld ? context.lastLocations() : null;
+    final var playerUuid = lastLocations != null ? playerUuid(store, ref) : null;
+    final var lastLocation =
+        playerUuid != null && options.usesSpawnPoint()
+            ? lastLocations.getStore().get(playerUuid, targetWorld.getName())
+            : null;
+
+    // Rotations are worked out in per-thread scratch state, only the final two are allocated
+    final var rotations = TargetRotations.get();
+    Vector3d targetPosition;
+    Teleport teleport = null;
+
+    // Worlds with several spawn points send every arrival to the least crowded one
+    final var spawnSet =
+        options.position() == null && lastLocation == null
+            ? context.spawnSets().get(targetWorld.getName())
+            : null;
+
+    if (lastLocation != null) {
+      targetPosition = new Vector3d(lastLocation.position());
+      rotations.head(lastLocation.headRotation()).body(lastLocation.bodyRotation());
+    } else if (options.usesSpawnPoint() && spawnSet != null) {
+      final var point = spawnSet.pick(System.nanoTime());
+      targetPosition = new Vector3d(point.position());
+      // Body rotation from spawn: pitch=0, yaw from spawn, roll=0
+      rotations.head(point.rotation()).bodyFacingHead();
+    } else if (options.usesSpawnPoint()) {
+      // Use world spawn point directly with createForPlayer
+      final var spawnPoint = resolveSpawnPoint(store, ref, targetWorld);
+
+      if (spawnPoint == null) {
+        return Result.spawnNotSet();
+      }
+
+      targetPosition = spawnPoint.getPosition();
+      // Body rotation from spawn: pitch=0, yaw from spawn, roll=0
+      rotations.head(spawnPoint.getRotation()).bodyFacingHead();
+      teleport = Teleport.createForPlayer(targetWorld, spawnPoint);
+    } else {
+      // Custom position or rotation - need to build teleport manually
+      if (options.position() != null) {
+        // Use provided position (supports relative coordinates like ~ ~10 ~)
+        targetPosition = options.position().resolve(previousPos, targetWorld);
+
+        // Default head rotation to 0 0 0 when custom position provided
+        rotations.head(0, 0, 0);
+      } else if (spawnSet != null) {
+        final var point = spawnSet.pick(System.nanoTime());
+        targetPosition = new Vector3d(point.position());
+        rotations.head(point.rotation());
+      } else {
+        // Use world spawn point position and rotation
+        final var spawnPoint = resolveSpawnPoint(store, ref, targetWorld);
+
+        if (spawnPoint == null) {
+          return Result.spawnNotSet();
+        }
+
+        targetPosition = spawnPoint.getPosition();
+        rotations.head(spawnPoint.getRotation());
+      }
+
+      // Apply head rotation override if provided
+      if (options.headRotation() != null) {
+        rotations.head(options.headRotation());
+      }
+
+      // Determine body rotation
+      if (options.bodyRotation() != null) {
+        rotations.body(options.bodyRotation());
+      } else {
+        // Default body rotation: preserve previous pitch/roll, use head yaw
+        rotations.bodyFacingHead(previousBodyRotation);
+      }
+    }
+
+    final var targetHeadRotation = rotations.newHeadRotation();
+    final var targetBodyRotation = rotations.newBodyRotation();
+    if (teleport == null) {
+      // Create teleport with target world (constructor needed for cross-world teleport)
+      teleport = new Teleport(targetWorld, targetPosition, targetBodyRotation);
+      teleport.setHeadRotation(targetHeadRotation);
+    }
+
+    // Only allocated while a recording wants the event
+    final var commitEvent = COMMIT_EVENT_TYPE.isEnabled() ? new CommitEvent() : null;
+    if (commitEvent != null) {
+      commitEvent.begin();
+    }
+    store.addComponent(ref, Teleport.getComponentType(), teleport);
+    if (commitEvent != null) {
+      commitEvent.end();
+      if (commitEvent.shouldCommit()) {
+        commitEvent.sourceWorld = store.getExternalData().getWorld().getName();
+        commitEvent.targetWorld = targetWorld.getName();
+        commitEvent.playerId = playerId(store, ref);
+        commitEvent.batchSize = 1;
+        commitEvent.commit();
+      }
+    }
+
+    // Recorded in memory only, written to disk in the background
+    if (playerUuid != null) {
+      lastLocations
+          .getStore()
+          .record(
+              playerUuid,
+              sourceWorld.getName(),
+              new LastLocation(
+                  new Vector3d(previousPos),
+                  new Rotation3f(headRotationComponent.getRotation()),
+                  new Rotation3f(previousBodyRotation)));
+    }
+
+    if (!events.getPostTeleport().isEmpty()) {
+      events.fire(
+          events.getPostTeleport(),
+          new Tp2WorldPostTeleportEvent(
+              ref,
+              store,
+              store.getComponent(ref, PlayerRef.getComponentType()),
+              sourceWorld,
+              targetWorld,
+              targetPosition,
+              targetHeadRotation,
+              targetBodyRotation));
+    }
+
+    return Result.teleported(targetWorld, targetPosition, targetHeadRotation, targetBodyRotation);
+  }
+
+  @Nullable
+  private static Transform resolveSpawnPoint(
+      @Nonnull Store<EntityStore> store,
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull World targetWorld) {
+    final var event = SPAWN_RESOLVE_EVENT_TYPE.isEnabled() ? new SpawnResolveEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
+    final var spawnPoint =
+        targetWorld.getWorldConfig().getSpawnProvider().getSpawnPoint(ref, store);
+    if (event != null) {
+      event.end();
+      if (event.shouldCommit()) {
+        event.targetWorld = targetWorld.getName();
+        event.playerId = playerId(store, ref);
+        event.found = spawnPoint != null;
+        event.commit();
+      }
+    }
+    return spawnPoint;
+  }
+
+  @Nullable
+  private static UUID playerUuid(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref) {
+    final var playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+    return playerRef != null ? playerRef.getUuid() : null;
+  }
+
+  /** Only called while a recording is running, resolving the id costs a component lookup. */
+  @Nullable
+  private static String playerId(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref) {
+    final var playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+    return playerRef != null ? playerRef.getUuid().toString() : null;
+  }
+}
@@ -9,19 +9,24 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import studio.hiwire.tp2world.jfr.MergeTranslationsEvent;
 
 /**
- * Handles file I/O for translation merging operations. Loads default translations from resources,
- * reads/writes user override files, and delegates the actual merging to {@link TranslationMerger}.
+ * Handles file I/O for translation merging operations. Loads default translations from the {@link
+ * TranslationIndex} built into the jar, or from resources if there is none, reads/writes user
+ * override files, and delegates the actual merging to {@link TranslationMerger}.
  */
 public class TranslationFileManager {
 
   private final ClassLoader classLoader;
   private final TranslationMerger merger;
+  private final Map<String, TranslationMerger.Defaults> index;
 
   public TranslationFileManager(ClassLoader classLoader) {
     this.classLoader = classLoader;
     this.merger = new TranslationMerger();
+    this.index = TranslationIndex.load(classLoader);
   }
 
   /**
@@ -32,26 +37,42 @@ public class TranslationFileManager {
    * @return merge result
    */
   public MergeResult merge(String resourcePath, Path targetPath) {
-    List<String> defaultLines;
-    try (InputStream in = classLoader.getResourceAsStream(resourcePath)) {
-      if (in == null) {
-        return MergeResult.resourceNotFound(resourcePath);
+    final var event = new MergeTranslationsEvent();
+    event.begin();
+    final var result = mergeFiles(resourcePath, targetPath);
+    event.end();
+    if (event.shouldCommit()) {
+      event.resourcePath = resourcePath;
+      event.status = result.status().name();
+      event.keyCount = result.count();
+      event.commit();
+    }
+    return result;
+  }
+
+  private MergeResult mergeFiles(String resourcePath, Path targetPath) {
+    TranslationMerger.Defaults defaults = index.get(resourcePath);
+    if (defaults == null) {
+      try (InputStream in = classLoader.getResourceAsStream(resourcePath)) {
+        if (in == null) {
+          return MergeResult.resourceNotFound(resourcePath);
+        }
+        defaults = merger.parseDefaults(readAllLines(in));
+      } catch (IOException e) {
+        return MergeResult.error(e.getMessage());
       }
-      defaultLines = readAllLines(in);
-    } catch (IOException e) {
-      return MergeResult.error(e.getMessage());
     }
 
     try {
       if (!Files.exists(targetPath)) {
         Files.createDirectories(targetPath.getParent());
-        List<String> result = merger.generateOverride(defaultLines);
+        List<String> result = merger.generateOverride(defaults);
         Files.write(targetPath, result, StandardCharsets.UTF_8);
-        return MergeResult.createdOverride(targetPath, countKeys(defaultLines));
+        return MergeResult.createdOverride(targetPath, countKeys(defaults.lines()));
       }
 
       List<String> userLines = Files.readAllLines(targetPath, StandardCharsets.UTF_8);
-      TranslationMerger.MergeOutput output = merger.merge(defaultLines, userLines);
+      TranslationMerger.MergeOutput output = merger.merge(defaults, userLines);
 
       if (output.addedCount() == 0 && output.updatedCount() == 0) {
         return MergeResult.noChanges();
@@ -0,0 +1,187 @@
+package studio.hiwire.tp2world.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Binary index of the bundled translation files, written by the {@code buildTranslationIndex}
+ * Gradle task and embedded in the jar. Holds every file already parsed by {@link
+ * TranslationMerger#parseDefaults}: its lines, the key order, values and the context lines above
+ * every key (as line ranges), plus a SHA-256 digest of the lines. Loading it replaces reading and
+ * parsing the {@code .lang} resources at startup.
+ *
+ * <p>Without an index, e.g. in tests or IDE runs, or with a damaged one, {@link
+ * TranslationFileManager} parses the resources as before.
+ */
+public class TranslationIndex {
+
+  /** Classpath location of the index. */
+  public static final String RESOURCE_PATH = "HiWire/Tp2World/translations.index";
+
+  private static final int MAGIC = 0x54325749; // "T2WI"
+  private static final int VERSION = 1;
+  private static final String LANGUAGES_PATH = "Server/Languages";
+
+  private TranslationIndex() {}
+
+  /**
+   * Loads the index from the classpath.
+   *
+   * @param classLoader the class loader of the mod
+   * @return the parsed files by resource path, empty without a usable index
+   */
+  public static Map<String, TranslationMerger.Defaults> load(ClassLoader classLoader) {
+    try (InputStream in = classLoader.getResourceAsStream(RESOURCE_PATH)) {
+      if (in == null) {
+        return Map.of();
+      }
+      return read(in);
+    } catch (IOException | RuntimeException e) {
+      // Parsing the text files still works
+      return Map.of();
+    }
+  }
+
+  /**
+   * Reads an index. Files whose lines don't match their digest are left out.
+   *
+   * @param in the index, not closed
+   * @return the parsed files by resource path
+   * @throws IOException if the stream is not an index of this version or truncated
+   */
+  public static Map<String, TranslationMerger.Defaults> read(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+      throw new IOException("Not a translation index of version " + VERSION);
+    }
+
+    Map<String, TranslationMerger.Defaults> files = new LinkedHashMap<>();
+    int fileCount = data.readInt();
+    for (int f = 0; f < fileCount; f++) {
+      String resourcePath = data.readUTF();
+      byte[] digest = new byte[32];
+      data.readFully(digest);
+
+      List<String> lines = new ArrayList<>();
+      int lineCount = data.readInt();
+      for (int i = 0; i < lineCount; i++) {
+        lines.add(data.readUTF());
+      }
+
+      List<TranslationMerger.Defaults.Key> keys = new ArrayList<>();
+      int keyCount = data.readInt();
+      for (int i = 0; i < keyCount; i++) {
+        String key = data.readUTF();
+        String value = data.readUTF();
+        int line = data.readInt();
+        int contextStart = data.readInt();
+        if (line < 0 || line >= lineCount || contextStart < 0 || contextStart > line) {
+          throw new IOException("Line out of range in " + resourcePath);
+        }
+        keys.add(new TranslationMerger.Defaults.Key(key, value, line, contextStart));
+      }
+
+      if (Arrays.equals(digest, digest(lines))) {
+        files.put(
+            resourcePath, new TranslationMerger.Defaults(List.copyOf(lines), List.copyOf(keys)));
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Writes an index.
+   *
+   * @param files the parsed files by resource path
+   * @param out the target, not closed
+   */
+  public static void write(Map<String, TranslationMerger.Defaults> files, OutputStream out)
+      throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(files.size());
+    for (Map.Entry<String, TranslationMerger.Defaults> file : files.entrySet()) {
+      TranslationMerger.Defaults defaults = file.getValue();
+      data.writeUTF(file.getKey());
+      data.write(digest(defaults.lines()));
+
+      data.writeInt(defaults.lines().size());
+      for (String line : defaults.lines()) {
+        data.writeUTF(line);
+      }
+
+      data.writeInt(defaults.keys().size());
+      for (TranslationMerger.Defaults.Key key : defaults.keys()) {
+        data.writeUTF(key.key());
+        data.writeUTF(key.value());
+        data.writeInt(key.line());
+        data.writeInt(key.contextStart());
+      }
+    }
+    data.flush();
+  }
+
+  /**
+   * @return SHA-256 of the lines joined with line feeds
+   */
+  static byte[] digest(List<String> lines) {
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      for (String line : lines) {
+        sha256.update(line.getBytes(StandardCharsets.UTF_8));
+        sha256.update((byte) '\n');
+      }
+      return sha256.digest();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required by every JRE", e);
+    }
+  }
+
+  /**
+   * Build step: parses every {@code .lang} file below a resources directory and writes the index.
+   *
+   * @param args the resources directory (containing {@code Server/Languages}) and the index file
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      throw new IllegalArgumentException("Usage: TranslationIndex <resources dir> <index file>");
+    }
+    Path resources = Path.of(args[0]);
+    Path target = Path.of(args[1]);
+
+    TranslationMerger merger = new TranslationMerger();
+    Map<String, TranslationMerger.Defaults> files = new LinkedHashMap<>();
+    List<Path> langFiles;
+    try (Stream<Path> walk = Files.walk(resources.resolve(LANGUAGES_PATH))) {
+      langFiles = walk.filter(path -> path.toString().endsWith(".lang")).sorted().toList();
+    }
+    for (Path file : langFiles) {
+      // Same path the plugin asks the class loader for
+      String resourcePath = resources.relativize(file).toString().replace('\\', '/');
+      files.put(
+          resourcePath, merger.parseDefaults(Files.readAllLines(file, StandardCharsets.UTF_8)));
+    }
+
+    Files.createDirectories(target.getParent());
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+      write(files, out);
+    }
+  }
+}
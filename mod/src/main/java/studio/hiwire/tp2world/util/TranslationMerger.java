@@ -28,6 +28,24 @@ public class TranslationMerger {
 
   public record MergeOutput(List<String> lines, int addedCount, int updatedCount) {}
 
+  /**
+   * A parsed default translation file. Built by {@link #parseDefaults} or loaded from a {@link
+   * TranslationIndex} that was built the same way.
+   *
+   * @param lines the lines of the file
+   * @param keys the translations in file order
+   */
+  public record Defaults(List<String> lines, List<Key> keys) {
+
+    /**
+     * @param key the translation key
+     * @param value the translation, everything after the first {@code =}
+     * @param line index of the translation's line
+     * @param contextStart index of the first blank or comment line directly above it
+     */
+    public record Key(String key, String value, int line, int contextStart) {}
+  }
+
   /**
    * Generates an override file with all translations commented out.
    *
@@ -35,14 +53,41 @@ public class TranslationMerger {
    * @return lines for the override file with all translations commented out
    */
   public List<String> generateOverride(List<String> defaultLines) {
-    List<ParsedLine> parsed = parseLines(defaultLines);
+    return generateOverride(parseDefaults(defaultLines));
+  }
+
+  /**
+   * Generates an override file with all translations commented out.
+   *
+   * @param defaults the parsed default translation file
+   * @return lines for the override file with all translations commented out
+   */
+  public List<String> generateOverride(Defaults defaults) {
     List<String> result = new ArrayList<>();
-    for (ParsedLine line : parsed) {
-      result.add(commentOutLine(line.raw()));
+    for (String line : defaults.lines()) {
+      result.add(commentOutLine(line));
     }
     return normalizeEmptyLines(result);
   }
 
+  /**
+   * Parses a default translation file once, so it can be merged or stored in an index.
+   *
+   * @param defaultLines lines from the default translation file
+   * @return the lines with their translations
+   */
+  public Defaults parseDefaults(List<String> defaultLines) {
+    List<Defaults.Key> keys = new ArrayList<>();
+    int contextStart = 0;
+    for (int i = 0; i < defaultLines.size(); i++) {
+      if (parseLine(defaultLines.get(i)) instanceof ParsedLine.ActiveLine active) {
+        keys.add(new Defaults.Key(active.key(), active.value(), i, contextStart));
+        contextStart = i + 1;
+      }
+    }
+    return new Defaults(List.copyOf(defaultLines), List.copyOf(keys));
+  }
+
   /**
    * Merges default translations with user's override file.
    *
@@ -51,13 +96,23 @@ public class TranslationMerger {
    * @return merge output containing the merged lines and statistics
    */
   public MergeOutput merge(List<String> defaultLines, List<String> userLines) {
-    List<ParsedLine> defaultParsed = parseLines(defaultLines);
+    return merge(parseDefaults(defaultLines), userLines);
+  }
+
+  /**
+   * Merges default translations with user's override file.
+   *
+   * @param defaults the parsed default translation file
+   * @param userLines lines from the user's override file
+   * @return merge output containing the merged lines and statistics
+   */
+  public MergeOutput merge(Defaults defaults, List<String> userLines) {
     List<ParsedLine> userParsed = parseLines(userLines);
 
-    List<String> defaultKeyOrder = extractKeyOrder(defaultParsed);
+    List<String> defaultKeyOrder = extractKeyOrder(defaults);
     Map<String, Integer> userKeyPositions = buildKeyPositionMap(userParsed);
-    Map<String, String> defaultValues = buildDefaultValuesMap(defaultParsed);
-    Map<String, TranslationEntry> defaultEntries = buildEntryMap(defaultParsed);
+    Map<String, String> defaultValues = buildDefaultValuesMap(defaults);
+    Map<String, TranslationEntry> defaultEntries = buildEntryMap(defaults);
 
     List<String> newKeys = new ArrayList<>();
     for (String key : defaultKeyOrder) {
@@ -137,12 +192,10 @@ public class TranslationMerger {
     return new String[] {null, null};
   }
 
-  private List<String> extractKeyOrder(List<ParsedLine> parsed) {
+  private List<String> extractKeyOrder(Defaults defaults) {
     List<String> keys = new ArrayList<>();
-    for (ParsedLine line : parsed) {
-      if (line instanceof ParsedLine.ActiveLine active) {
-        keys.add(active.key());
-      }
+    for (Defaults.Key key : defaults.keys()) {
+      keys.add(key.key());
     }
     return keys;
   }
@@ -169,27 +222,22 @@ public class TranslationMerger {
 
   private record TranslationEntry(String line, List<String> precedingLines) {}
 
-  private Map<String, TranslationEntry> buildEntryMap(List<ParsedLine> parsed) {
+  private Map<String, TranslationEntry> buildEntryMap(Defaults defaults) {
     Map<String, TranslationEntry> entries = new LinkedHashMap<>();
-    List<String> context = new ArrayList<>();
-
-    for (ParsedLine line : parsed) {
-      if (line instanceof ParsedLine.BlankLine || line instanceof ParsedLine.CommentLine) {
-        context.add(line.raw());
-      } else if (line instanceof ParsedLine.ActiveLine active) {
-        entries.put(active.key(), new TranslationEntry(active.raw(), new ArrayList<>(context)));
-        context.clear();
-      }
+    for (Defaults.Key key : defaults.keys()) {
+      entries.put(
+          key.key(),
+          new TranslationEntry(
+              defaults.lines().get(key.line()),
+              defaults.lines().subList(key.contextStart(), key.line())));
     }
     return entries;
   }
 
-  private Map<String, String> buildDefaultValuesMap(List<ParsedLine> parsed) {
+  private Map<String, String> buildDefaultValuesMap(Defaults defaults) {
     Map<String, String> values = new LinkedHashMap<>();
-    for (ParsedLine line : parsed) {
-      if (line instanceof ParsedLine.ActiveLine active) {
-        values.put(active.key(), active.value());
-      }
+    for (Defaults.Key key : defaults.keys()) {
+      values.put(key.key(), key.value());
     }
     return values;
   }
@@ -0,0 +1,98 @@
+package studio.hiwire.tp2world.admin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import studio.hiwire.tp2world.arrival.Arrival;
+import studio.hiwire.tp2world.arrival.ArrivalMetrics;
+
+class MetricsExporterTest {
+
+  @Nested
+  class Counters {
+
+    @Test
+    void shouldWriteOneSamplePerWorldAndStatus() {
+      final var output =
+          new MetricsExporter().teleports(Map.of("lobby", new long[] {3, 1, 0, 2})).toString();
+
+      assertTrue(output.contains("# TYPE tp2world_teleports_total counter\n"));
+      assertTrue(
+          output.contains("tp2world_teleports_total{world=\"lobby\",status=\"teleported\"} 3\n"));
+      assertTrue(
+          output.contains("tp2world_teleports_total{world=\"lobby\",status=\"not_in_world\"} 1\n"));
+      assertTrue(
+          output.contains("tp2world_teleports_total{world=\"lobby\",status=\"cancelled\"} 2\n"));
+    }
+
+    @Test
+    void shouldWriteQueueDepthsAndPlainValues() {
+      final var depths = new TreeMap<String, Integer>();
+      depths.put("arena", 0);
+      depths.put("lobby", 7);
+
+      final var output =
+          new MetricsExporter()
+              .queueDepths(depths)
+              .value("tp2world_pending_arrivals", "gauge", "Pending.", 4)
+              .toString();
+
+      assertEquals(
+          """
+          # HELP tp2world_dispatch_queue_depth tp2world tasks waiting for their world thread.
+          # TYPE tp2world_dispatch_queue_depth gauge
+          tp2world_dispatch_queue_depth{world="arena"} 0
+          tp2world_dispatch_queue_depth{world="lobby"} 7
+          # HELP tp2world_pending_arrivals Pending.
+          # TYPE tp2world_pending_arrivals gauge
+          tp2world_pending_arrivals 4
+          """,
+          output);
+    }
+
+    @Test
+    void shouldEscapeLabelValues() {
+      final var output = new MetricsExporter().queueDepths(Map.of("a\"b\\c\nd", 1)).toString();
+
+      assertTrue(output.contains("tp2world_dispatch_queue_depth{world=\"a\\\"b\\\\c\\nd\"} 1\n"));
+    }
+  }
+
+  @Nested
+  class Histogram {
+
+    @Test
+    void shouldWriteCumulativeBuckets() {
+      final var metrics = new ArrivalMetrics();
+      metrics.record(new Arrival(Arrival.Status.ARRIVED, "lobby", 3_000_000));
+      metrics.record(new Arrival(Arrival.Status.ARRIVED, "lobby", 40_000_000));
+      metrics.record(new Arrival(Arrival.Status.ARRIVED, "lobby", 60_000_000_000L));
+      metrics.record(new Arrival(Arrival.Status.TIMED_OUT, "lobby", 0));
+
+      final var output = new MetricsExporter().arrivals(metrics.snapshot()).toString();
+
+      assertTrue(
+          output.contains("tp2world_arrivals_total{world=\"lobby\",outcome=\"arrived\"} 3\n"));
+      assertTrue(
+          output.contains("tp2world_arrivals_total{world=\"lobby\",outcome=\"timed_out\"} 1\n"));
+      assertTrue(
+          output.contains(
+              "tp2world_arrival_latency_seconds_bucket{world=\"lobby\",le=\"0.005\"} 1\n"));
+      assertTrue(
+          output.contains(
+              "tp2world_arrival_latency_seconds_bucket{world=\"lobby\",le=\"0.05\"} 2\n"));
+      assertTrue(
+          output.contains(
+              "tp2world_arrival_latency_seconds_bucket{world=\"lobby\",le=\"10.0\"} 2\n"));
+      assertTrue(
+          output.contains(
+              "tp2world_arrival_latency_seconds_bucket{world=\"lobby\",le=\"+Inf\"} 3\n"));
+      assertTrue(output.contains("tp2world_arrival_latency_seconds_sum{world=\"lobby\"} 60.043\n"));
+      assertTrue(output.contains("tp2world_arrival_latency_seconds_count{world=\"lobby\"} 3\n"));
+    }
+  }
+}
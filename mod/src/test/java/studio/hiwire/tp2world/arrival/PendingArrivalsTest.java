@@ -0,0 +1,110 @@
+package studio.hiwire.tp2world.arrival;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class PendingArrivalsTest {
+
+  private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+  private static final long MILLIS = 1_000_000L;
+
+  @Nested
+  class Outcomes {
+
+    @Test
+    void shouldCompleteOnArrivalInTargetWorld() {
+      final var pending = new PendingArrivals(new ArrivalMetrics());
+      final var future = pending.expect(PLAYER, "Arena", 100 * MILLIS, 1000 * MILLIS);
+
+      assertFalse(pending.arrived(PLAYER, "lobby", 110 * MILLIS));
+      assertTrue(pending.arrived(PLAYER, "arena", 130 * MILLIS));
+
+      final var arrival = future.join();
+      assertEquals(Arrival.Status.ARRIVED, arrival.status());
+      assertEquals(30 * MILLIS, arrival.latencyNanos());
+      assertEquals(0, pending.size());
+    }
+
+    @Test
+    void shouldReportWorldsWithPendingTeleports() {
+      final var pending = new PendingArrivals(new ArrivalMetrics());
+      pending.expect(PLAYER, "Arena", 0, 1000 * MILLIS);
+
+      assertTrue(pending.isExpected("arena"));
+      assertFalse(pending.isExpected("lobby"));
+
+      pending.arrived(PLAYER, "arena", 10 * MILLIS);
+      assertFalse(pending.isExpected("arena"));
+    }
+
+    @Test
+    void shouldTimeOutAfterDeadline() {
+      final var pending = new PendingArrivals(new ArrivalMetrics());
+      final var future = pending.expect(PLAYER, "arena", 0, 1000 * MILLIS);
+
+      assertEquals(0, pending.expire(999 * MILLIS));
+      assertEquals(1, pending.expire(1000 * MILLIS));
+
+      assertEquals(Arrival.Status.TIMED_OUT, future.join().status());
+      assertFalse(pending.arrived(PLAYER, "arena", 1001 * MILLIS));
+    }
+
+    @Test
+    void shouldEndOnDisconnect() {
+      final var pending = new PendingArrivals(new ArrivalMetrics());
+      final var future = pending.expect(PLAYER, "arena", 0, 1000 * MILLIS);
+
+      assertTrue(pending.disconnected(PLAYER, 5 * MILLIS));
+
+      assertEquals(Arrival.Status.DISCONNECTED, future.join().status());
+    }
+
+    @Test
+    void shouldReplaceOlderTeleportOfSamePlayer() {
+      final var pending = new PendingArrivals(new ArrivalMetrics());
+      final var first = pending.expect(PLAYER, "arena", 0, 1000 * MILLIS);
+      final var second = pending.expect(PLAYER, "lobby", 10 * MILLIS, 1000 * MILLIS);
+
+      assertEquals(Arrival.Status.REPLACED, first.join().status());
+      assertFalse(second.isDone());
+      assertTrue(pending.arrived(PLAYER, "lobby", 20 * MILLIS));
+      assertEquals(10 * MILLIS, second.join().latencyNanos());
+    }
+  }
+
+  @Nested
+  class Metrics {
+
+    @Test
+    void shouldRecordOutcomesAndLatencyPerWorld() {
+      final var metrics = new ArrivalMetrics();
+      final var pending = new PendingArrivals(metrics);
+      final var other = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+      pending.expect(PLAYER, "Arena", 0, 1000 * MILLIS);
+      pending.arrived(PLAYER, "arena", 40 * MILLIS);
+      pending.expect(other, "arena", 0, 1000 * MILLIS);
+      pending.expire(2000 * MILLIS);
+
+      final var snapshot = metrics.snapshot().get("arena");
+      assertEquals(1, snapshot.count(Arrival.Status.ARRIVED));
+      assertEquals(1, snapshot.count(Arrival.Status.TIMED_OUT));
+      assertEquals(1, snapshot.buckets()[ArrivalMetrics.bucket(40)]);
+      assertEquals(40 * MILLIS, snapshot.latencySumNanos());
+      assertEquals(40 * MILLIS, snapshot.latencyMaxNanos());
+    }
+
+    @Test
+    void shouldPutLatencyIntoUpperBoundBucket() {
+      assertEquals(0, ArrivalMetrics.bucket(0));
+      assertEquals(0, ArrivalMetrics.bucket(5));
+      assertEquals(1, ArrivalMetrics.bucket(6));
+      assertEquals(ArrivalMetrics.BUCKET_BOUNDS_MILLIS.length, ArrivalMetrics.bucket(60_000));
+    }
+  }
+}
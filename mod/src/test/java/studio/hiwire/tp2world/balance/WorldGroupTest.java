@@ -0,0 +1,94 @@
+package studio.hiwire.tp2world.balance;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class WorldGroupTest {
+
+  private static WorldGroup group(int maxPlayersPerWorld, int... players) {
+    final var worlds = new String[players.length];
+    for (int i = 0; i < players.length; i++) {
+      worlds[i] = "lobby-" + (i + 1);
+    }
+    final var group = new WorldGroup("lobby", List.of(worlds), maxPlayersPerWorld);
+    for (int i = 0; i < players.length; i++) {
+      group.record(i, new WorldLoad(true, players[i], 0), 0);
+    }
+    return group;
+  }
+
+  @Nested
+  class Pick {
+
+    @Test
+    void shouldPickLeastPlayers() {
+      assertEquals("lobby-2", group(-1, 10, 3, 7).pick());
+    }
+
+    @Test
+    void shouldCountPendingArrivals() {
+      final var group = group(-1, 5, 5);
+
+      assertEquals("lobby-1", group.pick());
+      assertEquals("lobby-2", group.pick());
+      assertEquals("lobby-1", group.pick());
+      assertEquals(2, group.pending(0));
+    }
+
+    @Test
+    void shouldWeighTickLag() {
+      final var group = group(-1, 5, 5);
+      group.record(0, new WorldLoad(true, 5, 10 * WorldGroup.LAG_NANOS_PER_PLAYER), 0);
+
+      assertEquals("lobby-2", group.pick());
+    }
+
+    @Test
+    void shouldSkipUnavailableAndFullWorlds() {
+      final var group = group(10, 1, 10, 2);
+      group.record(0, WorldLoad.UNAVAILABLE, 0);
+
+      assertEquals("lobby-3", group.pick());
+    }
+
+    @Test
+    void shouldReturnNullWhenAllFull() {
+      assertNull(group(5, 5, 6).pick());
+    }
+
+    @Test
+    void shouldForgetArrivedPendingOnSample() {
+      final var group = group(-1, 0);
+      group.pick();
+      group.pick();
+
+      group.record(0, new WorldLoad(true, 2, 0), group.pending(0));
+
+      assertEquals(0, group.pending(0));
+    }
+  }
+
+  @Nested
+  class Spread {
+
+    @Test
+    void shouldEvenOutLoads() {
+      final var group = group(-1, 0, 4, 2);
+
+      assertArrayEquals(new int[] {5, 1, 3}, group.spread(9));
+      assertEquals(5, group.pending(0));
+    }
+
+    @Test
+    void shouldStopAtCapacity() {
+      final var group = group(3, 1, 2);
+
+      assertArrayEquals(new int[] {2, 1}, group.spread(10));
+    }
+  }
+}
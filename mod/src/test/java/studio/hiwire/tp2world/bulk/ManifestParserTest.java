@@ -0,0 +1,129 @@
+package studio.hiwire.tp2world.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class ManifestParserTest {
+
+  private static final double EPSILON = 1e-6;
+
+  @Nested
+  class Csv {
+
+    @Test
+    void shouldParsePlayerAndWorld() {
+      final var parsed = ManifestParser.parse(ManifestParser.Format.CSV, " alice , arena ", 3);
+
+      final var row = parsed.row();
+      assertNotNull(row);
+      assertEquals(3, row.lineNumber());
+      assertEquals("alice", row.player());
+      assertEquals("arena", row.world());
+      assertNull(row.position());
+      assertNull(row.headRotation());
+    }
+
+    @Test
+    void shouldParsePositionAndRotation() {
+      final var row =
+          ManifestParser.parse(ManifestParser.Format.CSV, "alice,arena,1,64.5,-3,0,1.5,0", 1).row();
+
+      assertNotNull(row);
+      assertEquals(64.5, row.position().y(), EPSILON);
+      assertEquals(-3, row.position().z(), EPSILON);
+      assertEquals(1.5f, row.headRotation().yaw(), EPSILON);
+    }
+
+    @Test
+    void shouldSkipCommentsAndBlankLines() {
+      assertTrue(ManifestParser.parse(ManifestParser.Format.CSV, "# round 1", 2).isSkipped());
+      assertTrue(ManifestParser.parse(ManifestParser.Format.CSV, "   ", 3).isSkipped());
+    }
+
+    @Test
+    void shouldDetectHeader() {
+      assertTrue(ManifestParser.isHeader(ManifestParser.Format.CSV, " Player , world,x,y,z"));
+      assertFalse(ManifestParser.isHeader(ManifestParser.Format.CSV, "alice,player"));
+      assertFalse(ManifestParser.isHeader(ManifestParser.Format.JSON_LINES, "player,world"));
+    }
+
+    @Test
+    void shouldParsePlayerNamedPlayer() {
+      final var row = ManifestParser.parse(ManifestParser.Format.CSV, "Player,arena", 7).row();
+
+      assertNotNull(row);
+      assertEquals("Player", row.player());
+    }
+
+    @Test
+    void shouldRejectWrongColumnCount() {
+      final var parsed = ManifestParser.parse(ManifestParser.Format.CSV, "alice,arena,1,2", 1);
+
+      assertNull(parsed.row());
+      assertNotNull(parsed.error());
+    }
+
+    @Test
+    void shouldRejectNonNumericCoordinate() {
+      final var parsed = ManifestParser.parse(ManifestParser.Format.CSV, "alice,arena,1,up,3", 1);
+
+      assertTrue(parsed.error().contains("column 4"));
+    }
+
+    @Test
+    void shouldRejectEmptyPlayer() {
+      assertNotNull(ManifestParser.parse(ManifestParser.Format.CSV, ",arena", 1).error());
+    }
+  }
+
+  @Nested
+  class JsonLines {
+
+    @Test
+    void shouldParseFullRow() {
+      final var row =
+          ManifestParser.parse(
+                  ManifestParser.Format.JSON_LINES,
+                  "{\"player\": \"bob\", \"world\": \"arena\", \"position\": [1, 2, 3],"
+                      + " \"rotation\": [0, 0.5, 0]}",
+                  7)
+              .row();
+
+      assertNotNull(row);
+      assertEquals("bob", row.player());
+      assertEquals(2, row.position().y(), EPSILON);
+      assertEquals(0.5f, row.headRotation().yaw(), EPSILON);
+    }
+
+    @Test
+    void shouldRejectInvalidJson() {
+      assertNotNull(
+          ManifestParser.parse(ManifestParser.Format.JSON_LINES, "{\"player\": ", 1).error());
+    }
+
+    @Test
+    void shouldRejectMalformedPosition() {
+      final var parsed =
+          ManifestParser.parse(
+              ManifestParser.Format.JSON_LINES,
+              "{\"player\": \"bob\", \"world\": \"arena\", \"position\": [1, 2]}",
+              1);
+
+      assertNotNull(parsed.error());
+    }
+  }
+
+  @Test
+  void shouldDetectFormatFromFileName() {
+    assertEquals(ManifestParser.Format.CSV, ManifestParser.Format.forFileName("Round1.CSV"));
+    assertEquals(
+        ManifestParser.Format.JSON_LINES, ManifestParser.Format.forFileName("roster.jsonl"));
+    assertNull(ManifestParser.Format.forFileName("roster.txt"));
+  }
+}
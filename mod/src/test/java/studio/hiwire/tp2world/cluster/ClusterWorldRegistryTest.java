@@ -0,0 +1,149 @@
+package studio.hiwire.tp2world.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class ClusterWorldRegistryTest {
+
+  private static final long TIMEOUT = 15_000;
+
+  private AtomicLong clock;
+  private ClusterWorldRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    clock = new AtomicLong(1_000);
+    registry = new ClusterWorldRegistry("node-a", TIMEOUT, clock::get);
+  }
+
+  private static NodeAnnouncement announce(String nodeId, String... worlds) {
+    return new NodeAnnouncement(nodeId, "127.0.0.1", 5521, List.of(worlds), 0);
+  }
+
+  @Nested
+  class Announcements {
+
+    @Test
+    void shouldFindAnnouncedWorldIgnoringCase() {
+      registry.accept(announce("node-b", "Lobby-1"));
+
+      final var world = registry.find("lobby-1");
+
+      assertNotNull(world);
+      assertEquals("Lobby-1", world.worldName());
+      assertEquals("node-b", world.nodeId());
+      assertEquals(5521, world.port());
+    }
+
+    @Test
+    void shouldIgnoreOwnAnnouncements() {
+      registry.accept(announce("node-a", "hub"));
+
+      assertNull(registry.find("hub"));
+    }
+
+    @Test
+    void shouldReplacePreviousWorldListOfNode() {
+      registry.accept(announce("node-b", "arena", "hub"));
+      registry.accept(announce("node-b", "hub"));
+
+      assertNull(registry.find("arena"));
+      assertNotNull(registry.find("hub"));
+      assertEquals(List.of("hub"), registry.getWorldNames().complete("", 10));
+    }
+
+    @Test
+    void shouldKeepWorldTakenOverByOtherNode() {
+      registry.accept(announce("node-b", "arena"));
+      registry.accept(announce("node-c", "arena"));
+      registry.accept(announce("node-b"));
+
+      assertEquals("node-c", registry.find("arena").nodeId());
+    }
+  }
+
+  @Nested
+  class Expiry {
+
+    @Test
+    void shouldHideWorldsOfSilentNodes() {
+      registry.accept(announce("node-b", "arena"));
+
+      clock.addAndGet(TIMEOUT + 1);
+
+      assertNull(registry.find("arena"));
+    }
+
+    @Test
+    void shouldDropSilentNodesOnExpire() {
+      registry.accept(announce("node-b", "arena"));
+      clock.addAndGet(TIMEOUT / 2);
+      registry.accept(announce("node-c", "hub"));
+      clock.addAndGet(TIMEOUT / 2 + 1);
+
+      registry.expire();
+
+      assertEquals(1, registry.size());
+      assertNotNull(registry.find("hub"));
+      assertTrue(registry.getWorldNames().complete("arena", 10).isEmpty());
+    }
+  }
+
+  @Nested
+  class Loopback {
+
+    @Test
+    void shouldGossipAndHandOffBetweenNodes() {
+      final var hub = new LoopbackTransport.Hub();
+      final var transportA = new LoopbackTransport(hub);
+      final var transportB = new LoopbackTransport(hub);
+      final var registryB = new ClusterWorldRegistry("node-b", TIMEOUT, clock::get);
+      final var handoffsB = new ArrayList<TransferTicket>();
+
+      transportA.start("node-a", listener(registry, new ArrayList<>()));
+      transportB.start("node-b", listener(registryB, handoffsB));
+
+      transportA.publish(announce("node-a", "hub"));
+      transportB.publish(announce("node-b", "arena"));
+
+      assertNotNull(registry.find("arena"));
+      assertNotNull(registryB.find("hub"));
+      assertNull(registry.find("hub"));
+
+      final var ticket =
+          new TransferTicket(
+              UUID.randomUUID(), "node-a", "arena", null, null, null, Long.MAX_VALUE);
+      assertTrue(transportA.handoff("node-b", ticket).join());
+      assertEquals(List.of(ticket), handoffsB);
+
+      transportB.stop();
+      assertFalse(transportA.handoff("node-b", ticket).join());
+    }
+
+    private ClusterTransport.Listener listener(
+        ClusterWorldRegistry target, List<TransferTicket> handoffs) {
+      return new ClusterTransport.Listener() {
+        @Override
+        public void onAnnouncement(NodeAnnouncement announcement) {
+          target.accept(announcement);
+        }
+
+        @Override
+        public void onHandoff(TransferTicket ticket) {
+          handoffs.add(ticket);
+        }
+      };
+    }
+  }
+}
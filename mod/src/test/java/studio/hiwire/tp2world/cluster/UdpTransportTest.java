@@ -0,0 +1,169 @@
+package studio.hiwire.tp2world.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.joml.Vector3d;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Runs two nodes over real sockets on loopback, like two servers on one machine. */
+class UdpTransportTest {
+
+  private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+  private static final long WAIT_MILLIS = 5000;
+
+  private Node nodeA;
+  private Node nodeB;
+
+  /** One node: its transport and the registry its announcements feed. */
+  private static final class Node implements ClusterTransport.Listener {
+    final String id;
+    final UdpTransport transport;
+    final ClusterWorldRegistry registry;
+    final CompletableFuture<TransferTicket> handoff = new CompletableFuture<>();
+
+    Node(String id, InetSocketAddress address, InetSocketAddress peer) {
+      this.id = id;
+      this.transport = new UdpTransport(address, List.of(peer), LOGGER);
+      this.registry = new ClusterWorldRegistry(id, WAIT_MILLIS, System::currentTimeMillis);
+    }
+
+    @Override
+    public void onAnnouncement(NodeAnnouncement announcement) {
+      registry.accept(announcement);
+    }
+
+    @Override
+    public void onHandoff(TransferTicket ticket) {
+      handoff.complete(ticket);
+    }
+
+    void announce(String... worlds) {
+      transport.publish(
+          new NodeAnnouncement(id, "127.0.0.1", 5520, List.of(worlds), System.currentTimeMillis()));
+    }
+  }
+
+  private static InetSocketAddress freeAddress() throws SocketException {
+    try (var socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+      return (InetSocketAddress) socket.getLocalSocketAddress();
+    }
+  }
+
+  private static void awaitWorld(Node node, String worldName) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+    while (node.registry.find(worldName) == null && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+
+  private static TransferTicket ticket(String sourceNodeId, String worldName) {
+    return new TransferTicket(
+        UUID.randomUUID(),
+        sourceNodeId,
+        worldName,
+        new Vector3d(1.5, 64, -3),
+        new Rotation3f(0.1f, 1.2f, 0),
+        null,
+        System.currentTimeMillis() + WAIT_MILLIS);
+  }
+
+  @BeforeEach
+  void setUp() throws SocketException {
+    final var addressA = freeAddress();
+    final var addressB = freeAddress();
+    nodeA = new Node("node-a", addressA, addressB);
+    nodeB = new Node("node-b", addressB, addressA);
+    nodeA.transport.start(nodeA.id, nodeA);
+    nodeB.transport.start(nodeB.id, nodeB);
+  }
+
+  @AfterEach
+  void tearDown() {
+    nodeA.transport.stop();
+    nodeB.transport.stop();
+  }
+
+  @Nested
+  class Announcements {
+
+    @Test
+    void shouldShareWorldsBetweenBothRegistries() throws InterruptedException {
+      nodeA.announce("hub");
+      nodeB.announce("arena-1", "arena-2");
+      awaitWorld(nodeA, "arena-2");
+      awaitWorld(nodeB, "hub");
+
+      final var arena = nodeA.registry.find("arena-2");
+      assertNotNull(arena);
+      assertEquals("node-b", arena.nodeId());
+      assertNotNull(nodeB.registry.find("hub"));
+      assertNull(nodeA.registry.find("hub"));
+    }
+  }
+
+  @Nested
+  class Handoffs {
+
+    @Test
+    void shouldDeliverTicketToAnnouncedNode() throws Exception {
+      nodeB.announce("arena");
+      awaitWorld(nodeA, "arena");
+      final var sent = ticket("node-a", "arena");
+
+      final boolean accepted =
+          nodeA.transport.handoff("node-b", sent).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+
+      assertTrue(accepted);
+      final var received = nodeB.handoff.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+      assertEquals(sent.playerUuid(), received.playerUuid());
+      assertEquals("arena", received.worldName());
+      assertEquals(-3, received.position().z());
+      assertEquals(1.2f, received.headRotation().yaw());
+      assertNull(received.bodyRotation());
+    }
+
+    @Test
+    void shouldRefuseHandoffToUnknownNode() throws Exception {
+      final boolean accepted =
+          nodeA
+              .transport
+              .handoff("node-c", ticket("node-a", "arena"))
+              .get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+
+      assertFalse(accepted);
+    }
+
+    @Test
+    void shouldRefuseHandoffAfterTargetStopped() throws Exception {
+      nodeB.announce("arena");
+      awaitWorld(nodeA, "arena");
+      nodeB.transport.stop();
+
+      final boolean accepted =
+          nodeA
+              .transport
+              .handoff("node-b", ticket("node-a", "arena"))
+              .get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+
+      assertFalse(accepted);
+      assertFalse(nodeB.handoff.isDone());
+    }
+  }
+}
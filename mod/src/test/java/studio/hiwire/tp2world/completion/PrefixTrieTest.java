@@ -0,0 +1,129 @@
+package studio.hiwire.tp2world.completion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+
+  private PrefixTrie trie;
+
+  @BeforeEach
+  void setUp() {
+    trie = new PrefixTrie();
+  }
+
+  @Nested
+  class Complete {
+
+    @Test
+    void shouldReturnNamesWithPrefixInAlphabeticalOrder() {
+      trie.add("lobby-2");
+      trie.add("arena");
+      trie.add("lobby-1");
+
+      assertEquals(List.of("lobby-1", "lobby-2"), trie.complete("lob", 10));
+    }
+
+    @Test
+    void shouldIgnoreCaseButKeepOriginalSpelling() {
+      trie.add("Lobby");
+      trie.add("ARENA");
+
+      assertEquals(List.of("Lobby"), trie.complete("lO", 10));
+      assertEquals(List.of("ARENA"), trie.complete("arena", 10));
+    }
+
+    @Test
+    void shouldReturnAllNamesForEmptyPrefix() {
+      trie.add("b");
+      trie.add("a");
+
+      assertEquals(List.of("a", "b"), trie.complete("", 10));
+    }
+
+    @Test
+    void shouldBoundResultCount() {
+      for (int i = 0; i < 100; i++) {
+        trie.add("instance-" + i);
+      }
+
+      assertEquals(5, trie.complete("instance", 5).size());
+      assertEquals(List.of("instance-0", "instance-1"), trie.complete("inst", 2));
+    }
+
+    @Test
+    void shouldReturnEmptyForUnknownPrefixOrZeroLimit() {
+      trie.add("hub");
+
+      assertTrue(trie.complete("x", 10).isEmpty());
+      assertTrue(trie.complete("h", 0).isEmpty());
+    }
+
+    @Test
+    void shouldIncludeNameEqualToPrefix() {
+      trie.add("lobby");
+      trie.add("lobby-1");
+
+      assertEquals(List.of("lobby", "lobby-1"), trie.complete("lobby", 10));
+    }
+  }
+
+  @Nested
+  class Updates {
+
+    @Test
+    void shouldCountDistinctNames() {
+      assertTrue(trie.add("hub"));
+      assertFalse(trie.add("HUB"));
+
+      assertEquals(1, trie.size());
+      assertEquals(List.of("HUB"), trie.complete("h", 10));
+    }
+
+    @Test
+    void shouldRemoveNameButKeepSiblings() {
+      trie.add("lobby");
+      trie.add("lobby-1");
+
+      assertTrue(trie.remove("lobby"));
+
+      assertEquals(List.of("lobby-1"), trie.complete("lob", 10));
+      assertEquals(1, trie.size());
+    }
+
+    @Test
+    void shouldPruneRemovedBranches() {
+      trie.add("arena");
+      trie.remove("arena");
+
+      assertTrue(trie.complete("a", 10).isEmpty());
+      assertEquals(0, trie.size());
+    }
+
+    @Test
+    void shouldIgnoreUnknownNamesOnRemove() {
+      trie.add("arena");
+
+      assertFalse(trie.remove("are"));
+      assertFalse(trie.remove("arenas"));
+      assertEquals(1, trie.size());
+    }
+
+    @Test
+    void shouldClearAllNames() {
+      trie.add("a");
+      trie.add("b");
+
+      trie.clear();
+
+      assertEquals(0, trie.size());
+      assertTrue(trie.complete("", 10).isEmpty());
+    }
+  }
+}
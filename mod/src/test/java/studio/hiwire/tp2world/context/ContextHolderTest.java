@@ -0,0 +1,67 @@
+package studio.hiwire.tp2world.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class ContextHolderTest {
+
+  private final ContextHolder<Integer> holder = new ContextHolder<>();
+
+  @Nested
+  class BeforePublish {
+
+    @Test
+    void shouldRejectGetAndUpdate() {
+      assertThrows(IllegalStateException.class, holder::get);
+      assertThrows(IllegalStateException.class, () -> holder.update(value -> value + 1));
+      assertNull(holder.getOrNull());
+    }
+  }
+
+  @Nested
+  class AfterPublish {
+
+    @Test
+    void shouldReturnPublishedContext() {
+      holder.publish(1);
+
+      assertEquals(1, holder.get());
+      assertEquals(2, holder.update(value -> value + 1));
+      assertEquals(2, holder.get());
+    }
+
+    @Test
+    void shouldNotLoseConcurrentUpdates() throws InterruptedException {
+      holder.publish(0);
+      final int threads = 8;
+      final int updatesPerThread = 10_000;
+      final var start = new CountDownLatch(1);
+
+      try (var executor = Executors.newFixedThreadPool(threads)) {
+        for (int t = 0; t < threads; t++) {
+          executor.execute(
+              () -> {
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  return;
+                }
+                for (int i = 0; i < updatesPerThread; i++) {
+                  holder.update(value -> value + 1);
+                }
+              });
+        }
+        start.countDown();
+      }
+
+      assertEquals(threads * updatesPerThread, holder.get());
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package studio.hiwire.tp2world.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TaskQueueTest {
+
+  /** Collects runnables instead of running them, like a world between two ticks. */
+  private static final class ManualExecutor implements java.util.concurrent.Executor {
+    private final List<Runnable> scheduled = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable command) {
+      scheduled.add(command);
+    }
+
+    void runAll() {
+      final var pending = new ArrayList<>(scheduled);
+      scheduled.clear();
+      pending.forEach(Runnable::run);
+    }
+  }
+
+  private static final class RecordingTask extends WorldTask {
+    private final List<String> log;
+    private final String name;
+
+    RecordingTask(List<String> log, String name) {
+      this.log = log;
+      this.name = name;
+    }
+
+    @Override
+    protected void run() {
+      log.add(name);
+    }
+  }
+
+  @Nested
+  class Batching {
+
+    @Test
+    void shouldScheduleOneDrainForManySubmits() {
+      final var executor = new ManualExecutor();
+      final var queue = new TaskQueue(executor, e -> {});
+      final var log = new ArrayList<String>();
+
+      for (int i = 0; i < 10; i++) {
+        queue.submit(new RecordingTask(log, "t" + i));
+      }
+
+      assertEquals(1, executor.scheduled.size());
+      executor.runAll();
+      assertEquals(10, log.size());
+      assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void shouldCountQueuedTasksUntilDrained() {
+      final var executor = new ManualExecutor();
+      final var queue = new TaskQueue(executor, e -> {});
+      final var log = new ArrayList<String>();
+
+      queue.submit(new RecordingTask(log, "a"));
+      queue.submit(new RecordingTask(log, "b"));
+      assertEquals(2, queue.size());
+
+      executor.runAll();
+      assertEquals(0, queue.size());
+    }
+
+    @Test
+    void shouldRunInSubmissionOrder() {
+      final var executor = new ManualExecutor();
+      final var queue = new TaskQueue(executor, e -> {});
+      final var log = new ArrayList<String>();
+
+      queue.submit(new RecordingTask(log, "a"));
+      queue.submit(new RecordingTask(log, "b"));
+      queue.submit(new RecordingTask(log, "c"));
+      executor.runAll();
+
+      assertEquals(List.of("a", "b", "c"), log);
+    }
+
+    @Test
+    void shouldScheduleAgainAfterDrain() {
+      final var executor = new ManualExecutor();
+      final var queue = new TaskQueue(executor, e -> {});
+      final var log = new ArrayList<String>();
+      final var task = new RecordingTask(log, "again");
+
+      queue.submit(task);
+      executor.runAll();
+      queue.submit(task);
+
+      assertEquals(1, executor.scheduled.size());
+      executor.runAll();
+      assertEquals(List.of("again", "again"), log);
+    }
+  }
+
+  @Nested
+  class Errors {
+
+    @Test
+    void shouldKeepRunningAfterFailingTask() {
+      final var executor = new ManualExecutor();
+      final var errors = new ArrayList<RuntimeException>();
+      final var queue = new TaskQueue(executor, errors::add);
+      final var log = new ArrayList<String>();
+
+      queue.submit(
+          new WorldTask() {
+            @Override
+            protected void run() {
+              throw new IllegalStateException("boom");
+            }
+          });
+      queue.submit(new RecordingTask(log, "after"));
+      executor.runAll();
+
+      assertEquals(1, errors.size());
+      assertEquals(List.of("after"), log);
+    }
+  }
+}
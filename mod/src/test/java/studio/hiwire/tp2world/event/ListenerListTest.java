@@ -0,0 +1,83 @@
+package studio.hiwire.tp2world.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class ListenerListTest {
+
+  @Nested
+  class Registration {
+
+    @Test
+    void shouldStartEmpty() {
+      final var listeners = new ListenerList<String>();
+      assertTrue(listeners.isEmpty());
+      assertEquals(0, listeners.snapshot().length);
+    }
+
+    @Test
+    void shouldKeepRegistrationOrder() {
+      final var listeners = new ListenerList<String>();
+      final var calls = new ArrayList<String>();
+      listeners.add(event -> calls.add("first " + event));
+      listeners.add(event -> calls.add("second " + event));
+
+      for (Consumer<? super String> listener : listeners.snapshot()) {
+        listener.accept("x");
+      }
+      assertEquals(List.of("first x", "second x"), calls);
+    }
+
+    @Test
+    void shouldRemoveFirstRegistrationOnly() {
+      final var listeners = new ListenerList<String>();
+      final Consumer<String> listener = event -> {};
+      final Consumer<String> other = event -> {};
+      listeners.add(listener);
+      listeners.add(other);
+      listeners.add(listener);
+
+      assertTrue(listeners.remove(listener));
+      assertEquals(2, listeners.snapshot().length);
+      assertSame(other, listeners.snapshot()[0]);
+      assertSame(listener, listeners.snapshot()[1]);
+    }
+
+    @Test
+    void shouldBeEmptyAfterRemovingLastListener() {
+      final var listeners = new ListenerList<String>();
+      final Consumer<String> listener = event -> {};
+      listeners.add(listener);
+
+      assertTrue(listeners.remove(listener));
+      assertTrue(listeners.isEmpty());
+      assertFalse(listeners.remove(listener));
+    }
+  }
+
+  @Nested
+  class Snapshot {
+
+    @Test
+    void shouldNotSeeLaterChanges() {
+      final var listeners = new ListenerList<String>();
+      final Consumer<String> listener = event -> {};
+      listeners.add(listener);
+
+      final var snapshot = listeners.snapshot();
+      listeners.add(event -> {});
+      listeners.remove(listener);
+
+      assertEquals(1, snapshot.length);
+      assertSame(listener, snapshot[0]);
+    }
+  }
+}
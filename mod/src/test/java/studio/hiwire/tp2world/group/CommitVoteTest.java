@@ -0,0 +1,55 @@
+package studio.hiwire.tp2world.group;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class CommitVoteTest {
+
+  @Test
+  void shouldCommitWhenEveryWorldVotesWithoutFailure() {
+    final var vote = new CommitVote<String>(2);
+
+    final var other = CompletableFuture.supplyAsync(() -> vote.vote(null, 5, TimeUnit.SECONDS));
+    final boolean commit = vote.vote(null, 5, TimeUnit.SECONDS);
+
+    assertTrue(commit);
+    assertTrue(other.join());
+    assertTrue(vote.isCommitted());
+    assertNull(vote.getFailure());
+  }
+
+  @Test
+  void shouldNotCommitAnyWorldWhenOneFails() {
+    final var vote = new CommitVote<String>(2);
+
+    final var other = CompletableFuture.supplyAsync(() -> vote.vote("Alice", 5, TimeUnit.SECONDS));
+    final boolean commit = vote.vote(null, 5, TimeUnit.SECONDS);
+
+    assertFalse(commit);
+    assertFalse(other.join());
+    assertEquals("Alice", vote.getFailure());
+  }
+
+  @Test
+  void shouldNotCommitWhenAWorldDoesNotVoteInTime() {
+    final var vote = new CommitVote<String>(2);
+
+    assertFalse(vote.vote(null, 10, TimeUnit.MILLISECONDS));
+    assertFalse(vote.isCommitted());
+  }
+
+  @Test
+  void shouldNotCommitALateVoteAfterTheOthersGaveUp() {
+    final var vote = new CommitVote<String>(2);
+    vote.vote(null, 10, TimeUnit.MILLISECONDS);
+
+    assertFalse(vote.vote(null, 5, TimeUnit.SECONDS));
+    assertNull(vote.getFailure());
+  }
+}
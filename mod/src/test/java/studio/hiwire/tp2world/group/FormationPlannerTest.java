@@ -0,0 +1,115 @@
+package studio.hiwire.tp2world.group;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.util.List;
+import org.joml.Vector3d;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class FormationPlannerTest {
+
+  private static final double EPSILON = 1e-6;
+
+  private static FormationPlanner.Member member(double x, double y, double z, float yaw) {
+    return new FormationPlanner.Member(
+        new Vector3d(x, y, z), new Rotation3f(0.1f, yaw, 0), new Rotation3f(0, yaw, 0));
+  }
+
+  private static void assertPosition(
+      double x, double y, double z, FormationPlanner.Placement placement) {
+    assertEquals(x, placement.position().x(), EPSILON);
+    assertEquals(y, placement.position().y(), EPSILON);
+    assertEquals(z, placement.position().z(), EPSILON);
+  }
+
+  @Nested
+  class Translation {
+
+    @Test
+    void shouldPlaceReferenceOnAnchor() {
+      List<FormationPlanner.Member> members = List.of(member(10, 64, 10, 0));
+
+      List<FormationPlanner.Placement> result =
+          FormationPlanner.plan(
+              members, new Vector3d(10, 64, 10), 0, new Vector3d(0, 100, 0), null);
+
+      assertPosition(0, 100, 0, result.getFirst());
+    }
+
+    @Test
+    void shouldKeepOffsetsToReference() {
+      List<FormationPlanner.Member> members =
+          List.of(member(10, 64, 10, 0), member(12, 65, 7, 0), member(8, 64, 10, 0));
+
+      List<FormationPlanner.Placement> result =
+          FormationPlanner.plan(
+              members, new Vector3d(10, 64, 10), 0, new Vector3d(0, 100, 0), null);
+
+      assertPosition(0, 100, 0, result.get(0));
+      assertPosition(2, 101, -3, result.get(1));
+      assertPosition(-2, 100, 0, result.get(2));
+    }
+
+    @Test
+    void shouldKeepFacingWithoutAnchorYaw() {
+      List<FormationPlanner.Member> members = List.of(member(10, 64, 10, 1.5f));
+
+      List<FormationPlanner.Placement> result =
+          FormationPlanner.plan(
+              members, new Vector3d(10, 64, 10), 1.5f, new Vector3d(0, 100, 0), null);
+
+      assertEquals(1.5f, result.getFirst().headRotation().yaw(), EPSILON);
+      assertEquals(0.1f, result.getFirst().headRotation().pitch(), EPSILON);
+      assertEquals(1.5f, result.getFirst().bodyRotation().yaw(), EPSILON);
+    }
+
+    @Test
+    void shouldHandleEmptyInput() {
+      List<FormationPlanner.Placement> result =
+          FormationPlanner.plan(List.of(), new Vector3d(), 0, new Vector3d(1, 2, 3), null);
+
+      assertEquals(0, result.size());
+    }
+  }
+
+  @Nested
+  class Rotation {
+
+    @Test
+    void shouldTurnOffsetsAroundAnchor() {
+      List<FormationPlanner.Member> members = List.of(member(0, 0, 0, 0), member(0, 0, 2, 0));
+
+      List<FormationPlanner.Placement> result =
+          FormationPlanner.plan(
+              members, new Vector3d(0, 0, 0), 0, new Vector3d(5, 0, 5), (float) (Math.PI / 2));
+
+      assertPosition(5, 0, 5, result.get(0));
+      assertPosition(7, 0, 5, result.get(1));
+    }
+
+    @Test
+    void shouldTurnFacingOfEveryMember() {
+      List<FormationPlanner.Member> members = List.of(member(0, 0, 0, 0.5f), member(1, 0, 0, 1f));
+
+      List<FormationPlanner.Placement> result =
+          FormationPlanner.plan(members, new Vector3d(0, 0, 0), 0.5f, new Vector3d(), 1.5f);
+
+      assertEquals(1.5f, result.get(0).headRotation().yaw(), EPSILON);
+      assertEquals(2.0f, result.get(1).headRotation().yaw(), EPSILON);
+      assertEquals(2.0f, result.get(1).bodyRotation().yaw(), EPSILON);
+    }
+
+    @Test
+    void shouldIgnoreNaNReferenceYaw() {
+      List<FormationPlanner.Member> members = List.of(member(0, 0, 0, 0), member(1, 0, 0, 0));
+
+      List<FormationPlanner.Placement> result =
+          FormationPlanner.plan(members, new Vector3d(), Float.NaN, new Vector3d(), 1f);
+
+      assertPosition(1, 0, 0, result.get(1));
+      assertEquals(0f, result.get(1).headRotation().yaw(), EPSILON);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package studio.hiwire.tp2world.instance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class InstancePoolTest {
+
+  @Nested
+  class Pool {
+
+    @Test
+    void shouldRefillUpToWarmSize() {
+      final var pool = new InstancePool("dungeon", "dungeon-template", 2, -1);
+      assertEquals(2, pool.missing());
+
+      final var first = pool.reserve();
+      final var second = pool.reserve();
+      assertNotEquals(first, second);
+      assertEquals(0, pool.missing());
+
+      pool.addWarm(first);
+      pool.addWarm(second);
+      assertEquals(0, pool.missing());
+      assertEquals(2, pool.warmCount());
+    }
+
+    @Test
+    void shouldHandOutWarmInstancesInOrder() {
+      final var pool = new InstancePool("dungeon", "dungeon-template", 2, -1);
+      final var first = pool.reserve();
+      final var second = pool.reserve();
+      pool.addWarm(first);
+      pool.addWarm(second);
+
+      assertEquals(first, pool.poll());
+      assertEquals(1, pool.missing());
+      assertEquals(second, pool.poll());
+      assertNull(pool.poll());
+      assertEquals(2, pool.liveCount());
+    }
+
+    @Test
+    void shouldRespectInstanceLimit() {
+      final var pool = new InstancePool("arena", "arena-template", 2, 3);
+      pool.addWarm(pool.reserve());
+      pool.addWarm(pool.reserve());
+      pool.poll();
+      pool.poll();
+
+      // Two in use, only one more may exist
+      assertEquals(1, pool.missing());
+      pool.reserve();
+      assertNull(pool.reserve());
+
+      pool.release();
+      assertEquals(2, pool.liveCount());
+    }
+
+    @Test
+    void shouldForgetAbandonedInstances() {
+      final var pool = new InstancePool("arena", "arena-template", 1, 1);
+      pool.reserve();
+      assertEquals(0, pool.missing());
+
+      pool.abandon();
+      assertEquals(1, pool.missing());
+      assertEquals(0, pool.liveCount());
+    }
+
+    @Test
+    void shouldNameInstancesAfterTemplate() {
+      final var pool = new InstancePool("dungeon", "dungeon-template", 1, -1);
+
+      assertEquals("dungeon-instance-1", pool.reserve());
+      assertEquals("dungeon-instance-2", pool.reserve());
+    }
+  }
+
+  @Nested
+  class Templates {
+
+    @Test
+    void shouldFindTemplateIgnoringCase() {
+      final var dungeon = new InstancePool("dungeon", "dungeon-template", 1, -1);
+      final var templates = new InstanceTemplates(List.of(dungeon));
+
+      assertSame(dungeon, templates.find("template:dungeon"));
+      assertSame(dungeon, templates.find("Template:Dungeon"));
+      assertNull(templates.find("dungeon"));
+      assertNull(templates.find("template:arena"));
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package studio.hiwire.tp2world.join;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class JoinRoutingTest {
+
+  private static JoinRouting.Route route(String world) {
+    return new JoinRouting.Route(world, null, null, null, null, -1, -1, -1);
+  }
+
+  private static JoinRouting.Route route(
+      String world, String permission, String lastWorld, int maxPlayers) {
+    return new JoinRouting.Route(world, null, null, permission, lastWorld, maxPlayers, -1, -1);
+  }
+
+  private static JoinRouting.Route timed(String world, String window) {
+    final int[] parsed = JoinRouting.parseTimeWindow(window);
+    return new JoinRouting.Route(world, null, null, null, null, -1, parsed[0], parsed[1]);
+  }
+
+  private record TestContext(
+      String lastWorld, Set<String> permissions, Map<String, Integer> players, int minuteOfDay)
+      implements JoinRouting.Context {
+
+    TestContext(String lastWorld, Set<String> permissions) {
+      this(lastWorld, permissions, Map.of("hub", 0, "vip", 0, "event", 0, "arena", 0), 600);
+    }
+
+    @Override
+    public boolean hasPermission(String permission) {
+      return permissions.contains(permission);
+    }
+
+    @Override
+    public int playerCount(String worldName) {
+      return players.getOrDefault(worldName, -1);
+    }
+  }
+
+  @Nested
+  class Evaluate {
+
+    @Test
+    void shouldReturnNullWithoutRules() {
+      final var routing = JoinRouting.of(List.of());
+
+      assertNull(routing.evaluate(new TestContext("hub", Set.of())));
+    }
+
+    @Test
+    void shouldPickFirstMatchingRuleInOrder() {
+      final var routing = JoinRouting.of(List.of(route("vip", "vip.join", null, -1), route("hub")));
+
+      assertEquals("vip", routing.evaluate(new TestContext(null, Set.of("vip.join"))).world());
+      assertEquals("hub", routing.evaluate(new TestContext(null, Set.of())).world());
+    }
+
+    @Test
+    void shouldKeepOrderAcrossLastWorldIndex() {
+      final var routing =
+          JoinRouting.of(
+              List.of(
+                  route("vip", "vip.join", null, -1),
+                  route("arena", null, "Arena", -1),
+                  route("hub")));
+
+      assertEquals("arena", routing.evaluate(new TestContext("arena", Set.of())).world());
+      assertEquals("vip", routing.evaluate(new TestContext("arena", Set.of("vip.join"))).world());
+      assertEquals("hub", routing.evaluate(new TestContext("event", Set.of())).world());
+    }
+
+    @Test
+    void shouldSkipFullAndUnloadedWorlds() {
+      final var routing =
+          JoinRouting.of(
+              List.of(
+                  route("event", null, null, 10), route("missing", null, null, -1), route("hub")));
+      final var full = new TestContext(null, Set.of(), Map.of("event", 10, "hub", 3), 0);
+      final var open = new TestContext(null, Set.of(), Map.of("event", 9, "hub", 3), 0);
+
+      assertEquals("hub", routing.evaluate(full).world());
+      assertEquals("event", routing.evaluate(open).world());
+    }
+
+    @Test
+    void shouldRespectTimeWindowsAcrossMidnight() {
+      final var routing = JoinRouting.of(List.of(timed("event", "22:00-02:00"), route("hub")));
+      final var players = Map.of("event", 0, "hub", 0);
+
+      assertEquals(
+          "event", routing.evaluate(new TestContext(null, Set.of(), players, 23 * 60)).world());
+      assertEquals("event", routing.evaluate(new TestContext(null, Set.of(), players, 60)).world());
+      assertEquals(
+          "hub", routing.evaluate(new TestContext(null, Set.of(), players, 2 * 60)).world());
+      assertEquals(
+          "hub", routing.evaluate(new TestContext(null, Set.of(), players, 12 * 60)).world());
+    }
+  }
+
+  @Nested
+  class ParseTimeWindow {
+
+    @Test
+    void shouldParseMinutesSinceMidnight() {
+      assertArrayEquals(
+          new int[] {18 * 60 + 30, 2 * 60}, JoinRouting.parseTimeWindow("18:30-02:00"));
+      assertArrayEquals(new int[] {0, 60}, JoinRouting.parseTimeWindow(" 00:00 - 01:00 "));
+    }
+
+    @Test
+    void shouldRejectInvalidWindows() {
+      assertNull(JoinRouting.parseTimeWindow("18:00"));
+      assertNull(JoinRouting.parseTimeWindow("25:00-02:00"));
+      assertNull(JoinRouting.parseTimeWindow("evening-night"));
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package studio.hiwire.tp2world.lastlocation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import org.joml.Vector3d;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LastLocationStoreTest {
+
+  private static final double EPSILON = 1e-6;
+  private static final UUID PLAYER = new UUID(1, 2);
+
+  @TempDir Path directory;
+
+  private static LastLocation location(double x, float yaw) {
+    return new LastLocation(
+        new Vector3d(x, 64, -x), new Rotation3f(0.1f, yaw, 0), new Rotation3f(0, yaw, 0));
+  }
+
+  @Nested
+  class Memory {
+
+    @Test
+    void shouldReturnRecordedLocationPerWorld() {
+      final var store = new LastLocationStore(directory);
+
+      store.record(PLAYER, "lobby", location(1, 0.5f));
+      store.record(PLAYER, "arena", location(2, 1.5f));
+
+      assertEquals(1, store.get(PLAYER, "lobby").position().x(), EPSILON);
+      assertEquals(1.5f, store.get(PLAYER, "arena").headRotation().yaw(), EPSILON);
+      assertNull(store.get(PLAYER, "dungeon"));
+      assertNull(store.get(new UUID(3, 4), "lobby"));
+    }
+
+    @Test
+    void shouldNotWriteBeforeFlush() {
+      final var store = new LastLocationStore(directory);
+
+      store.record(PLAYER, "lobby", location(1, 0));
+
+      assertFalse(Files.exists(directory.resolve(PLAYER + ".bin")));
+    }
+  }
+
+  @Nested
+  class Persistence {
+
+    @Test
+    void shouldLoadFlushedLocations() throws IOException {
+      final var store = new LastLocationStore(directory);
+      store.record(PLAYER, "lobby", location(1, 0.5f));
+      store.record(PLAYER, "arena", location(2, 1.5f));
+
+      assertEquals(1, store.flush());
+
+      final var loaded = new LastLocationStore(directory);
+      loaded.load(PLAYER);
+      final var lobby = loaded.get(PLAYER, "lobby");
+      assertNotNull(lobby);
+      assertEquals(-1, lobby.position().z(), EPSILON);
+      assertEquals(0.1f, lobby.headRotation().pitch(), EPSILON);
+      assertEquals(1.5f, loaded.get(PLAYER, "arena").bodyRotation().yaw(), EPSILON);
+    }
+
+    @Test
+    void shouldOnlyWriteDirtyPlayers() throws IOException {
+      final var store = new LastLocationStore(directory);
+      store.record(PLAYER, "lobby", location(1, 0));
+
+      assertEquals(1, store.flush());
+      assertEquals(0, store.flush());
+
+      store.record(PLAYER, "lobby", location(3, 0));
+      assertEquals(1, store.flush());
+    }
+
+    @Test
+    void shouldPreferLocationsRecordedBeforeLoad() throws IOException {
+      final var first = new LastLocationStore(directory);
+      first.record(PLAYER, "lobby", location(1, 0));
+      first.record(PLAYER, "arena", location(2, 0));
+      first.flush();
+
+      final var second = new LastLocationStore(directory);
+      second.record(PLAYER, "lobby", location(5, 0));
+      second.load(PLAYER);
+
+      assertEquals(5, second.get(PLAYER, "lobby").position().x(), EPSILON);
+      assertEquals(2, second.get(PLAYER, "arena").position().x(), EPSILON);
+    }
+
+    @Test
+    void shouldKeepOtherWorldsWhenFlushedBeforeLoad() throws IOException {
+      final var first = new LastLocationStore(directory);
+      first.record(PLAYER, "lobby", location(1, 0));
+      first.record(PLAYER, "arena", location(2, 0));
+      first.flush();
+
+      final var second = new LastLocationStore(directory);
+      second.record(PLAYER, "lobby", location(5, 0));
+      second.flush();
+
+      final var third = new LastLocationStore(directory);
+      third.load(PLAYER);
+      assertEquals(5, third.get(PLAYER, "lobby").position().x(), EPSILON);
+      assertEquals(2, third.get(PLAYER, "arena").position().x(), EPSILON);
+    }
+
+    @Test
+    void shouldNotOverwriteUnreadableFile() throws IOException {
+      final var file = directory.resolve(PLAYER + ".bin");
+      Files.write(file, new byte[] {0, 0, 0, 9});
+      final var store = new LastLocationStore(directory);
+      store.record(PLAYER, "lobby", location(1, 0));
+
+      assertThrows(IOException.class, store::flush);
+      assertEquals(4, Files.size(file));
+    }
+
+    @Test
+    void shouldIgnoreMissingFile() throws IOException {
+      final var store = new LastLocationStore(directory);
+
+      store.load(PLAYER);
+
+      assertEquals(0, store.size());
+    }
+
+    @Test
+    void shouldWriteAndDropOnUnload() throws IOException {
+      final var store = new LastLocationStore(directory);
+      store.record(PLAYER, "lobby", location(1, 0));
+
+      store.unload(PLAYER);
+
+      assertEquals(0, store.size());
+      assertTrue(Files.exists(directory.resolve(PLAYER + ".bin")));
+    }
+  }
+}
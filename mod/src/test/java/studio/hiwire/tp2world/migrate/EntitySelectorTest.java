@@ -0,0 +1,89 @@
+package studio.hiwire.tp2world.migrate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import org.joml.Vector3d;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class EntitySelectorTest {
+
+  @Nested
+  class Selection {
+
+    @Test
+    void shouldSelectEverythingWithoutBoxAndTypes() {
+      final var selector = EntitySelector.of(null, null);
+
+      assertTrue(selector.matches("Horse", 1e6, -50, 3));
+      assertTrue(selector.matches(null, 0, 0, 0));
+    }
+
+    @Test
+    void shouldNormalizeBoxCorners() {
+      final var box = EntitySelector.Box.of(new Vector3d(10, 80, -5), new Vector3d(-10, 60, 5));
+
+      assertEquals(new EntitySelector.Box(-10, 60, -5, 10, 80, 5), box);
+      assertTrue(box.contains(10, 60, -5));
+      assertFalse(box.contains(10.01, 70, 0));
+    }
+
+    @Test
+    void shouldParseTypesCaseInsensitive() {
+      final var selector = EntitySelector.of(null, " Horse, item_display ,,");
+
+      assertEquals(Set.of("horse", "item_display"), selector.types());
+      assertTrue(selector.matches("HORSE", 0, 0, 0));
+      assertFalse(selector.matches("Sheep", 0, 0, 0));
+      assertFalse(selector.matches(null, 0, 0, 0));
+    }
+
+    @Test
+    void shouldRequireBoxAndType() {
+      final var selector = EntitySelector.of(new EntitySelector.Box(0, 0, 0, 10, 10, 10), "horse");
+
+      assertTrue(selector.matches("horse", 5, 5, 5));
+      assertFalse(selector.matches("horse", 11, 5, 5));
+      assertFalse(selector.matches("sheep", 5, 5, 5));
+    }
+  }
+
+  @Nested
+  class Budget {
+
+    @Test
+    void shouldStopAtMaxEntities() {
+      final var budget = new TickBudget(1_000_000, 3);
+      budget.start(0);
+
+      assertTrue(budget.tryAcquire(0));
+      assertTrue(budget.tryAcquire(0));
+      assertTrue(budget.tryAcquire(0));
+      assertFalse(budget.tryAcquire(0));
+    }
+
+    @Test
+    void shouldStopWhenTimeIsUp() {
+      final var budget = new TickBudget(100, 1000);
+      budget.start(1000);
+
+      assertTrue(budget.tryAcquire(1050));
+      assertFalse(budget.tryAcquire(1100));
+    }
+
+    @Test
+    void shouldAlwaysAdmitFirstEntityOfATick() {
+      final var budget = new TickBudget(0, 0);
+      budget.start(0);
+
+      assertTrue(budget.tryAcquire(500));
+      assertFalse(budget.tryAcquire(500));
+
+      budget.start(1000);
+      assertTrue(budget.tryAcquire(2000));
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package studio.hiwire.tp2world.notify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class BatchSummaryTest {
+
+  @Nested
+  class Counts {
+
+    @Test
+    void shouldCountTeleportsAndFailures() {
+      final var summary = new BatchSummary();
+      summary.teleported("lobby");
+      summary.teleported("arena");
+      summary.teleported("lobby");
+      summary.failed("player not online");
+      summary.failed("unknown world", 3);
+
+      assertEquals(3, summary.getTeleported());
+      assertEquals(4, summary.getFailed());
+    }
+
+    @Test
+    void shouldIgnoreEmptyFailureCounts() {
+      final var summary = new BatchSummary();
+      summary.failed("player offline", 0);
+
+      assertEquals(0, summary.getFailed());
+      assertEquals(BatchSummary.NONE, summary.formatFailures(BatchSummary.LISTED));
+    }
+  }
+
+  @Nested
+  class Format {
+
+    @Test
+    void shouldListMostFrequentFirst() {
+      final var summary = new BatchSummary();
+      summary.teleported("arena");
+      summary.teleported("lobby");
+      summary.teleported("lobby");
+
+      assertEquals("lobby: 2, arena: 1", summary.formatWorlds(BatchSummary.LISTED));
+    }
+
+    @Test
+    void shouldKeepFirstSeenOrderOnTies() {
+      final var summary = new BatchSummary();
+      summary.failed("unknown world");
+      summary.failed("player not online");
+
+      assertEquals(
+          "unknown world: 1, player not online: 1", summary.formatFailures(BatchSummary.LISTED));
+    }
+
+    @Test
+    void shouldSumUpWorldsBeyondLimit() {
+      final var summary = new BatchSummary();
+      for (int i = 0; i < 4; i++) {
+        summary.teleported("lobby");
+      }
+      summary.teleported("arena");
+      summary.teleported("arena");
+      summary.teleported("mines");
+      summary.teleported("farm");
+
+      assertEquals("lobby: 4, arena: 2, others: 2", summary.formatWorlds(2));
+    }
+
+    @Test
+    void shouldShowNoneWithoutEntries() {
+      assertEquals(BatchSummary.NONE, new BatchSummary().formatWorlds(BatchSummary.LISTED));
+    }
+  }
+}
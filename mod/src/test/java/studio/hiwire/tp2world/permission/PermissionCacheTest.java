@@ -0,0 +1,118 @@
+package studio.hiwire.tp2world.permission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PermissionCacheTest {
+
+  private static final UUID ALICE = new UUID(0, 1);
+  private static final UUID BOB = new UUID(0, 2);
+
+  private PermissionCache cache;
+  private AtomicInteger resolutions;
+
+  @BeforeEach
+  void setUp() {
+    cache = new PermissionCache(3);
+    resolutions = new AtomicInteger();
+  }
+
+  private boolean check(UUID subject, String world, PermissionCache.Action action, boolean value) {
+    return cache.check(
+        subject,
+        world,
+        action,
+        () -> {
+          resolutions.incrementAndGet();
+          return value;
+        });
+  }
+
+  @Test
+  void shouldResolveOnlyOncePerKey() {
+    for (int i = 0; i < 500; i++) {
+      assertTrue(check(ALICE, "arena", PermissionCache.Action.OTHERS, true));
+    }
+
+    assertEquals(1, resolutions.get());
+  }
+
+  @Test
+  void shouldCacheDeniedDecisions() {
+    assertFalse(check(ALICE, "arena", PermissionCache.Action.SELF, false));
+    assertFalse(check(ALICE, "arena", PermissionCache.Action.SELF, true));
+
+    assertEquals(1, resolutions.get());
+  }
+
+  @Test
+  void shouldKeepActionsAndWorldsApart() {
+    check(ALICE, "arena", PermissionCache.Action.SELF, true);
+    check(ALICE, "arena", PermissionCache.Action.OTHERS, false);
+    check(ALICE, "hub", PermissionCache.Action.SELF, false);
+
+    assertEquals(3, resolutions.get());
+    assertTrue(check(ALICE, "arena", PermissionCache.Action.SELF, false));
+    assertFalse(check(ALICE, "arena", PermissionCache.Action.OTHERS, true));
+  }
+
+  @Test
+  void shouldInvalidateOnlyOneSubject() {
+    check(ALICE, "arena", PermissionCache.Action.SELF, true);
+    check(BOB, "arena", PermissionCache.Action.SELF, true);
+
+    cache.invalidate(ALICE);
+
+    assertEquals(1, cache.size());
+    assertFalse(check(ALICE, "arena", PermissionCache.Action.SELF, false));
+    assertTrue(check(BOB, "arena", PermissionCache.Action.SELF, false));
+  }
+
+  @Test
+  void shouldInvalidateAll() {
+    check(ALICE, "arena", PermissionCache.Action.SELF, true);
+    check(BOB, "arena", PermissionCache.Action.SELF, true);
+
+    cache.invalidateAll();
+
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedDecision() {
+    check(ALICE, "a", PermissionCache.Action.SELF, true);
+    check(ALICE, "b", PermissionCache.Action.SELF, true);
+    check(ALICE, "c", PermissionCache.Action.SELF, true);
+    // Touch "a" so that "b" is the eldest
+    check(ALICE, "a", PermissionCache.Action.SELF, true);
+    check(ALICE, "d", PermissionCache.Action.SELF, true);
+
+    assertEquals(3, cache.size());
+    assertEquals(4, resolutions.get());
+    check(ALICE, "a", PermissionCache.Action.SELF, true);
+    assertEquals(4, resolutions.get());
+    check(ALICE, "b", PermissionCache.Action.SELF, true);
+    assertEquals(5, resolutions.get());
+  }
+
+  @Test
+  void shouldNotStoreDecisionResolvedDuringInvalidation() {
+    assertTrue(
+        cache.check(
+            ALICE,
+            "arena",
+            PermissionCache.Action.SELF,
+            () -> {
+              cache.invalidate(ALICE);
+              return true;
+            }));
+
+    assertEquals(0, cache.size());
+  }
+}
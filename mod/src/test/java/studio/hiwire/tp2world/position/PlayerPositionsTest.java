@@ -0,0 +1,89 @@
+package studio.hiwire.tp2world.position;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.util.UUID;
+import org.joml.Vector3d;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class PlayerPositionsTest {
+
+  private static final double EPSILON = 1e-6;
+
+  private static final UUID ALICE = new UUID(1, 2);
+  private static final UUID BOB = new UUID(-3, 4);
+  private static final UUID CAROL = new UUID(5, -6);
+
+  @Nested
+  class Find {
+
+    @Test
+    void shouldFindEveryPlayer() {
+      final var positions =
+          new PlayerPositions.Builder(1)
+              .add(
+                  ALICE,
+                  new Vector3d(1, 2, 3),
+                  new Rotation3f(0.1f, 0.2f, 0.3f),
+                  new Rotation3f(0, 0.2f, 0))
+              .add(BOB, new Vector3d(4, 5, 6), new Rotation3f(), new Rotation3f())
+              .build(42);
+
+      assertEquals(2, positions.size());
+      assertEquals(42, positions.publishedAtNanos());
+      final int alice = positions.find(ALICE);
+      assertEquals(ALICE, positions.uuid(alice));
+      assertEquals(3, positions.position(alice).z(), EPSILON);
+      assertEquals(0.3f, positions.headRotation(alice).roll(), EPSILON);
+      assertEquals(0.2f, positions.bodyRotation(alice).yaw(), EPSILON);
+      assertEquals(5, positions.position(positions.find(BOB)).y(), EPSILON);
+    }
+
+    @Test
+    void shouldNotFindMissingPlayer() {
+      final var positions =
+          new PlayerPositions.Builder(1)
+              .add(ALICE, new Vector3d(), new Rotation3f(), new Rotation3f())
+              .build(0);
+
+      assertEquals(-1, positions.find(CAROL));
+      assertEquals(-1, PlayerPositions.EMPTY.find(ALICE));
+    }
+
+    @Test
+    void shouldFindPlayersWithCollidingSlots() {
+      final var builder = new PlayerPositions.Builder(4);
+      for (int i = 0; i < 1000; i++) {
+        builder.add(new UUID(i, i), new Vector3d(i, 0, 0), new Rotation3f(), new Rotation3f());
+      }
+      final var positions = builder.build(0);
+
+      for (int i = 0; i < 1000; i++) {
+        assertEquals(i, positions.position(positions.find(new UUID(i, i))).x(), EPSILON);
+      }
+      assertEquals(-1, positions.find(new UUID(1000, 1000)));
+    }
+  }
+
+  @Nested
+  class Builder {
+
+    @Test
+    void shouldStartOverAfterReset() {
+      final var builder =
+          new PlayerPositions.Builder(1)
+              .add(ALICE, new Vector3d(), new Rotation3f(), new Rotation3f());
+      final var first = builder.build(1);
+      builder.reset();
+      final var second =
+          builder.add(BOB, new Vector3d(7, 8, 9), new Rotation3f(), new Rotation3f()).build(2);
+
+      assertEquals(1, first.size());
+      assertEquals(0, first.find(ALICE));
+      assertEquals(-1, second.find(ALICE));
+      assertEquals(9, second.position(second.find(BOB)).z(), EPSILON);
+    }
+  }
+}
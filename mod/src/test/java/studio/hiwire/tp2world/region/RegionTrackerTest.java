@@ -0,0 +1,119 @@
+package studio.hiwire.tp2world.region;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class RegionTrackerTest {
+
+  private static PortalRegion region(
+      String name, double minX, double minZ, double maxX, double maxZ) {
+    return new PortalRegion(name, "lobby", minX, 0, minZ, maxX, 10, maxZ, "arena", null, null);
+  }
+
+  @Nested
+  class Grid {
+
+    @Test
+    void shouldOnlyListRegionsOverlappingCell() {
+      final var near = region("near", 0, 0, 4, 4);
+      final var far = region("far", 100, 100, 104, 104);
+      final var grid = new RegionGrid(List.of(near, far), 16);
+
+      assertEquals(1, grid.candidates(grid.cellKey(2, 2)).length);
+      assertSame(near, grid.candidates(grid.cellKey(2, 2))[0]);
+      assertSame(far, grid.candidates(grid.cellKey(101, 101))[0]);
+      assertEquals(0, grid.candidates(grid.cellKey(50, 50)).length);
+    }
+
+    @Test
+    void shouldSpanCellsAndNegativeCoordinates() {
+      final var wide = region("wide", -20, -4, 20, 4);
+      final var grid = new RegionGrid(List.of(wide), 16);
+
+      assertEquals(4 * 2, grid.cellCount());
+      assertSame(wide, grid.find(-19.5, 5, 0));
+      assertSame(wide, grid.find(19.5, 5, -3));
+    }
+
+    @Test
+    void shouldNotIndexCellOfExclusiveMaxCorner() {
+      final var grid = new RegionGrid(List.of(region("edge", 0, 0, 16, 16)), 16);
+
+      assertEquals(1, grid.cellCount());
+      assertNull(grid.find(16, 5, 0));
+    }
+
+    @Test
+    void shouldCheckHeight() {
+      final var grid = new RegionGrid(List.of(region("box", 0, 0, 4, 4)), 16);
+
+      assertNull(grid.find(2, 10, 2));
+      assertNull(grid.find(2, -1, 2));
+    }
+  }
+
+  @Nested
+  class Tracker {
+
+    @Test
+    void shouldReportEnteringOnce() {
+      final var box = region("box", 0, 0, 4, 4);
+      final var tracker = new RegionTracker<String>(new RegionGrid(List.of(box), 16));
+
+      assertNull(tracker.update("alice", 8, 5, 8));
+      assertSame(box, tracker.update("alice", 2, 5, 2));
+      assertNull(tracker.update("alice", 3, 5, 3));
+      assertNull(tracker.update("alice", 8, 5, 8));
+      assertSame(box, tracker.update("alice", 1, 5, 1));
+    }
+
+    @Test
+    void shouldNotReportFirstUpdateInsideRegion() {
+      final var box = region("box", 0, 0, 4, 4);
+      final var tracker = new RegionTracker<String>(new RegionGrid(List.of(box), 16));
+
+      assertNull(tracker.update("alice", 2, 5, 2));
+      assertNull(tracker.update("alice", 2, 5, 3));
+    }
+
+    @Test
+    void shouldReportMovingFromOneRegionToAnother() {
+      final var first = region("first", 0, 0, 4, 4);
+      final var second = region("second", 4, 0, 8, 4);
+      final var tracker = new RegionTracker<String>(new RegionGrid(List.of(first, second), 16));
+
+      assertNull(tracker.update("alice", 10, 5, 10));
+      assertSame(first, tracker.update("alice", 2, 5, 2));
+      assertSame(second, tracker.update("alice", 6, 5, 2));
+    }
+
+    @Test
+    void shouldTrackPlayersIndependently() {
+      final var box = region("box", 0, 0, 4, 4);
+      final var tracker = new RegionTracker<String>(new RegionGrid(List.of(box), 16));
+
+      tracker.update("alice", 8, 5, 8);
+      tracker.update("bob", 8, 5, 8);
+      assertSame(box, tracker.update("alice", 2, 5, 2));
+      assertSame(box, tracker.update("bob", 2, 5, 2));
+    }
+
+    @Test
+    void shouldForgetPlayers() {
+      final var tracker =
+          new RegionTracker<String>(new RegionGrid(List.of(region("box", 0, 0, 4, 4)), 16));
+
+      tracker.update("alice", 8, 5, 8);
+      tracker.update("bob", 8, 5, 8);
+      tracker.retain("alice"::equals);
+      assertEquals(1, tracker.size());
+      tracker.remove("alice");
+      assertEquals(0, tracker.size());
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package studio.hiwire.tp2world.residency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class ResidencyPolicyTest {
+
+  private static final long SECOND = 1_000_000_000L;
+  private static final long IDLE = 60 * SECOND;
+
+  @Nested
+  class Idle {
+
+    @Test
+    void shouldUnloadWorldsIdleLongEnough() {
+      final var policy = new ResidencyPolicy(List.of(), IDLE);
+      policy.observe("arena", 0, 0);
+      policy.observe("dungeon", 0, 30 * SECOND);
+
+      assertEquals(List.of(), policy.evictions(59 * SECOND, false));
+      assertEquals(List.of("arena"), policy.evictions(60 * SECOND, false));
+      assertEquals(List.of("arena", "dungeon"), policy.evictions(90 * SECOND, false));
+    }
+
+    @Test
+    void shouldKeepWorldsWithPlayers() {
+      final var policy = new ResidencyPolicy(List.of(), IDLE);
+      policy.observe("arena", 0, 0);
+      policy.observe("arena", 3, 50 * SECOND);
+
+      assertEquals(List.of(), policy.evictions(100 * SECOND, false));
+
+      // Idle time counts from the last sample with players
+      policy.observe("arena", 0, 100 * SECOND);
+      assertEquals(List.of(), policy.evictions(109 * SECOND, false));
+      assertEquals(List.of("arena"), policy.evictions(110 * SECOND, false));
+    }
+
+    @Test
+    void shouldRestartIdleTimeOnTouch() {
+      final var policy = new ResidencyPolicy(List.of(), IDLE);
+      policy.observe("arena", 0, 0);
+      policy.touch("Arena", 40 * SECOND);
+
+      assertEquals(List.of(), policy.evictions(90 * SECOND, false));
+      assertEquals(List.of("arena"), policy.evictions(100 * SECOND, false));
+    }
+
+    @Test
+    void shouldNeverUnloadPinnedWorlds() {
+      final var policy = new ResidencyPolicy(List.of("Hub"), IDLE);
+      policy.pin("default");
+      policy.observe("hub", 0, 0);
+      policy.observe("default", 0, 0);
+
+      assertTrue(policy.isPinned("HUB"));
+      assertEquals(List.of(), policy.evictions(1000 * SECOND, true));
+    }
+
+    @Test
+    void shouldKeepSelectedWorldTouchedBeforeUnload() {
+      final var policy = new ResidencyPolicy(List.of(), IDLE);
+      policy.observe("arena", 0, 0);
+      policy.observe("dungeon", 0, 0);
+      assertEquals(List.of("arena", "dungeon"), policy.evictions(60 * SECOND, false));
+
+      policy.touch("arena", 61 * SECOND);
+      policy.observe("dungeon", 0, 62 * SECOND);
+
+      assertFalse(policy.isIdleSince("arena", 60 * SECOND));
+      assertTrue(policy.isIdleSince("dungeon", 60 * SECOND));
+      policy.pin("dungeon");
+      assertFalse(policy.isIdleSince("dungeon", 60 * SECOND));
+    }
+
+    @Test
+    void shouldForgetRemovedWorlds() {
+      final var policy = new ResidencyPolicy(List.of(), IDLE);
+      policy.observe("arena", 0, 0);
+      policy.remove("arena");
+
+      assertEquals(List.of(), policy.evictions(1000 * SECOND, false));
+    }
+  }
+
+  @Nested
+  class MemoryBudget {
+
+    @Test
+    void shouldUnloadLeastRecentlyUsedWorldWhenOverBudget() {
+      final var policy = new ResidencyPolicy(List.of(), -1);
+      policy.observe("arena", 0, 10 * SECOND);
+      policy.observe("dungeon", 0, 0);
+      policy.observe("lobby", 2, 0);
+
+      assertEquals(List.of(), policy.evictions(100 * SECOND, false));
+      assertEquals(List.of("dungeon"), policy.evictions(100 * SECOND, true));
+    }
+
+    @Test
+    void shouldRespectGraceTime() {
+      final var policy = new ResidencyPolicy(List.of(), -1);
+      policy.observe("arena", 0, 0);
+
+      assertEquals(List.of(), policy.evictions(ResidencyPolicy.OVER_BUDGET_GRACE_NANOS - 1, true));
+      assertEquals(
+          List.of("arena"), policy.evictions(ResidencyPolicy.OVER_BUDGET_GRACE_NANOS, true));
+    }
+
+    @Test
+    void shouldNotAddToIdleEvictions() {
+      final var policy = new ResidencyPolicy(List.of(), IDLE);
+      policy.observe("arena", 0, 0);
+      policy.observe("dungeon", 0, 50 * SECOND);
+
+      assertEquals(List.of("arena"), policy.evictions(100 * SECOND, true));
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package studio.hiwire.tp2world.sim;
+
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import java.nio.file.Path;
+import java.util.List;
+import javax.annotation.Nonnull;
+import studio.hiwire.tp2world.balance.WorldGroups;
+import studio.hiwire.tp2world.cluster.ClusterService;
+import studio.hiwire.tp2world.command.Tp2WorldCommand;
+import studio.hiwire.tp2world.completion.NameIndex;
+import studio.hiwire.tp2world.config.ClusterConfig;
+import studio.hiwire.tp2world.instance.InstanceManager;
+import studio.hiwire.tp2world.instance.InstanceTemplates;
+import studio.hiwire.tp2world.notify.NotificationQueue;
+import studio.hiwire.tp2world.position.PositionBoard;
+import studio.hiwire.tp2world.residency.ResidencyManager;
+import studio.hiwire.tp2world.teleport.TeleportCounters;
+
+/**
+ * Headless mass teleport: simulated players are spread over simulated worlds and every one of them
+ * runs {@code /tp2world} to the next world, a fixed number of commands per tick. The real {@link
+ * Tp2WorldCommand} handles them: the task is queued on the source world, {@link
+ * studio.hiwire.tp2world.teleport.Tp2WorldTeleporter} adds the teleport on its thread, and the
+ * confirmation is sent once the arrival tracker saw the player join the target world.
+ *
+ * <p>Everything runs on the calling thread, worlds tick in turn, so the counts of a run are
+ * deterministic and only the timings depend on the machine. A simulation has to be closed on the
+ * thread that created it, see {@link SimulatedServer}.
+ */
+final class MassTeleportSimulation implements AutoCloseable {
+
+  private final int playerCount;
+  private final int commandsPerTick;
+  @Nonnull private final SimulatedServer server = new SimulatedServer();
+  @Nonnull private final SimulatedCommand command;
+
+  /**
+   * @param playerCount number of simulated players
+   * @param worldCount number of simulated worlds, players start evenly spread over them
+   * @param commandsPerTick teleport commands issued before every server tick
+   */
+  MassTeleportSimulation(int playerCount, int worldCount, int commandsPerTick) {
+    this.playerCount = playerCount;
+    this.commandsPerTick = commandsPerTick;
+    try {
+      for (int i = 0; i < worldCount; i++) {
+        server.addWorld("world-" + i);
+      }
+      for (int i = 0; i < playerCount; i++) {
+        server.addPlayer("player-" + i, server.getWorlds().get(i % worldCount));
+      }
+      this.command = new SimulatedCommand(server);
+    } catch (RuntimeException e) {
+      server.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Sends every player to the next world and ticks until all of them arrived.
+   *
+   * @param maxTicks server ticks after which the run is aborted
+   * @return the measurements of the run
+   */
+  @Nonnull
+  Result run(int maxTicks) {
+    final var worlds = server.getWorlds();
+    final var players = server.getPlayers();
+    final long start = System.nanoTime();
+    int issued = 0;
+    int arrived = 0;
+    int ticks = 0;
+    while (arrived < playerCount) {
+      if (ticks == maxTicks) {
+        throw new AssertionError(
+            "only "
+                + arrived
+                + " of "
+                + playerCount
+                + " players arrived after "
+                + ticks
+                + " ticks");
+      }
+      for (int i = 0; i < commandsPerTick && issued < playerCount; i++, issued++) {
+        final var player = players.get(issued);
+        final var target = worlds.get((worlds.indexOf(player.getWorld()) + 1) % worlds.size());
+        command.issue(player.commandTo(target));
+      }
+      for (SimulatedWorld world : worlds) {
+        world.tick();
+      }
+      for (SimulatedWorld world : worlds) {
+        world.handOver();
+      }
+      arrived = 0;
+      for (SimulatedPlayer player : players) {
+        arrived += player.getTeleports();
+      }
+      ticks++;
+    }
+    final long wallNanos = System.nanoTime() - start;
+
+    int confirmed = 0;
+    for (SimulatedPlayer player : players) {
+      confirmed += player.getMessages();
+    }
+    int executes = 0;
+    long tickNanosTotal = 0;
+    long tickNanosMax = 0;
+    for (SimulatedWorld world : worlds) {
+      executes += world.getExecutes();
+      tickNanosTotal += world.getTickNanosTotal();
+      tickNanosMax = Math.max(tickNanosMax, world.getTickNanosMax());
+    }
+    return new Result(
+        arrived,
+        confirmed,
+        ticks,
+        executes,
+        wallNanos,
+        tickNanosTotal / ((long) ticks * worlds.size()),
+        tickNanosMax);
+  }
+
+  @Nonnull
+  List<SimulatedWorld> getWorlds() {
+    return server.getWorlds();
+  }
+
+  @Nonnull
+  List<SimulatedPlayer> getPlayers() {
+    return server.getPlayers();
+  }
+
+  @Nonnull
+  TeleportCounters getTeleportCounters() {
+    return server.getTeleportCounters();
+  }
+
+  @Override
+  public void close() {
+    server.close();
+  }
+
+  /**
+   * Measurements of one run.
+   *
+   * @param arrived players that arrived in their target world
+   * @param confirmed messages the commands sent, one per arrival
+   * @param ticks server ticks until every player arrived
+   * @param executes world executor calls over all worlds
+   * @param wallNanos duration of the whole run
+   * @param tickNanosMean mean time one world tick spent on arrivals and tp2world work
+   * @param tickNanosMax longest time one world tick spent on arrivals and tp2world work
+   */
+  record Result(
+      int arrived,
+      int confirmed,
+      int ticks,
+      int executes,
+      long wallNanos,
+      long tickNanosMean,
+      long tickNanosMax) {
+
+    double teleportsPerSecond() {
+      return arrived * 1e9 / Math.max(1, wallNanos);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "arrived=%d confirmed=%d ticks=%d executes=%d teleports/s=%.0f tick mean=%.3fms"
+              + " max=%.3fms",
+          arrived,
+          confirmed,
+          ticks,
+          executes,
+          teleportsPerSecond(),
+          tickNanosMean / 1e6,
+          tickNanosMax / 1e6);
+    }
+  }
+
+  /** The real command with the services of the simulated server, its entry point opened up. */
+  private static final class SimulatedCommand extends Tp2WorldCommand {
+
+    private SimulatedCommand(@Nonnull SimulatedServer server) {
+      this(
+          server,
+          new ResidencyManager(
+              List.of(), -1, -1, 1000, server.getArrivals().getPending(), SimulatedServer.LOGGER));
+    }
+
+    private SimulatedCommand(@Nonnull SimulatedServer server, @Nonnull ResidencyManager residency) {
+      super(
+          new NameIndex(() -> 20),
+          new ClusterService(new ClusterConfig(), SimulatedServer.LOGGER),
+          new WorldGroups(List.of()),
+          server.getDispatcher(),
+          server.getArrivals(),
+          residency,
+          new PositionBoard(1000, server.getDispatcher(), SimulatedServer.LOGGER),
+          new InstanceManager(
+              new InstanceTemplates(List.of()),
+              Path.of("build", "simulation", "worlds"),
+              1000,
+              1000,
+              residency,
+              SimulatedServer.LOGGER),
+          new NotificationQueue(64, 64, 50, SimulatedServer.LOGGER));
+    }
+
+    /** Runs the command like the command thread does. */
+    private void issue(@Nonnull CommandContext context) {
+      executeSync(context);
+    }
+  }
+}
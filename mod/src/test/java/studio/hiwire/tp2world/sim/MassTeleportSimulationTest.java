@@ -0,0 +1,175 @@
+package studio.hiwire.tp2world.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Properties;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import studio.hiwire.tp2world.teleport.Tp2WorldTeleporter;
+
+class MassTeleportSimulationTest {
+
+  /** Reference results, update them together with a change that moves them on purpose. */
+  private static final String BASELINE = "/sim/mass-teleport-baseline.properties";
+
+  private static final int MAX_TICKS = 1_000;
+
+  /** Tag of the timing checks, excluded from the test task. */
+  static final String PERFORMANCE = "performance";
+
+  private static Properties baseline() throws IOException {
+    final var properties = new Properties();
+    try (var in = MassTeleportSimulationTest.class.getResourceAsStream(BASELINE)) {
+      assertNotNull(in, "missing " + BASELINE);
+      properties.load(in);
+    }
+    return properties;
+  }
+
+  private static int intValue(Properties properties, String key) {
+    return Integer.parseInt(properties.getProperty(key).trim());
+  }
+
+  private static double doubleValue(Properties properties, String key) {
+    return Double.parseDouble(properties.getProperty(key).trim());
+  }
+
+  private static MassTeleportSimulation simulation(Properties baseline) {
+    return new MassTeleportSimulation(
+        intValue(baseline, "players"),
+        intValue(baseline, "worlds"),
+        intValue(baseline, "commandsPerTick"));
+  }
+
+  /** Best of several runs, a single slow run is usually the machine, not the code. */
+  private static MassTeleportSimulation.Result bestRun(
+      Properties baseline, int warmupRuns, int measuredRuns) {
+    for (int i = 0; i < warmupRuns; i++) {
+      try (var simulation = simulation(baseline)) {
+        simulation.run(MAX_TICKS);
+      }
+    }
+    MassTeleportSimulation.Result best = null;
+    for (int i = 0; i < measuredRuns; i++) {
+      try (var simulation = simulation(baseline)) {
+        final var result = simulation.run(MAX_TICKS);
+        if (best == null || result.wallNanos() < best.wallNanos()) {
+          best = result;
+        }
+      }
+    }
+    return best;
+  }
+
+  /** Fails only if a timing is worse than the baseline by more than the tolerance factor. */
+  private static void assertTimings(
+      MassTeleportSimulation.Result result, Properties baseline, double tolerance) {
+    final var minThroughput = doubleValue(baseline, "teleportsPerSecond") / tolerance;
+    assertTrue(
+        result.teleportsPerSecond() >= minThroughput,
+        String.format(
+            "%.0f teleports/s below %.0f (baseline / %.0f)",
+            result.teleportsPerSecond(), minThroughput, tolerance));
+    final var maxTickMillis = doubleValue(baseline, "tickMillisMax") * tolerance;
+    assertTrue(
+        result.tickNanosMax() / 1e6 <= maxTickMillis,
+        String.format(
+            "longest tick %.3fms above %.3fms (baseline * %.0f)",
+            result.tickNanosMax() / 1e6, maxTickMillis, tolerance));
+  }
+
+  @Nested
+  class Correctness {
+
+    @Test
+    void shouldMoveEveryPlayerToTheNextWorldOnce() throws IOException {
+      try (var simulation = simulation(baseline())) {
+        final var worlds = simulation.getWorlds();
+        final var players = simulation.getPlayers();
+        final var start = players.stream().map(SimulatedPlayer::getWorld).toList();
+
+        final var result = simulation.run(MAX_TICKS);
+
+        assertEquals(players.size(), result.arrived());
+        assertEquals(players.size(), result.confirmed());
+        for (int i = 0; i < players.size(); i++) {
+          final var player = players.get(i);
+          final var expected = worlds.get((worlds.indexOf(start.get(i)) + 1) % worlds.size());
+          assertEquals(expected, player.getWorld(), player.getUsername());
+          assertEquals(1, player.getTeleports(), player.getUsername());
+          assertEquals(1, player.getMessages(), player.getUsername());
+          assertTrue(expected.getPlayers().contains(player), player.getUsername());
+        }
+        assertEquals(
+            players.size(), worlds.stream().mapToInt(world -> world.getPlayers().size()).sum());
+        assertTrue(worlds.stream().allMatch(SimulatedWorld::isIdle));
+
+        // Every command went through the teleporter, none of them failed there
+        final var teleported = Tp2WorldTeleporter.Result.Status.TELEPORTED.ordinal();
+        final var counters = simulation.getTeleportCounters().snapshot();
+        assertEquals(worlds.size(), counters.size());
+        assertEquals(
+            players.size(),
+            counters.values().stream().mapToLong(counts -> counts[teleported]).sum());
+      }
+    }
+  }
+
+  @Nested
+  class Regression {
+
+    @Test
+    void shouldNotNeedMoreTicksOrExecutesThanBaseline() throws IOException {
+      final var baseline = baseline();
+
+      final MassTeleportSimulation.Result result;
+      try (var simulation = simulation(baseline)) {
+        result = simulation.run(MAX_TICKS);
+      }
+
+      // Deterministic, any increase is a change in batching
+      assertTrue(
+          result.ticks() <= intValue(baseline, "ticks"),
+          "ticks " + result.ticks() + " above baseline " + baseline.getProperty("ticks"));
+      assertTrue(
+          result.executes() <= intValue(baseline, "executes"),
+          "executes " + result.executes() + " above baseline " + baseline.getProperty("executes"));
+    }
+
+    /**
+     * Part of every build: with its wide tolerance only a regression by an order of magnitude
+     * fails, such as work that grows with the number of queued teleports.
+     */
+    @Test
+    void shouldStayWithinCoarseTimingBaseline(TestReporter reporter) throws IOException {
+      final var baseline = baseline();
+
+      final var best = bestRun(baseline, 1, 3);
+      reporter.publishEntry("Mass teleport simulation", best.toString());
+
+      assertTimings(best, baseline, doubleValue(baseline, "coarseTolerance"));
+    }
+  }
+
+  /** Machine dependent, only run by the performanceTest task. */
+  @Nested
+  @Tag(PERFORMANCE)
+  class Performance {
+
+    @Test
+    void shouldNotRegressPastBaselineTimings(TestReporter reporter) throws IOException {
+      final var baseline = baseline();
+
+      final var best =
+          bestRun(baseline, intValue(baseline, "warmupRuns"), intValue(baseline, "measuredRuns"));
+      reporter.publishEntry("Mass teleport simulation", best.toString());
+
+      assertTimings(best, baseline, doubleValue(baseline, "tolerance"));
+    }
+  }
+}
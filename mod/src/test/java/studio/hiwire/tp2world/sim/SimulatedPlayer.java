@@ -0,0 +1,190 @@
+package studio.hiwire.tp2world.sim;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+import org.mockito.invocation.InvocationOnMock;
+import studio.hiwire.tp2world.destination.Destination;
+
+/**
+ * In-memory player: stand-ins for its entity ref, its components and the context of the {@code
+ * /tp2world <world>} command it runs.
+ */
+final class SimulatedPlayer {
+
+  @Nonnull private final UUID uuid;
+  @Nonnull private final String username;
+  @Nonnull private final Ref<EntityStore> ref;
+  @Nonnull private final PlayerRef playerRef;
+  @Nonnull private final TransformComponent transform;
+  @Nonnull private final HeadRotation headRotation;
+  @Nonnull private final CommandSender sender;
+  @Nonnull private final CommandContext commandContext;
+  @Nullable private SimulatedWorld world;
+  @Nullable private SimulatedWorld target;
+  @Nullable private Destination destination;
+  @Nullable private Teleport teleport;
+  private int teleports;
+  private int messages;
+
+  @SuppressWarnings("unchecked")
+  SimulatedPlayer(@Nonnull UUID uuid, @Nonnull String username, @Nonnull SimulatedWorld world) {
+    this.uuid = uuid;
+    this.username = username;
+    this.world = world;
+
+    // Invalid while on the way to another world, like the entity between two stores
+    this.ref = SimulatedServer.standIn(Ref.class);
+    when(ref.isValid()).thenAnswer(invocation -> this.world != null);
+    when(ref.getStore()).thenAnswer(invocation -> this.world.getStore());
+
+    this.playerRef = SimulatedServer.standIn(PlayerRef.class);
+    when(playerRef.getUuid()).thenReturn(uuid);
+    when(playerRef.getUsername()).thenReturn(username);
+    when(playerRef.getReference()).thenReturn(ref);
+
+    this.transform = SimulatedServer.standIn(TransformComponent.class);
+    when(transform.getPosition()).thenReturn(new Vector3d(0.5, 64, 0.5));
+    when(transform.getRotation()).thenReturn(new Rotation3f(0, 0, 0));
+    this.headRotation = SimulatedServer.standIn(HeadRotation.class);
+    when(headRotation.getRotation()).thenReturn(new Rotation3f(0, 0, 0));
+
+    this.sender = SimulatedServer.standIn(CommandSender.class);
+    when(sender.getUuid()).thenReturn(uuid);
+    this.commandContext =
+        mock(
+            CommandContext.class,
+            withSettings().stubOnly().defaultAnswer(this::answerCommandContext));
+  }
+
+  /**
+   * Stands in for the parsed command line: the world is the only argument, the player sends the
+   * command itself and every message is counted.
+   */
+  @Nullable
+  private Object answerCommandContext(@Nonnull InvocationOnMock invocation) throws Throwable {
+    return switch (invocation.getMethod().getName()) {
+      case "get" -> invocation.getArgument(0) instanceof RequiredArg<?> ? destination : null;
+      case "provided" -> invocation.getArgument(0) instanceof RequiredArg<?>;
+      case "sender" -> sender;
+      case "senderAsPlayerRef" -> ref;
+      case "sendMessage" -> {
+        messages++;
+        yield null;
+      }
+      default -> RETURNS_DEFAULTS.answer(invocation);
+    };
+  }
+
+  /**
+   * Sets the world the next command sends the player to.
+   *
+   * @param target the target world
+   * @return the context of {@code /tp2world <target>}
+   */
+  @Nonnull
+  CommandContext commandTo(@Nonnull SimulatedWorld target) {
+    this.target = target;
+    this.destination = new Destination.Local(target.getWorld());
+    return commandContext;
+  }
+
+  /** Leaves the current world with the teleport that was added. */
+  @Nonnull
+  SimulatedPlayer leave() {
+    world = null;
+    teleport = null;
+    return this;
+  }
+
+  /** Joins the target world, called on its thread. */
+  void arrive(@Nonnull SimulatedWorld target) {
+    world = target;
+    teleports++;
+  }
+
+  @Nonnull
+  UUID getUuid() {
+    return uuid;
+  }
+
+  @Nonnull
+  String getUsername() {
+    return username;
+  }
+
+  @Nonnull
+  Ref<EntityStore> getRef() {
+    return ref;
+  }
+
+  @Nonnull
+  PlayerRef getPlayerRef() {
+    return playerRef;
+  }
+
+  @Nonnull
+  TransformComponent getTransform() {
+    return transform;
+  }
+
+  @Nonnull
+  HeadRotation getHeadRotation() {
+    return headRotation;
+  }
+
+  /**
+   * @return the world the player is in, null while on the way to another one
+   */
+  @Nullable
+  SimulatedWorld getWorld() {
+    return world;
+  }
+
+  /**
+   * @return the world of the last command, null if none was sent yet
+   */
+  @Nullable
+  SimulatedWorld getTarget() {
+    return target;
+  }
+
+  /**
+   * @return the teleport added in the current world, null if none was
+   */
+  @Nullable
+  Teleport getTeleport() {
+    return teleport;
+  }
+
+  void setTeleport(@Nullable Teleport teleport) {
+    this.teleport = teleport;
+  }
+
+  int getTeleports() {
+    return teleports;
+  }
+
+  /**
+   * @return messages the player's commands sent to it
+   */
+  int getMessages() {
+    return messages;
+  }
+}
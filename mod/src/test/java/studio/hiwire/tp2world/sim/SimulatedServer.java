@@ -0,0 +1,241 @@
+package studio.hiwire.tp2world.sim;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Rotation3f;
+import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.joml.Vector3d;
+import org.mockito.MockedStatic;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.arrival.ArrivalTracker;
+import studio.hiwire.tp2world.config.Tp2WorldConfig;
+import studio.hiwire.tp2world.context.Tp2WorldContext;
+import studio.hiwire.tp2world.dispatch.WorldDispatcher;
+import studio.hiwire.tp2world.event.TeleportEvents;
+import studio.hiwire.tp2world.notify.NotificationQueue;
+import studio.hiwire.tp2world.permission.WorldPermissions;
+import studio.hiwire.tp2world.spawn.SpawnSet;
+import studio.hiwire.tp2world.spawn.SpawnSets;
+import studio.hiwire.tp2world.teleport.TeleportCounters;
+
+/**
+ * Mockito-backed stand-ins for the parts of the server the tp2world teleport path touches: the
+ * plugin, worlds with their executor and entity store, and player entities. The tp2world services
+ * behind {@link Tp2WorldPlugin#context()} are the real ones, per-world permissions are disabled and
+ * every world spreads arrivals over its own spawn set.
+ *
+ * <p>While the server is open, {@link Tp2WorldPlugin} and the component types of the entity store
+ * resolve to it. Static stand-ins only apply to the thread that opened the server, everything has
+ * to run on that thread and the server has to be closed before another one is opened.
+ */
+final class SimulatedServer implements AutoCloseable {
+
+  static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+  /** Never read, the snapshot commands only resolve it. */
+  private static final Path DATA_DIRECTORY = Path.of("build", "simulation");
+
+  /** Arrivals are counted per tick, they never time out during a run. */
+  private static final long ARRIVAL_TIMEOUT_MILLIS = 60_000;
+
+  private static final int SPAWN_CELL_SIZE = 8;
+
+  @Nonnull final ComponentType<EntityStore, TransformComponent> transformType = componentType();
+  @Nonnull final ComponentType<EntityStore, HeadRotation> headRotationType = componentType();
+  @Nonnull final ComponentType<EntityStore, PlayerRef> playerRefType = componentType();
+  @Nonnull final ComponentType<EntityStore, Teleport> teleportType = componentType();
+
+  @Nonnull private final WorldDispatcher dispatcher = new WorldDispatcher(LOGGER);
+
+  @Nonnull
+  private final ArrivalTracker arrivals =
+      new ArrivalTracker(dispatcher, () -> ARRIVAL_TIMEOUT_MILLIS, LOGGER);
+
+  @Nonnull private final TeleportCounters teleportCounters = new TeleportCounters();
+  private final Map<String, SpawnSet> spawnSets = new HashMap<>();
+  private final Map<Ref<EntityStore>, SimulatedPlayer> entities = new IdentityHashMap<>();
+  private final List<SimulatedWorld> worlds = new ArrayList<>();
+  private final List<SimulatedPlayer> players = new ArrayList<>();
+  private final List<MockedStatic<?>> statics = new ArrayList<>();
+
+  SimulatedServer() {
+    final SpawnSets spawnSetsStandIn = standIn(SpawnSets.class);
+    when(spawnSetsStandIn.get(anyString()))
+        .thenAnswer(invocation -> spawnSets.get(invocation.<String>getArgument(0)));
+    final Tp2WorldPlugin plugin = standIn(Tp2WorldPlugin.class);
+    when(plugin.getDataDirectory()).thenReturn(DATA_DIRECTORY);
+    when(plugin.getLogger()).thenReturn(LOGGER);
+    final var context =
+        new Tp2WorldContext(
+            new Tp2WorldConfig(),
+            dispatcher,
+            arrivals,
+            new WorldPermissions(16, () -> false),
+            spawnSetsStandIn,
+            null,
+            new NotificationQueue(64, 64, 50, LOGGER),
+            new TeleportEvents(LOGGER),
+            teleportCounters);
+
+    try {
+      final var plugins = open(Tp2WorldPlugin.class);
+      plugins.when(Tp2WorldPlugin::context).thenReturn(context);
+      plugins.when(Tp2WorldPlugin::get).thenReturn(plugin);
+      open(TransformComponent.class)
+          .when(TransformComponent::getComponentType)
+          .thenReturn(transformType);
+      open(HeadRotation.class).when(HeadRotation::getComponentType).thenReturn(headRotationType);
+      open(PlayerRef.class).when(PlayerRef::getComponentType).thenReturn(playerRefType);
+      open(Teleport.class).when(Teleport::getComponentType).thenReturn(teleportType);
+    } catch (RuntimeException e) {
+      // A half opened server would block every later one on this thread
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * @param type the class to stand in for
+   * @return a mock that only answers, it records no invocations
+   */
+  @Nonnull
+  static <T> T standIn(@Nonnull Class<T> type) {
+    return mock(type, withSettings().stubOnly());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nonnull
+  private static <T extends Component<EntityStore>> ComponentType<EntityStore, T> componentType() {
+    return standIn(ComponentType.class);
+  }
+
+  @Nonnull
+  private <T> MockedStatic<T> open(@Nonnull Class<T> type) {
+    final var mocked = mockStatic(type);
+    statics.add(mocked);
+    return mocked;
+  }
+
+  /**
+   * Adds a world with a spawn set of four points around its origin.
+   *
+   * @param name the world name
+   * @return the world
+   */
+  @Nonnull
+  SimulatedWorld addWorld(@Nonnull String name) {
+    final var world = new SimulatedWorld(name, this);
+    worlds.add(world);
+    spawnSets.put(
+        name,
+        new SpawnSet(
+            name,
+            List.of(
+                new SpawnSet.Point(new Vector3d(16.5, 64, 0.5), new Rotation3f(0, 0, 0)),
+                new SpawnSet.Point(new Vector3d(-15.5, 64, 0.5), new Rotation3f(0, 3.14f, 0)),
+                new SpawnSet.Point(new Vector3d(0.5, 64, 16.5), new Rotation3f(0, 1.57f, 0)),
+                new SpawnSet.Point(new Vector3d(0.5, 64, -15.5), new Rotation3f(0, -1.57f, 0))),
+            SPAWN_CELL_SIZE));
+    return world;
+  }
+
+  /**
+   * Adds a player to a world.
+   *
+   * @param username the player name
+   * @param world the world the player starts in
+   * @return the player
+   */
+  @Nonnull
+  SimulatedPlayer addPlayer(@Nonnull String username, @Nonnull SimulatedWorld world) {
+    final var player = new SimulatedPlayer(new UUID(0, players.size()), username, world);
+    entities.put(player.getRef(), player);
+    world.getPlayers().add(player);
+    players.add(player);
+    return player;
+  }
+
+  /** Answers {@code Store#getComponent} of every world. */
+  @Nullable
+  Object component(@Nonnull Ref<EntityStore> ref, @Nonnull ComponentType<?, ?> type) {
+    final var player = entities.get(ref);
+    if (player == null) {
+      return null;
+    }
+    if (type == transformType) {
+      return player.getTransform();
+    } else if (type == headRotationType) {
+      return player.getHeadRotation();
+    } else if (type == playerRefType) {
+      return player.getPlayerRef();
+    } else if (type == teleportType) {
+      return player.getTeleport();
+    }
+    return null;
+  }
+
+  /** Answers {@code Store#addComponent} of every world, only teleports are kept. */
+  void addComponent(
+      @Nonnull Ref<EntityStore> ref,
+      @Nonnull ComponentType<?, ?> type,
+      @Nullable Object component) {
+    final var player = entities.get(ref);
+    if (player != null && type == teleportType) {
+      player.setTeleport((Teleport) component);
+    }
+  }
+
+  @Nonnull
+  WorldDispatcher getDispatcher() {
+    return dispatcher;
+  }
+
+  @Nonnull
+  ArrivalTracker getArrivals() {
+    return arrivals;
+  }
+
+  @Nonnull
+  TeleportCounters getTeleportCounters() {
+    return teleportCounters;
+  }
+
+  @Nonnull
+  List<SimulatedWorld> getWorlds() {
+    return worlds;
+  }
+
+  @Nonnull
+  List<SimulatedPlayer> getPlayers() {
+    return players;
+  }
+
+  @Override
+  public void close() {
+    for (MockedStatic<?> mocked : statics) {
+      mocked.close();
+    }
+    statics.clear();
+  }
+}
@@ -0,0 +1,147 @@
+package studio.hiwire.tp2world.sim;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import javax.annotation.Nonnull;
+
+/**
+ * In-memory world and its thread. The {@link World} stand-in only queues in {@code execute}, and
+ * {@link #tick} runs what was queued before the tick started, so work queued during a tick waits
+ * for the next one. Its {@link Store} stand-in serves the components of the players in the world.
+ *
+ * <p>Players whose teleport was started leave in {@link #handOver}, after every world ticked, and
+ * join their target world at the start of its next tick. Joining fires the arrival the same way
+ * the server's add-player event does.
+ */
+final class SimulatedWorld {
+
+  @Nonnull private final String name;
+  @Nonnull private final SimulatedServer server;
+  @Nonnull private final World world;
+  @Nonnull private final Store<EntityStore> store;
+  private final Queue<Runnable> scheduled = new ArrayDeque<>();
+  private final Queue<SimulatedPlayer> joining = new ArrayDeque<>();
+  private final Set<SimulatedPlayer> players = new HashSet<>();
+  private int executes;
+  private int ticks;
+  private long tickNanosTotal;
+  private long tickNanosMax;
+
+  @SuppressWarnings("unchecked")
+  SimulatedWorld(@Nonnull String name, @Nonnull SimulatedServer server) {
+    this.name = name;
+    this.server = server;
+
+    this.world = SimulatedServer.standIn(World.class);
+    when(world.getName()).thenReturn(name);
+    doAnswer(
+            invocation -> {
+              executes++;
+              scheduled.add(invocation.getArgument(0));
+              return null;
+            })
+        .when(world)
+        .execute(any());
+
+    final EntityStore externalData = SimulatedServer.standIn(EntityStore.class);
+    when(externalData.getWorld()).thenReturn(world);
+    this.store = SimulatedServer.standIn(Store.class);
+    when(store.getExternalData()).thenReturn(externalData);
+    when(store.getComponent(any(), any()))
+        .thenAnswer(
+            invocation -> server.component(invocation.getArgument(0), invocation.getArgument(1)));
+    doAnswer(
+            invocation -> {
+              server.addComponent(
+                  invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+              return null;
+            })
+        .when(store)
+        .addComponent(any(), any(), any());
+  }
+
+  /** Runs one tick and records how long the arrivals and the queued tp2world work took. */
+  void tick() {
+    final long start = System.nanoTime();
+    for (int i = joining.size(); i > 0; i--) {
+      final var player = joining.remove();
+      players.add(player);
+      player.arrive(this);
+      server.getArrivals().getPending().arrived(player.getUuid(), name, System.nanoTime());
+    }
+    for (int i = scheduled.size(); i > 0; i--) {
+      scheduled.remove().run();
+    }
+    final long nanos = System.nanoTime() - start;
+    ticks++;
+    tickNanosTotal += nanos;
+    tickNanosMax = Math.max(tickNanosMax, nanos);
+  }
+
+  /** What the teleport system does: players with a teleport leave for their target world. */
+  void handOver() {
+    final var leaving = new ArrayList<SimulatedPlayer>();
+    for (SimulatedPlayer player : players) {
+      if (player.getTeleport() != null) {
+        leaving.add(player);
+      }
+    }
+    for (SimulatedPlayer player : leaving) {
+      players.remove(player);
+      player.getTarget().joining.add(player.leave());
+    }
+  }
+
+  boolean isIdle() {
+    return scheduled.isEmpty() && joining.isEmpty();
+  }
+
+  @Nonnull
+  String getName() {
+    return name;
+  }
+
+  @Nonnull
+  World getWorld() {
+    return world;
+  }
+
+  @Nonnull
+  Store<EntityStore> getStore() {
+    return store;
+  }
+
+  /**
+   * @return the players in this world, only touched on the world thread
+   */
+  @Nonnull
+  Set<SimulatedPlayer> getPlayers() {
+    return players;
+  }
+
+  int getExecutes() {
+    return executes;
+  }
+
+  int getTicks() {
+    return ticks;
+  }
+
+  long getTickNanosTotal() {
+    return tickNanosTotal;
+  }
+
+  long getTickNanosMax() {
+    return tickNanosMax;
+  }
+}
@@ -0,0 +1,112 @@
+package studio.hiwire.tp2world.sim;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import studio.hiwire.tp2world.Tp2WorldPlugin;
+import studio.hiwire.tp2world.teleport.Tp2WorldTeleporter;
+
+/**
+ * Bytes the real {@link Tp2WorldTeleporter#teleport} allocates per call on the world thread. The
+ * stand-ins allocate on every call as well, so a control run that makes the same stand-in calls
+ * without teleporting is subtracted.
+ */
+class TeleportAllocationTest {
+
+  /**
+   * The position, both rotations, the {@link Teleport} component and the result, which the store
+   * and the caller keep, with headroom for what the stand-in calls don't allocate evenly.
+   */
+  private static final long TELEPORT_BUDGET_BYTES = 1024;
+
+  private static final int WARMUP = 10_000;
+  private static final int MEASURED = 20_000;
+
+  private SimulatedServer server;
+  private SimulatedWorld source;
+  private SimulatedWorld target;
+  private SimulatedPlayer player;
+  private Object sink;
+
+  @BeforeEach
+  void setUp() {
+    server = new SimulatedServer();
+    source = server.addWorld("source");
+    target = server.addWorld("target");
+    player = server.addPlayer("player", source);
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close();
+  }
+
+  /**
+   * @return bytes allocated by the calling thread per call of the task, after a warmup
+   */
+  private static long allocatedBytesPerCall(Runnable task) {
+    final var threads = ManagementFactory.getThreadMXBean();
+    assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    final var allocations = (com.sun.management.ThreadMXBean) threads;
+    assumeTrue(allocations.isThreadAllocatedMemorySupported());
+    allocations.setThreadAllocatedMemoryEnabled(true);
+
+    for (int i = 0; i < WARMUP; i++) {
+      task.run();
+    }
+    final long threadId = Thread.currentThread().threadId();
+    final long before = allocations.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < MEASURED; i++) {
+      task.run();
+    }
+    return (allocations.getThreadAllocatedBytes(threadId) - before) / MEASURED;
+  }
+
+  private void teleport() {
+    sink =
+        Tp2WorldTeleporter.teleport(
+            source.getStore(),
+            player.getRef(),
+            target.getWorld(),
+            Tp2WorldTeleporter.Options.SPAWN);
+  }
+
+  /** The stand-in calls a teleport to a spawn set makes, in the same number. */
+  private void standInCalls(Teleport teleport) {
+    final var context = Tp2WorldPlugin.context();
+    final var store = source.getStore();
+    final var ref = player.getRef();
+    final var transform = store.getComponent(ref, TransformComponent.getComponentType());
+    sink = store.getComponent(ref, HeadRotation.getComponentType());
+    sink = transform.getPosition();
+    sink = transform.getRotation();
+    sink = store.getExternalData().getWorld();
+    sink = context.spawnSets().get(target.getWorld().getName());
+    store.addComponent(ref, Teleport.getComponentType(), teleport);
+    sink = target.getWorld().getName();
+  }
+
+  @Test
+  void shouldStayWithinBudgetPerTeleport(TestReporter reporter) {
+    teleport();
+    final var teleport = player.getTeleport();
+    assertNotNull(teleport, "teleport added");
+
+    final long control = allocatedBytesPerCall(() -> standInCalls(teleport));
+    final long bytes = allocatedBytesPerCall(this::teleport) - control;
+    reporter.publishEntry("Bytes per teleport", bytes + " (stand-ins " + control + ")");
+
+    assertTrue(
+        bytes <= TELEPORT_BUDGET_BYTES,
+        bytes + " bytes per teleport, budget " + TELEPORT_BUDGET_BYTES);
+  }
+}
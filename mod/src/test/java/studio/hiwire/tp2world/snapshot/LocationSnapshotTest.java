@@ -0,0 +1,160 @@
+package studio.hiwire.tp2world.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import org.joml.Vector3d;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class LocationSnapshotTest {
+
+  private static final double EPSILON = 1e-6;
+
+  private static final UUID ALICE = new UUID(1, 2);
+  private static final UUID BOB = new UUID(-3, 4);
+  private static final UUID CAROL = new UUID(5, -6);
+
+  private static LocationSnapshot roundTrip(LocationSnapshot snapshot) throws IOException {
+    final var out = new ByteArrayOutputStream();
+    snapshot.write(out);
+    return LocationSnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+  }
+
+  @Nested
+  class Builder {
+
+    @Test
+    void shouldKeepEntriesInOrder() {
+      final var snapshot =
+          new LocationSnapshot.Builder(1)
+              .add(
+                  ALICE,
+                  "lobby",
+                  new Vector3d(1, 2, 3),
+                  new Rotation3f(0.1f, 0.2f, 0.3f),
+                  new Rotation3f(0, 0.2f, 0))
+              .add(BOB, "arena", new Vector3d(4, 5, 6), new Rotation3f(), new Rotation3f())
+              .add(CAROL, "lobby", new Vector3d(7, 8, 9), new Rotation3f(), new Rotation3f())
+              .build(42);
+
+      assertEquals(3, snapshot.size());
+      assertEquals(2, snapshot.worldCount());
+      assertEquals(42, snapshot.createdAtMillis());
+      assertEquals(BOB, snapshot.uuid(1));
+      assertEquals("lobby", snapshot.worldName(2));
+      assertEquals(8, snapshot.position(2).y(), EPSILON);
+      assertEquals(0.3f, snapshot.headRotation(0).roll(), EPSILON);
+      assertEquals(0.2f, snapshot.bodyRotation(0).yaw(), EPSILON);
+    }
+  }
+
+  @Nested
+  class Concat {
+
+    @Test
+    void shouldRemapWorlds() {
+      final var first =
+          new LocationSnapshot.Builder(1)
+              .add(ALICE, "lobby", new Vector3d(), new Rotation3f(), new Rotation3f())
+              .build(0);
+      final var second =
+          new LocationSnapshot.Builder(2)
+              .add(BOB, "arena", new Vector3d(), new Rotation3f(), new Rotation3f())
+              .add(CAROL, "lobby", new Vector3d(0, 1, 0), new Rotation3f(), new Rotation3f())
+              .build(0);
+
+      final var snapshot = LocationSnapshot.concat(List.of(first, second), 7);
+
+      assertEquals(3, snapshot.size());
+      assertEquals(2, snapshot.worldCount());
+      assertEquals("lobby", snapshot.worldName(0));
+      assertEquals("arena", snapshot.worldName(1));
+      assertEquals("lobby", snapshot.worldName(2));
+      assertEquals(1, snapshot.position(2).y(), EPSILON);
+      assertEquals(2, snapshot.indexByUuid().get(CAROL));
+    }
+
+    @Test
+    void shouldHandleNoParts() {
+      assertEquals(0, LocationSnapshot.concat(List.of(), 0).size());
+    }
+  }
+
+  @Nested
+  class Binary {
+
+    @Test
+    void shouldRoundTrip() throws IOException {
+      final var snapshot =
+          new LocationSnapshot.Builder(2)
+              .add(
+                  ALICE,
+                  "lobby",
+                  new Vector3d(1.5, -64, 1e6),
+                  new Rotation3f(0.1f, -3f, 0),
+                  new Rotation3f(0, -3f, 0))
+              .add(BOB, "arena", new Vector3d(4, 5, 6), new Rotation3f(), new Rotation3f())
+              .build(1234);
+
+      final var read = roundTrip(snapshot);
+
+      assertEquals(1234, read.createdAtMillis());
+      assertEquals(2, read.size());
+      assertEquals(ALICE, read.uuid(0));
+      assertEquals(BOB, read.uuid(1));
+      assertEquals("arena", read.worldName(1));
+      assertEquals(1e6, read.position(0).z(), EPSILON);
+      assertEquals(-3f, read.headRotation(0).yaw(), EPSILON);
+      assertEquals(-3f, read.bodyRotation(0).yaw(), EPSILON);
+    }
+
+    @Test
+    void shouldRoundTripManyEntries() throws IOException {
+      final var builder = new LocationSnapshot.Builder(16);
+      for (int i = 0; i < 20_000; i++) {
+        builder.add(
+            new UUID(i, -i),
+            "world-" + (i % 7),
+            new Vector3d(i, i * 2, i * 3),
+            new Rotation3f(),
+            new Rotation3f(0, i, 0));
+      }
+
+      final var read = roundTrip(builder.build(0));
+
+      assertEquals(20_000, read.size());
+      assertEquals(7, read.worldCount());
+      assertEquals(new UUID(19_999, -19_999), read.uuid(19_999));
+      assertEquals("world-3", read.worldName(10));
+      assertEquals(3 * 12_345, read.position(12_345).z(), EPSILON);
+      assertEquals(777f, read.bodyRotation(777).yaw(), EPSILON);
+    }
+
+    @Test
+    void shouldRejectOtherData() {
+      assertThrows(
+          IOException.class,
+          () -> LocationSnapshot.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6})));
+    }
+
+    @Test
+    void shouldRejectTruncatedData() throws IOException {
+      final var out = new ByteArrayOutputStream();
+      new LocationSnapshot.Builder(1)
+          .add(ALICE, "lobby", new Vector3d(), new Rotation3f(), new Rotation3f())
+          .build(0)
+          .write(out);
+      final var bytes = Arrays.copyOf(out.toByteArray(), out.size() - 4);
+
+      assertThrows(IOException.class, () -> LocationSnapshot.read(new ByteArrayInputStream(bytes)));
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package studio.hiwire.tp2world.spawn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.util.List;
+import org.joml.Vector3d;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class SpawnSetTest {
+
+  private static final SpawnSet.Point NORTH =
+      new SpawnSet.Point(new Vector3d(0, 64, -20), new Rotation3f());
+  private static final SpawnSet.Point SOUTH =
+      new SpawnSet.Point(new Vector3d(0, 64, 20), new Rotation3f());
+  private static final SpawnSet.Point EAST =
+      new SpawnSet.Point(new Vector3d(20, 64, 0), new Rotation3f());
+
+  private static SpawnSet hub() {
+    return new SpawnSet("hub", List.of(NORTH, SOUTH, EAST), 8);
+  }
+
+  @Nested
+  class Pick {
+
+    @Test
+    void shouldPickLeastCrowdedPoint() {
+      final var spawnSet = hub();
+      final var tracker = new OccupancyTracker<String>(spawnSet);
+      tracker.update("a", 1, -19);
+      tracker.update("b", 2, -18);
+      tracker.update("c", 21, 1);
+
+      assertSame(SOUTH, spawnSet.pick(System.nanoTime()));
+    }
+
+    @Test
+    void shouldSpreadBurstAcrossPoints() {
+      final var spawnSet = hub();
+      final long now = System.nanoTime();
+
+      final int[] picks = new int[3];
+      for (int i = 0; i < 30; i++) {
+        picks[spawnSet.points().indexOf(spawnSet.pick(now))]++;
+      }
+
+      assertEquals(10, picks[0]);
+      assertEquals(10, picks[1]);
+      assertEquals(10, picks[2]);
+    }
+
+    @Test
+    void shouldForgetReservationsOnceArrived() {
+      final var spawnSet = hub();
+      final long now = System.nanoTime();
+      spawnSet.pick(now);
+      spawnSet.pick(now);
+
+      // North and south were picked long ago, only the players standing there count now
+      final long later = now + SpawnSet.RESERVATION_NANOS + 1;
+      final var tracker = new OccupancyTracker<String>(spawnSet);
+      tracker.update("a", 0, -20);
+      tracker.update("b", 20, 0);
+
+      assertSame(SOUTH, spawnSet.pick(later));
+    }
+  }
+
+  @Nested
+  class Tracker {
+
+    @Test
+    void shouldCountPlayersMovingBetweenCells() {
+      final var spawnSet = hub();
+      final var tracker = new OccupancyTracker<String>(spawnSet);
+
+      tracker.update("a", 0, -20);
+      assertEquals(1, spawnSet.occupants(0));
+
+      tracker.update("a", 100, 100);
+      assertEquals(0, spawnSet.occupants(0));
+
+      tracker.update("a", 20, 0);
+      assertEquals(1, spawnSet.occupants(2));
+    }
+
+    @Test
+    void shouldNotCountMovesWithinCell() {
+      final var spawnSet = hub();
+      final var tracker = new OccupancyTracker<String>(spawnSet);
+
+      tracker.update("a", 0.5, 20.5);
+      tracker.update("a", 1.5, 21.5);
+      tracker.update("a", 2.5, 22.5);
+
+      assertEquals(1, spawnSet.occupants(1));
+    }
+
+    @Test
+    void shouldUncountRemovedPlayers() {
+      final var spawnSet = hub();
+      final var tracker = new OccupancyTracker<String>(spawnSet);
+      tracker.update("a", 0, 20);
+      tracker.update("b", 0, 20);
+      tracker.update("c", 0, 20);
+
+      tracker.remove("a");
+      tracker.retain(player -> !player.equals("b"));
+
+      assertEquals(1, spawnSet.occupants(1));
+      assertEquals(1, tracker.size());
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package studio.hiwire.tp2world.teleport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.hypixel.hytale.math.vector.Rotation3f;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TargetRotationsTest {
+
+  private static void assertRotation(float pitch, float yaw, float roll, Rotation3f rotation) {
+    assertEquals(pitch, rotation.pitch(), 1e-6f);
+    assertEquals(yaw, rotation.yaw(), 1e-6f);
+    assertEquals(roll, rotation.roll(), 1e-6f);
+  }
+
+  @Nested
+  class Fallbacks {
+
+    @Test
+    void shouldFaceBodyLikeSpawnPoint() {
+      final var rotations = new TargetRotations().head(new Rotation3f(0.1f, 1.2f, 0.3f));
+      rotations.bodyFacingHead();
+
+      assertRotation(0.1f, 1.2f, 0.3f, rotations.newHeadRotation());
+      assertRotation(0, 1.2f, 0, rotations.newBodyRotation());
+    }
+
+    @Test
+    void shouldKeepPreviousBodyPitchAndRoll() {
+      final var rotations = new TargetRotations().head(0, 0, 0).head(new Rotation3f(0, 2, 0));
+      rotations.bodyFacingHead(new Rotation3f(0.4f, -1, 0.5f));
+
+      assertRotation(0, 2, 0, rotations.newHeadRotation());
+      assertRotation(0.4f, 2, 0.5f, rotations.newBodyRotation());
+    }
+
+    @Test
+    void shouldReturnNewRotationsEveryTime() {
+      final var rotations = new TargetRotations().head(1, 2, 3);
+      final var first = rotations.newHeadRotation();
+      rotations.head(4, 5, 6);
+
+      assertRotation(1, 2, 3, first);
+      assertRotation(4, 5, 6, rotations.newHeadRotation());
+    }
+
+    @Test
+    void shouldReuseScratchPerThread() {
+      assertSame(TargetRotations.get(), TargetRotations.get());
+    }
+
+    @Test
+    void shouldConvertToDegreesForDisplay() {
+      assertEquals(180, TargetRotations.degrees((float) Math.PI), 1e-3f);
+      assertEquals(0, TargetRotations.degrees(Float.NaN));
+    }
+  }
+
+  @Nested
+  class AllocationBudget {
+
+    /** Two {@link Rotation3f} objects of at most 32 bytes each, nothing else. */
+    private static final long TELEPORT_BUDGET_BYTES = 64;
+
+    private static final int WARMUP = 50_000;
+    private static final int MEASURED = 200_000;
+
+    private final Rotation3f spawn = new Rotation3f(0.1f, 1.2f, 0.3f);
+    private final Rotation3f override = new Rotation3f(0, 2, 0);
+    private final Rotation3f previousBody = new Rotation3f(0.4f, -1, 0.5f);
+    private Rotation3f sink;
+    private float floatSink;
+
+    /**
+     * @return bytes allocated by the calling thread per call of the task, after a warmup
+     */
+    private long allocatedBytesPerCall(Runnable task) {
+      final var threads = ManagementFactory.getThreadMXBean();
+      assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+      final var allocations = (com.sun.management.ThreadMXBean) threads;
+      assumeTrue(allocations.isThreadAllocatedMemorySupported());
+      allocations.setThreadAllocatedMemoryEnabled(true);
+
+      for (int i = 0; i < WARMUP; i++) {
+        task.run();
+      }
+      final long threadId = Thread.currentThread().threadId();
+      final long before = allocations.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < MEASURED; i++) {
+        task.run();
+      }
+      return (allocations.getThreadAllocatedBytes(threadId) - before) / MEASURED;
+    }
+
+    @Test
+    void shouldNotAllocateForFallbacks() {
+      final long bytes =
+          allocatedBytesPerCall(
+              () ->
+                  TargetRotations.get()
+                      .head(0, 0, 0)
+                      .head(spawn)
+                      .head(override)
+                      .bodyFacingHead(previousBody)
+                      .bodyFacingHead());
+
+      assertEquals(0, bytes, "bytes per teleport");
+    }
+
+    @Test
+    void shouldOnlyAllocateFinalRotations() {
+      final long bytes =
+          allocatedBytesPerCall(
+              () -> {
+                final var rotations = TargetRotations.get().head(spawn).head(override);
+                rotations.bodyFacingHead(previousBody);
+                sink = rotations.newHeadRotation();
+                sink = rotations.newBodyRotation();
+              });
+
+      assertTrue(
+          bytes <= TELEPORT_BUDGET_BYTES,
+          bytes + " bytes per teleport, budget " + TELEPORT_BUDGET_BYTES);
+    }
+
+    @Test
+    void shouldNotAllocateForDegrees() {
+      final long bytes =
+          allocatedBytesPerCall(
+              () ->
+                  floatSink =
+                      TargetRotations.degrees(spawn.pitch())
+                          + TargetRotations.degrees(spawn.yaw())
+                          + TargetRotations.degrees(Float.NaN));
+
+      assertEquals(0, bytes, "bytes per conversion");
+    }
+  }
+}
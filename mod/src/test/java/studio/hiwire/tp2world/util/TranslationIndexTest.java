@@ -0,0 +1,124 @@
+package studio.hiwire.tp2world.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TranslationIndexTest {
+
+  private static final List<String> DEFAULTS =
+      List.of(
+          "# Greetings",
+          "Key.One=Hello {Name}",
+          "",
+          "# Second section",
+          "# with two comment lines",
+          "Key.Two=Bye = for now",
+          "Key.Three=");
+
+  private final TranslationMerger merger = new TranslationMerger();
+
+  private static byte[] write(Map<String, TranslationMerger.Defaults> files) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TranslationIndex.write(files, out);
+    return out.toByteArray();
+  }
+
+  @Nested
+  class Parse {
+
+    @Test
+    void shouldRecordKeyOrderValuesAndContext() {
+      TranslationMerger.Defaults defaults = merger.parseDefaults(DEFAULTS);
+
+      assertEquals(
+          List.of(
+              new TranslationMerger.Defaults.Key("Key.One", "Hello {Name}", 1, 0),
+              new TranslationMerger.Defaults.Key("Key.Two", "Bye = for now", 5, 2),
+              new TranslationMerger.Defaults.Key("Key.Three", "", 6, 6)),
+          defaults.keys());
+      assertEquals(DEFAULTS, defaults.lines());
+    }
+
+    @Test
+    void shouldMergeLikeTheTextFile() {
+      List<String> user = List.of("Key.Two=Tschüss", "# Key.Three=outdated");
+
+      assertEquals(
+          merger.merge(DEFAULTS, user), merger.merge(merger.parseDefaults(DEFAULTS), user));
+      assertEquals(
+          merger.generateOverride(DEFAULTS),
+          merger.generateOverride(merger.parseDefaults(DEFAULTS)));
+    }
+  }
+
+  @Nested
+  class RoundTrip {
+
+    @Test
+    void shouldReadWhatWasWritten() throws IOException {
+      Map<String, TranslationMerger.Defaults> files = new LinkedHashMap<>();
+      files.put("Server/Languages/en-US/A.lang", merger.parseDefaults(DEFAULTS));
+      files.put("Server/Languages/de-DE/A.lang", merger.parseDefaults(List.of("Key=Wert")));
+
+      Map<String, TranslationMerger.Defaults> read =
+          TranslationIndex.read(new ByteArrayInputStream(write(files)));
+
+      assertEquals(files, read);
+    }
+
+    @Test
+    void shouldDropFilesThatDontMatchTheirDigest() throws IOException {
+      byte[] index = write(Map.of("Server/Languages/en-US/A.lang", merger.parseDefaults(DEFAULTS)));
+      // Flip one character of a line, the digest stays the old one
+      String text = new String(index, StandardCharsets.ISO_8859_1);
+      int at = text.indexOf("Hello");
+      index[at] = 'J';
+
+      assertTrue(TranslationIndex.read(new ByteArrayInputStream(index)).isEmpty());
+    }
+
+    @Test
+    void shouldRejectOtherData() {
+      assertThrows(
+          IOException.class,
+          () -> TranslationIndex.read(new ByteArrayInputStream("Key=Value".getBytes())));
+    }
+  }
+
+  @Nested
+  class Build {
+
+    @Test
+    void shouldIndexEveryLangFileByResourcePath(@TempDir Path dir) throws IOException {
+      Path english = dir.resolve("Server/Languages/en-US/HiWire.Tp2World.Commands.lang");
+      Files.createDirectories(english.getParent());
+      Files.write(english, DEFAULTS, StandardCharsets.UTF_8);
+      Files.writeString(english.resolveSibling("README.txt"), "not a translation");
+      Path index = dir.resolve("out/translations.index");
+
+      TranslationIndex.main(new String[] {dir.toString(), index.toString()});
+
+      try (var in = Files.newInputStream(index)) {
+        assertEquals(
+            Map.of(
+                "Server/Languages/en-US/HiWire.Tp2World.Commands.lang",
+                merger.parseDefaults(DEFAULTS)),
+            TranslationIndex.read(in));
+      }
+    }
+  }
+}
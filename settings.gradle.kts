@@ -1,3 +1,4 @@
 rootProject.name = "tp2world"
 
 include("mod")
+include("jcstress")